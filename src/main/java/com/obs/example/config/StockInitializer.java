@@ -0,0 +1,30 @@
+package com.obs.example.config;
+
+import com.obs.example.service.MovementWriteService;
+import com.obs.example.service.ReservationService;
+import com.obs.example.service.StockService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+/**
+ * Replays unwritten journaled movements, backfills missing balances, warms the stock index and
+ * reschedules reservation expiry before the application reports ready.
+ */
+@Component
+@RequiredArgsConstructor
+public class StockInitializer implements ApplicationRunner {
+
+    private final MovementWriteService movementWriteService;
+    private final StockService stockService;
+    private final ReservationService reservationService;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        movementWriteService.start();
+        stockService.initializeMissingBalances();
+        stockService.warmUpIndex();
+        reservationService.scheduleActiveReservations();
+    }
+}
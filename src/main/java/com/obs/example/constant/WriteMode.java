@@ -0,0 +1,7 @@
+package com.obs.example.constant;
+
+public enum WriteMode {
+
+    DIRECT, JOURNAL, WRITE_BEHIND
+
+}
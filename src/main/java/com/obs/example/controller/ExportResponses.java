@@ -0,0 +1,60 @@
+package com.obs.example.controller;
+
+import com.obs.example.constant.ExportFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
+
+final class ExportResponses {
+
+    private static final int GZIP_BUFFER_SIZE = 8192;
+
+    private ExportResponses() {
+        throw new UnsupportedOperationException("Utility class cannot be instantiated");
+    }
+
+    @FunctionalInterface
+    interface Export {
+        void writeTo(OutputStream out) throws IOException;
+    }
+
+    /**
+     * Streams an export as an attachment, gzip-compressed on the fly when the client accepts it.
+     * The body is written on the MVC async executor once the handler has returned.
+     */
+    static ResponseEntity<StreamingResponseBody> stream(String name, ExportFormat format, String acceptEncoding,
+                                                        Export export) {
+        return stream(name, format, acceptEncoding, HttpHeaders.EMPTY, export);
+    }
+
+    static ResponseEntity<StreamingResponseBody> stream(String name, ExportFormat format, String acceptEncoding,
+                                                        HttpHeaders headers, Export export) {
+        boolean gzip = acceptEncoding != null && acceptEncoding.toLowerCase(Locale.ROOT).contains("gzip");
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(HttpStatus.OK)
+                .contentType(MediaType.parseMediaType(format.getMediaType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename(name + "." + format.getExtension())
+                        .build()
+                        .toString())
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                .headers(headers);
+        if (!gzip) {
+            return response.body(export::writeTo);
+        }
+
+        return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(out -> {
+            GZIPOutputStream compressed = new GZIPOutputStream(out, GZIP_BUFFER_SIZE);
+            export.writeTo(compressed);
+            compressed.finish();
+        });
+    }
+}
@@ -1,19 +1,31 @@
 package com.obs.example.controller;
 
+import com.obs.example.constant.ExportFormat;
 import com.obs.example.dto.BaseResponseDto;
 import com.obs.example.dto.InventoryDto;
 import com.obs.example.dto.InventoryResponseDto;
 import com.obs.example.exception.BadRequestException;
 import com.obs.example.exception.ResourceNotFoundException;
+import com.obs.example.service.ChangeVersions;
+import com.obs.example.service.ExportService;
+import com.obs.example.service.InventoryCompactionService;
+import com.obs.example.service.InventoryImportService;
 import com.obs.example.service.InventoryService;
+import com.obs.example.utils.ETagUtils;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.InputStream;
+import java.time.Instant;
+import java.util.Locale;
 
 
 @RestController
@@ -22,17 +34,26 @@ import org.springframework.web.bind.annotation.*;
 public class InventoryController {
 
     private final InventoryService inventoryService;
+    private final InventoryCompactionService inventoryCompactionService;
+    private final ChangeVersions changeVersions;
+    private final ExportService exportService;
+    private final InventoryImportService inventoryImportService;
 
     @GetMapping
     public ResponseEntity<BaseResponseDto> getAllInventories(
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size
+            @RequestParam(defaultValue = "10") int size,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch
     ) {
+        String etag = changeVersions.weakEtag(ChangeVersions.Table.INVENTORIES);
+        if (ETagUtils.isNotModified(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
 
         try {
             Pageable pageable = PageRequest.of(page, size);
             Page<InventoryResponseDto> inventories = inventoryService.getAllInventories(pageable);
-            return ResponseEntity.status(HttpStatus.OK).body(
+            return ResponseEntity.status(HttpStatus.OK).eTag(etag).body(
                     BaseResponseDto.builder()
                             .responseCode("00")
                             .responseMessage("success")
@@ -49,10 +70,57 @@ public class InventoryController {
         }
     }
 
-    @GetMapping("/{id}")
-    public ResponseEntity<BaseResponseDto> getInventoryById(@PathVariable Long id) {
+    @GetMapping("/scroll")
+    public ResponseEntity<BaseResponseDto> getInventoriesAfter(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size
+    ) {
         try {
             return ResponseEntity.status(HttpStatus.OK).body(
+                    BaseResponseDto.builder()
+                            .responseCode("00")
+                            .responseMessage("success")
+                            .data(inventoryService.getInventoriesAfter(cursor, size))
+                            .build()
+            );
+        } catch (BadRequestException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(
+                    BaseResponseDto.builder()
+                            .responseCode("400")
+                            .responseMessage(e.getLocalizedMessage())
+                            .build()
+            );
+        } catch (Exception e){
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(
+                    BaseResponseDto.builder()
+                            .responseCode("500")
+                            .responseMessage(e.getLocalizedMessage())
+                            .build()
+            );
+        }
+    }
+
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportInventories(
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding
+    ) {
+        // an unknown format is answered by the exception handler before any body is written
+        ExportFormat exportFormat = exportService.parseFormat(format);
+        return ExportResponses.stream("inventories", exportFormat, acceptEncoding,
+                out -> exportService.exportInventories(exportFormat, out));
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<BaseResponseDto> getInventoryById(@PathVariable Long id,
+                                                            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String etag = changeVersions.etag(ChangeVersions.Table.INVENTORIES, ChangeVersions.Table.ITEMS);
+        if (ETagUtils.isNotModified(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+
+        try {
+            return ResponseEntity.status(HttpStatus.OK).eTag(etag).body(
                     BaseResponseDto.builder()
                             .responseCode("00")
                             .responseMessage("Get inventory by id")
@@ -76,6 +144,33 @@ public class InventoryController {
         }
     }
 
+    @GetMapping("/stock/{itemId}")
+    public ResponseEntity<BaseResponseDto> getItemStockAsOf(@PathVariable Long itemId, @RequestParam Instant asOf) {
+        try {
+            return ResponseEntity.status(HttpStatus.OK).body(
+                    BaseResponseDto.builder()
+                            .responseCode("00")
+                            .responseMessage("Get item stock as of " + asOf)
+                            .data(inventoryService.getItemStockAsOf(itemId, asOf))
+                            .build()
+            );
+        } catch (ResourceNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(
+                    BaseResponseDto.builder()
+                            .responseCode("404")
+                            .responseMessage(e.getLocalizedMessage())
+                            .build()
+            );
+        } catch (Exception e){
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(
+                    BaseResponseDto.builder()
+                            .responseCode("500")
+                            .responseMessage(e.getLocalizedMessage())
+                            .build()
+            );
+        }
+    }
+
     @PostMapping
     public ResponseEntity<BaseResponseDto> saveInventory(@RequestParam(required = false) Long id, @Valid @RequestBody InventoryDto inventoryDto) {
         try {
@@ -93,6 +188,7 @@ public class InventoryController {
                         BaseResponseDto.builder()
                                 .responseCode("00")
                                 .responseMessage("Inventory added successfully")
+                                .data(inventoryDto)
                                 .build()
                 );
             }
@@ -121,6 +217,64 @@ public class InventoryController {
         }
     }
 
+    @PostMapping("/compaction")
+    public ResponseEntity<BaseResponseDto> compactInventories(@RequestParam(required = false) Instant horizon) {
+        try {
+            return ResponseEntity.status(HttpStatus.OK).body(
+                    BaseResponseDto.builder()
+                            .responseCode("00")
+                            .responseMessage("Inventory compacted successfully")
+                            .data(inventoryCompactionService.compact(horizon))
+                            .build()
+            );
+        } catch (BadRequestException e){
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(
+                    BaseResponseDto.builder()
+                            .responseCode("400")
+                            .responseMessage(e.getLocalizedMessage())
+                            .build()
+            );
+        } catch (Exception e){
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(
+                    BaseResponseDto.builder()
+                            .responseCode("500")
+                            .responseMessage(e.getLocalizedMessage())
+                            .build()
+            );
+        }
+    }
+
+    @PostMapping("/import")
+    public ResponseEntity<BaseResponseDto> importInventories(
+            @RequestHeader(value = HttpHeaders.CONTENT_TYPE, required = false) String contentType,
+            InputStream body
+    ) {
+        try {
+            boolean csv = contentType != null && contentType.toLowerCase(Locale.ROOT).contains("csv");
+            return ResponseEntity.status(HttpStatus.OK).body(
+                    BaseResponseDto.builder()
+                            .responseCode("00")
+                            .responseMessage("Inventory imported successfully")
+                            .data(inventoryImportService.importInventories(body, csv))
+                            .build()
+            );
+        } catch (BadRequestException e){
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(
+                    BaseResponseDto.builder()
+                            .responseCode("400")
+                            .responseMessage(e.getLocalizedMessage())
+                            .build()
+            );
+        } catch (Exception e){
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(
+                    BaseResponseDto.builder()
+                            .responseCode("500")
+                            .responseMessage(e.getLocalizedMessage())
+                            .build()
+            );
+        }
+    }
+
     @DeleteMapping("/delete")
     public ResponseEntity<BaseResponseDto> deleteInventory(@RequestParam Long id) {
         try {
@@ -3,20 +3,24 @@ package com.obs.example.controller;
 
 import com.obs.example.dto.BaseResponseDto;
 import com.obs.example.dto.ItemDto;
-import com.obs.example.dto.ItemResponseDto;
 import com.obs.example.entity.Item;
 import com.obs.example.exception.BadRequestException;
 import com.obs.example.exception.ResourceNotFoundException;
+import com.obs.example.service.ChangeVersions;
 import com.obs.example.service.ItemService;
+import com.obs.example.service.ItemUpsertService;
+import com.obs.example.utils.ETagUtils;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 
 
@@ -26,23 +30,31 @@ import java.util.List;
 public class ItemController {
 
     private final ItemService itemService;
+    private final ChangeVersions changeVersions;
+    private final ResponseBodyCache responseBodyCache;
+    private final ItemUpsertService itemUpsertService;
 
     @GetMapping
-    public ResponseEntity<BaseResponseDto> getAllItems(
+    public ResponseEntity<?> getAllItems(
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size
+            @RequestParam(defaultValue = "10") int size,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch
     ) {
+        String etag = listingEtag();
+        if (ETagUtils.isNotModified(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
 
         try {
             Pageable pageable = PageRequest.of(page, size);
-            Page<ItemResponseDto> items = itemService.getAllItems(pageable);
-            return ResponseEntity.status(HttpStatus.OK).body(
-                    BaseResponseDto.builder()
+            return responseBodyCache.getPage("items?page=" + page + "&size=" + size, page,
+                    this::listingEtag,
+                    () -> BaseResponseDto.builder()
                             .responseCode("00")
                             .responseMessage("success")
-                            .data(items)
+                            .data(itemService.getAllItems(pageable))
                             .build()
-            );
+            ).toResponse(ifNoneMatch);
         } catch (Exception e){
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(
                     BaseResponseDto.builder()
@@ -53,16 +65,51 @@ public class ItemController {
         }
     }
 
-    @GetMapping("/{id}")
-    public ResponseEntity<BaseResponseDto> getItemById(@PathVariable Long id) {
+    @GetMapping("/scroll")
+    public ResponseEntity<BaseResponseDto> getItemsAfter(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size
+    ) {
         try {
             return ResponseEntity.status(HttpStatus.OK).body(
                     BaseResponseDto.builder()
                             .responseCode("00")
-                            .responseMessage("Get item by id")
-                            .data(itemService.getItemById(id))
+                            .responseMessage("success")
+                            .data(itemService.getItemsAfter(cursor, size))
                             .build()
             );
+        } catch (BadRequestException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(
+                    BaseResponseDto.builder()
+                            .responseCode("400")
+                            .responseMessage(e.getLocalizedMessage())
+                            .build()
+            );
+        } catch (Exception e){
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(
+                    BaseResponseDto.builder()
+                            .responseCode("500")
+                            .responseMessage(e.getLocalizedMessage())
+                            .build()
+            );
+        }
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<?> getItemById(@PathVariable Long id,
+                                         @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String etag = changeVersions.etag(ChangeVersions.Table.ITEMS);
+        if (ETagUtils.isNotModified(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+
+        try {
+            return responseBodyCache.get("items/" + id, etag, () -> BaseResponseDto.builder()
+                    .responseCode("00")
+                    .responseMessage("Get item by id")
+                    .data(itemService.getItemById(id))
+                    .build()
+            ).toResponse(ifNoneMatch);
         } catch (ResourceNotFoundException e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(
                     BaseResponseDto.builder()
@@ -96,6 +143,7 @@ public class ItemController {
                         BaseResponseDto.builder()
                                 .responseCode("00")
                                 .responseMessage("Item added successfully")
+                                .data(itemDto)
                                 .build()
                 );
             }
@@ -118,6 +166,19 @@ public class ItemController {
     }
 
 
+    @PostMapping("/upsert")
+    public ResponseEntity<BaseResponseDto> upsertItems(InputStream body) throws IOException {
+        // invalid lines are reported in the body; a request that cannot be processed at all is
+        // answered by the exception handler
+        return ResponseEntity.status(HttpStatus.OK).body(
+                BaseResponseDto.builder()
+                        .responseCode("00")
+                        .responseMessage("Items upserted successfully")
+                        .data(itemUpsertService.upsertItems(body))
+                        .build()
+        );
+    }
+
     @DeleteMapping("/delete")
     public ResponseEntity<BaseResponseDto> deleteItem(@RequestParam Long id) {
         try {
@@ -146,4 +207,11 @@ public class ItemController {
 
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * The listing carries the stock of every item, so it changes with the stock as well.
+     */
+    private String listingEtag() {
+        return changeVersions.weakEtag(ChangeVersions.Table.ITEMS, ChangeVersions.Table.STOCK);
+    }
+}
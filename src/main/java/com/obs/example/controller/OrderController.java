@@ -1,36 +1,53 @@
 package com.obs.example.controller;
 
+import com.obs.example.constant.ExportFormat;
 import com.obs.example.dto.*;
 import com.obs.example.exception.BadRequestException;
 import com.obs.example.exception.ResourceNotFoundException;
+import com.obs.example.service.ChangeVersions;
+import com.obs.example.service.ExportService;
+import com.obs.example.service.OrderArchiveService;
 import com.obs.example.service.OrderService;
+import com.obs.example.utils.ETagUtils;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @RestController
 @RequestMapping("/api/orders")
 @RequiredArgsConstructor
 public class OrderController {
 
+    private static final String ARCHIVE_CUTOFF_HEADER = "X-Archive-Cutoff";
+
     private final OrderService orderService;
+    private final OrderArchiveService orderArchiveService;
+    private final ChangeVersions changeVersions;
+    private final ExportService exportService;
 
     @GetMapping
     public ResponseEntity<BaseResponseDto> getAllOrders(
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size
+            @RequestParam(defaultValue = "10") int size,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch
     ) {
+        String etag = changeVersions.weakEtag(ChangeVersions.Table.ORDERS);
+        if (ETagUtils.isNotModified(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
 
         try {
             Pageable pageable = PageRequest.of(page, size);
             Page<OrderResponseDto> items = orderService.getAllOrders(pageable);
-            return ResponseEntity.status(HttpStatus.OK).body(
+            return ResponseEntity.status(HttpStatus.OK).eTag(etag).body(
                     BaseResponseDto.builder()
                             .responseCode("00")
                             .responseMessage("success")
@@ -47,10 +64,63 @@ public class OrderController {
         }
     }
 
-    @GetMapping("/{id}")
-    public ResponseEntity<BaseResponseDto> getOrderId(@PathVariable String id) {
+    @GetMapping("/scroll")
+    public ResponseEntity<BaseResponseDto> getOrdersAfter(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size
+    ) {
         try {
             return ResponseEntity.status(HttpStatus.OK).body(
+                    BaseResponseDto.builder()
+                            .responseCode("00")
+                            .responseMessage("success")
+                            .data(orderService.getOrdersAfter(cursor, size))
+                            .build()
+            );
+        } catch (BadRequestException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(
+                    BaseResponseDto.builder()
+                            .responseCode("400")
+                            .responseMessage(e.getLocalizedMessage())
+                            .build()
+            );
+        } catch (Exception e){
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(
+                    BaseResponseDto.builder()
+                            .responseCode("500")
+                            .responseMessage(e.getLocalizedMessage())
+                            .build()
+            );
+        }
+    }
+
+    /**
+     * Streams the orders in the {@code Orders} table. Orders the archive has moved out are not
+     * included; the {@code X-Archive-Cutoff} header tells up to which creation time that is.
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportOrders(
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding
+    ) {
+        // an unknown format is answered by the exception handler before any body is written
+        ExportFormat exportFormat = exportService.parseFormat(format);
+        HttpHeaders headers = new HttpHeaders();
+        orderArchiveService.findCutoff().ifPresent(cutoff -> headers.set(ARCHIVE_CUTOFF_HEADER, cutoff.toString()));
+        return ExportResponses.stream("orders", exportFormat, acceptEncoding, headers,
+                out -> exportService.exportOrders(exportFormat, out));
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<BaseResponseDto> getOrderId(@PathVariable String id,
+                                                      @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String etag = changeVersions.etag(ChangeVersions.Table.ORDERS, ChangeVersions.Table.ITEMS);
+        if (ETagUtils.isNotModified(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+
+        try {
+            return ResponseEntity.status(HttpStatus.OK).eTag(etag).body(
                     BaseResponseDto.builder()
                             .responseCode("00")
                             .responseMessage("Get order by id")
@@ -91,6 +161,7 @@ public class OrderController {
                         BaseResponseDto.builder()
                                 .responseCode("00")
                                 .responseMessage("Order added successfully")
+                                .data(orderDto)
                                 .build()
                 );
             }
@@ -120,6 +191,67 @@ public class OrderController {
     }
 
 
+    @PostMapping("/basket")
+    public ResponseEntity<BaseResponseDto> placeBasket(@Valid @RequestBody BasketDto basketDto) {
+        try {
+            return ResponseEntity.status(HttpStatus.CREATED).body(
+                    BaseResponseDto.builder()
+                            .responseCode("00")
+                            .responseMessage("Basket added successfully")
+                            .data(orderService.placeBasket(basketDto))
+                            .build()
+            );
+        } catch (BadRequestException e){
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(
+                    BaseResponseDto.builder()
+                            .responseCode("400")
+                            .responseMessage(e.getLocalizedMessage())
+                            .build()
+            );
+        } catch (ResourceNotFoundException e){
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(
+                    BaseResponseDto.builder()
+                            .responseCode("404")
+                            .responseMessage(e.getLocalizedMessage())
+                            .build()
+            );
+        } catch (Exception e){
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(
+                    BaseResponseDto.builder()
+                            .responseCode("500")
+                            .responseMessage(e.getLocalizedMessage())
+                            .build()
+            );
+        }
+    }
+
+    @PostMapping("/archive")
+    public ResponseEntity<BaseResponseDto> archiveOrders(@RequestParam(required = false) Integer olderThanDays) {
+        try {
+            return ResponseEntity.status(HttpStatus.OK).body(
+                    BaseResponseDto.builder()
+                            .responseCode("00")
+                            .responseMessage("Orders archived successfully")
+                            .data(orderArchiveService.archive(olderThanDays))
+                            .build()
+            );
+        } catch (BadRequestException e){
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(
+                    BaseResponseDto.builder()
+                            .responseCode("400")
+                            .responseMessage(e.getLocalizedMessage())
+                            .build()
+            );
+        } catch (Exception e){
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(
+                    BaseResponseDto.builder()
+                            .responseCode("500")
+                            .responseMessage(e.getLocalizedMessage())
+                            .build()
+            );
+        }
+    }
+
     @DeleteMapping("/delete")
     public ResponseEntity<BaseResponseDto> deleteItem(@RequestParam String orderNo) {
         try {
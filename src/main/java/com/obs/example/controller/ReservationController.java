@@ -0,0 +1,142 @@
+package com.obs.example.controller;
+
+import com.obs.example.dto.BaseResponseDto;
+import com.obs.example.dto.ReservationDto;
+import com.obs.example.exception.BadRequestException;
+import com.obs.example.exception.ResourceNotFoundException;
+import com.obs.example.service.ReservationService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/orders/reservations")
+@RequiredArgsConstructor
+public class ReservationController {
+
+    private final ReservationService reservationService;
+
+    @GetMapping("/{reservationNo}")
+    public ResponseEntity<BaseResponseDto> getReservation(@PathVariable String reservationNo) {
+        try {
+            return ResponseEntity.status(HttpStatus.OK).body(
+                    BaseResponseDto.builder()
+                            .responseCode("00")
+                            .responseMessage("Get reservation by id")
+                            .data(reservationService.getReservation(reservationNo))
+                            .build()
+            );
+        } catch (ResourceNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(
+                    BaseResponseDto.builder()
+                            .responseCode("404")
+                            .responseMessage(e.getLocalizedMessage())
+                            .build()
+            );
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(
+                    BaseResponseDto.builder()
+                            .responseCode("500")
+                            .responseMessage(e.getLocalizedMessage())
+                            .build()
+            );
+        }
+    }
+
+    @PostMapping
+    public ResponseEntity<BaseResponseDto> reserve(@Valid @RequestBody ReservationDto reservationDto) {
+        try {
+            return ResponseEntity.status(HttpStatus.CREATED).body(
+                    BaseResponseDto.builder()
+                            .responseCode("00")
+                            .responseMessage("Reservation added successfully")
+                            .data(reservationService.reserve(reservationDto))
+                            .build()
+            );
+        } catch (BadRequestException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(
+                    BaseResponseDto.builder()
+                            .responseCode("400")
+                            .responseMessage(e.getLocalizedMessage())
+                            .build()
+            );
+        } catch (ResourceNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(
+                    BaseResponseDto.builder()
+                            .responseCode("404")
+                            .responseMessage(e.getLocalizedMessage())
+                            .build()
+            );
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(
+                    BaseResponseDto.builder()
+                            .responseCode("500")
+                            .responseMessage(e.getLocalizedMessage())
+                            .build()
+            );
+        }
+    }
+
+    @PostMapping("/confirm")
+    public ResponseEntity<BaseResponseDto> confirm(@RequestParam String reservationNo, @RequestParam String orderNo) {
+        try {
+            reservationService.confirm(reservationNo, orderNo);
+            return ResponseEntity.status(HttpStatus.CREATED).body(
+                    BaseResponseDto.builder()
+                            .responseCode("00")
+                            .responseMessage("Reservation confirmed successfully")
+                            .build()
+            );
+        } catch (BadRequestException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(
+                    BaseResponseDto.builder()
+                            .responseCode("400")
+                            .responseMessage(e.getLocalizedMessage())
+                            .build()
+            );
+        } catch (ResourceNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(
+                    BaseResponseDto.builder()
+                            .responseCode("404")
+                            .responseMessage(e.getLocalizedMessage())
+                            .build()
+            );
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(
+                    BaseResponseDto.builder()
+                            .responseCode("500")
+                            .responseMessage(e.getLocalizedMessage())
+                            .build()
+            );
+        }
+    }
+
+    @DeleteMapping("/delete")
+    public ResponseEntity<BaseResponseDto> release(@RequestParam String reservationNo) {
+        try {
+            reservationService.release(reservationNo);
+            return ResponseEntity.status(HttpStatus.NO_CONTENT).body(
+                    BaseResponseDto.builder()
+                            .responseCode("00")
+                            .responseMessage("Reservation released successfully")
+                            .build()
+            );
+        } catch (ResourceNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(
+                    BaseResponseDto.builder()
+                            .responseCode("404")
+                            .responseMessage(e.getLocalizedMessage())
+                            .build()
+            );
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(
+                    BaseResponseDto.builder()
+                            .responseCode("500")
+                            .responseMessage(e.getLocalizedMessage())
+                            .build()
+            );
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package com.obs.example.controller;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.obs.example.utils.ETagUtils;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+/**
+ * Keeps the encoded JSON bodies of hot GET responses, so that a hit is written to the response
+ * as stored bytes without building the DTOs or running Jackson again. Each body is stored with
+ * the ETag it was built under; once the ETag has moved on because of a write, the body is built
+ * again, so there is nothing to invalidate explicitly.
+ * <p>
+ * Listing pages below {@code obs.response.cache.listing-pages} are served stale while they are
+ * rebuilt in the background, for at most {@code obs.response.cache.stale-while-revalidate}
+ * after they were built; older bodies are rebuilt before answering. A stale body keeps the ETag
+ * it was built under. The cache is bounded at {@code obs.response.cache.max-bytes} of bodies and
+ * its hits and misses are published as the {@code cache.*} meters tagged {@code cache=responses}.
+ * <p>
+ * With {@code obs.response.cache.enabled=false} every body is built for its request.
+ */
+@Component
+@Slf4j
+public class ResponseBodyCache {
+
+    /**
+     * An encoded response body and the ETag it was built under.
+     */
+    public record Body(String etag, byte[] json, long builtAt) {
+
+        /**
+         * 304 when the client already holds this body, the stored bytes otherwise.
+         */
+        public ResponseEntity<?> toResponse(String ifNoneMatch) {
+            if (ETagUtils.isNotModified(ifNoneMatch, etag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+            }
+
+            return ResponseEntity.status(HttpStatus.OK)
+                    .eTag(etag)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(json);
+        }
+    }
+
+    private final ObjectMapper objectMapper;
+    private final int listingPages;
+    private final long staleNanos;
+    private final Cache<String, Body> cache;
+    private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+    private final ExecutorService refreshExecutor;
+
+    public ResponseBodyCache(@Value("${obs.response.cache.enabled:true}") boolean enabled,
+                             @Value("${obs.response.cache.max-bytes:16777216}") long maxBytes,
+                             @Value("${obs.response.cache.listing-pages:5}") int listingPages,
+                             @Value("${obs.response.cache.stale-while-revalidate:5s}") Duration staleWhileRevalidate,
+                             ObjectMapper objectMapper,
+                             MeterRegistry meterRegistry) {
+        this.objectMapper = objectMapper;
+        this.listingPages = listingPages;
+        this.staleNanos = staleWhileRevalidate.toNanos();
+        if (!enabled) {
+            this.cache = null;
+            this.refreshExecutor = null;
+            return;
+        }
+
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((String key, Body body) -> body.json().length)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "responses");
+        this.refreshExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "response-cache-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * The body stored for the key under the given ETag, or a new one built from the response.
+     */
+    public Body get(String key, String etag, Supplier<Object> response) {
+        if (cache == null) {
+            return encode(etag, response);
+        }
+
+        Body body = cache.getIfPresent(key);
+        if (body != null && body.etag().equals(etag)) {
+            return body;
+        }
+
+        body = encode(etag, response);
+        cache.put(key, body);
+        return body;
+    }
+
+    /**
+     * Like {@link #get}, for a listing page. A stale body that is still within the
+     * stale-while-revalidate window is returned as it is and rebuilt in the background. Pages
+     * from {@code obs.response.cache.listing-pages} on are not cached.
+     */
+    public Body getPage(String key, int page, Supplier<String> etag, Supplier<Object> response) {
+        if (cache == null || page >= listingPages) {
+            return encode(etag.get(), response);
+        }
+
+        String current = etag.get();
+        Body body = cache.getIfPresent(key);
+        if (body == null || body.etag().equals(current)) {
+            return get(key, current, response);
+        }
+
+        if (System.nanoTime() - body.builtAt() > staleNanos) {
+            return get(key, current, response);
+        }
+
+        refresh(key, etag, response);
+        return body;
+    }
+
+    private void refresh(String key, Supplier<String> etag, Supplier<Object> response) {
+        if (!refreshing.add(key)) {
+            return;
+        }
+
+        refreshExecutor.execute(() -> {
+            try {
+                // the ETag is taken first, so that a write during the rebuild leaves it behind
+                String current = etag.get();
+                cache.put(key, encode(current, response));
+            } catch (RuntimeException e) {
+                log.warn("Failed to refresh cached response {}", key, e);
+            } finally {
+                refreshing.remove(key);
+            }
+        });
+    }
+
+    private Body encode(String etag, Supplier<Object> response) {
+        try {
+            return new Body(etag, objectMapper.writeValueAsBytes(response.get()), System.nanoTime());
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to encode response body", e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (refreshExecutor != null) {
+            refreshExecutor.shutdownNow();
+        }
+    }
+}
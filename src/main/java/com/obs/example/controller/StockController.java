@@ -0,0 +1,46 @@
+package com.obs.example.controller;
+
+import com.obs.example.dto.BaseResponseDto;
+import com.obs.example.exception.BadRequestException;
+import com.obs.example.service.StockService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/stock")
+@RequiredArgsConstructor
+public class StockController {
+
+    private final StockService stockService;
+
+    @GetMapping("/consistency")
+    public ResponseEntity<BaseResponseDto> checkConsistency() {
+        try {
+            return ResponseEntity.status(HttpStatus.OK).body(
+                    BaseResponseDto.builder()
+                            .responseCode("00")
+                            .responseMessage("success")
+                            .data(stockService.checkIndexConsistency())
+                            .build()
+            );
+        } catch (BadRequestException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(
+                    BaseResponseDto.builder()
+                            .responseCode("400")
+                            .responseMessage(e.getLocalizedMessage())
+                            .build()
+            );
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(
+                    BaseResponseDto.builder()
+                            .responseCode("500")
+                            .responseMessage(e.getLocalizedMessage())
+                            .build()
+            );
+        }
+    }
+}
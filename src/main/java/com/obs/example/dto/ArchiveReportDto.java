@@ -0,0 +1,15 @@
+package com.obs.example.dto;
+
+import lombok.Data;
+
+import java.time.Instant;
+
+@Data
+public class ArchiveReportDto {
+    private Instant cutoff;
+    private int archivedOrders;
+    private int blocks;
+    private long hotRowsBefore;
+    private long hotRowsAfter;
+    private long durationMillis;
+}
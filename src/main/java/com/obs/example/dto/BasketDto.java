@@ -0,0 +1,17 @@
+package com.obs.example.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class BasketDto {
+
+    /** Prefix of the order numbers of the lines; generated when empty. */
+    private String basketNo;
+
+    @NotEmpty(message = "Basket must have at least one line")
+    private List<@Valid BasketLineDto> lines;
+}
@@ -0,0 +1,15 @@
+package com.obs.example.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BasketResponseDto {
+    private String basketNo;
+    private List<OrderResponseDto> lines;
+}
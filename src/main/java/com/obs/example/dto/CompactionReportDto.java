@@ -0,0 +1,19 @@
+package com.obs.example.dto;
+
+import lombok.Data;
+
+import java.time.Instant;
+
+@Data
+public class CompactionReportDto {
+    private Instant horizon;
+    private int compactedItems;
+    private int batches;
+    private long rowsBefore;
+    private long rowsAfter;
+    private long stockLatencyBeforeMicros;
+    private long stockLatencyAfterMicros;
+    private long recomputeLatencyBeforeMicros;
+    private long recomputeLatencyAfterMicros;
+    private long durationMillis;
+}
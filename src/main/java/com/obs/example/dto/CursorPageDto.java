@@ -0,0 +1,26 @@
+package com.obs.example.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPageDto<T> {
+
+    private List<T> content;
+
+    private int size;
+
+    private boolean hasNext;
+
+    /**
+     * Cursor of the last row in {@code content}, to pass as {@code cursor} for the next page; null
+     * on the last page.
+     */
+    private String nextCursor;
+
+}
@@ -0,0 +1,18 @@
+package com.obs.example.dto;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class ImportReportDto {
+    private long received;
+    private long imported;
+    private long rejected;
+    private int batches;
+    private long durationMillis;
+    private long rowsPerSecond;
+    /** Up to {@code obs.inventory.import.max-errors} rejected lines, in line order. */
+    private List<ImportErrorDto> errors = new ArrayList<>();
+}
@@ -0,0 +1,21 @@
+package com.obs.example.dto;
+
+import com.obs.example.constant.InventoryType;
+import lombok.Data;
+
+import java.time.Instant;
+
+@Data
+public class InventoryDetailDto {
+
+    private Long id;
+
+    private int qty;
+
+    private InventoryType type;
+
+    private Instant createdAt;
+
+    private ItemDto item;
+
+}
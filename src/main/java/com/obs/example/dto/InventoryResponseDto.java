@@ -1,9 +1,15 @@
 package com.obs.example.dto;
 
 import com.obs.example.constant.InventoryType;
+import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
 
 @Data
+@NoArgsConstructor
+@AllArgsConstructor
 public class InventoryResponseDto {
 
     private Long id;
@@ -14,4 +20,6 @@ public class InventoryResponseDto {
 
     private Long itemId;
 
+    private Instant createdAt;
+
 }
@@ -1,11 +1,19 @@
 package com.obs.example.dto;
 
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 @Data
+@NoArgsConstructor
 public class ItemResponseDto {
     private Long id;
     private String name;
     private Integer price;
     private Integer stock;
+
+    public ItemResponseDto(Long id, String name, Integer price) {
+        this.id = id;
+        this.name = name;
+        this.price = price;
+    }
 }
@@ -0,0 +1,15 @@
+package com.obs.example.dto;
+
+import lombok.Data;
+
+import java.time.Instant;
+
+@Data
+public class OrderDetailDto {
+    private String orderNo;
+    private int qty;
+    private Integer price;
+    private Instant createdAt;
+    private ItemDto item;
+
+}
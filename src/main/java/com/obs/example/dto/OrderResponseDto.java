@@ -1,13 +1,25 @@
 package com.obs.example.dto;
 
-import com.obs.example.entity.Item;
 import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
 
 @Data
+@NoArgsConstructor
 public class OrderResponseDto {
     private String orderNo;
     private int qty;
     private double price;
     private Long itemId;
+    private Instant createdAt;
+
+    public OrderResponseDto(String orderNo, int qty, Integer price, Long itemId, Instant createdAt) {
+        this.orderNo = orderNo;
+        this.qty = qty;
+        this.price = price == null ? 0 : price;
+        this.itemId = itemId;
+        this.createdAt = createdAt;
+    }
 
 }
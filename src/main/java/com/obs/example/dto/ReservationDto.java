@@ -0,0 +1,22 @@
+package com.obs.example.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.Data;
+
+@Data
+public class ReservationDto {
+
+    @NotBlank(message = "Reservation number is mandatory")
+    private String reservationNo;
+
+    @NotNull(message = "Item ID is mandatory")
+    private Long itemId;
+
+    @Positive(message = "Quantity must be positive")
+    private int qty;
+
+    @Positive(message = "TTL must be positive")
+    private long ttlSeconds;
+}
@@ -0,0 +1,13 @@
+package com.obs.example.dto;
+
+import lombok.Data;
+
+import java.time.Instant;
+
+@Data
+public class ReservationResponseDto {
+    private String reservationNo;
+    private int qty;
+    private Long itemId;
+    private Instant expiresAt;
+}
@@ -0,0 +1,13 @@
+package com.obs.example.dto;
+
+import lombok.Data;
+
+import java.time.Instant;
+
+@Data
+public class StockAsOfDto {
+    private Long itemId;
+    private Instant asOf;
+    private int stock;
+    private Instant checkpointAt;
+}
@@ -0,0 +1,16 @@
+package com.obs.example.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class StockConsistencyDto {
+
+    private boolean consistent;
+
+    private int checkedItems;
+
+    private List<StockMismatchDto> mismatches;
+
+}
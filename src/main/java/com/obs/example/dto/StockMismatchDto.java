@@ -0,0 +1,18 @@
+package com.obs.example.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class StockMismatchDto {
+
+    private Long itemId;
+
+    private int indexedStock;
+
+    private int recomputedStock;
+
+}
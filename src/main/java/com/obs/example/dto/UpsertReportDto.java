@@ -0,0 +1,19 @@
+package com.obs.example.dto;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class UpsertReportDto {
+    private long received;
+    private long inserted;
+    private long updated;
+    private long unchanged;
+    private long rejected;
+    private int batches;
+    private long durationMillis;
+    /** Up to {@code obs.item.upsert.max-errors} rejected lines, in line order. */
+    private List<ImportErrorDto> errors = new ArrayList<>();
+}
@@ -0,0 +1,23 @@
+package com.obs.example.entity;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import lombok.Data;
+
+/**
+ * Location of an archived order: the segment file and the offset of the compressed block that
+ * holds it.
+ */
+@Entity
+@Data
+public class ArchivedOrder {
+
+    @Id
+    private String orderNo;
+
+    private Long itemId;
+
+    private String segment;
+
+    private long segmentOffset;
+}
@@ -0,0 +1,23 @@
+package com.obs.example.entity;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import lombok.Data;
+
+import java.time.Instant;
+
+/**
+ * Sum of an item's orders that were moved to the order archive, and the newest creation time
+ * among them.
+ */
+@Entity
+@Data
+public class ArchivedOrderTotal {
+
+    @Id
+    private Long itemId;
+
+    private long qty;
+
+    private Instant archivedThrough;
+}
@@ -0,0 +1,22 @@
+package com.obs.example.entity;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import lombok.Data;
+
+import java.time.Instant;
+
+/**
+ * Newest horizon a compaction has folded movements up to, or the order archive has moved orders
+ * out up to. History before it is no longer kept in full, so point-in-time stock before the
+ * horizon cannot be answered.
+ */
+@Entity
+@Data
+public class CompactionState {
+
+    @Id
+    private String name;
+
+    private Instant horizon;
+}
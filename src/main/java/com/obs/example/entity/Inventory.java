@@ -1,14 +1,29 @@
 package com.obs.example.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.obs.example.constant.InventoryType;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.PositiveOrZero;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+import org.springframework.data.domain.Persistable;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
 
 @Entity
 @Data
-public class Inventory {
+@NamedEntityGraph(name = Inventory.DETAIL_GRAPH, attributeNodes = @NamedAttributeNode("item"))
+@Table(indexes = @Index(name = "idx_inventory_item_type_qty", columnList = "item_id, type, qty"))
+public class Inventory implements Persistable<Long> {
+
+    /** Loads the item together with the inventory, for the detail endpoint. */
+    public static final String DETAIL_GRAPH = "Inventory.detail";
 
     @Id
     private Long id;
@@ -19,8 +34,38 @@ public class Inventory {
     @NotNull(message = "Type is mandatory")
     private InventoryType type;
 
-    @ManyToOne
+    @Column(updatable = false)
+    private Instant createdAt;
+
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "item_id")
     @NotNull(message = "Item is mandatory")
     private Item item;
-}
\ No newline at end of file
+
+    @Transient
+    @JsonIgnore
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private boolean isNew = true;
+
+    @PrePersist
+    void onCreate() {
+        if (createdAt == null) {
+            createdAt = Instant.now().truncatedTo(ChronoUnit.MICROS);
+        }
+        isNew = false;
+    }
+
+    @Override
+    @JsonIgnore
+    public boolean isNew() {
+        return isNew;
+    }
+
+    @PostLoad
+    void markNotNew() {
+        isNew = false;
+    }
+}
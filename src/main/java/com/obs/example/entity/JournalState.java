@@ -0,0 +1,19 @@
+package com.obs.example.entity;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import lombok.Data;
+
+/**
+ * Sequence number of the last journal record whose movement has been written to the tables. It is
+ * updated in the same transaction as the movements, so a record is never applied twice.
+ */
+@Entity
+@Data
+public class JournalState {
+
+    @Id
+    private String name;
+
+    private long appliedSeq;
+}
@@ -1,14 +1,28 @@
 package com.obs.example.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+import org.springframework.data.domain.Persistable;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
 
 @Entity
 @Data
-@Table(name = "Orders")
-public class Order {
+@NamedEntityGraph(name = Order.DETAIL_GRAPH, attributeNodes = @NamedAttributeNode("item"))
+@Table(name = "Orders", indexes = @Index(name = "idx_orders_item_qty", columnList = "item_id, qty"))
+public class Order implements Persistable<String> {
+
+    /** Loads the item together with the order, for the detail endpoint. */
+    public static final String DETAIL_GRAPH = "Order.detail";
 
     @Id
     private String orderNo;
@@ -19,8 +33,44 @@ public class Order {
     @Positive(message = "Price must be positive")
     private Integer price;
 
-    @ManyToOne
+    @Column(updatable = false)
+    private Instant createdAt;
+
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "item_id")
     @NotNull(message = "Item is mandatory")
     private Item item;
-}
\ No newline at end of file
+
+    @Transient
+    @JsonIgnore
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private boolean isNew = true;
+
+    @PrePersist
+    void onCreate() {
+        if (createdAt == null) {
+            createdAt = Instant.now().truncatedTo(ChronoUnit.MICROS);
+        }
+        isNew = false;
+    }
+
+    @Override
+    @JsonIgnore
+    public String getId() {
+        return orderNo;
+    }
+
+    @Override
+    @JsonIgnore
+    public boolean isNew() {
+        return isNew;
+    }
+
+    @PostLoad
+    void markNotNew() {
+        isNew = false;
+    }
+}
@@ -0,0 +1,27 @@
+package com.obs.example.entity;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.Data;
+
+import java.time.Instant;
+
+@Entity
+@Data
+public class Reservation {
+
+    @Id
+    private String reservationNo;
+
+    @Positive(message = "Quantity must be positive")
+    private int qty;
+
+    @NotNull(message = "Expiry is mandatory")
+    private Instant expiresAt;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "item_id")
+    @NotNull(message = "Item is mandatory")
+    private Item item;
+}
@@ -0,0 +1,26 @@
+package com.obs.example.entity;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import lombok.Data;
+
+import java.time.Instant;
+
+/**
+ * Stock of an item (top-ups minus withdrawals minus orders) counting every movement created at or
+ * before {@code takenAt}. Reservations are not part of a checkpoint.
+ */
+@Entity
+@Data
+@IdClass(StockCheckpointId.class)
+public class StockCheckpoint {
+
+    @Id
+    private Long itemId;
+
+    @Id
+    private Instant takenAt;
+
+    private int qty;
+}
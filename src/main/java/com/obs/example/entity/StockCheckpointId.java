@@ -0,0 +1,18 @@
+package com.obs.example.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.Instant;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockCheckpointId implements Serializable {
+
+    private Long itemId;
+
+    private Instant takenAt;
+}
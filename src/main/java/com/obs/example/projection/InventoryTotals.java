@@ -0,0 +1,11 @@
+package com.obs.example.projection;
+
+public interface InventoryTotals {
+
+    Long getItemId();
+
+    long getTopUpTotal();
+
+    long getWithdrawalTotal();
+
+}
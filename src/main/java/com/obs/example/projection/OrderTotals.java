@@ -0,0 +1,9 @@
+package com.obs.example.projection;
+
+public interface OrderTotals {
+
+    Long getItemId();
+
+    long getOrderTotal();
+
+}
@@ -0,0 +1,9 @@
+package com.obs.example.projection;
+
+public interface ReservationTotals {
+
+    Long getItemId();
+
+    long getReservedTotal();
+
+}
@@ -0,0 +1,8 @@
+package com.obs.example.repository;
+
+import com.obs.example.entity.ArchivedOrder;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface ArchivedOrderRepository extends JpaRepository<ArchivedOrder, String> {
+
+}
@@ -0,0 +1,8 @@
+package com.obs.example.repository;
+
+import com.obs.example.entity.ArchivedOrderTotal;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface ArchivedOrderTotalRepository extends JpaRepository<ArchivedOrderTotal, Long> {
+
+}
@@ -0,0 +1,8 @@
+package com.obs.example.repository;
+
+import com.obs.example.entity.CompactionState;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface CompactionStateRepository extends JpaRepository<CompactionState, String> {
+
+}
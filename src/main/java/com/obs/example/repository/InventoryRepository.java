@@ -1,9 +1,24 @@
 package com.obs.example.repository;
 
+import com.obs.example.constant.InventoryType;
+import com.obs.example.dto.InventoryResponseDto;
 import com.obs.example.entity.Inventory;
+import com.obs.example.projection.InventoryTotals;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface InventoryRepository extends JpaRepository<Inventory, Long> {
 
@@ -11,4 +26,87 @@ public interface InventoryRepository extends JpaRepository<Inventory, Long> {
     boolean existsByItemId(Long itemId);
     List<Inventory> findByItemIdIn(List<Long> itemIds);
 
+    @Query(value = "select new com.obs.example.dto.InventoryResponseDto(i.id, i.qty, i.type, i.item.id, i.createdAt) " +
+            "from Inventory i",
+            countQuery = "select count(i) from Inventory i")
+    Page<InventoryResponseDto> findAllResponses(Pageable pageable);
+
+    @Query("select new com.obs.example.dto.InventoryResponseDto(i.id, i.qty, i.type, i.item.id, i.createdAt) " +
+            "from Inventory i where i.id > :after order by i.id")
+    List<InventoryResponseDto> findResponsesAfter(@Param("after") Long after, Limit limit);
+
+    @EntityGraph(Inventory.DETAIL_GRAPH)
+    Optional<Inventory> findDetailById(Long id);
+
+    @Query("select i.item.id from Inventory i where i.id = :id")
+    Optional<Long> findItemIdById(@Param("id") Long id);
+
+    /** Loads the movement under a row lock so that an edit and a compaction fold never interleave. */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select i from Inventory i where i.id = :id")
+    Optional<Inventory> findByIdForUpdate(@Param("id") Long id);
+
+    @Query("select i.id from Inventory i where i.id in :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+    @Query("select i.item.id as itemId, " +
+            "coalesce(sum(case when i.type = com.obs.example.constant.InventoryType.T then i.qty else 0 end), 0) as topUpTotal, " +
+            "coalesce(sum(case when i.type = com.obs.example.constant.InventoryType.W then i.qty else 0 end), 0) as withdrawalTotal " +
+            "from Inventory i where i.item.id in :itemIds group by i.item.id")
+    List<InventoryTotals> sumQtyByItemIdIn(@Param("itemIds") Collection<Long> itemIds);
+
+    @Query("select i.item.id as itemId, " +
+            "coalesce(sum(case when i.type = com.obs.example.constant.InventoryType.T then i.qty else 0 end), 0) as topUpTotal, " +
+            "coalesce(sum(case when i.type = com.obs.example.constant.InventoryType.W then i.qty else 0 end), 0) as withdrawalTotal " +
+            "from Inventory i group by i.item.id")
+    List<InventoryTotals> sumQtyGroupByItemId();
+
+    @Query("select i.item.id as itemId, " +
+            "coalesce(sum(case when i.type = com.obs.example.constant.InventoryType.T then i.qty else 0 end), 0) as topUpTotal, " +
+            "coalesce(sum(case when i.type = com.obs.example.constant.InventoryType.W then i.qty else 0 end), 0) as withdrawalTotal " +
+            "from Inventory i where i.item.id in :itemIds and (i.createdAt is null or i.createdAt <= :asOf) group by i.item.id")
+    List<InventoryTotals> sumQtyByItemIdInUpTo(@Param("itemIds") Collection<Long> itemIds, @Param("asOf") Instant asOf);
+
+    @Query("select i.item.id as itemId, " +
+            "coalesce(sum(case when i.type = com.obs.example.constant.InventoryType.T then i.qty else 0 end), 0) as topUpTotal, " +
+            "coalesce(sum(case when i.type = com.obs.example.constant.InventoryType.W then i.qty else 0 end), 0) as withdrawalTotal " +
+            "from Inventory i where i.createdAt is null or i.createdAt <= :asOf group by i.item.id")
+    List<InventoryTotals> sumQtyGroupByItemIdUpTo(@Param("asOf") Instant asOf);
+
+    @Query("select i.item.id as itemId, " +
+            "coalesce(sum(case when i.type = com.obs.example.constant.InventoryType.T then i.qty else 0 end), 0) as topUpTotal, " +
+            "coalesce(sum(case when i.type = com.obs.example.constant.InventoryType.W then i.qty else 0 end), 0) as withdrawalTotal " +
+            "from Inventory i where i.item.id = :itemId and i.createdAt > :from and i.createdAt <= :to group by i.item.id")
+    List<InventoryTotals> sumQtyByItemIdBetween(@Param("itemId") Long itemId, @Param("from") Instant from, @Param("to") Instant to);
+
+    @Query("select distinct i.item.id from Inventory i where i.createdAt > :from and i.createdAt <= :to")
+    List<Long> findItemIdsCreatedBetween(@Param("from") Instant from, @Param("to") Instant to);
+
+    @Query("select i.item.id from Inventory i where i.createdAt is null or i.createdAt <= :horizon " +
+            "group by i.item.id having count(i) > 1")
+    List<Long> findItemIdsToCompact(@Param("horizon") Instant horizon);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select i.id from Inventory i where i.item.id = :itemId and (i.createdAt is null or i.createdAt <= :horizon) " +
+            "order by i.id")
+    List<Long> findIdsByItemIdCreatedUpTo(@Param("itemId") Long itemId, @Param("horizon") Instant horizon, Pageable pageable);
+
+    @Query("select i.item.id as itemId, " +
+            "coalesce(sum(case when i.type = com.obs.example.constant.InventoryType.T then i.qty else 0 end), 0) as topUpTotal, " +
+            "coalesce(sum(case when i.type = com.obs.example.constant.InventoryType.W then i.qty else 0 end), 0) as withdrawalTotal " +
+            "from Inventory i where i.id in :ids group by i.item.id")
+    List<InventoryTotals> sumQtyByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("select max(i.createdAt) from Inventory i where i.id in :ids")
+    Optional<Instant> findMaxCreatedAtByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query("update Inventory i set i.qty = :qty, i.type = :type, i.createdAt = :createdAt where i.id = :id")
+    int updateMovement(@Param("id") Long id, @Param("qty") int qty, @Param("type") InventoryType type,
+                       @Param("createdAt") Instant createdAt);
+
+    @Modifying
+    @Query("delete from Inventory i where i.id in :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
+
 }
@@ -1,7 +1,30 @@
 package com.obs.example.repository;
 
+import com.obs.example.dto.ItemResponseDto;
 import com.obs.example.entity.Item;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
 
 public interface ItemRepository extends JpaRepository<Item, Long> {
+
+    @Query(value = "select new com.obs.example.dto.ItemResponseDto(i.id, i.name, i.price) from Item i",
+            countQuery = "select count(i) from Item i")
+    Page<ItemResponseDto> findAllResponses(Pageable pageable);
+
+    @Query("select new com.obs.example.dto.ItemResponseDto(i.id, i.name, i.price) from Item i " +
+            "where i.id > :after order by i.id")
+    List<ItemResponseDto> findResponsesAfter(@Param("after") Long after, Limit limit);
+
+    @Query("select new com.obs.example.dto.ItemResponseDto(i.id, i.name, i.price) from Item i where i.id in :ids")
+    List<ItemResponseDto> findResponsesByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("select i.id from Item i")
+    List<Long> findAllIds();
 }
@@ -0,0 +1,8 @@
+package com.obs.example.repository;
+
+import com.obs.example.entity.JournalState;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface JournalStateRepository extends JpaRepository<JournalState, String> {
+
+}
@@ -1,9 +1,20 @@
 package com.obs.example.repository;
 
-import com.obs.example.entity.Inventory;
+import com.obs.example.dto.OrderResponseDto;
 import com.obs.example.entity.Order;
+import com.obs.example.projection.OrderTotals;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -11,10 +22,60 @@ public interface OrderRepository extends JpaRepository<Order, String> {
 
     Optional<Order> findByOrderNo(String orderId);
 
+    /** Loads the order under a row lock so that an edit and an archive batch never interleave. */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select o from Order o where o.orderNo = :orderNo")
+    Optional<Order> findByOrderNoForUpdate(@Param("orderNo") String orderNo);
+
+    @Query("select o.item.id from Order o where o.orderNo = :orderNo")
+    Optional<Long> findItemIdByOrderNo(@Param("orderNo") String orderNo);
+
+    @EntityGraph(Order.DETAIL_GRAPH)
+    Optional<Order> findDetailByOrderNo(String orderNo);
+
     List<Order> findByItemId(Long itemId);
 
     List<Order> findByItemIdIn(List<Long> itemIds);
 
     boolean existsByItemId(Long itemId);
 
+    @Query(value = "select new com.obs.example.dto.OrderResponseDto(o.orderNo, o.qty, o.price, o.item.id, o.createdAt) " +
+            "from Order o",
+            countQuery = "select count(o) from Order o")
+    Page<OrderResponseDto> findAllResponses(Pageable pageable);
+
+    @Query("select new com.obs.example.dto.OrderResponseDto(o.orderNo, o.qty, o.price, o.item.id, o.createdAt) " +
+            "from Order o where o.orderNo > :after order by o.orderNo")
+    List<OrderResponseDto> findResponsesAfter(@Param("after") String after, Limit limit);
+
+    @Query("select o.item.id as itemId, coalesce(sum(o.qty), 0) as orderTotal " +
+            "from Order o where o.item.id in :itemIds group by o.item.id")
+    List<OrderTotals> sumQtyByItemIdIn(@Param("itemIds") Collection<Long> itemIds);
+
+    @Query("select o.item.id as itemId, coalesce(sum(o.qty), 0) as orderTotal from Order o group by o.item.id")
+    List<OrderTotals> sumQtyGroupByItemId();
+
+    @Query("select o.item.id as itemId, coalesce(sum(o.qty), 0) as orderTotal " +
+            "from Order o where o.item.id in :itemIds and (o.createdAt is null or o.createdAt <= :asOf) group by o.item.id")
+    List<OrderTotals> sumQtyByItemIdInUpTo(@Param("itemIds") Collection<Long> itemIds, @Param("asOf") Instant asOf);
+
+    @Query("select o.item.id as itemId, coalesce(sum(o.qty), 0) as orderTotal " +
+            "from Order o where o.createdAt is null or o.createdAt <= :asOf group by o.item.id")
+    List<OrderTotals> sumQtyGroupByItemIdUpTo(@Param("asOf") Instant asOf);
+
+    @Query("select o.item.id as itemId, coalesce(sum(o.qty), 0) as orderTotal " +
+            "from Order o where o.item.id = :itemId and o.createdAt > :from and o.createdAt <= :to group by o.item.id")
+    List<OrderTotals> sumQtyByItemIdBetween(@Param("itemId") Long itemId, @Param("from") Instant from, @Param("to") Instant to);
+
+    @Query("select distinct o.item.id from Order o where o.createdAt > :from and o.createdAt <= :to")
+    List<Long> findItemIdsCreatedBetween(@Param("from") Instant from, @Param("to") Instant to);
+
+    @Query("select distinct o.item.id from Order o where o.createdAt is null or o.createdAt <= :cutoff")
+    List<Long> findItemIdsCreatedUpTo(@Param("cutoff") Instant cutoff);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select o from Order o where o.item.id = :itemId and (o.createdAt is null or o.createdAt <= :cutoff) " +
+            "order by o.orderNo")
+    List<Order> findByItemIdCreatedUpTo(@Param("itemId") Long itemId, @Param("cutoff") Instant cutoff, Pageable pageable);
+
 }
@@ -0,0 +1,27 @@
+package com.obs.example.repository;
+
+import com.obs.example.entity.Reservation;
+import com.obs.example.projection.ReservationTotals;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface ReservationRepository extends JpaRepository<Reservation, String> {
+
+    boolean existsByItemId(Long itemId);
+
+    @Query("select r.item.id from Reservation r where r.reservationNo = :reservationNo")
+    Optional<Long> findItemIdByReservationNo(@Param("reservationNo") String reservationNo);
+
+    @Query("select r.item.id as itemId, coalesce(sum(r.qty), 0) as reservedTotal " +
+            "from Reservation r where r.item.id in :itemIds group by r.item.id")
+    List<ReservationTotals> sumQtyByItemIdIn(@Param("itemIds") Collection<Long> itemIds);
+
+    @Query("select r.item.id as itemId, coalesce(sum(r.qty), 0) as reservedTotal from Reservation r group by r.item.id")
+    List<ReservationTotals> sumQtyGroupByItemId();
+
+}
@@ -0,0 +1,24 @@
+package com.obs.example.repository;
+
+import com.obs.example.entity.StockBalance;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface StockBalanceRepository extends JpaRepository<StockBalance, Long> {
+
+    @Query("select b.qty from StockBalance b where b.itemId = :itemId")
+    Optional<Integer> findQtyByItemId(@Param("itemId") Long itemId);
+
+    @Modifying
+    @Query("update StockBalance b set b.qty = b.qty + :delta where b.itemId = :itemId")
+    int adjustQty(@Param("itemId") Long itemId, @Param("delta") int delta);
+
+    @Query("select i.id from Item i where not exists (select b from StockBalance b where b.itemId = i.id)")
+    List<Long> findItemIdsWithoutBalance();
+
+}
@@ -0,0 +1,32 @@
+package com.obs.example.repository;
+
+import com.obs.example.entity.StockCheckpoint;
+import com.obs.example.entity.StockCheckpointId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.Optional;
+
+public interface StockCheckpointRepository extends JpaRepository<StockCheckpoint, StockCheckpointId> {
+
+    Optional<StockCheckpoint> findFirstByItemIdAndTakenAtLessThanEqualOrderByTakenAtDesc(Long itemId, Instant asOf);
+
+    @Query("select max(c.takenAt) from StockCheckpoint c")
+    Optional<Instant> findLatestTakenAt();
+
+    @Modifying
+    @Query("delete from StockCheckpoint c where c.itemId = :itemId and c.takenAt >= :since")
+    int deleteByItemIdTakenSince(@Param("itemId") Long itemId, @Param("since") Instant since);
+
+    @Modifying
+    @Query("delete from StockCheckpoint c where c.itemId = :itemId and c.takenAt < :before")
+    int deleteByItemIdTakenBefore(@Param("itemId") Long itemId, @Param("before") Instant before);
+
+    @Modifying
+    @Query("delete from StockCheckpoint c where c.itemId = :itemId")
+    int deleteByItemId(@Param("itemId") Long itemId);
+
+}
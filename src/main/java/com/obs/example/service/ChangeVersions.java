@@ -0,0 +1,69 @@
+package com.obs.example.service;
+
+import com.obs.example.utils.PersistenceUtils;
+import org.springframework.stereotype.Component;
+
+import java.util.StringJoiner;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Per-table change counters that the write paths bump once their transaction commits. GET
+ * endpoints build their ETag from the counters of every table their response is read from, so a
+ * matching {@code If-None-Match} can be answered before any query runs.
+ * <p>
+ * Counters live in memory and start over on restart; the ETag carries the start time of the
+ * process so that tags handed out before a restart never match again. Like the stock index, they
+ * only see the writes of this instance.
+ */
+@Component
+public class ChangeVersions {
+
+    public enum Table {
+        ITEMS,
+        INVENTORIES,
+        ORDERS,
+        /** Stock of any item, as returned with the item listing. */
+        STOCK
+    }
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLongArray versions = new AtomicLongArray(Table.values().length);
+
+    public long get(Table table) {
+        return versions.get(table.ordinal());
+    }
+
+    /**
+     * Bumps the tables once the current transaction commits, or right away outside of one. A
+     * reader that sees the new version therefore also sees the committed rows.
+     */
+    public void bump(Table... tables) {
+        PersistenceUtils.afterCommit(() -> increment(tables));
+    }
+
+    /**
+     * Strong ETag over the current versions of the given tables. Must be taken before the
+     * response is read, so that a write committing in between leaves the tag behind the data.
+     */
+    public String etag(Table... tables) {
+        StringJoiner tag = new StringJoiner(".", "\"" + epoch + "-", "\"");
+        for (Table table : tables) {
+            tag.add(Long.toString(get(table)));
+        }
+        return tag.toString();
+    }
+
+    /**
+     * Weak ETag for paged listings. Pages are not sorted, so two reads at the same versions are
+     * equivalent but not necessarily byte-identical.
+     */
+    public String weakEtag(Table... tables) {
+        return "W/" + etag(tables);
+    }
+
+    private void increment(Table... tables) {
+        for (Table table : tables) {
+            versions.incrementAndGet(table.ordinal());
+        }
+    }
+}
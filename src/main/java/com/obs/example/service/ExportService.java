@@ -0,0 +1,197 @@
+package com.obs.example.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.obs.example.constant.ExportFormat;
+import com.obs.example.constant.InventoryType;
+import com.obs.example.exception.BadRequestException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Locale;
+
+/**
+ * Writes every order or inventory movement to a stream, one row per line, as the rows are read
+ * from a forward-only cursor. Nothing is collected on the way, so memory does not grow with the
+ * table, and the first rows reach the client while the rest are still being read.
+ * <p>
+ * The cursor runs in a read-only transaction, since most drivers only honour the fetch size
+ * ({@code obs.export.fetch-size}) when the connection does not auto-commit. Rows come in key order
+ * and are not read through Hibernate, so no entity or DTO is built per row.
+ */
+@Service
+public class ExportService {
+
+    private static final String ORDERS_SQL =
+            "select order_no, qty, price, item_id, created_at from orders order by order_no";
+    private static final String[] ORDER_COLUMNS = {"orderNo", "qty", "price", "itemId", "createdAt"};
+
+    private static final String INVENTORIES_SQL =
+            "select id, qty, type, item_id, created_at from inventory order by id";
+    private static final String[] INVENTORY_COLUMNS = {"id", "qty", "type", "itemId", "createdAt"};
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+
+    public ExportService(DataSource dataSource,
+                         PlatformTransactionManager transactionManager,
+                         ObjectMapper objectMapper,
+                         @Value("${obs.export.fetch-size:1000}") int fetchSize) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(fetchSize);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.objectMapper = objectMapper;
+    }
+
+    public ExportFormat parseFormat(String format) {
+        try {
+            return ExportFormat.valueOf(format.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Unsupported export format: " + format);
+        }
+    }
+
+    /**
+     * Writes the orders in the {@code Orders} table. Archived orders are not part of it.
+     */
+    public void exportOrders(ExportFormat format, OutputStream out) throws IOException {
+        export(ORDERS_SQL, ORDER_COLUMNS, format, out, (rs, row) -> {
+            row[0] = rs.getString(1);
+            row[1] = rs.getInt(2);
+            row[2] = rs.getObject(3, Integer.class);
+            row[3] = rs.getObject(4, Long.class);
+            row[4] = instant(rs.getTimestamp(5));
+        });
+    }
+
+    public void exportInventories(ExportFormat format, OutputStream out) throws IOException {
+        InventoryType[] types = InventoryType.values();
+        export(INVENTORIES_SQL, INVENTORY_COLUMNS, format, out, (rs, row) -> {
+            row[0] = rs.getLong(1);
+            row[1] = rs.getInt(2);
+            int type = rs.getInt(3);
+            row[2] = rs.wasNull() ? null : types[type].name();
+            row[3] = rs.getObject(4, Long.class);
+            row[4] = instant(rs.getTimestamp(5));
+        });
+    }
+
+    @FunctionalInterface
+    private interface RowReader {
+        void read(ResultSet rs, Object[] row) throws SQLException;
+    }
+
+    private interface RowWriter extends Closeable {
+        void write(Object[] row) throws IOException;
+    }
+
+    private void export(String sql, String[] columns, ExportFormat format, OutputStream out, RowReader reader)
+            throws IOException {
+        try (RowWriter writer = format == ExportFormat.CSV ? new CsvWriter(out, columns) : new NdjsonWriter(out, columns)) {
+            Object[] row = new Object[columns.length];
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.query(sql, rs -> {
+                reader.read(rs, row);
+                try {
+                    writer.write(row);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static Object instant(Timestamp timestamp) {
+        return timestamp == null ? null : timestamp.toInstant();
+    }
+
+    private final class NdjsonWriter implements RowWriter {
+
+        private final JsonGenerator generator;
+        private final String[] columns;
+
+        NdjsonWriter(OutputStream out, String[] columns) throws IOException {
+            this.generator = objectMapper.createGenerator(out);
+            // the stream belongs to the caller, who may still have to finish a gzip trailer
+            this.generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            this.generator.setRootValueSeparator(null);
+            this.columns = columns;
+        }
+
+        @Override
+        public void write(Object[] row) throws IOException {
+            generator.writeStartObject();
+            for (int i = 0; i < columns.length; i++) {
+                generator.writeFieldName(columns[i]);
+                Object value = row[i];
+                if (value == null) {
+                    generator.writeNull();
+                } else if (value instanceof Number number) {
+                    generator.writeNumber(number.longValue());
+                } else {
+                    generator.writeString(value.toString());
+                }
+            }
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+
+        @Override
+        public void close() throws IOException {
+            generator.close();
+        }
+    }
+
+    private static final class CsvWriter implements RowWriter {
+
+        private final Writer writer;
+
+        CsvWriter(OutputStream out, String[] columns) throws IOException {
+            this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            write(columns);
+        }
+
+        @Override
+        public void write(Object[] row) throws IOException {
+            for (int i = 0; i < row.length; i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                if (row[i] != null) {
+                    writeField(row[i].toString());
+                }
+            }
+            writer.write("\r\n");
+        }
+
+        private void writeField(String value) throws IOException {
+            if (value.indexOf(',') < 0 && value.indexOf('"') < 0
+                    && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+                writer.write(value);
+                return;
+            }
+
+            writer.write('"');
+            writer.write(value.replace("\"", "\"\""));
+            writer.write('"');
+        }
+
+        @Override
+        public void close() throws IOException {
+            // flushed but not closed, for the same reason as the JSON generator
+            writer.flush();
+        }
+    }
+}
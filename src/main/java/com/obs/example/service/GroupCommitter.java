@@ -0,0 +1,262 @@
+package com.obs.example.service;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Merges writes that arrive within {@code obs.write.group-commit.window} of each other into one
+ * database transaction, so that concurrent callers share a single commit instead of each paying
+ * for their own. Writes run one after another on a single committer thread, in arrival order,
+ * and every caller blocks until the transaction holding its write has committed.
+ * <p>
+ * Each write is flushed as soon as it has run, so that a constraint violation is reported to the
+ * write that caused it rather than to the whole group at commit time. A write that throws is
+ * taken out of its group: the group is rolled back, the failing caller gets its exception, and
+ * the remaining writes are run again without it. If the group fails a second time, or the commit
+ * itself fails, each remaining write is retried in a transaction of its own so that one bad write
+ * cannot fail the others.
+ * <p>
+ * Disabled unless {@code obs.write.group-commit.enabled=true}; writes then run inline in the
+ * caller's transaction exactly as before. It cannot be combined with the {@link StockEngine},
+ * which already gives every write a transaction of its own on the item's shard.
+ */
+@Component
+@Slf4j
+public class GroupCommitter {
+
+    private final boolean enabled;
+    private final Duration window;
+    private final int maxBatch;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityManager entityManager;
+    private final BlockingQueue<Request<?>> queue = new LinkedBlockingQueue<>();
+    private final ThreadLocal<Boolean> onCommitter = ThreadLocal.withInitial(() -> false);
+    private final DistributionSummary groupSize;
+    private final Thread committerThread;
+    private volatile boolean running;
+
+    public GroupCommitter(@Value("${obs.write.group-commit.enabled:false}") boolean enabled,
+                          @Value("${obs.write.group-commit.window:2ms}") Duration window,
+                          @Value("${obs.write.group-commit.max-batch:64}") int maxBatch,
+                          StockEngine stockEngine,
+                          PlatformTransactionManager transactionManager,
+                          MeterRegistry meterRegistry,
+                          EntityManager entityManager) {
+        this.enabled = enabled;
+        this.window = window;
+        this.maxBatch = maxBatch;
+        this.entityManager = entityManager;
+
+        if (!enabled) {
+            this.transactionTemplate = null;
+            this.groupSize = null;
+            this.committerThread = null;
+            return;
+        }
+
+        if (stockEngine.isEnabled()) {
+            throw new IllegalStateException("obs.write.group-commit.enabled=true requires obs.stock.engine.enabled=false");
+        }
+
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.groupSize = DistributionSummary.builder("obs.write.group.size")
+                .description("Writes committed per group transaction")
+                .register(meterRegistry);
+
+        running = true;
+        committerThread = new Thread(() -> {
+            onCommitter.set(true);
+            commitLoop();
+        }, "group-committer");
+        committerThread.setDaemon(true);
+        committerThread.start();
+        log.info("Group commit started with a {} ms window", window.toMillis());
+    }
+
+    private record Request<T>(Supplier<T> work, CompletableFuture<T> result) {
+
+        void run(TransactionTemplate transactionTemplate) {
+            try {
+                result.complete(transactionTemplate.execute(status -> work.get()));
+            } catch (RuntimeException e) {
+                result.completeExceptionally(e);
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        void complete(Object value) {
+            result.complete((T) value);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Runs a write in the next group transaction and waits for it to commit, rethrowing whatever
+     * the write threw. When group commit is disabled, or the caller already runs on the committer,
+     * the work runs inline.
+     */
+    public <T> T execute(Supplier<T> work) {
+        if (!enabled || onCommitter.get()) {
+            return work.get();
+        }
+        if (!running) {
+            throw new IllegalStateException("Group committer is not running");
+        }
+
+        Request<T> request = new Request<>(work, new CompletableFuture<>());
+        queue.add(request);
+        if (!running && queue.remove(request)) {
+            throw new IllegalStateException("Group committer is not running");
+        }
+        try {
+            return request.result().join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    public void execute(Runnable work) {
+        execute(() -> {
+            work.run();
+            return null;
+        });
+    }
+
+    private void commitLoop() {
+        List<Request<?>> group = new ArrayList<>(maxBatch);
+        while (running) {
+            try {
+                Request<?> first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                group.add(first);
+                collectGroup(group);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+
+            commit(group);
+            group.clear();
+        }
+
+        group.addAll(queue);
+        group.forEach(request -> request.result().completeExceptionally(
+                new IllegalStateException("Group committer stopped before the write was committed")));
+    }
+
+    /**
+     * Adds queued writes to the group until it is full or the window since its first write has
+     * passed.
+     */
+    private void collectGroup(List<Request<?>> group) throws InterruptedException {
+        long deadline = System.nanoTime() + window.toNanos();
+        while (group.size() < maxBatch) {
+            queue.drainTo(group, maxBatch - group.size());
+            long remaining = deadline - System.nanoTime();
+            if (group.size() >= maxBatch || remaining <= 0) {
+                return;
+            }
+
+            Request<?> next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            group.add(next);
+        }
+    }
+
+    private void commit(List<Request<?>> group) {
+        List<Request<?>> pending = new ArrayList<>(group);
+        boolean retried = false;
+        while (!pending.isEmpty()) {
+            Object[] results = new Object[pending.size()];
+            int[] failedAt = {-1};
+            RuntimeException[] failure = new RuntimeException[1];
+
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    for (int i = 0; i < pending.size(); i++) {
+                        try {
+                            results[i] = pending.get(i).work().get();
+                            entityManager.flush();
+                            entityManager.clear();
+                        } catch (RuntimeException e) {
+                            failedAt[0] = i;
+                            failure[0] = e;
+                            status.setRollbackOnly();
+                            return;
+                        }
+                    }
+                });
+            } catch (RuntimeException e) {
+                if (failedAt[0] < 0) {
+                    log.warn("Group commit of {} writes failed, retrying them one by one", pending.size(), e);
+                    commitIndividually(pending);
+                    return;
+                }
+            }
+
+            if (failedAt[0] < 0) {
+                for (int i = 0; i < pending.size(); i++) {
+                    pending.get(i).complete(results[i]);
+                }
+                groupSize.record(pending.size());
+                return;
+            }
+
+            // the failing write saw the writes before it, which run again in the same order
+            pending.remove(failedAt[0]).result().completeExceptionally(failure[0]);
+            if (retried) {
+                commitIndividually(pending);
+                return;
+            }
+            retried = true;
+        }
+    }
+
+    private void commitIndividually(List<Request<?>> requests) {
+        for (Request<?> request : requests) {
+            request.run(transactionTemplate);
+            groupSize.record(1);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (committerThread == null) {
+            return;
+        }
+
+        running = false;
+        try {
+            committerThread.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
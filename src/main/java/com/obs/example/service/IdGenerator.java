@@ -0,0 +1,99 @@
+package com.obs.example.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Generates time-ordered ids for rows whose client did not pick one, without locks and without
+ * asking the database.
+ * <ul>
+ *     <li>{@link #nextId()}: Snowflake-style {@code long} made of 41 bits of milliseconds since
+ *     2024-01-01, the 10-bit {@code obs.id.worker-id} and a 12-bit sequence.</li>
+ *     <li>{@link #nextOrderNo()}: ULID-style 26-character Crockford base32 string made of 48 bits
+ *     of Unix milliseconds, the worker id, a 12-bit sequence and 58 random bits.</li>
+ * </ul>
+ * Ids from one node are strictly increasing, and because they start with the time, new rows land
+ * at the right-hand edge of the primary key index instead of splitting pages all over it. Nodes
+ * sharing a database need distinct worker ids. If the clock moves backwards, or more than 4096
+ * ids are taken within one millisecond, the generator keeps counting on from the last
+ * millisecond it used.
+ */
+@Component
+public class IdGenerator {
+
+    static final long EPOCH_MILLIS = Instant.parse("2024-01-01T00:00:00Z").toEpochMilli();
+    static final int WORKER_BITS = 10;
+    static final int SEQUENCE_BITS = 12;
+    static final int MAX_WORKER_ID = (1 << WORKER_BITS) - 1;
+
+    private static final char[] CROCKFORD = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+
+    private final int workerId;
+    private final LongSupplier clock;
+    private final AtomicLong idState = new AtomicLong();
+    private final AtomicLong orderNoState = new AtomicLong();
+
+    @Autowired
+    public IdGenerator(@Value("${obs.id.worker-id:0}") int workerId) {
+        this(workerId, System::currentTimeMillis);
+    }
+
+    IdGenerator(int workerId, LongSupplier clock) {
+        if (workerId < 0 || workerId > MAX_WORKER_ID) {
+            throw new IllegalStateException("obs.id.worker-id must be between 0 and " + MAX_WORKER_ID + ", was " + workerId);
+        }
+        this.workerId = workerId;
+        this.clock = clock;
+    }
+
+    public long nextId() {
+        long state = advance(idState);
+        long millis = state >>> SEQUENCE_BITS;
+        long sequence = state & ((1L << SEQUENCE_BITS) - 1);
+        return (millis - EPOCH_MILLIS) << (WORKER_BITS + SEQUENCE_BITS)
+                | (long) workerId << SEQUENCE_BITS
+                | sequence;
+    }
+
+    public String nextOrderNo() {
+        long state = advance(orderNoState);
+        long millis = state >>> SEQUENCE_BITS;
+        long sequence = state & ((1L << SEQUENCE_BITS) - 1);
+
+        // 48 bits time | 10 bits worker | 12 bits sequence | 58 bits random
+        long high = millis << 16 | (long) workerId << 6 | sequence >>> 6;
+        long low = (sequence & 0x3F) << 58 | ThreadLocalRandom.current().nextLong() >>> 6;
+        return encode(high, low);
+    }
+
+    /**
+     * Moves the packed {@code millis << 12 | sequence} state forward to the current millisecond,
+     * or by one within the same millisecond. A full sequence carries into the millisecond bits.
+     */
+    private long advance(AtomicLong state) {
+        while (true) {
+            long current = state.get();
+            long now = clock.getAsLong();
+            long next = now > current >>> SEQUENCE_BITS ? now << SEQUENCE_BITS : current + 1;
+            if (state.compareAndSet(current, next)) {
+                return next;
+            }
+        }
+    }
+
+    private static String encode(long high, long low) {
+        char[] chars = new char[26];
+        for (int i = chars.length - 1; i >= 0; i--) {
+            chars[i] = CROCKFORD[(int) (low & 0x1F)];
+            low = low >>> 5 | high << 59;
+            high >>>= 5;
+        }
+        return new String(chars);
+    }
+}
@@ -0,0 +1,181 @@
+package com.obs.example.service;
+
+import com.obs.example.constant.InventoryType;
+import com.obs.example.dto.CompactionReportDto;
+import com.obs.example.exception.BadRequestException;
+import com.obs.example.projection.InventoryTotals;
+import com.obs.example.repository.InventoryRepository;
+import jakarta.transaction.Transactional;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+/**
+ * Folds inventory movements created at or before a horizon into one opening-balance row per item.
+ * The opening row reuses the smallest folded id, carries the net quantity as a top-up (or as a
+ * withdrawal when the net is negative) and the newest folded creation time, so stock balances,
+ * the stock index and every stock recompute are unchanged.
+ * <p>
+ * Each batch folds at most {@code obs.inventory.compaction.batch-size} rows of a single item in
+ * its own short transaction on the item's stock shard, so concurrent inventory writes only ever
+ * wait for one batch. The batch rows are read under row locks, and inventory edits lock the row
+ * they change, so a fold and an edit never interleave even with the stock engine disabled.
+ * <p>
+ * The horizon is recorded before the first fold, and point-in-time queries for times before it
+ * are refused from then on. Checkpoints older than a folded row are dropped as well.
+ */
+@Service
+@Slf4j
+public class InventoryCompactionService {
+
+    private static final int LATENCY_SAMPLE_SIZE = 100;
+
+    private final InventoryRepository inventoryRepository;
+    private final StockService stockService;
+    private final StockEngine stockEngine;
+    private final StockCheckpointService stockCheckpointService;
+    private final ChangeVersions changeVersions;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration horizonAge;
+    private final int batchSize;
+
+    public InventoryCompactionService(InventoryRepository inventoryRepository,
+                                      StockService stockService,
+                                      StockEngine stockEngine,
+                                      StockCheckpointService stockCheckpointService,
+                                      ChangeVersions changeVersions,
+                                      PlatformTransactionManager transactionManager,
+                                      @Value("${obs.inventory.compaction.horizon:P90D}") Duration horizonAge,
+                                      @Value("${obs.inventory.compaction.batch-size:500}") int batchSize) {
+        if (batchSize < 2) {
+            throw new IllegalArgumentException("Compaction batch size must be at least 2");
+        }
+
+        this.inventoryRepository = inventoryRepository;
+        this.stockService = stockService;
+        this.stockEngine = stockEngine;
+        this.stockCheckpointService = stockCheckpointService;
+        this.changeVersions = changeVersions;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.horizonAge = horizonAge;
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(cron = "${obs.inventory.compaction.cron:-}")
+    @Transactional(Transactional.TxType.NOT_SUPPORTED)
+    public void compactScheduled() {
+        compact(null);
+    }
+
+    /**
+     * Compacts every item with more than one movement at or before the horizon. Without a horizon
+     * the configured age ({@code obs.inventory.compaction.horizon}) is used.
+     */
+    @Transactional(Transactional.TxType.NOT_SUPPORTED)
+    public CompactionReportDto compact(Instant horizon) {
+        Instant now = Instant.now();
+        // truncated like the stored timestamps, so that the recorded horizon is never rounded up
+        Instant effectiveHorizon = (horizon == null ? now.minus(horizonAge) : horizon).truncatedTo(ChronoUnit.MICROS);
+        if (effectiveHorizon.isAfter(now)) {
+            throw new BadRequestException("Compaction horizon must not be in the future");
+        }
+
+        long started = System.nanoTime();
+        long rowsBefore = inventoryRepository.count();
+        List<Long> itemIds = inventoryRepository.findItemIdsToCompact(effectiveHorizon);
+        List<Long> sample = itemIds.subList(0, Math.min(LATENCY_SAMPLE_SIZE, itemIds.size()));
+
+        CompactionReportDto report = new CompactionReportDto();
+        report.setHorizon(effectiveHorizon);
+        report.setCompactedItems(itemIds.size());
+        report.setRowsBefore(rowsBefore);
+        report.setStockLatencyBeforeMicros(measureStockLatency(sample));
+        report.setRecomputeLatencyBeforeMicros(measureRecomputeLatency(sample));
+
+        if (!itemIds.isEmpty()) {
+            transactionTemplate.executeWithoutResult(status ->
+                    stockCheckpointService.recordCompactionHorizon(effectiveHorizon));
+        }
+
+        int batches = 0;
+        for (Long itemId : itemIds) {
+            batches += compactItem(itemId, effectiveHorizon);
+        }
+
+        report.setBatches(batches);
+        report.setRowsAfter(inventoryRepository.count());
+        report.setStockLatencyAfterMicros(measureStockLatency(sample));
+        report.setRecomputeLatencyAfterMicros(measureRecomputeLatency(sample));
+        report.setDurationMillis((System.nanoTime() - started) / 1_000_000);
+
+        log.info("Compacted inventory of {} items up to {} in {} batches: {} -> {} rows, recompute {} -> {} us",
+                report.getCompactedItems(), effectiveHorizon, batches, report.getRowsBefore(), report.getRowsAfter(),
+                report.getRecomputeLatencyBeforeMicros(), report.getRecomputeLatencyAfterMicros());
+        return report;
+    }
+
+    private int compactItem(Long itemId, Instant horizon) {
+        int batches = 0;
+        while (true) {
+            Integer folded = stockEngine.execute(itemId,
+                    () -> transactionTemplate.execute(status -> foldBatch(itemId, horizon)));
+            if (folded == null || folded <= 1) {
+                return batches;
+            }
+            batches++;
+        }
+    }
+
+    /**
+     * Folds the oldest-id batch of the item's settled movements into the first row of the batch.
+     * Returns the number of rows the batch covered; 1 or less means the item is fully compacted.
+     */
+    private int foldBatch(Long itemId, Instant horizon) {
+        List<Long> ids = inventoryRepository.findIdsByItemIdCreatedUpTo(itemId, horizon, PageRequest.of(0, batchSize));
+        if (ids.size() <= 1) {
+            return ids.size();
+        }
+
+        InventoryTotals totals = inventoryRepository.sumQtyByIdIn(ids).get(0);
+        long net = totals.getTopUpTotal() - totals.getWithdrawalTotal();
+        Instant createdAt = inventoryRepository.findMaxCreatedAtByIdIn(ids).orElse(null);
+
+        inventoryRepository.updateMovement(ids.get(0), Math.toIntExact(Math.abs(net)),
+                net < 0 ? InventoryType.W : InventoryType.T, createdAt);
+        inventoryRepository.deleteByIdIn(ids.subList(1, ids.size()));
+        if (createdAt != null) {
+            stockCheckpointService.invalidateBefore(itemId, createdAt);
+        }
+        changeVersions.bump(ChangeVersions.Table.INVENTORIES);
+        return ids.size();
+    }
+
+    private long measureStockLatency(List<Long> itemIds) {
+        if (itemIds.isEmpty()) {
+            return 0;
+        }
+
+        long started = System.nanoTime();
+        itemIds.forEach(stockService::getStock);
+        return (System.nanoTime() - started) / 1_000 / itemIds.size();
+    }
+
+    private long measureRecomputeLatency(List<Long> itemIds) {
+        if (itemIds.isEmpty()) {
+            return 0;
+        }
+
+        long started = System.nanoTime();
+        stockService.recomputeStocks(itemIds);
+        return (System.nanoTime() - started) / 1_000;
+    }
+}
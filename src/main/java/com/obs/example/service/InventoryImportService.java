@@ -0,0 +1,350 @@
+package com.obs.example.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.obs.example.constant.InventoryType;
+import com.obs.example.dto.ImportErrorDto;
+import com.obs.example.dto.ImportReportDto;
+import com.obs.example.dto.InventoryDto;
+import com.obs.example.exception.BadRequestException;
+import com.obs.example.repository.InventoryRepository;
+import com.obs.example.repository.ItemRepository;
+import com.obs.example.utils.PersistenceUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Imports inventory movements from an NDJSON or CSV body, reading it line by line so that only
+ * one batch of rows is held at a time. Item ids are checked against the item ids loaded once at
+ * the start of the import, and every batch of {@code obs.inventory.import.batch-size} accepted
+ * rows is inserted with a single JDBC batch on the stock shards of its items, together with the
+ * balance change of each of its items.
+ * <p>
+ * Withdrawals are checked against a running balance per item, read at the start of each batch
+ * and moved by the rows accepted before them, and then taken with
+ * {@link StockService#withdrawStocks}. A row that fails validation is reported with its line
+ * number and skipped; the rest of the body is still imported. A batch that loses a race for an
+ * id or for stock is tried again and, failing that, written one row at a time, so that only the
+ * conflicting rows are rejected.
+ * <p>
+ * CSV bodies start with a header naming the {@code id}, {@code itemId}, {@code qty} and
+ * {@code type} columns, in any order; {@code id} may be left out or empty, as in NDJSON, to have
+ * one generated.
+ */
+@Service
+@Slf4j
+public class InventoryImportService {
+
+    private static final int MAX_ATTEMPTS = 3;
+
+    private static final String INSERT_SQL =
+            "insert into inventory (id, qty, type, item_id, created_at) values (?, ?, ?, ?, ?)";
+
+    private record Row(long line, Long id, Long itemId, int qty, InventoryType type) {
+    }
+
+    private final InventoryRepository inventoryRepository;
+    private final ItemRepository itemRepository;
+    private final StockService stockService;
+    private final MovementWriteService movementWriteService;
+    private final IdGenerator idGenerator;
+    private final ChangeVersions changeVersions;
+    private final StockEngine stockEngine;
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final int batchSize;
+    private final int maxErrors;
+
+    public InventoryImportService(InventoryRepository inventoryRepository,
+                                  ItemRepository itemRepository,
+                                  StockService stockService,
+                                  MovementWriteService movementWriteService,
+                                  IdGenerator idGenerator,
+                                  ChangeVersions changeVersions,
+                                  StockEngine stockEngine,
+                                  JdbcTemplate jdbcTemplate,
+                                  ObjectMapper objectMapper,
+                                  @Value("${obs.inventory.import.batch-size:1000}") int batchSize,
+                                  @Value("${obs.inventory.import.max-errors:1000}") int maxErrors) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Import batch size must be at least 1");
+        }
+
+        this.inventoryRepository = inventoryRepository;
+        this.itemRepository = itemRepository;
+        this.stockService = stockService;
+        this.movementWriteService = movementWriteService;
+        this.idGenerator = idGenerator;
+        this.changeVersions = changeVersions;
+        this.stockEngine = stockEngine;
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.batchSize = batchSize;
+        this.maxErrors = maxErrors;
+    }
+
+    /**
+     * Imports the body, read as CSV when {@code csv} is set and as NDJSON otherwise.
+     */
+    public ImportReportDto importInventories(InputStream body, boolean csv) throws IOException {
+        long start = System.nanoTime();
+        movementWriteService.awaitApplied();
+        Set<Long> itemIds = new HashSet<>(itemRepository.findAllIds());
+
+        ImportReportDto report = new ImportReportDto();
+        List<Row> batch = new ArrayList<>(batchSize);
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+
+        String line;
+        long lineNumber = 0;
+        Map<String, Integer> header = null;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+
+            if (csv && header == null) {
+                header = parseHeader(line);
+                continue;
+            }
+
+            report.setReceived(report.getReceived() + 1);
+            try {
+                Row row = csv ? parseCsv(lineNumber, line, header) : parseJson(lineNumber, line);
+                if (!itemIds.contains(row.itemId())) {
+                    throw new BadRequestException("Item not found with ID: " + row.itemId());
+                }
+                batch.add(row);
+            } catch (BadRequestException e) {
+                reject(report, lineNumber, e.getMessage());
+            }
+
+            if (batch.size() == batchSize) {
+                insertBatch(batch, report);
+                batch.clear();
+            }
+        }
+
+        if (!batch.isEmpty()) {
+            insertBatch(batch, report);
+        }
+
+        // parse errors are reported as lines are read, stock and id errors once their batch is inserted
+        report.getErrors().sort(Comparator.comparingLong(ImportErrorDto::getLine));
+        long nanos = System.nanoTime() - start;
+        report.setDurationMillis(nanos / 1_000_000);
+        report.setRowsPerSecond(nanos == 0 ? 0 : report.getImported() * 1_000_000_000L / nanos);
+        log.info("Imported {} of {} inventory rows in {} ms ({} rows/s)", report.getImported(), report.getReceived(),
+                report.getDurationMillis(), report.getRowsPerSecond());
+        return report;
+    }
+
+    private void insertBatch(List<Row> batch, ImportReportDto report) {
+        BadRequestException conflict = null;
+        for (int attempt = 1; attempt <= MAX_ATTEMPTS; attempt++) {
+            try {
+                writeBatch(batch, report);
+                return;
+            } catch (BadRequestException e) {
+                conflict = e;
+            }
+        }
+
+        if (batch.size() == 1) {
+            reject(report, batch.get(0).line(), conflict.getMessage());
+            return;
+        }
+        batch.forEach(row -> insertBatch(List.of(row), report));
+    }
+
+    /**
+     * Writes the batch on the stock shards of its items and adds the outcome to the report once it
+     * has committed. Throws {@link BadRequestException} when a concurrent writer took one of the
+     * ids or part of the stock after the batch was checked.
+     */
+    private void writeBatch(List<Row> batch, ImportReportDto report) {
+        List<Long> itemIds = batch.stream().map(Row::itemId).distinct().toList();
+        List<ImportErrorDto> rejected = new ArrayList<>();
+        int imported = stockEngine.execute(itemIds, () -> insertRows(batch, itemIds, rejected));
+
+        rejected.forEach(error -> reject(report, error.getLine(), error.getMessage()));
+        if (imported > 0) {
+            report.setImported(report.getImported() + imported);
+            report.setBatches(report.getBatches() + 1);
+        }
+    }
+
+    private int insertRows(List<Row> batch, List<Long> itemIds, List<ImportErrorDto> rejected) {
+        Set<Long> batchIds = new HashSet<>();
+        Set<Long> existingIds = new HashSet<>();
+        List<Long> explicitIds = batch.stream().map(Row::id).filter(Objects::nonNull).toList();
+        if (!explicitIds.isEmpty()) {
+            existingIds.addAll(inventoryRepository.findExistingIds(explicitIds));
+        }
+
+        Map<Long, Integer> balances = stockService.getStocks(itemIds);
+        Map<Long, Integer> deltas = new LinkedHashMap<>();
+        Timestamp createdAt = Timestamp.from(Instant.now().truncatedTo(ChronoUnit.MICROS));
+        List<Object[]> accepted = new ArrayList<>(batch.size());
+
+        for (Row row : batch) {
+            if (row.id() != null && (existingIds.contains(row.id()) || !batchIds.add(row.id()))) {
+                rejected.add(new ImportErrorDto(row.line(), "Inventory already exists with ID: " + row.id()));
+                continue;
+            }
+
+            int stock = balances.getOrDefault(row.itemId(), 0);
+            if (row.type() == InventoryType.W && stock < row.qty()) {
+                rejected.add(new ImportErrorDto(row.line(), "Insufficient stock for withdrawal item with id "
+                        + row.itemId() + " stock = " + stock));
+                continue;
+            }
+
+            int delta = StockService.signedQty(row.type(), row.qty());
+            balances.put(row.itemId(), stock + delta);
+            deltas.merge(row.itemId(), delta, Integer::sum);
+            Long id = row.id() != null ? row.id() : idGenerator.nextId();
+            accepted.add(new Object[]{id, row.qty(), row.type().ordinal(), row.itemId(), createdAt});
+        }
+
+        if (accepted.isEmpty()) {
+            return 0;
+        }
+
+        Map<Long, Integer> withdrawals = new HashMap<>();
+        Map<Long, Integer> topUps = new HashMap<>();
+        deltas.forEach((itemId, delta) -> {
+            if (delta < 0) {
+                withdrawals.put(itemId, -delta);
+            } else {
+                topUps.put(itemId, delta);
+            }
+        });
+
+        // withdrawals are taken before the rows are inserted and top-ups applied after, so a missing
+        // balance row is created from a history that counts each row exactly once
+        List<Long> insufficient = stockService.withdrawStocks(withdrawals);
+        if (!insufficient.isEmpty()) {
+            throw new BadRequestException("Insufficient stock for withdrawal item with id " + insufficient.get(0)
+                    + " stock = " + stockService.getStock(insufficient.get(0)));
+        }
+
+        try {
+            jdbcTemplate.batchUpdate(INSERT_SQL, accepted);
+        } catch (DataIntegrityViolationException e) {
+            if (PersistenceUtils.isDuplicateKey(e)) {
+                throw new BadRequestException(accepted.size() == 1
+                        ? "Inventory already exists with ID: " + accepted.get(0)[0]
+                        : "Inventory ids of the batch were inserted concurrently");
+            }
+            throw e;
+        }
+        stockService.adjustStocks(topUps);
+        changeVersions.bump(ChangeVersions.Table.INVENTORIES);
+        return accepted.size();
+    }
+
+    private Map<String, Integer> parseHeader(String line) {
+        Map<String, Integer> header = new HashMap<>();
+        String[] columns = line.split(",", -1);
+        for (int i = 0; i < columns.length; i++) {
+            header.put(unquote(columns[i]).toLowerCase(Locale.ROOT), i);
+        }
+
+        for (String column : List.of("itemid", "qty", "type")) {
+            if (!header.containsKey(column)) {
+                throw new BadRequestException("CSV header is missing column " + column);
+            }
+        }
+        return header;
+    }
+
+    private Row parseCsv(long line, String text, Map<String, Integer> header) {
+        String[] fields = text.split(",", -1);
+        try {
+            String id = field(fields, header.get("id"));
+            String itemId = field(fields, header.get("itemid"));
+            String qty = field(fields, header.get("qty"));
+            String type = field(fields, header.get("type"));
+            return validate(line,
+                    id == null ? null : Long.valueOf(id),
+                    itemId == null ? null : Long.valueOf(itemId),
+                    qty == null ? 0 : Integer.parseInt(qty),
+                    type == null ? null : InventoryType.valueOf(type));
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Invalid value: " + e.getMessage());
+        }
+    }
+
+    private Row parseJson(long line, String text) {
+        InventoryDto inventoryDto;
+        try {
+            inventoryDto = objectMapper.readValue(text, InventoryDto.class);
+        } catch (JsonProcessingException e) {
+            throw new BadRequestException("Invalid JSON: " + e.getOriginalMessage());
+        }
+
+        return validate(line, inventoryDto.getId(), inventoryDto.getItemId(), inventoryDto.getQty(),
+                inventoryDto.getType());
+    }
+
+    private static Row validate(long line, Long id, Long itemId, int qty, InventoryType type) {
+        if (itemId == null) {
+            throw new BadRequestException("Item ID is mandatory");
+        }
+        if (type == null) {
+            throw new BadRequestException("Type is mandatory");
+        }
+        if (qty < 0) {
+            throw new BadRequestException("Quantity must be zero or positive");
+        }
+        return new Row(line, id, itemId, qty, type);
+    }
+
+    private void reject(ImportReportDto report, long line, String message) {
+        report.setRejected(report.getRejected() + 1);
+        if (report.getErrors().size() < maxErrors) {
+            report.getErrors().add(new ImportErrorDto(line, message));
+        }
+    }
+
+    private static String field(String[] fields, Integer index) {
+        if (index == null || index >= fields.length) {
+            return null;
+        }
+
+        String value = unquote(fields[index]);
+        return value.isEmpty() ? null : value;
+    }
+
+    private static String unquote(String value) {
+        String trimmed = value.trim();
+        if (trimmed.length() >= 2 && trimmed.startsWith("\"") && trimmed.endsWith("\"")) {
+            return trimmed.substring(1, trimmed.length() - 1).trim();
+        }
+        return trimmed;
+    }
+}
@@ -1,25 +1,32 @@
 package com.obs.example.service;
 
 import com.obs.example.constant.InventoryType;
+import com.obs.example.dto.CursorPageDto;
+import com.obs.example.dto.InventoryDetailDto;
 import com.obs.example.dto.InventoryDto;
 import com.obs.example.dto.InventoryResponseDto;
+import com.obs.example.dto.ItemDto;
+import com.obs.example.dto.StockAsOfDto;
 import com.obs.example.entity.Inventory;
 import com.obs.example.entity.Item;
-import com.obs.example.entity.Order;
 import com.obs.example.exception.BadRequestException;
 import com.obs.example.exception.ResourceNotFoundException;
 import com.obs.example.repository.InventoryRepository;
 import com.obs.example.repository.ItemRepository;
-import com.obs.example.repository.OrderRepository;
-import com.obs.example.utils.InventoryCalculationUtils;
+import com.obs.example.utils.CursorUtils;
+import com.obs.example.utils.PersistenceUtils;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 
@@ -31,26 +38,77 @@ public class InventoryService {
 
     private final InventoryRepository inventoryRepository;
     private final ItemRepository itemRepository;
-    private final OrderRepository orderRepository;
+    private final StockService stockService;
+    private final StockEngine stockEngine;
+    private final GroupCommitter groupCommitter;
+    private final StockCheckpointService stockCheckpointService;
+    private final MovementWriteService movementWriteService;
+    private final IdGenerator idGenerator;
+    private final ItemCache itemCache;
+    private final ChangeVersions changeVersions;
 
     public Page<InventoryResponseDto> getAllInventories(Pageable pageable) {
-        return inventoryRepository.findAll(pageable)
-                .map(this::toInventoryResponse);
+        return inventoryRepository.findAllResponses(pageable);
     }
 
-    public Inventory getInventoryById(Long id) {
+    public CursorPageDto<InventoryResponseDto> getInventoriesAfter(String cursor, int size) {
+        List<InventoryResponseDto> rows = inventoryRepository.findResponsesAfter(CursorUtils.decodeLong(cursor), CursorUtils.limit(size));
+        return CursorUtils.toPage(rows, size, InventoryResponseDto::getId);
+    }
+
+    public InventoryDetailDto getInventoryById(Long id) {
 
-        Optional<Inventory> inventory = inventoryRepository.findById(id);
+        Optional<Inventory> inventory = movementWriteService.findPendingInventory(id)
+                .map(this::toInventory)
+                .or(() -> inventoryRepository.findDetailById(id));
         if (inventory.isEmpty()) {
             throw new ResourceNotFoundException("Inventory with id " + id + " not found");
         }
 
-        return inventory.get();
+        return toInventoryDetail(inventory.get());
     }
 
+    /**
+     * Only joins a transaction the caller already has, like {@link OrderService#saveOrder}.
+     */
+    @Transactional(Transactional.TxType.SUPPORTS)
     public void saveInventory(Long id, InventoryDto inventoryDto) {
+        if (id == null && inventoryDto.getId() == null) {
+            inventoryDto.setId(idGenerator.nextId());
+        }
+
+        if (id == null && movementWriteService.isEnabled()) {
+            journalInventory(inventoryDto);
+            return;
+        }
+
+        movementWriteService.awaitApplied();
+        if (id == null) {
+            groupCommitter.execute(() -> stockEngine.execute(inventoryDto.getItemId(), () -> writeInventory(null, null, inventoryDto)));
+            return;
+        }
+
+        Long storedItemId = stockEngine.read(() -> inventoryRepository.findItemIdById(id))
+                .orElseThrow(() -> new ResourceNotFoundException("Inventory not found with ID: " + id));
+        groupCommitter.execute(() -> stockEngine.execute(List.of(storedItemId, inventoryDto.getItemId()),
+                () -> writeInventory(id, storedItemId, inventoryDto)));
+    }
+
+    private void journalInventory(InventoryDto inventoryDto) {
+        if (!itemCache.exists(inventoryDto.getItemId())) {
+            throw new ResourceNotFoundException("Item not found with ID: " + inventoryDto.getItemId());
+        }
+
+        movementWriteService.append(new Movement.InventoryMovement(inventoryDto.getId(), inventoryDto.getItemId(),
+                inventoryDto.getType(), inventoryDto.getQty(), Instant.now().truncatedTo(ChronoUnit.MICROS)));
+    }
+
+    private void writeInventory(Long id, Long storedItemId, InventoryDto inventoryDto) {
 
         Inventory inventory;
+        Long previousItemId = null;
+        int previousQty = 0;
+        Instant createdAt = null;
 
         if (id == null) {
             inventory = new Inventory();
@@ -59,48 +117,128 @@ public class InventoryService {
                 throw new BadRequestException("Insufficient stock for withdrawal item with id " + inventoryDto.getItemId() + " stock = " + getItemStock(inventoryDto.getItemId()));
             }
         } else {
-            inventory = inventoryRepository.findById(id)
+            inventory = inventoryRepository.findByIdForUpdate(id)
                     .orElseThrow(() -> new ResourceNotFoundException("Inventory not found with ID: " + id));
+            previousItemId = inventory.getItem().getId();
+            previousQty = StockService.signedQty(inventory.getType(), inventory.getQty());
+            createdAt = inventory.getCreatedAt();
+            if (!previousItemId.equals(storedItemId)) {
+                throw new BadRequestException("Inventory was changed concurrently: " + id);
+            }
         }
 
-        Item item = itemRepository.findById(inventoryDto.getItemId())
+        ItemCache.CachedItem item = itemCache.find(inventoryDto.getItemId())
                 .orElseThrow(() -> new ResourceNotFoundException("Item not found with ID: " + inventoryDto.getItemId()));
 
 
-        inventory.setItem(item);
+        inventory.setItem(itemRepository.getReferenceById(item.id()));
         inventory.setType(inventoryDto.getType());
         inventory.setQty(inventoryDto.getQty());
 
-        inventoryRepository.save(inventory);
+        if (id == null) {
+            insertInventory(inventory);
+        } else {
+            inventoryRepository.save(inventory);
+        }
+        changeVersions.bump(ChangeVersions.Table.INVENTORIES);
+
+        int qty = StockService.signedQty(inventory.getType(), inventory.getQty());
+        if (previousItemId == null || previousItemId.equals(item.id())) {
+            stockService.adjustStock(item.id(), qty - previousQty);
+        } else {
+            stockService.adjustStock(previousItemId, -previousQty);
+            stockService.adjustStock(item.id(), qty);
+        }
+
+        if (previousItemId != null) {
+            stockCheckpointService.invalidate(previousItemId, createdAt);
+            if (!previousItemId.equals(item.id())) {
+                stockCheckpointService.invalidate(item.id(), createdAt);
+            }
+        }
     }
 
+    private void insertInventory(Inventory inventory) {
+        try {
+            inventoryRepository.saveAndFlush(inventory);
+        } catch (DataIntegrityViolationException e) {
+            if (PersistenceUtils.isDuplicateKey(e)) {
+                throw new BadRequestException("Inventory already exists with ID: " + inventory.getId());
+            }
+            throw e;
+        }
+    }
+
+    @Transactional(Transactional.TxType.SUPPORTS)
     public void deleteInventory(Long id) {
-       Optional<Inventory> inventory = inventoryRepository.findById(id);
+       movementWriteService.awaitApplied();
+       Long itemId = stockEngine.read(() -> inventoryRepository.findItemIdById(id))
+               .orElseThrow(() -> new ResourceNotFoundException("Inventory with id " + id + " not found"));
+
+       stockEngine.execute(itemId, () -> removeInventory(id));
+    }
+
+    private void removeInventory(Long id) {
+       Optional<Inventory> inventory = inventoryRepository.findByIdForUpdate(id);
        if (inventory.isEmpty()) {
            throw new ResourceNotFoundException("Inventory with id " + id + " not found");
        }
 
        if (inventory.get().getType().equals(InventoryType.T)) {
-           if (getItemStock(inventory.get().getItem().getId()) < inventory.get().getQty()) {
+           if (!stockService.withdrawStocks(Map.of(inventory.get().getItem().getId(), inventory.get().getQty())).isEmpty()) {
                throw new BadRequestException("Cannot delete inventory with id " + id + " because the stock will be minus!");
            }
        }
 
        inventoryRepository.delete(inventory.get());
+       changeVersions.bump(ChangeVersions.Table.INVENTORIES);
+       if (!inventory.get().getType().equals(InventoryType.T)) {
+           stockService.adjustStock(inventory.get().getItem().getId(),
+                   -StockService.signedQty(inventory.get().getType(), inventory.get().getQty()));
+       }
+       stockCheckpointService.invalidate(inventory.get().getItem().getId(), inventory.get().getCreatedAt());
     }
 
-    private InventoryResponseDto toInventoryResponse(Inventory inventory) {
-        InventoryResponseDto response = new InventoryResponseDto();
+    private Inventory toInventory(Movement.InventoryMovement movement) {
+        Inventory inventory = new Inventory();
+        inventory.setId(movement.id());
+        inventory.setItem(itemRepository.findById(movement.itemId()).orElse(null));
+        inventory.setType(movement.type());
+        inventory.setQty(movement.qty());
+        inventory.setCreatedAt(movement.createdAt());
+        return inventory;
+    }
+
+    private InventoryDetailDto toInventoryDetail(Inventory inventory) {
+        InventoryDetailDto response = new InventoryDetailDto();
         response.setId(inventory.getId());
         response.setQty(inventory.getQty());
         response.setType(inventory.getType());
-        response.setItemId(inventory.getItem().getId());
+        response.setCreatedAt(inventory.getCreatedAt());
+        response.setItem(toItemDto(inventory.getItem()));
+        return response;
+    }
+
+    private ItemDto toItemDto(Item item) {
+        if (item == null) {
+            return null;
+        }
+        ItemDto response = new ItemDto();
+        response.setId(item.getId());
+        response.setName(item.getName());
+        response.setPrice(item.getPrice());
         return response;
     }
 
     public int getItemStock(Long itemId) {
-        List<Inventory> inventories = inventoryRepository.findByItemId(itemId);
-        List<Order> orders = orderRepository.findByItemId(itemId);
-        return InventoryCalculationUtils.calculateStockQuantity(inventories, orders);
+        return stockService.getStock(itemId);
+    }
+
+    public StockAsOfDto getItemStockAsOf(Long itemId, Instant asOf) {
+        if (!itemCache.exists(itemId)) {
+            throw new ResourceNotFoundException("Item not found with ID: " + itemId);
+        }
+
+        return stockCheckpointService.getStockAsOf(itemId, asOf);
     }
 }
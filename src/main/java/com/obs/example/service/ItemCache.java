@@ -0,0 +1,102 @@
+package com.obs.example.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.obs.example.entity.Item;
+import com.obs.example.repository.ItemRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Keeps immutable copies of catalog items in a bounded Caffeine cache so that order and movement
+ * writes do not read the item table. {@link ItemService} invalidates an item when it changes.
+ */
+@Component
+public class ItemCache {
+
+    public record CachedItem(Long id, String name, Integer price) {
+
+        public static CachedItem of(Item item) {
+            return new CachedItem(item.getId(), item.getName(), item.getPrice());
+        }
+    }
+
+    private final ItemRepository itemRepository;
+    private final Cache<Long, CachedItem> cache;
+
+    public ItemCache(@Value("${obs.item.cache.enabled:true}") boolean enabled,
+                     @Value("${obs.item.cache.max-size:10000}") long maxSize,
+                     @Value("${obs.item.cache.ttl:10m}") Duration ttl,
+                     ItemRepository itemRepository,
+                     MeterRegistry meterRegistry) {
+        this.itemRepository = itemRepository;
+        if (!enabled) {
+            this.cache = null;
+            return;
+        }
+
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "items");
+    }
+
+    public Optional<CachedItem> find(Long id) {
+        if (cache == null) {
+            return itemRepository.findById(id).map(CachedItem::of);
+        }
+        // a missing item is not cached, so it is found as soon as it is created
+        return Optional.ofNullable(cache.get(id, key -> itemRepository.findById(key).map(CachedItem::of).orElse(null)));
+    }
+
+    public boolean exists(Long id) {
+        return find(id).isPresent();
+    }
+
+    public void invalidate(Long id) {
+        if (cache == null) {
+            return;
+        }
+
+        cache.invalidate(id);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    cache.invalidate(id);
+                }
+            });
+        }
+    }
+
+    /**
+     * Like {@link #invalidate(Long)} for a batch of items, with a single synchronization.
+     */
+    public void invalidateAll(Collection<Long> ids) {
+        if (cache == null || ids.isEmpty()) {
+            return;
+        }
+
+        List<Long> invalidated = List.copyOf(ids);
+        cache.invalidateAll(invalidated);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    cache.invalidateAll(invalidated);
+                }
+            });
+        }
+    }
+}
@@ -1,25 +1,29 @@
 package com.obs.example.service;
 
 import com.obs.example.constant.InventoryType;
+import com.obs.example.dto.CursorPageDto;
 import com.obs.example.dto.ItemDto;
 import com.obs.example.dto.ItemResponseDto;
-import com.obs.example.entity.Inventory;
 import com.obs.example.entity.Item;
-import com.obs.example.entity.Order;
 import com.obs.example.exception.BadRequestException;
 import com.obs.example.exception.ReferentialIntegrityViolationException;
 import com.obs.example.exception.ResourceNotFoundException;
+import com.obs.example.repository.ArchivedOrderTotalRepository;
 import com.obs.example.repository.InventoryRepository;
 import com.obs.example.repository.ItemRepository;
 import com.obs.example.repository.OrderRepository;
-import com.obs.example.utils.InventoryCalculationUtils;
+import com.obs.example.repository.ReservationRepository;
+import com.obs.example.utils.CursorUtils;
+import com.obs.example.utils.PersistenceUtils;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Service
@@ -30,21 +34,38 @@ public class ItemService {
     private final ItemRepository itemRepository;
     private final InventoryRepository inventoryRepository;
     private final OrderRepository orderRepository;
+    private final ReservationRepository reservationRepository;
+    private final ArchivedOrderTotalRepository archivedOrderTotalRepository;
+    private final StockService stockService;
+    private final MovementWriteService movementWriteService;
+    private final IdGenerator idGenerator;
+    private final ItemCache itemCache;
+    private final ChangeVersions changeVersions;
 
     public Page<ItemResponseDto> getAllItems(Pageable pageable) {
-        return itemRepository.findAll(pageable)
-                .map(this::toItemResponse);
+        Page<ItemResponseDto> items = itemRepository.findAllResponses(pageable);
+        Map<Long, Integer> stocks = stockService.getStocks(items.map(ItemResponseDto::getId).getContent());
+        items.forEach(item -> item.setStock(stocks.get(item.getId())));
+        return items;
     }
 
-    public Item getItemById(Long id) {
+    public CursorPageDto<ItemResponseDto> getItemsAfter(String cursor, int size) {
+        List<ItemResponseDto> rows = itemRepository.findResponsesAfter(CursorUtils.decodeLong(cursor), CursorUtils.limit(size));
+        CursorPageDto<ItemResponseDto> items = CursorUtils.toPage(rows, size, ItemResponseDto::getId);
+        Map<Long, Integer> stocks = stockService.getStocks(items.getContent().stream().map(ItemResponseDto::getId).toList());
+        items.getContent().forEach(item -> item.setStock(stocks.get(item.getId())));
+        return items;
+    }
+
+    public ItemDto getItemById(Long id) {
 
-        Optional<Item> item = itemRepository.findById(id);
+        Optional<ItemCache.CachedItem> item = itemCache.find(id);
 
         if (item.isEmpty()) {
             throw new ResourceNotFoundException("Item with id: " +id +" not found");
         }
 
-        return item.get();
+        return toItemDto(item.get());
     }
 
     @Transactional
@@ -53,6 +74,9 @@ public class ItemService {
         Item item;
 
         if (id == null) {
+            if (itemDto.getId() == null) {
+                itemDto.setId(idGenerator.nextId());
+            }
             item = new Item();
             item.setId(itemDto.getId());
         } else {
@@ -65,7 +89,25 @@ public class ItemService {
         item.setName(itemDto.getName());
         item.setPrice(itemDto.getPrice());
 
-        itemRepository.save(item);
+        if (id == null) {
+            insertItem(item);
+            stockService.createBalance(item.getId());
+        } else {
+            itemRepository.save(item);
+            itemCache.invalidate(id);
+        }
+        changeVersions.bump(ChangeVersions.Table.ITEMS);
+    }
+
+    private void insertItem(Item item) {
+        try {
+            itemRepository.saveAndFlush(item);
+        } catch (DataIntegrityViolationException e) {
+            if (PersistenceUtils.isDuplicateKey(e)) {
+                throw new BadRequestException("Item already exists with ID: " + item.getId());
+            }
+            throw e;
+        }
     }
 
 
@@ -73,6 +115,11 @@ public class ItemService {
         Item item = itemRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Item not found with ID: " + id));
 
+        if (movementWriteService.hasPendingMovements(id)) {
+            throw new ReferentialIntegrityViolationException(
+                    "Item has pending movements that are not written yet");
+        }
+
         if (inventoryRepository.existsByItemId(id)) {
             throw new ReferentialIntegrityViolationException(
                     "Item has associated inventory records");
@@ -83,26 +130,33 @@ public class ItemService {
                     "Item has associated inventory records");
         }
 
-        itemRepository.delete(item);
-    }
-
+        if (archivedOrderTotalRepository.existsById(id)) {
+            throw new ReferentialIntegrityViolationException(
+                    "Item has archived orders");
+        }
 
-    private ItemResponseDto toItemResponse(Item item) {
-        ItemResponseDto response = new ItemResponseDto();
-        response.setId(item.getId());
-        response.setName(item.getName());
-        response.setPrice(item.getPrice());
+        if (reservationRepository.existsByItemId(id)) {
+            throw new ReferentialIntegrityViolationException(
+                    "Item has active reservations");
+        }
 
-        response.setStock(getItemStock(item.getId()));
+        itemRepository.delete(item);
+        itemCache.invalidate(id);
+        stockService.deleteBalance(id);
+        changeVersions.bump(ChangeVersions.Table.ITEMS);
+    }
 
 
+    private ItemDto toItemDto(ItemCache.CachedItem item) {
+        ItemDto response = new ItemDto();
+        response.setId(item.id());
+        response.setName(item.name());
+        response.setPrice(item.price());
         return response;
     }
 
     public int getItemStock(Long itemId) {
-        List<Inventory> inventories = inventoryRepository.findByItemId(itemId);
-        List<Order> orders = orderRepository.findByItemId(itemId);
-        return InventoryCalculationUtils.calculateStockQuantity(inventories, orders);
+        return stockService.getStock(itemId);
     }
 
 }
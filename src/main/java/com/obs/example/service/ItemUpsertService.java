@@ -0,0 +1,250 @@
+package com.obs.example.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.obs.example.dto.ImportErrorDto;
+import com.obs.example.dto.ItemDto;
+import com.obs.example.dto.ItemResponseDto;
+import com.obs.example.dto.UpsertReportDto;
+import com.obs.example.exception.BadRequestException;
+import com.obs.example.repository.ItemRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.StringJoiner;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Inserts or updates catalog items from an NDJSON body of {@link ItemDto} lines, read line by
+ * line. Every {@code obs.item.upsert.batch-size} items are applied in a transaction of their own
+ * by one MERGE statement over the whole batch, after a single lookup of the stored rows tells
+ * inserted, updated and unchanged items apart. Unchanged items are left out of the MERGE, so
+ * their rows are not written at all.
+ * <p>
+ * New items get their empty stock balance with one JDBC batch, and the item cache is
+ * invalidated once per batch for the updated items. An item id that appears again within a batch
+ * first applies the batch, so that each line is counted exactly once. A batch the database
+ * refuses is applied again one line at a time, so that only the failing lines are rejected.
+ */
+@Service
+@Slf4j
+public class ItemUpsertService {
+
+    private static final int MAX_NAME_LENGTH = 255;
+
+    private record Row(long line, ItemDto item) {
+    }
+
+    private final ItemRepository itemRepository;
+    private final StockService stockService;
+    private final ItemCache itemCache;
+    private final ChangeVersions changeVersions;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final int batchSize;
+    private final int maxErrors;
+
+    public ItemUpsertService(ItemRepository itemRepository,
+                             StockService stockService,
+                             ItemCache itemCache,
+                             ChangeVersions changeVersions,
+                             JdbcTemplate jdbcTemplate,
+                             PlatformTransactionManager transactionManager,
+                             ObjectMapper objectMapper,
+                             @Value("${obs.item.upsert.batch-size:1000}") int batchSize,
+                             @Value("${obs.item.upsert.max-errors:1000}") int maxErrors) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Upsert batch size must be at least 1");
+        }
+
+        this.itemRepository = itemRepository;
+        this.stockService = stockService;
+        this.itemCache = itemCache;
+        this.changeVersions = changeVersions;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.batchSize = batchSize;
+        this.maxErrors = maxErrors;
+    }
+
+    public UpsertReportDto upsertItems(InputStream body) throws IOException {
+        long start = System.nanoTime();
+        UpsertReportDto report = new UpsertReportDto();
+        Map<Long, Row> batch = new LinkedHashMap<>();
+        // a decoder of its own reports malformed input instead of replacing it
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8.newDecoder()));
+
+        String line;
+        long lineNumber = 0;
+        while ((line = readLine(reader, lineNumber, batch, report)) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+
+            report.setReceived(report.getReceived() + 1);
+            ItemDto itemDto;
+            try {
+                itemDto = parse(line);
+            } catch (BadRequestException e) {
+                reject(report, lineNumber, e.getMessage());
+                continue;
+            }
+
+            if (batch.containsKey(itemDto.getId())) {
+                applyBatch(batch, report);
+            }
+            batch.put(itemDto.getId(), new Row(lineNumber, itemDto));
+            if (batch.size() == batchSize) {
+                applyBatch(batch, report);
+            }
+        }
+
+        if (!batch.isEmpty()) {
+            applyBatch(batch, report);
+        }
+
+        report.getErrors().sort(Comparator.comparingLong(ImportErrorDto::getLine));
+        report.setDurationMillis((System.nanoTime() - start) / 1_000_000);
+        log.info("Upserted {} items: {} inserted, {} updated, {} unchanged, {} rejected in {} ms", report.getReceived(),
+                report.getInserted(), report.getUpdated(), report.getUnchanged(), report.getRejected(),
+                report.getDurationMillis());
+        return report;
+    }
+
+    private void applyBatch(Map<Long, Row> batch, UpsertReportDto report) {
+        apply(List.copyOf(batch.values()), report);
+        batch.clear();
+    }
+
+    private void apply(List<Row> rows, UpsertReportDto report) {
+        try {
+            writeBatch(rows, report);
+        } catch (DataAccessException e) {
+            if (rows.size() == 1) {
+                reject(report, rows.get(0).line(), "Item could not be saved: " + e.getMostSpecificCause().getMessage());
+                return;
+            }
+            // the MERGE does not tell which line it failed on
+            rows.forEach(row -> apply(List.of(row), report));
+        }
+    }
+
+    private void writeBatch(List<Row> rows, UpsertReportDto report) {
+        List<Long> inserted = new ArrayList<>();
+        List<Long> updated = new ArrayList<>();
+        transactionTemplate.executeWithoutResult(status -> {
+            List<Long> ids = rows.stream().map(row -> row.item().getId()).toList();
+            Map<Long, ItemResponseDto> stored = itemRepository.findResponsesByIdIn(ids).stream()
+                    .collect(Collectors.toMap(ItemResponseDto::getId, Function.identity()));
+
+            List<ItemDto> changed = new ArrayList<>();
+            for (Row row : rows) {
+                ItemDto itemDto = row.item();
+                ItemResponseDto current = stored.get(itemDto.getId());
+                if (current == null) {
+                    inserted.add(itemDto.getId());
+                    changed.add(itemDto);
+                } else if (!Objects.equals(current.getName(), itemDto.getName())
+                        || !Objects.equals(current.getPrice(), itemDto.getPrice())) {
+                    updated.add(itemDto.getId());
+                    changed.add(itemDto);
+                }
+            }
+
+            if (!changed.isEmpty()) {
+                merge(changed);
+                stockService.createBalances(inserted);
+                itemCache.invalidateAll(updated);
+                changeVersions.bump(ChangeVersions.Table.ITEMS);
+            }
+        });
+
+        report.setInserted(report.getInserted() + inserted.size());
+        report.setUpdated(report.getUpdated() + updated.size());
+        report.setUnchanged(report.getUnchanged() + rows.size() - inserted.size() - updated.size());
+        report.setBatches(report.getBatches() + 1);
+    }
+
+    private void merge(List<ItemDto> items) {
+        StringJoiner rows = new StringJoiner(", ");
+        Object[] args = new Object[items.size() * 3];
+        for (int i = 0; i < items.size(); i++) {
+            ItemDto itemDto = items.get(i);
+            rows.add("(cast(? as bigint), cast(? as varchar(255)), cast(? as integer))");
+            args[i * 3] = itemDto.getId();
+            args[i * 3 + 1] = itemDto.getName();
+            args[i * 3 + 2] = itemDto.getPrice();
+        }
+
+        // the matched condition keeps a row that another writer has just brought up to date untouched
+        jdbcTemplate.update("merge into item t using (values " + rows + ") as s (id, name, price) on t.id = s.id "
+                + "when matched and (t.name is distinct from s.name or t.price is distinct from s.price) "
+                + "then update set name = s.name, price = s.price "
+                + "when not matched then insert (id, name, price) values (s.id, s.name, s.price)", args);
+    }
+
+    private String readLine(BufferedReader reader, long lineNumber, Map<Long, Row> batch, UpsertReportDto report)
+            throws IOException {
+        try {
+            return reader.readLine();
+        } catch (CharacterCodingException e) {
+            if (!batch.isEmpty()) {
+                applyBatch(batch, report);
+            }
+            throw new BadRequestException("Body is not valid UTF-8 after line " + lineNumber
+                    + ", the lines before it were applied");
+        }
+    }
+
+    private ItemDto parse(String line) {
+        ItemDto itemDto;
+        try {
+            itemDto = objectMapper.readValue(line, ItemDto.class);
+        } catch (JsonProcessingException e) {
+            throw new BadRequestException("Invalid JSON: " + e.getOriginalMessage());
+        }
+
+        if (itemDto.getId() == null) {
+            throw new BadRequestException("Item ID is mandatory");
+        }
+        if (itemDto.getName() == null || itemDto.getName().isBlank()) {
+            throw new BadRequestException("Name is mandatory");
+        }
+        if (itemDto.getName().length() > MAX_NAME_LENGTH) {
+            // the MERGE casts to the column type, which would cut a longer name short
+            throw new BadRequestException("Name must be at most " + MAX_NAME_LENGTH + " characters");
+        }
+        if (itemDto.getPrice() != null && itemDto.getPrice() <= 0) {
+            throw new BadRequestException("Price must be positive");
+        }
+        return itemDto;
+    }
+
+    private void reject(UpsertReportDto report, long line, String message) {
+        report.setRejected(report.getRejected() + 1);
+        if (report.getErrors().size() < maxErrors) {
+            report.getErrors().add(new ImportErrorDto(line, message));
+        }
+    }
+}
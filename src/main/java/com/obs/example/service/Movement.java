@@ -0,0 +1,51 @@
+package com.obs.example.service;
+
+import com.obs.example.constant.InventoryType;
+
+import java.time.Instant;
+
+/**
+ * A newly created inventory or order row that has been accepted but not yet written to its table.
+ */
+public sealed interface Movement {
+
+    Long itemId();
+
+    Instant createdAt();
+
+    /**
+     * Signed change of the item's stock caused by this movement.
+     */
+    int stockDelta();
+
+    /**
+     * Table the movement is written to.
+     */
+    ChangeVersions.Table table();
+
+    record InventoryMovement(Long id, Long itemId, InventoryType type, int qty, Instant createdAt) implements Movement {
+
+        @Override
+        public int stockDelta() {
+            return StockService.signedQty(type, qty);
+        }
+
+        @Override
+        public ChangeVersions.Table table() {
+            return ChangeVersions.Table.INVENTORIES;
+        }
+    }
+
+    record OrderMovement(String orderNo, Long itemId, int qty, int price, Instant createdAt) implements Movement {
+
+        @Override
+        public int stockDelta() {
+            return -qty;
+        }
+
+        @Override
+        public ChangeVersions.Table table() {
+            return ChangeVersions.Table.ORDERS;
+        }
+    }
+}
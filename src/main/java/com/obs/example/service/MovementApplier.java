@@ -0,0 +1,67 @@
+package com.obs.example.service;
+
+import com.obs.example.entity.Inventory;
+import com.obs.example.entity.Order;
+import com.obs.example.repository.InventoryRepository;
+import com.obs.example.repository.ItemRepository;
+import com.obs.example.repository.OrderRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Writes accepted movements to the {@code Inventory} and {@code Orders} tables and moves the
+ * balance rows of their items by the summed delta, in the caller's transaction. The in-memory
+ * stock index is not touched: it already counted the movements when they were accepted.
+ */
+@Component
+@RequiredArgsConstructor
+public class MovementApplier {
+
+    private final InventoryRepository inventoryRepository;
+    private final OrderRepository orderRepository;
+    private final ItemRepository itemRepository;
+    private final StockService stockService;
+    private final ChangeVersions changeVersions;
+
+    public void apply(Collection<? extends Movement> movements) {
+        Map<Long, Integer> deltas = new LinkedHashMap<>();
+        Set<ChangeVersions.Table> tables = EnumSet.noneOf(ChangeVersions.Table.class);
+        for (Movement movement : movements) {
+            switch (movement) {
+                case Movement.InventoryMovement inventory -> inventoryRepository.save(toInventory(inventory));
+                case Movement.OrderMovement order -> orderRepository.save(toOrder(order));
+            }
+            deltas.merge(movement.itemId(), movement.stockDelta(), Integer::sum);
+            tables.add(movement.table());
+        }
+
+        deltas.forEach(stockService::adjustBalance);
+        changeVersions.bump(tables.toArray(ChangeVersions.Table[]::new));
+    }
+
+    private Inventory toInventory(Movement.InventoryMovement movement) {
+        Inventory inventory = new Inventory();
+        inventory.setId(movement.id());
+        inventory.setItem(itemRepository.getReferenceById(movement.itemId()));
+        inventory.setType(movement.type());
+        inventory.setQty(movement.qty());
+        inventory.setCreatedAt(movement.createdAt());
+        return inventory;
+    }
+
+    private Order toOrder(Movement.OrderMovement movement) {
+        Order order = new Order();
+        order.setOrderNo(movement.orderNo());
+        order.setItem(itemRepository.getReferenceById(movement.itemId()));
+        order.setQty(movement.qty());
+        order.setPrice(movement.price());
+        order.setCreatedAt(movement.createdAt());
+        return order;
+    }
+}
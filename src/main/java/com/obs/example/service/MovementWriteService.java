@@ -0,0 +1,606 @@
+package com.obs.example.service;
+
+import com.obs.example.constant.InventoryType;
+import com.obs.example.constant.WriteMode;
+import com.obs.example.entity.JournalState;
+import com.obs.example.exception.BadRequestException;
+import com.obs.example.repository.InventoryRepository;
+import com.obs.example.repository.JournalStateRepository;
+import com.obs.example.repository.OrderRepository;
+import com.obs.example.utils.MappedJournal;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Accepts new inventory and order rows ahead of the database when {@code obs.write.mode} is not
+ * {@code direct}. An accepted movement is queued, and a background flusher writes the queue to the
+ * tables in batches of up to {@code obs.write.batch-size} movements, or whatever arrived within
+ * {@code obs.write.flush-interval} of the first one.
+ * <ul>
+ *     <li>{@code journal}: a movement is acknowledged once its record is in the memory-mapped
+ *     {@link MappedJournal}. The sequence number of the last written record is stored in the same
+ *     transaction as the batch, and records above it are replayed on startup before the
+ *     application reports ready.</li>
+ *     <li>{@code write-behind}: a movement is acknowledged once it is in a bounded in-memory queue
+ *     of {@code obs.write.behind.capacity} entries. Movements still queued when the process dies
+ *     are lost.</li>
+ * </ul>
+ * Stock admission uses the in-memory {@link StockIndex}, which counts a movement from the moment
+ * it is accepted, so both modes require {@code obs.stock.index.enabled=true}. Movements that are
+ * accepted but not yet written can still be looked up by id.
+ * <p>
+ * A batch that keeps failing is split and written one movement at a time. A movement that still
+ * cannot be written, such as an order number taken by a direct insert after it was accepted, is
+ * set aside as a dead letter with its stock given back to the index, and the flusher moves on.
+ */
+@Service
+@Slf4j
+public class MovementWriteService {
+
+    private static final String JOURNAL_NAME = "movements";
+    private static final byte INVENTORY_RECORD = 'I';
+    private static final byte ORDER_RECORD = 'O';
+    private static final Duration APPLY_TIMEOUT = Duration.ofSeconds(30);
+    private static final Duration OFFER_TIMEOUT = Duration.ofSeconds(1);
+    private static final int MAX_ATTEMPTS = 3;
+
+    private final InventoryRepository inventoryRepository;
+    private final OrderRepository orderRepository;
+    private final JournalStateRepository journalStateRepository;
+    private final MovementApplier movementApplier;
+    private final StockIndex stockIndex;
+    private final StockCheckpointService stockCheckpointService;
+    private final ChangeVersions changeVersions;
+    private final TransactionTemplate transactionTemplate;
+    private final WriteMode writeMode;
+    private final int batchSize;
+    private final Duration flushInterval;
+    private final String journalDirectory;
+    private final int segmentBytes;
+    private final boolean sync;
+
+    private final Map<Long, Movement.InventoryMovement> pendingInventories = new ConcurrentHashMap<>();
+    private final Map<String, Movement.OrderMovement> pendingOrders = new ConcurrentHashMap<>();
+    private final BlockingQueue<QueuedMovement> queue;
+    private final List<Movement> deadLetters = new CopyOnWriteArrayList<>();
+    private final Object appendLock = new Object();
+    private final Object appliedMonitor = new Object();
+    private final DistributionSummary flushSize;
+    private final Timer flushLatency;
+    private final Counter deadLetterCount;
+    private MappedJournal journal;
+    private Thread flusherThread;
+    private volatile boolean accepting;
+    private volatile boolean running;
+    private volatile long appendedSeq;
+    private volatile long appliedSeq;
+
+    public MovementWriteService(InventoryRepository inventoryRepository,
+                                OrderRepository orderRepository,
+                                JournalStateRepository journalStateRepository,
+                                MovementApplier movementApplier,
+                                StockIndex stockIndex,
+                                StockCheckpointService stockCheckpointService,
+                                ChangeVersions changeVersions,
+                                PlatformTransactionManager transactionManager,
+                                MeterRegistry meterRegistry,
+                                @Value("${obs.write.mode:direct}") WriteMode writeMode,
+                                @Value("${obs.write.batch-size:500}") int batchSize,
+                                @Value("${obs.write.flush-interval:50ms}") Duration flushInterval,
+                                @Value("${obs.write.behind.capacity:10000}") int capacity,
+                                @Value("${obs.write.journal.dir:${user.home}/obs/journal}") String journalDirectory,
+                                @Value("${obs.write.journal.segment-bytes:16777216}") int segmentBytes,
+                                @Value("${obs.write.journal.sync:false}") boolean sync) {
+        if (writeMode != WriteMode.DIRECT && !stockIndex.isEnabled()) {
+            throw new IllegalStateException("obs.write.mode=" + writeMode.name().toLowerCase().replace('_', '-')
+                    + " requires obs.stock.index.enabled=true");
+        }
+
+        this.inventoryRepository = inventoryRepository;
+        this.orderRepository = orderRepository;
+        this.journalStateRepository = journalStateRepository;
+        this.movementApplier = movementApplier;
+        this.stockIndex = stockIndex;
+        this.stockCheckpointService = stockCheckpointService;
+        this.changeVersions = changeVersions;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.writeMode = writeMode;
+        this.batchSize = batchSize;
+        this.flushInterval = flushInterval;
+        this.journalDirectory = journalDirectory;
+        this.segmentBytes = segmentBytes;
+        this.sync = sync;
+        this.queue = writeMode == WriteMode.WRITE_BEHIND ? new LinkedBlockingQueue<>(capacity) : new LinkedBlockingQueue<>();
+
+        String mode = writeMode.name().toLowerCase();
+        Gauge.builder("obs.write.queue.depth", queue, BlockingQueue::size)
+                .description("Movements accepted but not yet written to the tables")
+                .tag("mode", mode)
+                .register(meterRegistry);
+        this.flushSize = DistributionSummary.builder("obs.write.flush.size")
+                .description("Movements written per flush")
+                .tag("mode", mode)
+                .register(meterRegistry);
+        this.flushLatency = Timer.builder("obs.write.flush.latency")
+                .description("Time to write and commit one flush")
+                .tag("mode", mode)
+                .register(meterRegistry);
+        this.deadLetterCount = Counter.builder("obs.write.dead.letters")
+                .description("Accepted movements that could not be written and were set aside")
+                .tag("mode", mode)
+                .register(meterRegistry);
+    }
+
+    private record QueuedMovement(long seq, Movement movement) {
+    }
+
+    public boolean isEnabled() {
+        return writeMode != WriteMode.DIRECT;
+    }
+
+    /**
+     * In journal mode, opens the journal and writes every record that was acknowledged but not
+     * written before the last shutdown or crash. Then starts the background flusher.
+     */
+    public void start() {
+        if (!isEnabled()) {
+            return;
+        }
+
+        if (writeMode == WriteMode.JOURNAL) {
+            replayJournal();
+        }
+
+        running = true;
+        accepting = true;
+        flusherThread = new Thread(this::flushLoop, "movement-flusher");
+        flusherThread.setDaemon(true);
+        flusherThread.start();
+    }
+
+    /**
+     * Accepts a new movement: claims its id, takes the stock from the index and queues it. In
+     * journal mode the movement survives a crash of the process once this returns.
+     */
+    public void append(Movement movement) {
+        if (!accepting) {
+            throw new IllegalStateException("Movement writer is not accepting writes");
+        }
+        if (!stockIndex.isReady()) {
+            // admitted before the warm-up, the movement would be counted by neither the load nor the tables
+            throw new IllegalStateException("Movement writer is not accepting writes until the stock index is loaded");
+        }
+
+        claim(movement);
+        try {
+            if (existsInTables(movement)) {
+                throw duplicate(movement);
+            }
+
+            admit(movement);
+            try {
+                enqueue(movement);
+            } catch (RuntimeException e) {
+                stockIndex.add(movement.itemId(), -movement.stockDelta());
+                throw e;
+            } finally {
+                // the index and the pending lookup are read ahead of the tables
+                changeVersions.bump(ChangeVersions.Table.STOCK, movement.table());
+            }
+        } catch (RuntimeException e) {
+            release(movement);
+            throw e;
+        }
+    }
+
+    public Optional<Movement.InventoryMovement> findPendingInventory(Long id) {
+        return Optional.ofNullable(pendingInventories.get(id));
+    }
+
+    public Optional<Movement.OrderMovement> findPendingOrder(String orderNo) {
+        return Optional.ofNullable(pendingOrders.get(orderNo));
+    }
+
+    /**
+     * Movements that were accepted but could not be written, oldest first.
+     */
+    public List<Movement> getDeadLetters() {
+        return List.copyOf(deadLetters);
+    }
+
+    public boolean hasPendingMovements(Long itemId) {
+        return pendingInventories.values().stream().anyMatch(movement -> movement.itemId().equals(itemId))
+                || pendingOrders.values().stream().anyMatch(movement -> movement.itemId().equals(itemId));
+    }
+
+    /**
+     * Blocks until every movement accepted so far has been written to the tables. Updates and
+     * deletes call this first, so they always see the rows they change.
+     */
+    public void awaitApplied() {
+        if (!isEnabled()) {
+            return;
+        }
+
+        long target = appendedSeq;
+        long deadline = System.nanoTime() + APPLY_TIMEOUT.toNanos();
+        synchronized (appliedMonitor) {
+            while (appliedSeq < target) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    throw new IllegalStateException("Timed out waiting for pending movements to be written");
+                }
+                try {
+                    TimeUnit.NANOSECONDS.timedWait(appliedMonitor, remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while waiting for pending movements", e);
+                }
+            }
+        }
+    }
+
+    private void replayJournal() {
+        long applied = journalStateRepository.findById(JOURNAL_NAME)
+                .map(JournalState::getAppliedSeq)
+                .orElse(0L);
+
+        List<QueuedMovement> unapplied = new ArrayList<>();
+        try {
+            journal = MappedJournal.open(Paths.get(journalDirectory), segmentBytes, sync, applied);
+            for (MappedJournal.Entry entry : journal.readAfter(applied)) {
+                unapplied.add(new QueuedMovement(entry.seq(), decode(entry.payload())));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open the write journal in " + journalDirectory, e);
+        }
+
+        for (int from = 0; from < unapplied.size(); from += batchSize) {
+            List<QueuedMovement> batch = unapplied.subList(from, Math.min(from + batchSize, unapplied.size()));
+            transactionTemplate.executeWithoutResult(status -> {
+                writeBatch(batch);
+                invalidateCheckpoints(batch);
+            });
+        }
+        if (!unapplied.isEmpty()) {
+            log.info("Replayed {} journaled movements", unapplied.size());
+        }
+
+        appliedSeq = journal.lastSeq();
+        appendedSeq = appliedSeq;
+        journal.release(appliedSeq);
+    }
+
+    private void enqueue(Movement movement) {
+        synchronized (appendLock) {
+            long seq;
+            if (journal != null) {
+                try {
+                    seq = journal.append(encode(movement));
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Failed to append to the write journal", e);
+                }
+                queue.add(new QueuedMovement(seq, movement));
+            } else {
+                seq = appendedSeq + 1;
+                try {
+                    if (!queue.offer(new QueuedMovement(seq, movement), OFFER_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS)) {
+                        throw new IllegalStateException("Write-behind queue is full");
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while queueing a movement", e);
+                }
+            }
+            appendedSeq = seq;
+        }
+    }
+
+    private void flushLoop() {
+        List<QueuedMovement> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                QueuedMovement first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                collectBatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+
+            if (!flushWithRetry(batch)) {
+                return;
+            }
+            batch.clear();
+        }
+    }
+
+    /**
+     * Adds queued movements to the batch until it is full or the flush interval since its first
+     * movement has passed.
+     */
+    private void collectBatch(List<QueuedMovement> batch) throws InterruptedException {
+        long deadline = System.nanoTime() + flushInterval.toNanos();
+        while (batch.size() < batchSize) {
+            queue.drainTo(batch, batchSize - batch.size());
+            long remaining = deadline - System.nanoTime();
+            if (batch.size() >= batchSize || remaining <= 0 || !running) {
+                return;
+            }
+
+            QueuedMovement next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+    /**
+     * Writes the batch, retrying up to {@value #MAX_ATTEMPTS} times. If it still fails, the
+     * movements are written one by one and those that fail on their own become dead letters.
+     * Returns false when the service is stopping; journaled records are then left for the next
+     * replay.
+     */
+    private boolean flushWithRetry(List<QueuedMovement> batch) {
+        if (!tryWrite(batch)) {
+            if (!running || Thread.currentThread().isInterrupted()) {
+                log.error("Stopping with {} pending movements not written", batch.size() + queue.size());
+                return false;
+            }
+
+            log.warn("Writing {} pending movements one by one", batch.size());
+            for (QueuedMovement queued : batch) {
+                if (!tryWrite(List.of(queued))) {
+                    if (!running || Thread.currentThread().isInterrupted()) {
+                        log.error("Stopping with {} pending movements not written", batch.size() + queue.size());
+                        return false;
+                    }
+                    deadLetter(queued);
+                }
+            }
+        }
+
+        batch.forEach(queued -> release(queued.movement()));
+        long lastSeq = batch.getLast().seq();
+        synchronized (appliedMonitor) {
+            appliedSeq = lastSeq;
+            appliedMonitor.notifyAll();
+        }
+        if (journal != null) {
+            synchronized (appendLock) {
+                journal.release(lastSeq);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns whether the movements were written, trying with backoff at most
+     * {@value #MAX_ATTEMPTS} times and only once when stopping.
+     */
+    private boolean tryWrite(List<QueuedMovement> batch) {
+        long backoffMillis = 100;
+        for (int attempt = 1; ; attempt++) {
+            long started = System.nanoTime();
+            try {
+                transactionTemplate.executeWithoutResult(status -> writeBatch(batch));
+                flushLatency.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+                flushSize.record(batch.size());
+                return true;
+            } catch (RuntimeException e) {
+                if (!running || attempt >= MAX_ATTEMPTS) {
+                    log.error("Failed to write {} pending movements after {} attempts", batch.size(), attempt, e);
+                    return false;
+                }
+                log.warn("Failed to write {} pending movements, retrying in {} ms", batch.size(), backoffMillis, e);
+                try {
+                    Thread.sleep(backoffMillis);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+                backoffMillis = Math.min(backoffMillis * 2, 5000);
+            }
+        }
+    }
+
+    /**
+     * Sets the movement aside and gives its stock back. In journal mode the applied sequence is
+     * moved past it so that a restart does not replay it.
+     */
+    private void deadLetter(QueuedMovement queued) {
+        Movement movement = queued.movement();
+        log.error("Dropping movement {} after repeated write failures", movement);
+        deadLetters.add(movement);
+        deadLetterCount.increment();
+        stockIndex.add(movement.itemId(), -movement.stockDelta());
+        changeVersions.bump(ChangeVersions.Table.STOCK, movement.table());
+
+        if (writeMode == WriteMode.JOURNAL) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> saveAppliedSeq(queued.seq()));
+            } catch (RuntimeException e) {
+                log.error("Failed to move the journal past dead letter {}", queued.seq(), e);
+            }
+        }
+    }
+
+    private void writeBatch(List<QueuedMovement> batch) {
+        movementApplier.apply(batch.stream().map(QueuedMovement::movement).toList());
+
+        if (writeMode == WriteMode.JOURNAL) {
+            saveAppliedSeq(batch.getLast().seq());
+        }
+    }
+
+    private void saveAppliedSeq(long seq) {
+        JournalState state = journalStateRepository.findById(JOURNAL_NAME).orElseGet(() -> {
+            JournalState created = new JournalState();
+            created.setName(JOURNAL_NAME);
+            return created;
+        });
+        state.setAppliedSeq(seq);
+        journalStateRepository.save(state);
+    }
+
+    /**
+     * Replayed movements can be older than checkpoints taken while they were not in the tables.
+     */
+    private void invalidateCheckpoints(List<QueuedMovement> batch) {
+        Map<Long, Instant> oldest = new HashMap<>();
+        batch.forEach(queued -> oldest.merge(queued.movement().itemId(), queued.movement().createdAt(),
+                (a, b) -> a.isBefore(b) ? a : b));
+        oldest.forEach(stockCheckpointService::invalidate);
+    }
+
+    private void claim(Movement movement) {
+        Movement existing = switch (movement) {
+            case Movement.InventoryMovement inventory -> pendingInventories.putIfAbsent(inventory.id(), inventory);
+            case Movement.OrderMovement order -> pendingOrders.putIfAbsent(order.orderNo(), order);
+        };
+        if (existing != null) {
+            throw duplicate(movement);
+        }
+    }
+
+    private void release(Movement movement) {
+        switch (movement) {
+            case Movement.InventoryMovement inventory -> pendingInventories.remove(inventory.id(), inventory);
+            case Movement.OrderMovement order -> pendingOrders.remove(order.orderNo(), order);
+        }
+    }
+
+    private boolean existsInTables(Movement movement) {
+        return switch (movement) {
+            case Movement.InventoryMovement inventory -> inventoryRepository.existsById(inventory.id());
+            case Movement.OrderMovement order -> orderRepository.existsById(order.orderNo());
+        };
+    }
+
+    private void admit(Movement movement) {
+        int delta = movement.stockDelta();
+        if (delta >= 0) {
+            stockIndex.add(movement.itemId(), delta);
+        } else if (!stockIndex.tryWithdraw(movement.itemId(), -delta)) {
+            throw new BadRequestException("Insufficient stock for item ID: " + movement.itemId()
+                    + ". Available: " + stockIndex.get(movement.itemId()));
+        }
+    }
+
+    private static BadRequestException duplicate(Movement movement) {
+        return switch (movement) {
+            case Movement.InventoryMovement inventory -> new BadRequestException("Inventory already exists with ID: " + inventory.id());
+            case Movement.OrderMovement order -> new BadRequestException("Order already exists with ID: " + order.orderNo());
+        };
+    }
+
+    private static byte[] encode(Movement movement) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            switch (movement) {
+                case Movement.InventoryMovement inventory -> {
+                    out.writeByte(INVENTORY_RECORD);
+                    out.writeLong(inventory.id());
+                    out.writeLong(inventory.itemId());
+                    out.writeByte(inventory.type().ordinal());
+                    out.writeInt(inventory.qty());
+                }
+                case Movement.OrderMovement order -> {
+                    out.writeByte(ORDER_RECORD);
+                    out.writeUTF(order.orderNo());
+                    out.writeLong(order.itemId());
+                    out.writeInt(order.qty());
+                    out.writeInt(order.price());
+                }
+            }
+            out.writeLong(ChronoUnit.MICROS.between(Instant.EPOCH, movement.createdAt()));
+        }
+        return bytes.toByteArray();
+    }
+
+    private static Movement decode(byte[] record) throws IOException {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(record))) {
+            byte kind = in.readByte();
+            if (kind == INVENTORY_RECORD) {
+                long id = in.readLong();
+                long itemId = in.readLong();
+                InventoryType type = InventoryType.values()[in.readByte()];
+                int qty = in.readInt();
+                return new Movement.InventoryMovement(id, itemId, type, qty, readInstant(in));
+            }
+            if (kind == ORDER_RECORD) {
+                String orderNo = in.readUTF();
+                long itemId = in.readLong();
+                int qty = in.readInt();
+                int price = in.readInt();
+                return new Movement.OrderMovement(orderNo, itemId, qty, price, readInstant(in));
+            }
+            throw new IOException("Unknown journal record type: " + kind);
+        }
+    }
+
+    private static Instant readInstant(DataInputStream in) throws IOException {
+        return Instant.EPOCH.plus(in.readLong(), ChronoUnit.MICROS);
+    }
+
+    /**
+     * Stops accepting movements and lets the flusher write what is queued. In journal mode,
+     * anything it cannot write in time stays in the journal and is replayed on the next start.
+     */
+    @PreDestroy
+    public void shutdown() {
+        accepting = false;
+        if (flusherThread == null) {
+            return;
+        }
+
+        running = false;
+        try {
+            flusherThread.join(APPLY_TIMEOUT.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!queue.isEmpty()) {
+            log.error("Shut down with {} pending movements not written", queue.size());
+        }
+        if (journal != null) {
+            synchronized (appendLock) {
+                journal.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package com.obs.example.service;
+
+import com.obs.example.dto.ArchiveReportDto;
+import com.obs.example.entity.ArchivedOrder;
+import com.obs.example.entity.ArchivedOrderTotal;
+import com.obs.example.entity.Order;
+import com.obs.example.exception.BadRequestException;
+import com.obs.example.repository.ArchivedOrderRepository;
+import com.obs.example.repository.ArchivedOrderTotalRepository;
+import com.obs.example.repository.ItemRepository;
+import com.obs.example.repository.OrderRepository;
+import jakarta.transaction.Transactional;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Moves orders older than {@code obs.order.archive.days} out of the {@code Orders} table into
+ * compressed segment files. Each batch is first appended to a segment and forced to disk, then
+ * indexed, added to the per-item archived totals and deleted from the hot table in one
+ * transaction, so an order is never lost and never counted twice. Stock recomputes add the
+ * archived totals, and {@link #findArchivedOrder(String)} reads single orders back.
+ * <p>
+ * Before the first batch, a stock checkpoint is written at the cutoff for every affected item so
+ * that point-in-time queries at or after the cutoff stay exact, and the cutoff is recorded so
+ * that queries before it are refused.
+ * <p>
+ * Batches hold the orders of a single item and run on that item's stock shard, with the orders
+ * read under row locks, so a concurrent update or delete of an order either happens before the
+ * order is archived or no longer finds it.
+ */
+@Service
+@Slf4j
+public class OrderArchiveService {
+
+    private final OrderRepository orderRepository;
+    private final ItemRepository itemRepository;
+    private final ArchivedOrderRepository archivedOrderRepository;
+    private final ArchivedOrderTotalRepository archivedOrderTotalRepository;
+    private final StockCheckpointService stockCheckpointService;
+    private final OrderArchiveStore orderArchiveStore;
+    private final ChangeVersions changeVersions;
+    private final StockEngine stockEngine;
+    private final TransactionTemplate transactionTemplate;
+    private final int archiveAfterDays;
+    private final int batchSize;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public OrderArchiveService(OrderRepository orderRepository,
+                               ItemRepository itemRepository,
+                               ArchivedOrderRepository archivedOrderRepository,
+                               ArchivedOrderTotalRepository archivedOrderTotalRepository,
+                               StockCheckpointService stockCheckpointService,
+                               OrderArchiveStore orderArchiveStore,
+                               ChangeVersions changeVersions,
+                               StockEngine stockEngine,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${obs.order.archive.days:365}") int archiveAfterDays,
+                               @Value("${obs.order.archive.batch-size:1000}") int batchSize) {
+        this.orderRepository = orderRepository;
+        this.itemRepository = itemRepository;
+        this.archivedOrderRepository = archivedOrderRepository;
+        this.archivedOrderTotalRepository = archivedOrderTotalRepository;
+        this.stockCheckpointService = stockCheckpointService;
+        this.orderArchiveStore = orderArchiveStore;
+        this.changeVersions = changeVersions;
+        this.stockEngine = stockEngine;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.archiveAfterDays = archiveAfterDays;
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(cron = "${obs.order.archive.cron:-}")
+    @Transactional(Transactional.TxType.NOT_SUPPORTED)
+    public void archiveScheduled() {
+        archive(null);
+    }
+
+    /**
+     * Archives every order created more than the given number of days ago, or more than
+     * {@code obs.order.archive.days} when no value is given.
+     */
+    @Transactional(Transactional.TxType.NOT_SUPPORTED)
+    public ArchiveReportDto archive(Integer olderThanDays) {
+        int days = olderThanDays == null ? archiveAfterDays : olderThanDays;
+        if (days < 0) {
+            throw new BadRequestException("Archive age must not be negative");
+        }
+        if (!running.compareAndSet(false, true)) {
+            throw new BadRequestException("Order archival is already running");
+        }
+
+        try {
+            long started = System.nanoTime();
+            Instant cutoff = Instant.now().minus(Duration.ofDays(days)).truncatedTo(ChronoUnit.MICROS);
+
+            ArchiveReportDto report = new ArchiveReportDto();
+            report.setCutoff(cutoff);
+            report.setHotRowsBefore(orderRepository.count());
+
+            List<Long> itemIds = orderRepository.findItemIdsCreatedUpTo(cutoff);
+            if (!itemIds.isEmpty()) {
+                transactionTemplate.executeWithoutResult(status -> {
+                    stockCheckpointService.recordArchiveCutoff(cutoff);
+                    stockCheckpointService.checkpointItems(itemIds, cutoff);
+                });
+            }
+
+            int archived = 0;
+            int blocks = 0;
+            for (Long itemId : itemIds) {
+                while (true) {
+                    Integer count = stockEngine.execute(itemId,
+                            () -> transactionTemplate.execute(status -> archiveBatch(itemId, cutoff)));
+                    if (count == null || count == 0) {
+                        break;
+                    }
+                    archived += count;
+                    blocks++;
+                }
+            }
+
+            report.setArchivedOrders(archived);
+            report.setBlocks(blocks);
+            report.setHotRowsAfter(orderRepository.count());
+            report.setDurationMillis((System.nanoTime() - started) / 1_000_000);
+
+            log.info("Archived {} orders created up to {} in {} blocks", archived, cutoff, blocks);
+            return report;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    public Optional<Order> findArchivedOrder(String orderNo) {
+        return archivedOrderRepository.findById(orderNo).flatMap(location -> {
+            Optional<Order> order;
+            try {
+                order = orderArchiveStore.read(location.getSegment(), location.getSegmentOffset(), orderNo);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to read archived order " + orderNo, e);
+            }
+
+            order.ifPresent(archivedOrder -> itemRepository.findById(archivedOrder.getItem().getId())
+                    .ifPresent(archivedOrder::setItem));
+            return order;
+        });
+    }
+
+    /**
+     * The latest cutoff orders have been archived up to, if any archive has run.
+     */
+    public Optional<Instant> findCutoff() {
+        return stockCheckpointService.findArchiveCutoff();
+    }
+
+    public boolean isArchived(String orderNo) {
+        return archivedOrderRepository.existsById(orderNo);
+    }
+
+    /**
+     * The order numbers among the given ones that are archived, with one lookup.
+     */
+    public List<String> findArchivedOrderNos(Collection<String> orderNos) {
+        return archivedOrderRepository.findAllById(orderNos).stream()
+                .map(ArchivedOrder::getOrderNo)
+                .toList();
+    }
+
+    private int archiveBatch(Long itemId, Instant cutoff) {
+        List<Order> orders = orderRepository.findByItemIdCreatedUpTo(itemId, cutoff, PageRequest.of(0, batchSize));
+        if (orders.isEmpty()) {
+            return 0;
+        }
+
+        OrderArchiveStore.SegmentPosition position;
+        try {
+            position = orderArchiveStore.append(orders);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to append orders to the archive", e);
+        }
+
+        for (Order order : orders) {
+            ArchivedOrder archivedOrder = new ArchivedOrder();
+            archivedOrder.setOrderNo(order.getOrderNo());
+            archivedOrder.setItemId(order.getItem().getId());
+            archivedOrder.setSegment(position.segment());
+            archivedOrder.setSegmentOffset(position.offset());
+            archivedOrderRepository.save(archivedOrder);
+
+            ArchivedOrderTotal total = archivedOrderTotalRepository.findById(order.getItem().getId())
+                    .orElseGet(() -> {
+                        ArchivedOrderTotal created = new ArchivedOrderTotal();
+                        created.setItemId(order.getItem().getId());
+                        return created;
+                    });
+            total.setQty(total.getQty() + order.getQty());
+            if (order.getCreatedAt() != null
+                    && (total.getArchivedThrough() == null || order.getCreatedAt().isAfter(total.getArchivedThrough()))) {
+                total.setArchivedThrough(order.getCreatedAt());
+            }
+            archivedOrderTotalRepository.save(total);
+        }
+
+        orderRepository.deleteAllInBatch(orders);
+        changeVersions.bump(ChangeVersions.Table.ORDERS);
+        return orders.size();
+    }
+}
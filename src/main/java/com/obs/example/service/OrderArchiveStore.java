@@ -0,0 +1,149 @@
+package com.obs.example.service;
+
+import com.obs.example.entity.Item;
+import com.obs.example.entity.Order;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Append-only segment files for archived orders. Every append writes one gzip member holding a
+ * block of orders to the end of the current segment and forces it to disk; a new segment is
+ * started once the current one reaches {@code obs.order.archive.segment-max-bytes}. Existing bytes
+ * are never rewritten, so a crash can at worst leave an unreferenced block at the end of a segment.
+ * <p>
+ * A lookup seeks to the block's offset and decompresses only that block.
+ */
+@Component
+public class OrderArchiveStore {
+
+    private static final String SEGMENT_PREFIX = "orders-";
+    private static final String SEGMENT_SUFFIX = ".seg.gz";
+    private static final long NO_TIMESTAMP = Long.MIN_VALUE;
+
+    private final Path directory;
+    private final long maxSegmentBytes;
+    private Path currentSegment;
+
+    public OrderArchiveStore(@Value("${obs.order.archive.dir:${user.home}/obs/archive}") String directory,
+                             @Value("${obs.order.archive.segment-max-bytes:67108864}") long maxSegmentBytes) {
+        this.directory = Paths.get(directory);
+        this.maxSegmentBytes = maxSegmentBytes;
+    }
+
+    public record SegmentPosition(String segment, long offset) {
+    }
+
+    /**
+     * Appends the orders as one compressed block and returns where the block starts.
+     */
+    public synchronized SegmentPosition append(List<Order> orders) throws IOException {
+        byte[] block = encode(orders);
+        Path segment = segmentForAppend();
+
+        try (FileChannel channel = FileChannel.open(segment,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            long offset = channel.size();
+            ByteBuffer buffer = ByteBuffer.wrap(block);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+            return new SegmentPosition(segment.getFileName().toString(), offset);
+        }
+    }
+
+    /**
+     * Reads the order from the block at the given position. The returned order references its
+     * item by id only.
+     */
+    public Optional<Order> read(String segment, long offset, String orderNo) throws IOException {
+        try (FileChannel channel = FileChannel.open(directory.resolve(segment), StandardOpenOption.READ);
+             DataInputStream in = new DataInputStream(new GZIPInputStream(
+                     new BufferedInputStream(Channels.newInputStream(channel.position(offset)))))) {
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                Order order = readOrder(in);
+                if (order.getOrderNo().equals(orderNo)) {
+                    return Optional.of(order);
+                }
+            }
+            return Optional.empty();
+        }
+    }
+
+    private Path segmentForAppend() throws IOException {
+        if (currentSegment == null) {
+            Files.createDirectories(directory);
+            try (Stream<Path> segments = Files.list(directory)) {
+                currentSegment = segments
+                        .filter(path -> path.getFileName().toString().startsWith(SEGMENT_PREFIX))
+                        .filter(path -> path.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                        .max(Path::compareTo)
+                        .orElse(null);
+            }
+        }
+
+        if (currentSegment == null || Files.size(currentSegment) >= maxSegmentBytes) {
+            currentSegment = directory.resolve(String.format("%s%019d%s", SEGMENT_PREFIX, nextSequence(), SEGMENT_SUFFIX));
+        }
+        return currentSegment;
+    }
+
+    private long nextSequence() {
+        if (currentSegment == null) {
+            return 1;
+        }
+
+        String name = currentSegment.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())) + 1;
+    }
+
+    private static byte[] encode(List<Order> orders) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(new GZIPOutputStream(bytes))) {
+            out.writeInt(orders.size());
+            for (Order order : orders) {
+                out.writeUTF(order.getOrderNo());
+                out.writeLong(order.getItem().getId());
+                out.writeInt(order.getQty());
+                out.writeInt(order.getPrice());
+                out.writeLong(order.getCreatedAt() == null
+                        ? NO_TIMESTAMP
+                        : ChronoUnit.MICROS.between(Instant.EPOCH, order.getCreatedAt()));
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private static Order readOrder(DataInputStream in) throws IOException {
+        Order order = new Order();
+        order.setOrderNo(in.readUTF());
+
+        Item item = new Item();
+        item.setId(in.readLong());
+        order.setItem(item);
+
+        order.setQty(in.readInt());
+        order.setPrice(in.readInt());
+
+        long createdAt = in.readLong();
+        order.setCreatedAt(createdAt == NO_TIMESTAMP ? null : Instant.EPOCH.plus(createdAt, ChronoUnit.MICROS));
+        return order;
+    }
+}
@@ -1,26 +1,40 @@
 package com.obs.example.service;
 
 import com.obs.example.constant.InventoryType;
+import com.obs.example.dto.BasketDto;
+import com.obs.example.dto.BasketLineDto;
+import com.obs.example.dto.BasketResponseDto;
+import com.obs.example.dto.CursorPageDto;
+import com.obs.example.dto.ItemDto;
 import com.obs.example.dto.ItemResponseDto;
+import com.obs.example.dto.OrderDetailDto;
 import com.obs.example.dto.OrderDto;
 import com.obs.example.dto.OrderResponseDto;
-import com.obs.example.entity.Inventory;
 import com.obs.example.entity.Item;
 import com.obs.example.entity.Order;
 import com.obs.example.exception.BadRequestException;
 import com.obs.example.exception.ResourceNotFoundException;
-import com.obs.example.repository.InventoryRepository;
 import com.obs.example.repository.ItemRepository;
 import com.obs.example.repository.OrderRepository;
-import com.obs.example.utils.InventoryCalculationUtils;
+import com.obs.example.utils.CursorUtils;
+import com.obs.example.utils.PersistenceUtils;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Service
@@ -28,42 +42,117 @@ import java.util.Optional;
 @Transactional
 public class OrderService {
 
+    private static final int MAX_BASKET_LINES = 500;
+
     private final OrderRepository orderRepository;
     private final ItemRepository itemRepository;
-    private final InventoryRepository inventoryRepository;
+    private final StockService stockService;
+    private final StockEngine stockEngine;
+    private final GroupCommitter groupCommitter;
+    private final StockCheckpointService stockCheckpointService;
+    private final OrderArchiveService orderArchiveService;
+    private final MovementWriteService movementWriteService;
+    private final IdGenerator idGenerator;
+    private final ItemCache itemCache;
+    private final ChangeVersions changeVersions;
+    private final JdbcTemplate jdbcTemplate;
 
     public Page<OrderResponseDto> getAllOrders(Pageable pageable) {
-        return orderRepository.findAll(pageable)
-                .map(this::toOrderResponse);
+        return orderRepository.findAllResponses(pageable);
+    }
+
+    public CursorPageDto<OrderResponseDto> getOrdersAfter(String cursor, int size) {
+        List<OrderResponseDto> rows = orderRepository.findResponsesAfter(CursorUtils.decodeString(cursor), CursorUtils.limit(size));
+        return CursorUtils.toPage(rows, size, OrderResponseDto::getOrderNo);
     }
 
-    public Order getOrderById(String id) {
+    public OrderDetailDto getOrderById(String id) {
 
-        Optional<Order> order = orderRepository.findByOrderNo(id);
+        Optional<Order> order = movementWriteService.findPendingOrder(id)
+                .map(movement -> toOrder(movement, itemRepository.findById(movement.itemId()).orElse(null)))
+                .or(() -> orderRepository.findDetailByOrderNo(id))
+                .or(() -> orderArchiveService.findArchivedOrder(id));
 
         if (order.isEmpty()) {
             throw new ResourceNotFoundException("Item with order id: " +id +" not found");
         }
 
-        return order.get();
+        return toOrderDetail(order.get());
     }
 
+    /**
+     * Only joins a transaction the caller already has: the write runs in one of its own, on the
+     * stock shards of its items when the engine is enabled.
+     */
+    @Transactional(Transactional.TxType.SUPPORTS)
     public Order saveOrder(String orderNo, OrderDto orderDto) {
+        if ((orderNo == null || orderNo.isEmpty()) && (orderDto.getOrderNo() == null || orderDto.getOrderNo().isEmpty())) {
+            orderDto.setOrderNo(idGenerator.nextOrderNo());
+        }
+
+        if ((orderNo == null || orderNo.isEmpty()) && movementWriteService.isEnabled()) {
+            return journalOrder(orderDto);
+        }
+
+        movementWriteService.awaitApplied();
+        if (orderNo == null || orderNo.isEmpty()) {
+            return groupCommitter.execute(() -> stockEngine.execute(orderDto.getItemId(), () -> placeOrder(null, null, orderDto)));
+        }
+
+        // moving the order to another item changes the stock of both, so it runs on both shards
+        Long storedItemId = stockEngine.read(() -> orderRepository.findItemIdByOrderNo(orderNo))
+                .orElseThrow(() -> new ResourceNotFoundException("Order not found with ID: " + orderNo));
+        return groupCommitter.execute(() -> stockEngine.execute(List.of(storedItemId, orderDto.getItemId()),
+                () -> placeOrder(orderNo, storedItemId, orderDto)));
+    }
+
+    private Order journalOrder(OrderDto orderDto) {
+        if (orderArchiveService.isArchived(orderDto.getOrderNo())) {
+            throw new BadRequestException("Order already exists in the archive: " + orderDto.getOrderNo());
+        }
+
+        ItemCache.CachedItem item = itemCache.find(orderDto.getItemId())
+                .orElseThrow(() -> new ResourceNotFoundException("Item not found with ID: " + orderDto.getItemId()));
+
+        if (!item.price().equals(orderDto.getPrice())) {
+            throw new BadRequestException("Invalid price for order for item: " + orderDto.getItemId());
+        }
+
+        Movement.OrderMovement movement = new Movement.OrderMovement(orderDto.getOrderNo(), item.id(),
+                orderDto.getQty(), orderDto.getPrice(), Instant.now().truncatedTo(ChronoUnit.MICROS));
+        movementWriteService.append(movement);
+        return toOrder(movement, itemRepository.getReferenceById(item.id()));
+    }
+
+    private Order placeOrder(String orderNo, Long storedItemId, OrderDto orderDto) {
 
         Order order;
+        Long previousItemId = null;
+        int previousQty = 0;
+        Instant createdAt = null;
 
         if (orderNo == null || orderNo.isEmpty()) {
+            if (orderArchiveService.isArchived(orderDto.getOrderNo())) {
+                throw new BadRequestException("Order already exists in the archive: " + orderDto.getOrderNo());
+            }
             order = new Order();
             order.setOrderNo(orderDto.getOrderNo());
         } else {
-            order = orderRepository.findByOrderNo(orderNo)
+            order = orderRepository.findByOrderNoForUpdate(orderNo)
                     .orElseThrow(() -> new ResourceNotFoundException("Order not found with ID: " + orderNo));
+            previousItemId = order.getItem().getId();
+            previousQty = order.getQty();
+            createdAt = order.getCreatedAt();
+            if (!previousItemId.equals(storedItemId)) {
+                // the shard of the item it was moved from is not held
+                throw new BadRequestException("Order was changed concurrently: " + orderNo);
+            }
         }
 
-        Item item = itemRepository.findById(orderDto.getItemId())
+        ItemCache.CachedItem item = itemCache.find(orderDto.getItemId())
                 .orElseThrow(() -> new ResourceNotFoundException("Item not found with ID: " + orderDto.getItemId()));
 
-        if (!item.getPrice().equals(orderDto.getPrice())) {
+        if (!item.price().equals(orderDto.getPrice())) {
             throw new BadRequestException("Invalid price for order for item: " + orderDto.getItemId());
         }
 
@@ -74,33 +163,185 @@ public class OrderService {
         }
 
         order.setOrderNo(orderDto.getOrderNo());
-        order.setItem(item);
+        order.setItem(itemRepository.getReferenceById(item.id()));
         order.setQty(orderDto.getQty());
         order.setPrice(orderDto.getPrice());
 
-        return orderRepository.save(order);
+        Order savedOrder = previousItemId == null ? insertOrder(order) : orderRepository.save(order);
+        changeVersions.bump(ChangeVersions.Table.ORDERS);
+
+        if (previousItemId == null || previousItemId.equals(item.id())) {
+            stockService.adjustStock(item.id(), previousQty - savedOrder.getQty());
+        } else {
+            stockService.adjustStock(previousItemId, previousQty);
+            stockService.adjustStock(item.id(), -savedOrder.getQty());
+        }
+
+        if (previousItemId != null) {
+            stockCheckpointService.invalidate(previousItemId, createdAt);
+            if (!previousItemId.equals(item.id())) {
+                stockCheckpointService.invalidate(item.id(), createdAt);
+            }
+        }
+
+        return savedOrder;
+    }
+
+    /**
+     * Places every line of the basket as an order of its own, numbered {@code <basketNo>-<line>},
+     * or none of them. Items and prices are checked from the item cache and the stock of all
+     * items is resolved at once, so the whole basket is validated before anything is written and
+     * every short line is reported together. The lines are then inserted with one JDBC batch and
+     * the stock is taken for all items in one step, which rolls the basket back if a concurrent
+     * write has used up the stock in between.
+     * <p>
+     * The check and the write run on the stock shards of all the basket's items at once, so they
+     * do not interleave with single orders on the engine. With the stock index loaded, the stock
+     * is taken from the index like a journaled order's, so baskets and journaled orders are
+     * admitted against the same counters. The lines are written directly, also when single
+     * orders are journaled.
+     */
+    @Transactional(Transactional.TxType.SUPPORTS)
+    public BasketResponseDto placeBasket(BasketDto basketDto) {
+        List<BasketLineDto> lines = basketDto.getLines();
+        if (lines.size() > MAX_BASKET_LINES) {
+            throw new BadRequestException("Basket has more than " + MAX_BASKET_LINES + " lines");
+        }
+
+        String basketNo = basketDto.getBasketNo() == null || basketDto.getBasketNo().isEmpty()
+                ? idGenerator.nextOrderNo() : basketDto.getBasketNo();
+        List<String> orderNos = new ArrayList<>(lines.size());
+        for (int i = 1; i <= lines.size(); i++) {
+            orderNos.add(basketNo + "-" + i);
+        }
+
+        List<String> archived = orderArchiveService.findArchivedOrderNos(orderNos);
+        if (!archived.isEmpty()) {
+            throw new BadRequestException("Order already exists in the archive: " + archived.get(0));
+        }
+
+        Map<Long, ItemCache.CachedItem> items = new HashMap<>();
+        Map<Long, Integer> quantities = new LinkedHashMap<>();
+        for (BasketLineDto line : lines) {
+            // an item repeated across lines is looked up once
+            ItemCache.CachedItem item = items.computeIfAbsent(line.getItemId(), id -> itemCache.find(id)
+                    .orElseThrow(() -> new ResourceNotFoundException("Item not found with ID: " + id)));
+            if (!item.price().equals(line.getPrice())) {
+                throw new BadRequestException("Invalid price for order for item: " + line.getItemId());
+            }
+            quantities.merge(item.id(), line.getQty(), Integer::sum);
+        }
+
+        movementWriteService.awaitApplied();
+        return stockEngine.execute(quantities.keySet(), () -> writeBasket(basketNo, orderNos, lines, quantities));
+    }
+
+    private BasketResponseDto writeBasket(String basketNo, List<String> orderNos, List<BasketLineDto> lines,
+                                          Map<Long, Integer> quantities) {
+        Map<Long, Integer> stocks = stockService.getStocks(quantities.keySet());
+        List<String> shortages = new ArrayList<>();
+        quantities.forEach((itemId, qty) -> {
+            if (stocks.get(itemId) < qty) {
+                shortages.add("Insufficient stock for item ID: " + itemId + ". Available: " + stocks.get(itemId));
+            }
+        });
+        if (!shortages.isEmpty()) {
+            throw new BadRequestException(String.join("; ", shortages));
+        }
+
+        Instant createdAt = Instant.now().truncatedTo(ChronoUnit.MICROS);
+        List<OrderResponseDto> placed = new ArrayList<>(lines.size());
+        List<Object[]> rows = new ArrayList<>(lines.size());
+        for (int i = 0; i < lines.size(); i++) {
+            BasketLineDto line = lines.get(i);
+            placed.add(new OrderResponseDto(orderNos.get(i), line.getQty(), line.getPrice(), line.getItemId(), createdAt));
+            rows.add(new Object[]{orderNos.get(i), line.getQty(), line.getPrice(), line.getItemId(), Timestamp.from(createdAt)});
+        }
+        insertBasket(basketNo, rows);
+
+        List<Long> insufficient = stockService.withdrawStocks(quantities);
+        if (!insufficient.isEmpty()) {
+            throw new BadRequestException("Insufficient stock for item ID: " + insufficient.get(0));
+        }
+        changeVersions.bump(ChangeVersions.Table.ORDERS);
+
+        return new BasketResponseDto(basketNo, placed);
+    }
+
+    private void insertBasket(String basketNo, List<Object[]> rows) {
+        try {
+            jdbcTemplate.batchUpdate("insert into orders (order_no, qty, price, item_id, created_at) values (?, ?, ?, ?, ?)", rows);
+        } catch (DataIntegrityViolationException e) {
+            if (PersistenceUtils.isDuplicateKey(e)) {
+                throw new BadRequestException("Order already exists for basket: " + basketNo);
+            }
+            throw e;
+        }
+    }
+
+    private Order insertOrder(Order order) {
+        try {
+            return orderRepository.saveAndFlush(order);
+        } catch (DataIntegrityViolationException e) {
+            if (PersistenceUtils.isDuplicateKey(e)) {
+                throw new BadRequestException("Order already exists with ID: " + order.getOrderNo());
+            }
+            throw e;
+        }
     }
 
+    @Transactional(Transactional.TxType.SUPPORTS)
     public void deleteOrder(String id) {
-        Optional<Order> order = orderRepository.findById(id);
+        movementWriteService.awaitApplied();
+        Long itemId = stockEngine.read(() -> orderRepository.findItemIdByOrderNo(id))
+                .orElseThrow(() -> new ResourceNotFoundException("Order with id " + id + " not found"));
+
+        stockEngine.execute(itemId, () -> removeOrder(id));
+    }
+
+    private void removeOrder(String id) {
+        Optional<Order> order = orderRepository.findByOrderNoForUpdate(id);
         if (order.isEmpty()) {
             throw new ResourceNotFoundException("Order with id " + id + " not found");
         }
         orderRepository.delete(order.get());
+        changeVersions.bump(ChangeVersions.Table.ORDERS);
+        stockService.adjustStock(order.get().getItem().getId(), order.get().getQty());
+        stockCheckpointService.invalidate(order.get().getItem().getId(), order.get().getCreatedAt());
+    }
+
+    private static Order toOrder(Movement.OrderMovement movement, Item item) {
+        Order order = new Order();
+        order.setOrderNo(movement.orderNo());
+        order.setItem(item);
+        order.setQty(movement.qty());
+        order.setPrice(movement.price());
+        order.setCreatedAt(movement.createdAt());
+        return order;
     }
 
-    private OrderResponseDto toOrderResponse(Order order) {
-        OrderResponseDto response = new OrderResponseDto();
+    private OrderDetailDto toOrderDetail(Order order) {
+        OrderDetailDto response = new OrderDetailDto();
         response.setOrderNo(order.getOrderNo());
-        response.setItemId(order.getItem().getId());
-        response.setPrice(order.getPrice());
         response.setQty(order.getQty());
+        response.setPrice(order.getPrice());
+        response.setCreatedAt(order.getCreatedAt());
+        response.setItem(toItemDto(order.getItem()));
+        return response;
+    }
+
+    private ItemDto toItemDto(Item item) {
+        if (item == null) {
+            return null;
+        }
+        ItemDto response = new ItemDto();
+        response.setId(item.getId());
+        response.setName(item.getName());
+        response.setPrice(item.getPrice());
         return response;
     }
 
     public int getItemStock(Long itemId) {
-        List<Inventory> inventories = inventoryRepository.findByItemId(itemId);
-        List<Order> orders = orderRepository.findByItemId(itemId);
-        return InventoryCalculationUtils.calculateStockQuantity(inventories, orders);
+        return stockService.getStock(itemId);
     }
 }
@@ -0,0 +1,251 @@
+package com.obs.example.service;
+
+import com.obs.example.dto.ReservationDto;
+import com.obs.example.dto.ReservationResponseDto;
+import com.obs.example.entity.Item;
+import com.obs.example.entity.Order;
+import com.obs.example.entity.Reservation;
+import com.obs.example.exception.BadRequestException;
+import com.obs.example.exception.ResourceNotFoundException;
+import com.obs.example.repository.ItemRepository;
+import com.obs.example.repository.OrderRepository;
+import com.obs.example.repository.ReservationRepository;
+import com.obs.example.utils.HashedTimerWheel;
+import com.obs.example.utils.PersistenceUtils;
+import jakarta.annotation.PreDestroy;
+import jakarta.transaction.Transactional;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Holds stock for an item for a limited time. A reservation is deducted from the available stock
+ * when it is placed and either turns into an {@code Order} on confirmation or gives the stock
+ * back when it is released or expires.
+ * <p>
+ * Expiry is driven by a {@link HashedTimerWheel} instead of a periodic database sweep: every
+ * reservation gets one in-memory timeout, and only reservations that are actually due are
+ * touched. Timeouts are rebuilt from the table at startup.
+ */
+@Service
+@Transactional
+@Slf4j
+public class ReservationService {
+
+    private final ReservationRepository reservationRepository;
+    private final ItemRepository itemRepository;
+    private final OrderRepository orderRepository;
+    private final OrderArchiveService orderArchiveService;
+    private final MovementWriteService movementWriteService;
+    private final StockService stockService;
+    private final StockEngine stockEngine;
+    private final ChangeVersions changeVersions;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration maxTtl;
+    private final ExecutorService expiryExecutor;
+    private final HashedTimerWheel timerWheel;
+    private final Map<String, HashedTimerWheel.Timeout> timeouts = new ConcurrentHashMap<>();
+
+    public ReservationService(ReservationRepository reservationRepository,
+                              ItemRepository itemRepository,
+                              OrderRepository orderRepository,
+                              OrderArchiveService orderArchiveService,
+                              MovementWriteService movementWriteService,
+                              StockService stockService,
+                              StockEngine stockEngine,
+                              ChangeVersions changeVersions,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${obs.reservation.tick:1s}") Duration tick,
+                              @Value("${obs.reservation.wheel-size:512}") int wheelSize,
+                              @Value("${obs.reservation.max-ttl:1h}") Duration maxTtl) {
+        this.reservationRepository = reservationRepository;
+        this.itemRepository = itemRepository;
+        this.orderRepository = orderRepository;
+        this.orderArchiveService = orderArchiveService;
+        this.movementWriteService = movementWriteService;
+        this.stockService = stockService;
+        this.stockEngine = stockEngine;
+        this.changeVersions = changeVersions;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.maxTtl = maxTtl;
+        this.expiryExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "reservation-expiry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.timerWheel = new HashedTimerWheel(tick, wheelSize, expiryExecutor, "reservation-timer");
+    }
+
+    public ReservationResponseDto getReservation(String reservationNo) {
+        return reservationRepository.findById(reservationNo)
+                .map(this::toReservationResponse)
+                .orElseThrow(() -> new ResourceNotFoundException("Reservation not found with ID: " + reservationNo));
+    }
+
+    @Transactional(Transactional.TxType.SUPPORTS)
+    public ReservationResponseDto reserve(ReservationDto reservationDto) {
+        if (reservationDto.getTtlSeconds() > maxTtl.toSeconds()) {
+            throw new BadRequestException("Reservation TTL must not exceed " + maxTtl.toSeconds() + " seconds");
+        }
+
+        Reservation reservation = stockEngine.execute(reservationDto.getItemId(), () -> placeReservation(reservationDto));
+        return toReservationResponse(reservation);
+    }
+
+    private Reservation placeReservation(ReservationDto reservationDto) {
+        if (reservationRepository.existsById(reservationDto.getReservationNo())) {
+            throw new BadRequestException("Reservation already exists with ID: " + reservationDto.getReservationNo());
+        }
+
+        Item item = itemRepository.findById(reservationDto.getItemId())
+                .orElseThrow(() -> new ResourceNotFoundException("Item not found with ID: " + reservationDto.getItemId()));
+
+        if (!stockService.withdrawStocks(Map.of(item.getId(), reservationDto.getQty())).isEmpty()) {
+            throw new BadRequestException("Insufficient stock for item ID: " + item.getId()
+                    + ". Available: " + stockService.getStock(item.getId()));
+        }
+
+        Reservation reservation = new Reservation();
+        reservation.setReservationNo(reservationDto.getReservationNo());
+        reservation.setItem(item);
+        reservation.setQty(reservationDto.getQty());
+        reservation.setExpiresAt(Instant.now().plusSeconds(reservationDto.getTtlSeconds()));
+
+        Reservation savedReservation = reservationRepository.save(reservation);
+
+        PersistenceUtils.afterCommit(() -> scheduleExpiry(savedReservation));
+        return savedReservation;
+    }
+
+    /**
+     * Turns a reservation into an order for the item's current price. The reserved quantity was
+     * already deducted from the stock, so the order takes it over without another stock check.
+     */
+    @Transactional(Transactional.TxType.SUPPORTS)
+    public Order confirm(String reservationNo, String orderNo) {
+        Long itemId = findItemId(reservationNo);
+        return stockEngine.execute(itemId, () -> confirmReservation(reservationNo, orderNo));
+    }
+
+    private Order confirmReservation(String reservationNo, String orderNo) {
+        Reservation reservation = reservationRepository.findById(reservationNo)
+                .orElseThrow(() -> new ResourceNotFoundException("Reservation not found with ID: " + reservationNo));
+
+        if (reservation.getExpiresAt().isBefore(Instant.now())) {
+            throw new BadRequestException("Reservation has expired: " + reservationNo);
+        }
+
+        if (movementWriteService.findPendingOrder(orderNo).isPresent()
+                || orderRepository.existsById(orderNo)
+                || orderArchiveService.isArchived(orderNo)) {
+            throw new BadRequestException("Order already exists with ID: " + orderNo);
+        }
+
+        Order order = new Order();
+        order.setOrderNo(orderNo);
+        order.setItem(reservation.getItem());
+        order.setQty(reservation.getQty());
+        order.setPrice(reservation.getItem().getPrice());
+
+        reservationRepository.delete(reservation);
+        Order savedOrder = orderRepository.save(order);
+        changeVersions.bump(ChangeVersions.Table.ORDERS);
+
+        PersistenceUtils.afterCommit(() -> cancelExpiry(reservationNo));
+        return savedOrder;
+    }
+
+    @Transactional(Transactional.TxType.SUPPORTS)
+    public void release(String reservationNo) {
+        Long itemId = findItemId(reservationNo);
+        stockEngine.execute(itemId, () -> {
+            Reservation reservation = reservationRepository.findById(reservationNo)
+                    .orElseThrow(() -> new ResourceNotFoundException("Reservation not found with ID: " + reservationNo));
+            releaseReservation(reservation);
+        });
+    }
+
+    /**
+     * Schedules a timeout for every reservation in the table. Reservations that expired while the
+     * application was down are released on the first tick.
+     */
+    public void scheduleActiveReservations() {
+        List<Reservation> reservations = reservationRepository.findAll();
+        reservations.forEach(this::scheduleExpiry);
+        if (!reservations.isEmpty()) {
+            log.info("Scheduled expiry for {} active reservations", reservations.size());
+        }
+    }
+
+    private void releaseReservation(Reservation reservation) {
+        reservationRepository.delete(reservation);
+        stockService.adjustStock(reservation.getItem().getId(), reservation.getQty());
+        PersistenceUtils.afterCommit(() -> cancelExpiry(reservation.getReservationNo()));
+    }
+
+    private void expire(String reservationNo) {
+        reservationRepository.findById(reservationNo)
+                .filter(reservation -> !reservation.getExpiresAt().isAfter(Instant.now()))
+                .ifPresent(reservation -> {
+                    releaseReservation(reservation);
+                    log.debug("Reservation {} expired", reservationNo);
+                });
+    }
+
+    private void scheduleExpiry(Reservation reservation) {
+        String reservationNo = reservation.getReservationNo();
+        Long itemId = reservation.getItem().getId();
+        Duration delay = Duration.between(Instant.now(), reservation.getExpiresAt());
+
+        HashedTimerWheel.Timeout timeout = timerWheel.schedule(() -> {
+            timeouts.remove(reservationNo);
+            try {
+                stockEngine.execute(itemId, () -> transactionTemplate.executeWithoutResult(status -> expire(reservationNo)));
+            } catch (RuntimeException e) {
+                log.warn("Failed to expire reservation {}", reservationNo, e);
+            }
+        }, delay);
+
+        HashedTimerWheel.Timeout previous = timeouts.put(reservationNo, timeout);
+        if (previous != null) {
+            previous.cancel();
+        }
+    }
+
+    private void cancelExpiry(String reservationNo) {
+        HashedTimerWheel.Timeout timeout = timeouts.remove(reservationNo);
+        if (timeout != null) {
+            timeout.cancel();
+        }
+    }
+
+    private Long findItemId(String reservationNo) {
+        return stockEngine.read(() -> reservationRepository.findItemIdByReservationNo(reservationNo))
+                .orElseThrow(() -> new ResourceNotFoundException("Reservation not found with ID: " + reservationNo));
+    }
+
+    private ReservationResponseDto toReservationResponse(Reservation reservation) {
+        ReservationResponseDto response = new ReservationResponseDto();
+        response.setReservationNo(reservation.getReservationNo());
+        response.setItemId(reservation.getItem().getId());
+        response.setQty(reservation.getQty());
+        response.setExpiresAt(reservation.getExpiresAt());
+        return response;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        timerWheel.close();
+        expiryExecutor.shutdown();
+    }
+}
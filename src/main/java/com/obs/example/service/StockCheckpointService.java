@@ -0,0 +1,266 @@
+package com.obs.example.service;
+
+import com.obs.example.dto.StockAsOfDto;
+import com.obs.example.entity.ArchivedOrderTotal;
+import com.obs.example.entity.CompactionState;
+import com.obs.example.entity.StockCheckpoint;
+import com.obs.example.exception.BadRequestException;
+import com.obs.example.projection.InventoryTotals;
+import com.obs.example.projection.OrderTotals;
+import com.obs.example.repository.ArchivedOrderTotalRepository;
+import com.obs.example.repository.CompactionStateRepository;
+import com.obs.example.repository.InventoryRepository;
+import com.obs.example.repository.OrderRepository;
+import com.obs.example.repository.StockCheckpointRepository;
+import com.obs.example.utils.InventoryCalculationUtils;
+import jakarta.transaction.Transactional;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Answers "stock of an item as of time T" from periodic per-item checkpoints. A query loads the
+ * nearest checkpoint at or before T and adds only the movements created after it, so its cost
+ * depends on the checkpoint interval instead of the length of the item's history.
+ * <p>
+ * Checkpoints are written only for items that had movements since the previous run, and lag
+ * {@code obs.stock.checkpoint.settle-delay} behind the clock so that movements from transactions
+ * still in flight are not skipped. Editing or deleting a movement drops the item's checkpoints
+ * from the movement's creation time onwards.
+ * <p>
+ * Compaction folds movements into rows stamped with the newest folded creation time, and the
+ * order archive keeps only per-item totals of the orders it moved out, so queries for times
+ * before the last compaction horizon or archive cutoff are refused instead of answered wrongly.
+ */
+@Service
+@Transactional
+@Slf4j
+public class StockCheckpointService {
+
+    private static final String INVENTORY_COMPACTION = "inventory";
+    private static final String ORDER_ARCHIVE = "orders";
+
+    private final StockCheckpointRepository stockCheckpointRepository;
+    private final InventoryRepository inventoryRepository;
+    private final OrderRepository orderRepository;
+    private final ArchivedOrderTotalRepository archivedOrderTotalRepository;
+    private final CompactionStateRepository compactionStateRepository;
+    private final Duration settleDelay;
+
+    public StockCheckpointService(StockCheckpointRepository stockCheckpointRepository,
+                                  InventoryRepository inventoryRepository,
+                                  OrderRepository orderRepository,
+                                  ArchivedOrderTotalRepository archivedOrderTotalRepository,
+                                  CompactionStateRepository compactionStateRepository,
+                                  @Value("${obs.stock.checkpoint.settle-delay:PT1M}") Duration settleDelay) {
+        this.stockCheckpointRepository = stockCheckpointRepository;
+        this.inventoryRepository = inventoryRepository;
+        this.orderRepository = orderRepository;
+        this.archivedOrderTotalRepository = archivedOrderTotalRepository;
+        this.compactionStateRepository = compactionStateRepository;
+        this.settleDelay = settleDelay;
+    }
+
+    public StockAsOfDto getStockAsOf(Long itemId, Instant asOf) {
+        Optional<Instant> compactedThrough = compactionStateRepository.findById(INVENTORY_COMPACTION)
+                .map(CompactionState::getHorizon);
+        if (compactedThrough.isPresent() && asOf.isBefore(compactedThrough.get())) {
+            throw new BadRequestException("Stock is not available before " + compactedThrough.get()
+                    + ", inventory movements up to that time were compacted");
+        }
+        Optional<Instant> archivedThrough = findArchiveCutoff();
+        if (archivedThrough.isPresent() && asOf.isBefore(archivedThrough.get())) {
+            throw new BadRequestException("Stock is not available before " + archivedThrough.get()
+                    + ", orders up to that time were archived");
+        }
+
+        Optional<StockCheckpoint> checkpoint =
+                stockCheckpointRepository.findFirstByItemIdAndTakenAtLessThanEqualOrderByTakenAtDesc(itemId, asOf);
+
+        int stock;
+        if (checkpoint.isPresent()) {
+            Instant from = checkpoint.get().getTakenAt();
+            stock = checkpoint.get().getQty() + toStock(
+                    inventoryRepository.sumQtyByItemIdBetween(itemId, from, asOf),
+                    orderRepository.sumQtyByItemIdBetween(itemId, from, asOf));
+        } else {
+            stock = toStock(
+                    inventoryRepository.sumQtyByItemIdInUpTo(List.of(itemId), asOf),
+                    orderRepository.sumQtyByItemIdInUpTo(List.of(itemId), asOf));
+            stock -= archivedOrderTotalRepository.findById(itemId)
+                    .filter(archived -> archived.getArchivedThrough() == null || !archived.getArchivedThrough().isAfter(asOf))
+                    .map(archived -> Math.toIntExact(archived.getQty()))
+                    .orElse(0);
+        }
+
+        StockAsOfDto response = new StockAsOfDto();
+        response.setItemId(itemId);
+        response.setAsOf(asOf);
+        response.setStock(stock);
+        response.setCheckpointAt(checkpoint.map(StockCheckpoint::getTakenAt).orElse(null));
+        return response;
+    }
+
+    /**
+     * Writes a checkpoint for every item with movements since the last run. Returns the number of
+     * checkpoints written.
+     */
+    @Scheduled(fixedDelayString = "${obs.stock.checkpoint.interval:PT15M}",
+            initialDelayString = "${obs.stock.checkpoint.interval:PT15M}")
+    public int takeCheckpoint() {
+        Instant takenAt = Instant.now().minus(settleDelay).truncatedTo(ChronoUnit.MICROS);
+        Optional<Instant> previous = stockCheckpointRepository.findLatestTakenAt();
+        if (previous.isPresent() && !takenAt.isAfter(previous.get())) {
+            return 0;
+        }
+
+        Map<Long, Integer> stocks;
+        if (previous.isEmpty()) {
+            stocks = toStocks(
+                    inventoryRepository.sumQtyGroupByItemIdUpTo(takenAt),
+                    orderRepository.sumQtyGroupByItemIdUpTo(takenAt),
+                    archivedOrderTotalRepository.findAll());
+        } else {
+            Set<Long> itemIds = new HashSet<>(inventoryRepository.findItemIdsCreatedBetween(previous.get(), takenAt));
+            itemIds.addAll(orderRepository.findItemIdsCreatedBetween(previous.get(), takenAt));
+            if (itemIds.isEmpty()) {
+                return 0;
+            }
+            stocks = calculateStocksUpTo(itemIds, takenAt);
+        }
+
+        return saveCheckpoints(stocks, takenAt);
+    }
+
+    /**
+     * Writes checkpoints for the given items at a point in the past. The order archive uses this
+     * to keep point-in-time queries after its cutoff exact once the orders leave the hot table.
+     * Every order archived so far must have been created at or before {@code takenAt}.
+     */
+    public int checkpointItems(Collection<Long> itemIds, Instant takenAt) {
+        if (itemIds.isEmpty()) {
+            return 0;
+        }
+
+        return saveCheckpoints(calculateStocksUpTo(itemIds, takenAt), takenAt);
+    }
+
+    private Map<Long, Integer> calculateStocksUpTo(Collection<Long> itemIds, Instant takenAt) {
+        return toStocks(
+                inventoryRepository.sumQtyByItemIdInUpTo(itemIds, takenAt),
+                orderRepository.sumQtyByItemIdInUpTo(itemIds, takenAt),
+                archivedOrderTotalRepository.findAllById(itemIds));
+    }
+
+    private int saveCheckpoints(Map<Long, Integer> stocks, Instant takenAt) {
+        List<StockCheckpoint> checkpoints = stocks.entrySet().stream()
+                .map(entry -> {
+                    StockCheckpoint checkpoint = new StockCheckpoint();
+                    checkpoint.setItemId(entry.getKey());
+                    checkpoint.setTakenAt(takenAt);
+                    checkpoint.setQty(entry.getValue());
+                    return checkpoint;
+                })
+                .toList();
+        stockCheckpointRepository.saveAll(checkpoints);
+
+        log.info("Wrote {} stock checkpoints at {}", checkpoints.size(), takenAt);
+        return checkpoints.size();
+    }
+
+    /**
+     * Drops the item's checkpoints that include a movement created at {@code since}. A movement
+     * without a creation time predates checkpoints and is part of all of them.
+     */
+    public void invalidate(Long itemId, Instant since) {
+        if (since == null) {
+            stockCheckpointRepository.deleteByItemId(itemId);
+        } else {
+            stockCheckpointRepository.deleteByItemIdTakenSince(itemId, since);
+        }
+    }
+
+    /**
+     * Drops the item's checkpoints taken before {@code before}. A compaction fold calls this with
+     * the creation time of the row it folds into, since an older checkpoint may already include
+     * part of what the row now carries.
+     */
+    public void invalidateBefore(Long itemId, Instant before) {
+        stockCheckpointRepository.deleteByItemIdTakenBefore(itemId, before);
+    }
+
+    /**
+     * Records that inventory movements up to {@code horizon} are being compacted. The recorded
+     * horizon only ever moves forward.
+     */
+    public void recordCompactionHorizon(Instant horizon) {
+        recordHorizon(INVENTORY_COMPACTION, horizon);
+    }
+
+    /**
+     * Records that orders created up to {@code cutoff} are being archived. Like the compaction
+     * horizon, the recorded cutoff only ever moves forward.
+     */
+    public void recordArchiveCutoff(Instant cutoff) {
+        recordHorizon(ORDER_ARCHIVE, cutoff);
+    }
+
+    public Optional<Instant> findArchiveCutoff() {
+        return compactionStateRepository.findById(ORDER_ARCHIVE).map(CompactionState::getHorizon);
+    }
+
+    private void recordHorizon(String name, Instant horizon) {
+        CompactionState state = compactionStateRepository.findById(name).orElseGet(() -> {
+            CompactionState created = new CompactionState();
+            created.setName(name);
+            return created;
+        });
+        if (state.getHorizon() == null || horizon.isAfter(state.getHorizon())) {
+            state.setHorizon(horizon);
+            compactionStateRepository.save(state);
+        }
+    }
+
+    private static int toStock(List<InventoryTotals> inventoryTotals, List<OrderTotals> orderTotals) {
+        long topUpTotal = inventoryTotals.stream().mapToLong(InventoryTotals::getTopUpTotal).sum();
+        long withdrawalTotal = inventoryTotals.stream().mapToLong(InventoryTotals::getWithdrawalTotal).sum();
+        long orderTotal = orderTotals.stream().mapToLong(OrderTotals::getOrderTotal).sum();
+        return InventoryCalculationUtils.calculateStockQuantity(topUpTotal, withdrawalTotal, orderTotal);
+    }
+
+    private static Map<Long, Integer> toStocks(List<InventoryTotals> inventoryTotals, List<OrderTotals> orderTotals,
+                                               List<ArchivedOrderTotal> archivedOrderTotals) {
+        Map<Long, InventoryTotals> inventoryByItem = inventoryTotals.stream()
+                .collect(Collectors.toMap(InventoryTotals::getItemId, Function.identity()));
+        Map<Long, Long> ordersByItem = orderTotals.stream()
+                .collect(Collectors.toMap(OrderTotals::getItemId, OrderTotals::getOrderTotal));
+        archivedOrderTotals.forEach(archived -> ordersByItem.merge(archived.getItemId(), archived.getQty(), Long::sum));
+
+        Set<Long> itemIds = new HashSet<>(inventoryByItem.keySet());
+        itemIds.addAll(ordersByItem.keySet());
+
+        Map<Long, Integer> stocks = new HashMap<>();
+        for (Long itemId : itemIds) {
+            InventoryTotals totals = inventoryByItem.get(itemId);
+            stocks.put(itemId, InventoryCalculationUtils.calculateStockQuantity(
+                    totals == null ? 0 : totals.getTopUpTotal(),
+                    totals == null ? 0 : totals.getWithdrawalTotal(),
+                    ordersByItem.getOrDefault(itemId, 0L)));
+        }
+        return stocks;
+    }
+}
@@ -0,0 +1,207 @@
+package com.obs.example.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+/**
+ * Serializes stock-changing writes per item without locks. Items are hashed to a fixed number of
+ * single-threaded shards, and every write for an item runs on its shard in a transaction of its
+ * own. Because the shard is the only writer of its items' balance rows, the stock check and the
+ * insert that follows it cannot interleave with another order for the same item.
+ * <p>
+ * A write that touches several items, such as moving a movement to another item or a basket,
+ * holds the shards of all of them while it runs, taking them in shard order so that two such
+ * writes cannot wait on each other.
+ * <p>
+ * Callers only join a transaction that is already open ({@code SUPPORTS}) and look up what they
+ * need through {@link #read(Supplier)}, so that a caller waiting for a shard never holds a pooled
+ * connection the shard may need.
+ * <p>
+ * Disabled unless {@code obs.stock.engine.enabled=true}; writes then run inline, in the caller's
+ * transaction when it has one and in a new one otherwise.
+ */
+@Component
+@Slf4j
+public class StockEngine {
+
+    private final boolean enabled;
+    private final ExecutorService[] shards;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate inlineTransactionTemplate;
+    private final ThreadLocal<Boolean> onShard = ThreadLocal.withInitial(() -> false);
+
+    public StockEngine(@Value("${obs.stock.engine.enabled:false}") boolean enabled,
+                       @Value("${obs.stock.engine.shards:4}") int shardCount,
+                       PlatformTransactionManager transactionManager) {
+        this.enabled = enabled;
+        this.inlineTransactionTemplate = transactionManager == null ? null : new TransactionTemplate(transactionManager);
+
+        if (!enabled) {
+            this.shards = new ExecutorService[0];
+            this.transactionTemplate = null;
+            return;
+        }
+
+        this.shards = new ExecutorService[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            String name = "stock-shard-" + i;
+            shards[i] = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(() -> {
+                    onShard.set(true);
+                    runnable.run();
+                }, name);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        log.info("Stock engine started with {} shards", shardCount);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Submits a write for the given item to its owning shard. When the engine is disabled, or the
+     * caller already runs on a shard, the work runs inline and the returned future is complete.
+     */
+    public <T> CompletableFuture<T> submit(Long itemId, Supplier<T> work) {
+        if (!enabled || onShard.get()) {
+            try {
+                return CompletableFuture.completedFuture(runInline(work));
+            } catch (RuntimeException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+
+        return CompletableFuture.supplyAsync(() -> transactionTemplate.execute(status -> work.get()), shardFor(itemId));
+    }
+
+    /**
+     * Runs a read that decides which shards a write needs, such as the item a movement is stored
+     * under. With the engine enabled it gets a transaction of its own, so the caller does not keep
+     * a connection while it then waits for the shards.
+     */
+    public <T> T read(Supplier<T> lookup) {
+        if (!enabled || onShard.get()) {
+            return runInline(lookup);
+        }
+        return transactionTemplate.execute(status -> lookup.get());
+    }
+
+    /**
+     * Runs a write on the item's shard and waits for it, rethrowing whatever the write threw.
+     */
+    public <T> T execute(Long itemId, Supplier<T> work) {
+        return execute(List.of(itemId), work);
+    }
+
+    /**
+     * Runs a write that touches all the given items while holding each of their shards, and waits
+     * for it. Every shard but the last is held by a task that blocks until the write is done; the
+     * write itself runs on the last one.
+     */
+    public <T> T execute(Collection<Long> itemIds, Supplier<T> work) {
+        int[] owned = itemIds.stream().mapToInt(this::shardIndex).distinct().sorted().toArray();
+        if (!enabled || onShard.get() || owned.length == 0) {
+            return runInline(work);
+        }
+
+        CountDownLatch done = new CountDownLatch(1);
+        try {
+            for (int i = 0; i < owned.length - 1; i++) {
+                hold(shards[owned[i]], done);
+            }
+            ExecutorService last = shards[owned[owned.length - 1]];
+            return CompletableFuture.supplyAsync(() -> transactionTemplate.execute(status -> work.get()), last).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        } finally {
+            done.countDown();
+        }
+    }
+
+    public void execute(Long itemId, Runnable work) {
+        execute(itemId, () -> {
+            work.run();
+            return null;
+        });
+    }
+
+    public void execute(Collection<Long> itemIds, Runnable work) {
+        execute(itemIds, () -> {
+            work.run();
+            return null;
+        });
+    }
+
+    private <T> T runInline(Supplier<T> work) {
+        if (inlineTransactionTemplate == null) {
+            return work.get();
+        }
+        return inlineTransactionTemplate.execute(status -> work.get());
+    }
+
+    /**
+     * Returns once the shard runs a task that keeps it busy until {@code done} is counted down.
+     */
+    private static void hold(ExecutorService shard, CountDownLatch done) {
+        CountDownLatch held = new CountDownLatch(1);
+        shard.execute(() -> {
+            held.countDown();
+            boolean interrupted = false;
+            while (done.getCount() > 0) {
+                try {
+                    done.await();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        try {
+            held.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a stock shard", e);
+        }
+    }
+
+    private ExecutorService shardFor(Long itemId) {
+        return shards[shardIndex(itemId)];
+    }
+
+    private int shardIndex(Long itemId) {
+        return shards.length == 0 ? 0 : Math.floorMod(Long.hashCode(itemId), shards.length);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (ExecutorService shard : shards) {
+            shard.shutdown();
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.obs.example.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * Optional in-process copy of every item's stock, one CAS cell per item. It is loaded from the
+ * movement tables at startup and receives the delta of every committed stock write, so stock
+ * checks can be answered without a database round trip. Disabled unless
+ * {@code obs.stock.index.enabled=true}.
+ * <p>
+ * A write that will add its delta once it commits holds the write gate from before its balance
+ * change until the delta is added ({@link #beginWrite()} / {@link #endWrite()}). Loading takes the
+ * gate exclusively, so the recompute it loads can neither miss such a write nor count it twice.
+ */
+@Component
+public class StockIndex {
+
+    private final boolean enabled;
+    private final ConcurrentHashMap<Long, AtomicInteger> cells = new ConcurrentHashMap<>();
+    private final ReadWriteLock writeGate = new ReentrantReadWriteLock();
+    private volatile boolean ready;
+
+    public StockIndex(@Value("${obs.stock.index.enabled:false}") boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * The index only answers reads once it has been loaded; until then callers use the database.
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    public void load(Map<Long, Integer> stocks) {
+        load(() -> stocks);
+    }
+
+    /**
+     * Replaces every cell with the recomputed stocks. The recompute runs once the writes holding
+     * the gate have added their deltas, and writes that want to enter it wait until the load is
+     * done.
+     */
+    public void load(Supplier<Map<Long, Integer>> recompute) {
+        writeGate.writeLock().lock();
+        try {
+            Map<Long, Integer> stocks = recompute.get();
+            cells.clear();
+            stocks.forEach((itemId, qty) -> cells.put(itemId, new AtomicInteger(qty)));
+            ready = true;
+        } finally {
+            writeGate.writeLock().unlock();
+        }
+    }
+
+    public void beginWrite() {
+        writeGate.readLock().lock();
+    }
+
+    public void endWrite() {
+        writeGate.readLock().unlock();
+    }
+
+    public int get(Long itemId) {
+        AtomicInteger cell = cells.get(itemId);
+        return cell == null ? 0 : cell.get();
+    }
+
+    public void add(Long itemId, int delta) {
+        cells.computeIfAbsent(itemId, id -> new AtomicInteger()).addAndGet(delta);
+    }
+
+    /**
+     * Subtracts the quantity only if the item has at least that much stock, as one atomic step.
+     */
+    public boolean tryWithdraw(Long itemId, int qty) {
+        AtomicInteger cell = cells.computeIfAbsent(itemId, id -> new AtomicInteger());
+        int stock;
+        do {
+            stock = cell.get();
+            if (stock < qty) {
+                return false;
+            }
+        } while (!cell.compareAndSet(stock, stock - qty));
+        return true;
+    }
+
+    public void remove(Long itemId) {
+        cells.remove(itemId);
+    }
+
+    public Map<Long, Integer> snapshot() {
+        Map<Long, Integer> snapshot = new HashMap<>();
+        cells.forEach((itemId, cell) -> snapshot.put(itemId, cell.get()));
+        return snapshot;
+    }
+}
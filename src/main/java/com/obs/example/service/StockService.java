@@ -0,0 +1,461 @@
+package com.obs.example.service;
+
+import com.obs.example.constant.InventoryType;
+import com.obs.example.dto.StockConsistencyDto;
+import com.obs.example.dto.StockMismatchDto;
+import com.obs.example.entity.StockBalance;
+import com.obs.example.exception.BadRequestException;
+import com.obs.example.projection.InventoryTotals;
+import com.obs.example.projection.OrderTotals;
+import com.obs.example.projection.ReservationTotals;
+import com.obs.example.repository.ArchivedOrderTotalRepository;
+import com.obs.example.repository.InventoryRepository;
+import com.obs.example.repository.OrderRepository;
+import com.obs.example.repository.ReservationRepository;
+import com.obs.example.repository.StockBalanceRepository;
+import com.obs.example.utils.InventoryCalculationUtils;
+import com.obs.example.utils.PersistenceUtils;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Owns the materialized per-item stock balance. Every stock-changing write calls
+ * {@link #adjustStock(Long, int)} inside its own transaction, so reading the stock of an item
+ * is a primary-key lookup instead of a scan over its whole movement history. When the
+ * {@link StockIndex} is enabled, reads are answered from memory and committed deltas are
+ * mirrored into it.
+ */
+@Service
+@Transactional
+@RequiredArgsConstructor
+@Slf4j
+public class StockService {
+
+    private final StockBalanceRepository stockBalanceRepository;
+    private final InventoryRepository inventoryRepository;
+    private final OrderRepository orderRepository;
+    private final ReservationRepository reservationRepository;
+    private final ArchivedOrderTotalRepository archivedOrderTotalRepository;
+    private final StockIndex stockIndex;
+    private final ChangeVersions changeVersions;
+    private final JdbcTemplate jdbcTemplate;
+    private final Object pendingIndexDeltasKey = new Object();
+
+    public int getStock(Long itemId) {
+        if (stockIndex.isReady()) {
+            return stockIndex.get(itemId) + pendingIndexDelta(itemId);
+        }
+
+        return stockBalanceRepository.findQtyByItemId(itemId)
+                .orElseGet(() -> calculateStockFromHistory(itemId));
+    }
+
+    /**
+     * Resolves the stock of several items with a constant number of queries: one lookup for the
+     * balance rows, plus one grouped aggregate per movement table for items that have no row yet.
+     */
+    public Map<Long, Integer> getStocks(Collection<Long> itemIds) {
+        Map<Long, Integer> stocks = new HashMap<>();
+        if (itemIds.isEmpty()) {
+            return stocks;
+        }
+
+        if (stockIndex.isReady()) {
+            itemIds.forEach(itemId -> stocks.put(itemId, stockIndex.get(itemId) + pendingIndexDelta(itemId)));
+            return stocks;
+        }
+
+        stockBalanceRepository.findAllById(itemIds)
+                .forEach(balance -> stocks.put(balance.getItemId(), balance.getQty()));
+
+        List<Long> missingItemIds = itemIds.stream()
+                .filter(itemId -> !stocks.containsKey(itemId))
+                .toList();
+        stocks.putAll(calculateStockFromHistory(missingItemIds));
+
+        return stocks;
+    }
+
+    /**
+     * Applies a signed quantity change to the item's balance. Must be called after the movement
+     * itself has been saved: when the item has no balance row yet, the row is created from the
+     * movement history, which then already includes this change.
+     */
+    public void adjustStock(Long itemId, int delta) {
+        if (delta == 0) {
+            return;
+        }
+
+        if (stockIndex.isEnabled()) {
+            addToIndexOnCommit(Map.of(itemId, delta));
+        }
+        adjustBalance(itemId, delta);
+    }
+
+    /**
+     * Like {@link #adjustStock(Long, int)} for many items at once, for bulk writes. The balance
+     * rows are moved with a single JDBC batch; items without a row yet get one created from
+     * their movement history, with one grouped query per table for all of them.
+     */
+    public void adjustStocks(Map<Long, Integer> deltas) {
+        List<Long> itemIds = new ArrayList<>();
+        List<Object[]> updates = new ArrayList<>();
+        deltas.forEach((itemId, delta) -> {
+            if (delta != 0) {
+                itemIds.add(itemId);
+                updates.add(new Object[]{delta, itemId});
+            }
+        });
+        if (updates.isEmpty()) {
+            return;
+        }
+
+        if (stockIndex.isEnabled()) {
+            addToIndexOnCommit(deltas);
+        }
+        int[] updated = jdbcTemplate.batchUpdate("update stock_balance set qty = qty + ? where item_id = ?", updates);
+        List<Long> missingItemIds = new ArrayList<>();
+        for (int i = 0; i < updated.length; i++) {
+            if (updated[i] == 0) {
+                missingItemIds.add(itemIds.get(i));
+            }
+        }
+        calculateStockFromHistory(missingItemIds).forEach(this::createBalance);
+        changeVersions.bump(ChangeVersions.Table.STOCK);
+    }
+
+    /**
+     * Like {@link #adjustStock(Long, int)}, but leaves the in-memory index alone. Used for
+     * journaled movements, which were added to the index when they were accepted.
+     */
+    public void adjustBalance(Long itemId, int delta) {
+        if (delta == 0) {
+            return;
+        }
+
+        if (stockBalanceRepository.adjustQty(itemId, delta) == 0) {
+            createBalance(itemId, calculateStockFromHistory(itemId));
+        }
+        changeVersions.bump(ChangeVersions.Table.STOCK);
+    }
+
+    public void createBalance(Long itemId) {
+        createBalance(itemId, 0);
+        if (stockIndex.isEnabled()) {
+            addToIndexOnCommit(Map.of(itemId, 0));
+        }
+    }
+
+    /**
+     * Takes the given quantities out of the items' balances with a single JDBC batch of guarded
+     * updates, each applied only where the balance still covers it, and returns the items it
+     * could not be applied to. The caller must then roll its transaction back, which makes the
+     * withdrawal all or nothing. Items without a balance row get one from their history first.
+     * Rows are updated in item id order, so that concurrent batches lock them in the same order.
+     * <p>
+     * With the stock index loaded, the balance rows can lag behind movements the journal has
+     * already admitted, so the index decides instead: the quantities are taken from it right away
+     * in item id order, given back if one of them is short or the transaction rolls back, and the
+     * balance rows are then moved without a guard.
+     */
+    public List<Long> withdrawStocks(Map<Long, Integer> quantities) {
+        List<Long> itemIds = new ArrayList<>(new TreeSet<>(quantities.keySet()));
+        if (itemIds.isEmpty()) {
+            return List.of();
+        }
+
+        if (stockIndex.isReady() && TransactionSynchronizationManager.isSynchronizationActive()) {
+            return withdrawFromIndex(itemIds, quantities);
+        }
+
+        if (stockIndex.isEnabled()) {
+            Map<Long, Integer> deltas = new HashMap<>();
+            quantities.forEach((itemId, qty) -> deltas.put(itemId, -qty));
+            addToIndexOnCommit(deltas);
+        }
+
+        createMissingBalances(itemIds);
+        int[] updated = jdbcTemplate.batchUpdate("update stock_balance set qty = qty - ? where item_id = ? and qty >= ?",
+                itemIds.stream().map(itemId -> new Object[]{quantities.get(itemId), itemId, quantities.get(itemId)}).toList());
+        List<Long> insufficient = new ArrayList<>();
+        for (int i = 0; i < updated.length; i++) {
+            if (updated[i] == 0) {
+                insufficient.add(itemIds.get(i));
+            }
+        }
+        if (!insufficient.isEmpty()) {
+            return insufficient;
+        }
+
+        changeVersions.bump(ChangeVersions.Table.STOCK);
+        return List.of();
+    }
+
+    private List<Long> withdrawFromIndex(List<Long> itemIds, Map<Long, Integer> quantities) {
+        // held until the transaction completes, so that a reload cannot drop the uncommitted withdrawal
+        stockIndex.beginWrite();
+        Map<Long, Integer> taken = new HashMap<>();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    taken.forEach(stockIndex::add);
+                }
+                stockIndex.endWrite();
+            }
+        });
+
+        for (Long itemId : itemIds) {
+            int qty = quantities.get(itemId);
+            if (!stockIndex.tryWithdraw(itemId, qty)) {
+                return List.of(itemId);
+            }
+            taken.put(itemId, qty);
+        }
+
+        createMissingBalances(itemIds);
+        jdbcTemplate.batchUpdate("update stock_balance set qty = qty - ? where item_id = ?",
+                itemIds.stream().map(itemId -> new Object[]{quantities.get(itemId), itemId}).toList());
+        changeVersions.bump(ChangeVersions.Table.STOCK);
+        return List.of();
+    }
+
+    private void createMissingBalances(List<Long> itemIds) {
+        Set<Long> withBalance = new HashSet<>();
+        stockBalanceRepository.findAllById(itemIds).forEach(balance -> withBalance.add(balance.getItemId()));
+        List<Long> missingItemIds = itemIds.stream().filter(itemId -> !withBalance.contains(itemId)).toList();
+        if (!missingItemIds.isEmpty()) {
+            calculateStockFromHistory(missingItemIds).forEach(this::createBalance);
+            stockBalanceRepository.flush();
+        }
+    }
+
+    /**
+     * Creates empty balance rows for new items with a single JDBC batch. An item that a
+     * concurrent writer has inserted in the meantime already has its row, which is left as is.
+     */
+    public void createBalances(Collection<Long> itemIds) {
+        if (itemIds.isEmpty()) {
+            return;
+        }
+
+        jdbcTemplate.batchUpdate("merge into stock_balance t using (values (cast(? as bigint))) as s (item_id) "
+                        + "on t.item_id = s.item_id when not matched then insert (item_id, qty) values (s.item_id, 0)",
+                itemIds.stream().map(itemId -> new Object[]{itemId}).toList());
+        if (stockIndex.isEnabled()) {
+            Map<Long, Integer> entries = new HashMap<>();
+            itemIds.forEach(itemId -> entries.put(itemId, 0));
+            addToIndexOnCommit(entries);
+        }
+    }
+
+    public void deleteBalance(Long itemId) {
+        if (stockBalanceRepository.existsById(itemId)) {
+            stockBalanceRepository.deleteById(itemId);
+        }
+
+        if (stockIndex.isEnabled()) {
+            PersistenceUtils.afterCommit(() -> stockIndex.remove(itemId));
+        }
+    }
+
+    public void initializeMissingBalances() {
+        List<Long> itemIds = stockBalanceRepository.findItemIdsWithoutBalance();
+        Map<Long, Integer> stocks = calculateStockFromHistory(itemIds);
+        for (Long itemId : itemIds) {
+            createBalance(itemId, stocks.get(itemId));
+        }
+
+        if (!itemIds.isEmpty()) {
+            log.info("Initialized stock balance for {} items", itemIds.size());
+        }
+    }
+
+    public void warmUpIndex() {
+        if (!stockIndex.isEnabled()) {
+            return;
+        }
+
+        stockIndex.load(this::calculateAllStocksFromHistory);
+        changeVersions.bump(ChangeVersions.Table.STOCK);
+        log.info("Loaded stock index for {} items", stockIndex.snapshot().size());
+    }
+
+    /**
+     * Compares the in-memory counters with a full recompute from the movement tables. Writes
+     * committed while the check runs can show up as transient mismatches.
+     */
+    public StockConsistencyDto checkIndexConsistency() {
+        if (!stockIndex.isReady()) {
+            throw new BadRequestException("Stock index is not enabled");
+        }
+
+        Map<Long, Integer> indexed = stockIndex.snapshot();
+        Map<Long, Integer> recomputed = calculateAllStocksFromHistory();
+
+        Set<Long> itemIds = new TreeSet<>(indexed.keySet());
+        itemIds.addAll(recomputed.keySet());
+
+        List<StockMismatchDto> mismatches = new ArrayList<>();
+        for (Long itemId : itemIds) {
+            int indexedStock = indexed.getOrDefault(itemId, 0);
+            int recomputedStock = recomputed.getOrDefault(itemId, 0);
+            if (indexedStock != recomputedStock) {
+                mismatches.add(new StockMismatchDto(itemId, indexedStock, recomputedStock));
+            }
+        }
+
+        StockConsistencyDto result = new StockConsistencyDto();
+        result.setConsistent(mismatches.isEmpty());
+        result.setCheckedItems(itemIds.size());
+        result.setMismatches(mismatches);
+        return result;
+    }
+
+    /**
+     * Recomputes the stock of the given items from the movement tables only, bypassing the
+     * balance rows and the index.
+     */
+    public Map<Long, Integer> recomputeStocks(Collection<Long> itemIds) {
+        return calculateStockFromHistory(itemIds);
+    }
+
+    public static int signedQty(InventoryType type, int qty) {
+        return type == InventoryType.W ? -qty : qty;
+    }
+
+    private void createBalance(Long itemId, int qty) {
+        StockBalance balance = new StockBalance();
+        balance.setItemId(itemId);
+        balance.setQty(qty);
+        stockBalanceRepository.save(balance);
+    }
+
+    private int calculateStockFromHistory(Long itemId) {
+        return calculateStockFromHistory(List.of(itemId)).get(itemId);
+    }
+
+    private Map<Long, Integer> calculateAllStocksFromHistory() {
+        Map<Long, InventoryTotals> inventoryTotals = inventoryRepository.sumQtyGroupByItemId().stream()
+                .collect(Collectors.toMap(InventoryTotals::getItemId, Function.identity()));
+        Map<Long, Long> orderTotals = orderRepository.sumQtyGroupByItemId().stream()
+                .collect(Collectors.toMap(OrderTotals::getItemId, OrderTotals::getOrderTotal));
+        Map<Long, Long> reservedTotals = reservationRepository.sumQtyGroupByItemId().stream()
+                .collect(Collectors.toMap(ReservationTotals::getItemId, ReservationTotals::getReservedTotal));
+        archivedOrderTotalRepository.findAll()
+                .forEach(archived -> orderTotals.merge(archived.getItemId(), archived.getQty(), Long::sum));
+
+        Set<Long> itemIds = new HashSet<>(inventoryTotals.keySet());
+        itemIds.addAll(orderTotals.keySet());
+        itemIds.addAll(reservedTotals.keySet());
+        return toStocks(itemIds, inventoryTotals, orderTotals, reservedTotals);
+    }
+
+    /**
+     * Sums the movement history of the given items in the database, one grouped query per table,
+     * without loading any {@code Inventory} or {@code Order} entity. Active reservations count
+     * against the stock just like orders, and archived orders through their per-item totals.
+     * Items without movements map to 0.
+     */
+    private Map<Long, Integer> calculateStockFromHistory(Collection<Long> itemIds) {
+        if (itemIds.isEmpty()) {
+            return new HashMap<>();
+        }
+
+        Map<Long, InventoryTotals> inventoryTotals = inventoryRepository.sumQtyByItemIdIn(itemIds).stream()
+                .collect(Collectors.toMap(InventoryTotals::getItemId, Function.identity()));
+        Map<Long, Long> orderTotals = orderRepository.sumQtyByItemIdIn(itemIds).stream()
+                .collect(Collectors.toMap(OrderTotals::getItemId, OrderTotals::getOrderTotal));
+        Map<Long, Long> reservedTotals = reservationRepository.sumQtyByItemIdIn(itemIds).stream()
+                .collect(Collectors.toMap(ReservationTotals::getItemId, ReservationTotals::getReservedTotal));
+        archivedOrderTotalRepository.findAllById(itemIds)
+                .forEach(archived -> orderTotals.merge(archived.getItemId(), archived.getQty(), Long::sum));
+
+        return toStocks(itemIds, inventoryTotals, orderTotals, reservedTotals);
+    }
+
+    private static Map<Long, Integer> toStocks(Collection<Long> itemIds,
+                                               Map<Long, InventoryTotals> inventoryTotals,
+                                               Map<Long, Long> orderTotals,
+                                               Map<Long, Long> reservedTotals) {
+        Map<Long, Integer> stocks = new HashMap<>();
+        for (Long itemId : itemIds) {
+            InventoryTotals totals = inventoryTotals.get(itemId);
+            stocks.put(itemId, InventoryCalculationUtils.calculateStockQuantity(
+                    totals == null ? 0 : totals.getTopUpTotal(),
+                    totals == null ? 0 : totals.getWithdrawalTotal(),
+                    orderTotals.getOrDefault(itemId, 0L),
+                    reservedTotals.getOrDefault(itemId, 0L)));
+        }
+        return stocks;
+    }
+
+    /**
+     * Adds the deltas to the index once the current transaction commits. The first call in a
+     * transaction enters the index's write gate, which is left when the transaction completes, so
+     * it has to come before the balance change: a warm-up that recomputes the stocks in between
+     * then waits for the commit instead of missing the delta.
+     */
+    private void addToIndexOnCommit(Map<Long, Integer> deltas) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            stockIndex.beginWrite();
+            try {
+                deltas.forEach(stockIndex::add);
+            } finally {
+                stockIndex.endWrite();
+            }
+            return;
+        }
+
+        PendingIndexDeltas pending = (PendingIndexDeltas) TransactionSynchronizationManager.getResource(pendingIndexDeltasKey);
+        if (pending == null) {
+            stockIndex.beginWrite();
+            PendingIndexDeltas created = new PendingIndexDeltas();
+            TransactionSynchronizationManager.bindResource(pendingIndexDeltasKey, created);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    created.deltas.forEach(stockIndex::add);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResource(pendingIndexDeltasKey);
+                    stockIndex.endWrite();
+                }
+            });
+            pending = created;
+        }
+        PendingIndexDeltas target = pending;
+        deltas.forEach((itemId, delta) -> target.deltas.merge(itemId, delta, Integer::sum));
+    }
+
+    /**
+     * What the current transaction has changed on the item but the index only sees after commit.
+     * A group commit runs many writes in one transaction, and each must see the ones before it.
+     */
+    private int pendingIndexDelta(Long itemId) {
+        PendingIndexDeltas pending = (PendingIndexDeltas) TransactionSynchronizationManager.getResource(pendingIndexDeltasKey);
+        return pending == null ? 0 : pending.deltas.getOrDefault(itemId, 0);
+    }
+
+    private static final class PendingIndexDeltas {
+        private final Map<Long, Integer> deltas = new HashMap<>();
+    }
+}
@@ -0,0 +1,89 @@
+package com.obs.example.utils;
+
+import com.obs.example.dto.CursorPageDto;
+import com.obs.example.exception.BadRequestException;
+import org.springframework.data.domain.Limit;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Opaque cursors for keyset pagination. A cursor is the primary key of the last row of a page,
+ * and the next page selects the rows after it in key order, so every page is an index seek
+ * followed by {@code size + 1} rows, however deep it is. The extra row only tells whether there
+ * is a next page; no total is counted.
+ */
+public final class CursorUtils {
+
+    public static final int MAX_SIZE = 1000;
+
+    private CursorUtils() {
+        throw new UnsupportedOperationException("Utility class cannot be instantiated");
+    }
+
+    public static String encode(Object key) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(key.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * The key after which the page starts, or {@link Long#MIN_VALUE} for the first page.
+     */
+    public static long decodeLong(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return Long.MIN_VALUE;
+        }
+
+        try {
+            return Long.parseLong(decode(cursor));
+        } catch (NumberFormatException e) {
+            throw invalid(cursor);
+        }
+    }
+
+    /**
+     * The key after which the page starts, or the empty string, which sorts before every key,
+     * for the first page.
+     */
+    public static String decodeString(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return "";
+        }
+
+        return decode(cursor);
+    }
+
+    /**
+     * One row more than the page holds, to find out whether another page follows.
+     */
+    public static Limit limit(int size) {
+        if (size < 1 || size > MAX_SIZE) {
+            throw new BadRequestException("Page size must be between 1 and " + MAX_SIZE);
+        }
+        return Limit.of(size + 1);
+    }
+
+    /**
+     * Builds the page from the rows selected with {@link #limit(int)}.
+     */
+    public static <T> CursorPageDto<T> toPage(List<T> rows, int size, Function<? super T, ?> key) {
+        boolean hasNext = rows.size() > size;
+        List<T> content = hasNext ? rows.subList(0, size) : rows;
+        String nextCursor = hasNext ? encode(key.apply(content.get(content.size() - 1))) : null;
+        return new CursorPageDto<>(content, content.size(), hasNext, nextCursor);
+    }
+
+    private static String decode(String cursor) {
+        try {
+            return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw invalid(cursor);
+        }
+    }
+
+    private static BadRequestException invalid(String cursor) {
+        return new BadRequestException("Invalid cursor: " + cursor);
+    }
+}
@@ -0,0 +1,24 @@
+package com.obs.example.utils;
+
+import org.springframework.http.ETag;
+
+public final class ETagUtils {
+
+    private ETagUtils() {
+        throw new UnsupportedOperationException("Utility class cannot be instantiated");
+    }
+
+    /**
+     * Whether an {@code If-None-Match} header matches the current ETag, using the weak comparison
+     * that HTTP requires for this header. {@code *} matches any tag.
+     */
+    public static boolean isNotModified(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) {
+            return false;
+        }
+
+        ETag current = ETag.create(etag);
+        return ETag.parse(ifNoneMatch).stream()
+                .anyMatch(tag -> tag.isWildcard() || tag.compare(current, false));
+    }
+}
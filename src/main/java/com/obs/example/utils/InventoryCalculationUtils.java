@@ -29,4 +29,12 @@ public final class InventoryCalculationUtils {
 
         return incomingTotal - outgoingTotal - ordersTotal;
     }
+
+    public static int calculateStockQuantity(long incomingTotal, long outgoingTotal, long ordersTotal) {
+        return calculateStockQuantity(incomingTotal, outgoingTotal, ordersTotal, 0);
+    }
+
+    public static int calculateStockQuantity(long incomingTotal, long outgoingTotal, long ordersTotal, long reservedTotal) {
+        return Math.toIntExact(incomingTotal - outgoingTotal - ordersTotal - reservedTotal);
+    }
 }
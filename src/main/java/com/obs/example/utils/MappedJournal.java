@@ -0,0 +1,269 @@
+package com.obs.example.utils;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only log of binary records in fixed-size, memory-mapped segment files. An append copies
+ * the record into the mapped segment and returns; the bytes live in the OS page cache from then
+ * on, so they survive a crash of the process even without a force. With {@code sync} enabled every
+ * append is also forced to the device.
+ * <p>
+ * Each record is {@code [length][crc32c][seq][payload]}. The length is written last, so a record
+ * torn by a crash reads as the end of the log, and recovery continues appending from the last
+ * complete record.
+ */
+@Slf4j
+public class MappedJournal implements AutoCloseable {
+
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final int HEADER_BYTES = Integer.BYTES + Integer.BYTES + Long.BYTES;
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final boolean sync;
+    private final TreeMap<Long, Long> closedSegments = new TreeMap<>();
+    private long currentIndex;
+    private MappedByteBuffer current;
+    private long lastSeq;
+
+    private MappedJournal(Path directory, int segmentBytes, boolean sync) {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.sync = sync;
+    }
+
+    public record Entry(long seq, byte[] payload) {
+    }
+
+    /**
+     * Opens the journal in the given directory and recovers the end of the last segment. Sequence
+     * numbers continue after the last record found, or after {@code floorSeq} if that is higher.
+     */
+    public static MappedJournal open(Path directory, int segmentBytes, boolean sync, long floorSeq) throws IOException {
+        if (segmentBytes <= HEADER_BYTES + Integer.BYTES) {
+            throw new IllegalArgumentException("Segment size is too small: " + segmentBytes);
+        }
+
+        Files.createDirectories(directory);
+        MappedJournal journal = new MappedJournal(directory, segmentBytes, sync);
+        journal.recover(floorSeq);
+        return journal;
+    }
+
+    /**
+     * Appends a record and returns its sequence number.
+     */
+    public synchronized long append(byte[] payload) throws IOException {
+        int recordBytes = HEADER_BYTES + payload.length;
+        if (recordBytes > segmentBytes - Integer.BYTES) {
+            throw new IllegalArgumentException("Record of " + payload.length + " bytes does not fit into a segment");
+        }
+        if (current == null) {
+            throw new IllegalStateException("Journal is closed");
+        }
+        if (current.position() + recordBytes > segmentBytes - Integer.BYTES) {
+            roll();
+        }
+
+        long seq = lastSeq + 1;
+        int position = current.position();
+        current.putInt(position + Integer.BYTES, checksum(seq, payload));
+        current.putLong(position + 2 * Integer.BYTES, seq);
+        current.put(position + HEADER_BYTES, payload);
+        current.putInt(position, payload.length);
+        current.position(position + recordBytes);
+
+        if (sync) {
+            current.force(position, recordBytes);
+        }
+
+        lastSeq = seq;
+        return seq;
+    }
+
+    /**
+     * Returns every complete record with a sequence number above {@code afterSeq}, oldest first.
+     */
+    public synchronized List<Entry> readAfter(long afterSeq) throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        for (Path segment : listSegments().values()) {
+            scan(map(segment, FileChannel.MapMode.READ_ONLY), entries, afterSeq);
+        }
+        return entries;
+    }
+
+    /**
+     * Deletes the segments before the current one whose records are all at or below
+     * {@code appliedSeq}.
+     */
+    public synchronized void release(long appliedSeq) {
+        Iterator<Map.Entry<Long, Long>> iterator = closedSegments.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Long, Long> segment = iterator.next();
+            if (segment.getValue() > appliedSeq) {
+                return;
+            }
+
+            try {
+                Files.deleteIfExists(segmentPath(segment.getKey()));
+                iterator.remove();
+            } catch (IOException e) {
+                log.warn("Failed to delete journal segment {}", segment.getKey(), e);
+                return;
+            }
+        }
+    }
+
+    public synchronized long lastSeq() {
+        return lastSeq;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (current != null) {
+            current.force();
+            current = null;
+        }
+    }
+
+    private void recover(long floorSeq) throws IOException {
+        lastSeq = floorSeq;
+        TreeMap<Long, Path> segments = listSegments();
+
+        long endPosition = 0;
+        for (Map.Entry<Long, Path> segment : segments.entrySet()) {
+            MappedByteBuffer buffer = map(segment.getValue(), FileChannel.MapMode.READ_WRITE);
+            long segmentLastSeq = scan(buffer, null, Long.MAX_VALUE);
+            lastSeq = Math.max(lastSeq, segmentLastSeq);
+
+            if (segment.getKey().equals(segments.lastKey())) {
+                current = buffer;
+                currentIndex = segment.getKey();
+                endPosition = buffer.position();
+            } else {
+                closedSegments.put(segment.getKey(), segmentLastSeq);
+            }
+        }
+
+        if (current == null) {
+            currentIndex = 1;
+            current = map(segmentPath(currentIndex), FileChannel.MapMode.READ_WRITE);
+        } else {
+            clearTornRecord((int) endPosition);
+        }
+    }
+
+    private void roll() throws IOException {
+        current.force();
+        closedSegments.put(currentIndex, lastSeq);
+        currentIndex++;
+        current = map(segmentPath(currentIndex), FileChannel.MapMode.READ_WRITE);
+    }
+
+    /**
+     * Reads records from the start of the buffer until the first incomplete one, leaving the
+     * buffer positioned after the last complete record. Records above {@code afterSeq} are added
+     * to {@code entries} when it is given. Returns the sequence number of the last record.
+     */
+    private long scan(ByteBuffer buffer, List<Entry> entries, long afterSeq) {
+        long seq = 0;
+        int position = 0;
+        while (position + HEADER_BYTES <= buffer.limit() - Integer.BYTES) {
+            int length = buffer.getInt(position);
+            if (length <= 0 || position + HEADER_BYTES + length > buffer.limit() - Integer.BYTES) {
+                break;
+            }
+
+            int crc = buffer.getInt(position + Integer.BYTES);
+            long recordSeq = buffer.getLong(position + 2 * Integer.BYTES);
+            byte[] payload = new byte[length];
+            buffer.get(position + HEADER_BYTES, payload);
+            if (recordSeq <= seq || crc != checksum(recordSeq, payload)) {
+                break;
+            }
+
+            if (entries != null && recordSeq > afterSeq) {
+                entries.add(new Entry(recordSeq, payload));
+            }
+            seq = recordSeq;
+            position += HEADER_BYTES + length;
+        }
+
+        buffer.position(position);
+        return seq;
+    }
+
+    /**
+     * Zeroes whatever a crash left behind the last complete record, so that later appends never
+     * end up next to stale bytes.
+     */
+    private void clearTornRecord(int position) {
+        boolean dirty = false;
+        for (int i = position; i < Math.min(position + HEADER_BYTES, segmentBytes); i++) {
+            if (current.get(i) != 0) {
+                dirty = true;
+                break;
+            }
+        }
+        if (!dirty) {
+            return;
+        }
+
+        log.warn("Discarding incomplete journal record at offset {} of segment {}", position, currentIndex);
+        byte[] zeros = new byte[8192];
+        for (int i = position; i < segmentBytes; i += zeros.length) {
+            current.put(i, zeros, 0, Math.min(zeros.length, segmentBytes - i));
+        }
+        current.force();
+    }
+
+    private MappedByteBuffer map(Path segment, FileChannel.MapMode mode) throws IOException {
+        StandardOpenOption[] options = mode == FileChannel.MapMode.READ_ONLY
+                ? new StandardOpenOption[]{StandardOpenOption.READ}
+                : new StandardOpenOption[]{StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE};
+        try (FileChannel channel = FileChannel.open(segment, options)) {
+            long size = mode == FileChannel.MapMode.READ_ONLY ? Math.min(channel.size(), segmentBytes) : segmentBytes;
+            return channel.map(mode, 0, size);
+        }
+    }
+
+    private TreeMap<Long, Path> listSegments() throws IOException {
+        TreeMap<Long, Path> segments = new TreeMap<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.forEach(path -> {
+                String name = path.getFileName().toString();
+                if (name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX)) {
+                    segments.put(Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())), path);
+                }
+            });
+        }
+        return segments;
+    }
+
+    private Path segmentPath(long index) {
+        return directory.resolve(String.format("%s%019d%s", SEGMENT_PREFIX, index, SEGMENT_SUFFIX));
+    }
+
+    private static int checksum(long seq, byte[] payload) {
+        CRC32C crc = new CRC32C();
+        crc.update(ByteBuffer.allocate(Long.BYTES).putLong(0, seq));
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+}
@@ -0,0 +1,123 @@
+package com.obs.example.benchmark;
+
+import com.obs.example.repository.InventoryRepository;
+import com.obs.example.repository.OrderRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Query plans and latency of the per-item stock aggregates with the covering indexes declared on
+ * {@code Inventory} and {@code Order}, and again after dropping them so that only the foreign key
+ * index on {@code item_id} is left. Rows are generated straight into an H2 file database.
+ * <p>
+ * Run with {@code mvn test -Pbenchmark}; {@code -Dbenchmark.rows=10000000} runs the larger size
+ * (default 1,000,000 rows per table).
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:file:${java.io.tmpdir}/obs-index-benchmark-${random.uuid}",
+        "spring.jpa.show-sql=false"})
+@ActiveProfiles("test")
+@Slf4j
+class CoveringIndexBenchmark {
+
+    private static final int ROWS = Integer.getInteger("benchmark.rows", 1_000_000);
+    private static final int ITEMS = 1_000;
+    private static final int ITEMS_PER_QUERY = 20;
+    private static final int QUERIES = 200;
+
+    private static final String INVENTORY_SQL = "select i.item_id, sum(case when i.type = 0 then i.qty else 0 end), "
+            + "sum(case when i.type = 1 then i.qty else 0 end) from inventory i where i.item_id in (%s) group by i.item_id";
+    private static final String ORDER_SQL = "select o.item_id, sum(o.qty) from orders o where o.item_id in (%s) group by o.item_id";
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void stockAggregatesWithAndWithoutCoveringIndexes() {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.executeWithoutResult(status -> seed());
+
+        Result covering = measure("covering index");
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.execute("drop index idx_inventory_item_type_qty");
+            jdbcTemplate.execute("drop index idx_orders_item_qty");
+        });
+        Result foreignKeyOnly = measure("foreign key index only");
+
+        log.info(String.format("%24s %18s %18s", "rows per table: " + ROWS, "inventory ms/query", "orders ms/query"));
+        log.info(String.format("%24s %18.3f %18.3f", "foreign key index only", foreignKeyOnly.inventoryMillis, foreignKeyOnly.orderMillis));
+        log.info(String.format("%24s %18.3f %18.3f", "covering index", covering.inventoryMillis, covering.orderMillis));
+    }
+
+    private void seed() {
+        jdbcTemplate.execute("insert into item (id, name, price) select x, 'Item ' || x, 100 from system_range(1, %d)"
+                .formatted(ITEMS));
+        jdbcTemplate.execute(("insert into inventory (id, qty, type, created_at, item_id) "
+                + "select x, mod(x, 100) + 1, mod(x, 2), current_timestamp, mod(x, %d) + 1 from system_range(1, %d)")
+                .formatted(ITEMS, ROWS));
+        jdbcTemplate.execute(("insert into orders (order_no, qty, price, created_at, item_id) "
+                + "select 'B' || x, mod(x, 10) + 1, 100, current_timestamp, mod(x, %d) + 1 from system_range(1, %d)")
+                .formatted(ITEMS, ROWS));
+        jdbcTemplate.execute("analyze");
+    }
+
+    private Result measure(String label) {
+        String sampleIds = "1, 2, 3";
+        log.info("{} inventory plan:\n{}", label, explain(INVENTORY_SQL.formatted(sampleIds)));
+        log.info("{} orders plan:\n{}", label, explain(ORDER_SQL.formatted(sampleIds)));
+
+        // warm up once, then time the repository queries the stock service runs
+        List<List<Long>> batches = new ArrayList<>();
+        for (int i = 0; i < QUERIES; i++) {
+            batches.add(randomItemIds());
+        }
+        batches.forEach(inventoryRepository::sumQtyByItemIdIn);
+        batches.forEach(orderRepository::sumQtyByItemIdIn);
+
+        long start = System.nanoTime();
+        batches.forEach(inventoryRepository::sumQtyByItemIdIn);
+        double inventoryMillis = (System.nanoTime() - start) / 1e6 / QUERIES;
+
+        start = System.nanoTime();
+        batches.forEach(orderRepository::sumQtyByItemIdIn);
+        double orderMillis = (System.nanoTime() - start) / 1e6 / QUERIES;
+
+        return new Result(inventoryMillis, orderMillis);
+    }
+
+    private String explain(String sql) {
+        return jdbcTemplate.queryForObject("explain analyze " + sql, String.class);
+    }
+
+    private static List<Long> randomItemIds() {
+        List<Long> ids = new ArrayList<>(ITEMS_PER_QUERY);
+        for (int i = 0; i < ITEMS_PER_QUERY; i++) {
+            ids.add((long) ThreadLocalRandom.current().nextInt(1, ITEMS + 1));
+        }
+        return ids;
+    }
+
+    private record Result(double inventoryMillis, double orderMillis) {
+    }
+}
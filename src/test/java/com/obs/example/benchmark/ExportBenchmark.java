@@ -0,0 +1,132 @@
+package com.obs.example.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.obs.example.constant.ExportFormat;
+import com.obs.example.dto.BaseResponseDto;
+import com.obs.example.dto.OrderResponseDto;
+import com.obs.example.service.ExportService;
+import com.obs.example.service.OrderService;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+
+/**
+ * Time and heap allocation for reading every order: page by page through the offset listing, as
+ * the nightly sync does with {@code /api/orders?page=N}, and in one pass through the NDJSON and
+ * CSV exports. Output is counted and discarded. Rows are generated straight into an H2 file
+ * database.
+ * <p>
+ * Run with {@code mvn test -Pbenchmark}; {@code -Dbenchmark.rows=...} changes the table size
+ * (default 200,000 orders) and {@code -Dbenchmark.page-size=...} the listing page size (default
+ * 1,000).
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:file:${java.io.tmpdir}/obs-export-benchmark-${random.uuid}",
+        "spring.jpa.show-sql=false"})
+@ActiveProfiles("test")
+@Slf4j
+class ExportBenchmark {
+
+    private static final int ROWS = Integer.getInteger("benchmark.rows", 200_000);
+    private static final int PAGE_SIZE = Integer.getInteger("benchmark.page-size", 1_000);
+    private static final int ITEMS = 1_000;
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private ExportService exportService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @FunctionalInterface
+    private interface Run {
+        void writeTo(OutputStream out) throws IOException;
+    }
+
+    @Test
+    void exportAllOrders() throws IOException {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> seed());
+
+        log.info(String.format("%-16s %10s %14s %14s", "read", "ms", "MB allocated", "MB written"));
+        measure("offset pages", this::pages);
+        measure("export ndjson", out -> exportService.exportOrders(ExportFormat.NDJSON, out));
+        measure("export csv", out -> exportService.exportOrders(ExportFormat.CSV, out));
+    }
+
+    private void pages(OutputStream out) throws IOException {
+        Page<OrderResponseDto> page;
+        int number = 0;
+        do {
+            page = orderService.getAllOrders(PageRequest.of(number++, PAGE_SIZE));
+            out.write(objectMapper.writeValueAsBytes(BaseResponseDto.builder()
+                    .responseCode("00")
+                    .responseMessage("success")
+                    .data(page)
+                    .build()));
+        } while (page.hasNext());
+    }
+
+    private void measure(String name, Run run) throws IOException {
+        // warm-up pass
+        run.writeTo(OutputStream.nullOutputStream());
+
+        long thread = Thread.currentThread().threadId();
+        CountingOutputStream out = new CountingOutputStream();
+        long allocatedBefore = THREADS.getThreadAllocatedBytes(thread);
+        long start = System.nanoTime();
+        run.writeTo(out);
+        double millis = (System.nanoTime() - start) / 1e6;
+        long allocated = THREADS.getThreadAllocatedBytes(thread) - allocatedBefore;
+
+        log.info(String.format("%-16s %10.1f %14.1f %14.1f", name, millis, allocated / 1e6, out.count / 1e6));
+    }
+
+    private void seed() {
+        jdbcTemplate.execute("insert into item (id, name, price) select x, 'Item ' || x, 100 from system_range(1, %d)"
+                .formatted(ITEMS));
+        jdbcTemplate.execute(("insert into orders (order_no, qty, price, created_at, item_id) "
+                + "select 'B' || lpad(x, 10, '0'), mod(x, 10) + 1, 100, current_timestamp, mod(x, %d) + 1 "
+                + "from system_range(1, %d)")
+                .formatted(ITEMS, ROWS));
+        jdbcTemplate.execute("analyze");
+    }
+
+    private static final class CountingOutputStream extends OutputStream {
+
+        private long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package com.obs.example.benchmark;
+
+import com.obs.example.constant.InventoryType;
+import com.obs.example.dto.InventoryDto;
+import com.obs.example.dto.ItemDto;
+import com.obs.example.dto.OrderDto;
+import com.obs.example.repository.InventoryRepository;
+import com.obs.example.repository.ItemRepository;
+import com.obs.example.repository.OrderRepository;
+import com.obs.example.repository.StockBalanceRepository;
+import com.obs.example.service.GroupCommitter;
+import com.obs.example.service.InventoryService;
+import com.obs.example.service.ItemService;
+import com.obs.example.service.OrderService;
+import com.obs.example.service.StockEngine;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Order placement throughput with one transaction per order against {@link GroupCommitter}, on
+ * the H2 file database with 64 client threads. Run with {@code mvn test -Pbenchmark}.
+ * <p>
+ * {@code WRITE_DELAY=0} makes H2 write every commit to the file. With its default delay a commit
+ * only reaches memory, which leaves little for group commit to save and both paths run about even.
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:file:${java.io.tmpdir}/obs-group-commit-benchmark-${random.uuid};WRITE_DELAY=0",
+        "spring.jpa.show-sql=false"})
+@ActiveProfiles("test")
+@Slf4j
+class GroupCommitBenchmark {
+
+    private static final int ITEMS = 16;
+    private static final int CLIENTS = 64;
+    private static final int ORDERS_PER_RUN = Integer.getInteger("benchmark.orders", 6_400);
+    private static final int WARMUP_ROUNDS = 2;
+    private static final int ROUNDS = 3;
+
+    private final AtomicLong orderSequence = new AtomicLong();
+
+    @Autowired
+    private ItemService itemService;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private StockBalanceRepository stockBalanceRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Test
+    void orderThroughputWith64Clients() throws Exception {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        GroupCommitter committer = new GroupCommitter(true, Duration.ofMillis(2), CLIENTS,
+                new StockEngine(false, 0, null), transactionManager, meterRegistry, entityManager);
+        try {
+            log.info(String.format("%6s %16s %16s %10s %10s %12s", "round", "direct ops/s", "grouped ops/s", "direct err", "grouped err", "mean group"));
+            for (int round = 1 - WARMUP_ROUNDS; round <= ROUNDS; round++) {
+                Result direct = run(orderDto -> orderService.saveOrder(null, orderDto));
+                Result grouped = run(orderDto -> committer.execute(() -> orderService.saveOrder(null, orderDto)));
+                if (round < 1) {
+                    continue;
+                }
+                log.info(String.format("%6d %16.0f %16.0f %10d %10d %12.1f", round, direct.opsPerSecond, grouped.opsPerSecond,
+                        direct.errors, grouped.errors, meterRegistry.get("obs.write.group.size").summary().mean()));
+            }
+        } finally {
+            committer.shutdown();
+        }
+    }
+
+    @AfterEach
+    void cleanUp() {
+        orderRepository.deleteAll();
+        inventoryRepository.deleteAll();
+        stockBalanceRepository.deleteAll();
+        itemRepository.deleteAll();
+    }
+
+    private Result run(Consumer<OrderDto> placeOrder) throws Exception {
+        cleanUp();
+        seedItems();
+
+        AtomicInteger errors = new AtomicInteger();
+        ExecutorService clients = Executors.newFixedThreadPool(CLIENTS);
+        List<Future<?>> results = new ArrayList<>();
+        int ordersPerThread = ORDERS_PER_RUN / CLIENTS;
+
+        long start = System.nanoTime();
+        for (int t = 0; t < CLIENTS; t++) {
+            results.add(clients.submit(() -> {
+                for (int i = 0; i < ordersPerThread; i++) {
+                    OrderDto orderDto = new OrderDto();
+                    orderDto.setOrderNo("G" + orderSequence.incrementAndGet());
+                    orderDto.setItemId((long) ThreadLocalRandom.current().nextInt(1, ITEMS + 1));
+                    orderDto.setQty(1);
+                    orderDto.setPrice(100);
+                    try {
+                        placeOrder.accept(orderDto);
+                    } catch (RuntimeException e) {
+                        errors.incrementAndGet();
+                    }
+                }
+            }));
+        }
+        for (Future<?> result : results) {
+            result.get();
+        }
+        long elapsed = System.nanoTime() - start;
+        clients.shutdown();
+
+        return new Result(ordersPerThread * CLIENTS * 1e9 / elapsed, errors.get());
+    }
+
+    private void seedItems() {
+        for (long id = 1; id <= ITEMS; id++) {
+            ItemDto itemDto = new ItemDto();
+            itemDto.setId(id);
+            itemDto.setName("Item " + id);
+            itemDto.setPrice(100);
+            itemService.saveItem(null, itemDto);
+
+            InventoryDto inventoryDto = new InventoryDto();
+            inventoryDto.setId(id);
+            inventoryDto.setItemId(id);
+            inventoryDto.setQty(1_000_000);
+            inventoryDto.setType(InventoryType.T);
+            inventoryService.saveInventory(null, inventoryDto);
+        }
+    }
+
+    private record Result(double opsPerSecond, int errors) {
+    }
+}
@@ -0,0 +1,166 @@
+package com.obs.example.benchmark;
+
+import com.obs.example.constant.InventoryType;
+import com.obs.example.dto.InventoryDto;
+import com.obs.example.dto.ItemDto;
+import com.obs.example.dto.OrderDto;
+import com.obs.example.repository.InventoryRepository;
+import com.obs.example.repository.ItemRepository;
+import com.obs.example.repository.OrderRepository;
+import com.obs.example.repository.StockBalanceRepository;
+import com.obs.example.service.IdGenerator;
+import com.obs.example.service.InventoryService;
+import com.obs.example.service.ItemService;
+import com.obs.example.service.OrderService;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Insert throughput and on-disk table plus index size for random keys against the time-ordered
+ * keys of {@link IdGenerator}, for orders ({@code orderNo}) and inventories ({@code id}), on the
+ * H2 file database. Run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:file:${java.io.tmpdir}/obs-id-benchmark-${random.uuid}",
+        "spring.jpa.show-sql=false"})
+@ActiveProfiles("test")
+@Slf4j
+class IdGeneratorBenchmark {
+
+    private static final int ROWS = Integer.getInteger("benchmark.rows", 20_000);
+    private static final int WARMUP_ROUNDS = 1;
+    private static final int ROUNDS = 3;
+
+    @Autowired
+    private ItemService itemService;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private IdGenerator idGenerator;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private StockBalanceRepository stockBalanceRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void orderInsertsWithRandomAndTimeOrderedKeys() {
+        log.info(String.format("%6s %16s %16s %14s %14s", "round", "random ops/s", "ordered ops/s", "random KB", "ordered KB"));
+        for (int round = 1 - WARMUP_ROUNDS; round <= ROUNDS; round++) {
+            Result random = insertOrders(() -> UUID.randomUUID().toString());
+            Result ordered = insertOrders(() -> null);
+            if (round < 1) {
+                continue;
+            }
+            log.info(String.format("%6d %16.0f %16.0f %14d %14d", round, random.opsPerSecond, ordered.opsPerSecond,
+                    random.diskKb, ordered.diskKb));
+        }
+    }
+
+    @Test
+    void inventoryInsertsWithRandomAndTimeOrderedKeys() {
+        log.info(String.format("%6s %16s %16s %14s %14s", "round", "random ops/s", "ordered ops/s", "random KB", "ordered KB"));
+        for (int round = 1 - WARMUP_ROUNDS; round <= ROUNDS; round++) {
+            Result random = insertInventories(() -> ThreadLocalRandom.current().nextLong(1, Long.MAX_VALUE));
+            Result ordered = insertInventories(() -> null);
+            if (round < 1) {
+                continue;
+            }
+            log.info(String.format("%6d %16.0f %16.0f %14d %14d", round, random.opsPerSecond, ordered.opsPerSecond,
+                    random.diskKb, ordered.diskKb));
+        }
+    }
+
+    @AfterEach
+    void cleanUp() {
+        orderRepository.deleteAll();
+        inventoryRepository.deleteAll();
+        stockBalanceRepository.deleteAll();
+        itemRepository.deleteAll();
+    }
+
+    private Result insertOrders(Supplier<String> orderNos) {
+        cleanUp();
+        seedItem(ROWS);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < ROWS; i++) {
+            OrderDto orderDto = new OrderDto();
+            orderDto.setOrderNo(orderNos.get());
+            orderDto.setItemId(1L);
+            orderDto.setQty(1);
+            orderDto.setPrice(100);
+            orderService.saveOrder(null, orderDto);
+        }
+        return result(start, "ORDERS");
+    }
+
+    private Result insertInventories(Supplier<Long> ids) {
+        cleanUp();
+        seedItem(0);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < ROWS; i++) {
+            InventoryDto inventoryDto = new InventoryDto();
+            inventoryDto.setId(ids.get());
+            inventoryDto.setItemId(1L);
+            inventoryDto.setQty(1);
+            inventoryDto.setType(InventoryType.T);
+            inventoryService.saveInventory(null, inventoryDto);
+        }
+        return result(start, "INVENTORY");
+    }
+
+    private Result result(long start, String table) {
+        long elapsed = System.nanoTime() - start;
+        jdbcTemplate.execute("CHECKPOINT");
+        Long bytes = jdbcTemplate.queryForObject("CALL DISK_SPACE_USED('" + table + "')", Long.class);
+        return new Result(ROWS * 1e9 / elapsed, bytes == null ? 0 : bytes / 1024);
+    }
+
+    private void seedItem(int stock) {
+        ItemDto itemDto = new ItemDto();
+        itemDto.setId(1L);
+        itemDto.setName("Item 1");
+        itemDto.setPrice(100);
+        itemService.saveItem(null, itemDto);
+
+        if (stock > 0) {
+            InventoryDto inventoryDto = new InventoryDto();
+            inventoryDto.setId(1L);
+            inventoryDto.setItemId(1L);
+            inventoryDto.setQty(stock);
+            inventoryDto.setType(InventoryType.T);
+            inventoryService.saveInventory(null, inventoryDto);
+        }
+    }
+
+    private record Result(double opsPerSecond, long diskKb) {
+    }
+}
@@ -0,0 +1,91 @@
+package com.obs.example.benchmark;
+
+import com.obs.example.constant.InventoryType;
+import com.obs.example.dto.ImportReportDto;
+import com.obs.example.dto.InventoryDto;
+import com.obs.example.service.InventoryImportService;
+import com.obs.example.service.InventoryService;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Sustained rows per second for warehouse receiving: top-ups saved one by one through
+ * {@code saveInventory}, as separate POSTs do today, against the same kind of rows sent as one
+ * NDJSON body to the bulk import. Rows go round the item catalog, and every tenth round withdraws
+ * instead of topping up.
+ * <p>
+ * Run with {@code mvn test -Pbenchmark}; {@code -Dbenchmark.rows=...} changes the number of
+ * imported rows (default 200,000) and {@code -Dbenchmark.single-rows=...} the number saved one by
+ * one (default 10,000).
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:file:${java.io.tmpdir}/obs-import-benchmark-${random.uuid}",
+        "spring.jpa.show-sql=false"})
+@ActiveProfiles("test")
+@Slf4j
+class InventoryImportBenchmark {
+
+    private static final int ROWS = Integer.getInteger("benchmark.rows", 200_000);
+    private static final int SINGLE_ROWS = Integer.getInteger("benchmark.single-rows", 10_000);
+    private static final int ITEMS = 1_000;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private InventoryImportService inventoryImportService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void receiveTopUps() throws IOException {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> jdbcTemplate.execute(
+                "insert into item (id, name, price) select x, 'Item ' || x, 100 from system_range(1, %d)"
+                        .formatted(ITEMS)));
+
+        long start = System.nanoTime();
+        for (int i = 0; i < SINGLE_ROWS; i++) {
+            InventoryDto inventoryDto = new InventoryDto();
+            inventoryDto.setItemId((long) (i % ITEMS) + 1);
+            inventoryDto.setQty(isWithdrawal(i) ? 1 : 10);
+            inventoryDto.setType(isWithdrawal(i) ? InventoryType.W : InventoryType.T);
+            inventoryService.saveInventory(null, inventoryDto);
+        }
+        long singleRowsPerSecond = SINGLE_ROWS * 1_000_000_000L / (System.nanoTime() - start);
+
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < ROWS; i++) {
+            boolean withdrawal = isWithdrawal(i);
+            body.append("{\"itemId\":").append(i % ITEMS + 1)
+                    .append(",\"qty\":").append(withdrawal ? 1 : 10)
+                    .append(",\"type\":\"").append(withdrawal ? 'W' : 'T').append("\"}\n");
+        }
+        ImportReportDto report = inventoryImportService.importInventories(
+                new ByteArrayInputStream(body.toString().getBytes(StandardCharsets.UTF_8)), false);
+
+        log.info(String.format("%-18s %10s %12s", "write", "rows", "rows/s"));
+        log.info(String.format("%-18s %10d %12d", "saveInventory", SINGLE_ROWS, singleRowsPerSecond));
+        log.info(String.format("%-18s %10d %12d", "bulk import", report.getImported(), report.getRowsPerSecond()));
+    }
+
+    private static boolean isWithdrawal(int row) {
+        // every tenth pass over the catalog withdraws 1 of the 10 each item got per top-up pass
+        return row / ITEMS % 10 == 9;
+    }
+}
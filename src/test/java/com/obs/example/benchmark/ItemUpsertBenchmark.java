@@ -0,0 +1,90 @@
+package com.obs.example.benchmark;
+
+import com.obs.example.dto.ItemDto;
+import com.obs.example.dto.UpsertReportDto;
+import com.obs.example.service.ItemService;
+import com.obs.example.service.ItemUpsertService;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Nightly catalog sync: price changes saved one by one through {@code saveItem}, as separate
+ * {@code POST /api/items?id=} calls do today, against the whole catalog sent as one NDJSON body
+ * to the bulk upsert. In the body every other item has a new price, the rest are unchanged, and
+ * a tenth more items are new. Rows are generated straight into an H2 file database.
+ * <p>
+ * Run with {@code mvn test -Pbenchmark}; {@code -Dbenchmark.rows=...} changes the catalog size
+ * (default 200,000 items) and {@code -Dbenchmark.single-rows=...} the number of items saved one
+ * by one (default 10,000).
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:file:${java.io.tmpdir}/obs-upsert-benchmark-${random.uuid}",
+        "spring.jpa.show-sql=false"})
+@ActiveProfiles("test")
+@Slf4j
+class ItemUpsertBenchmark {
+
+    private static final int ROWS = Integer.getInteger("benchmark.rows", 200_000);
+    private static final int SINGLE_ROWS = Integer.getInteger("benchmark.single-rows", 10_000);
+
+    @Autowired
+    private ItemService itemService;
+
+    @Autowired
+    private ItemUpsertService itemUpsertService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void syncCatalog() throws IOException {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            jdbcTemplate.execute("insert into item (id, name, price) select x, 'Item ' || x, 100 from system_range(1, %d)"
+                    .formatted(ROWS));
+            jdbcTemplate.execute("insert into stock_balance (item_id, qty) select x, 0 from system_range(1, %d)"
+                    .formatted(ROWS));
+        });
+
+        long start = System.nanoTime();
+        for (int i = 1; i <= SINGLE_ROWS; i++) {
+            ItemDto itemDto = new ItemDto();
+            itemDto.setName("Item " + i);
+            itemDto.setPrice(101);
+            itemService.saveItem((long) i, itemDto);
+        }
+        long singleRowsPerSecond = SINGLE_ROWS * 1_000_000_000L / (System.nanoTime() - start);
+
+        StringBuilder body = new StringBuilder();
+        for (int i = 1; i <= ROWS + ROWS / 10; i++) {
+            // the items saved one by one above already have the price of 101, so they count as unchanged
+            int price = i % 2 == 0 || i <= SINGLE_ROWS ? 101 : 100;
+            body.append("{\"id\":").append(i).append(",\"name\":\"Item ").append(i)
+                    .append("\",\"price\":").append(price).append("}\n");
+        }
+        start = System.nanoTime();
+        UpsertReportDto report = itemUpsertService.upsertItems(
+                new ByteArrayInputStream(body.toString().getBytes(StandardCharsets.UTF_8)));
+        long bulkRowsPerSecond = report.getReceived() * 1_000_000_000L / (System.nanoTime() - start);
+
+        log.info(String.format("%-12s %10s %10s %10s %10s %10s", "write", "rows", "inserted", "updated", "unchanged", "rows/s"));
+        log.info(String.format("%-12s %10d %10s %10d %10s %10d", "saveItem", SINGLE_ROWS, "-", SINGLE_ROWS, "-",
+                singleRowsPerSecond));
+        log.info(String.format("%-12s %10d %10d %10d %10d %10d", "upsert", report.getReceived(), report.getInserted(),
+                report.getUpdated(), report.getUnchanged(), bulkRowsPerSecond));
+    }
+}
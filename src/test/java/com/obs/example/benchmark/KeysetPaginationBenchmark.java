@@ -0,0 +1,90 @@
+package com.obs.example.benchmark;
+
+import com.obs.example.repository.OrderRepository;
+import com.obs.example.utils.CursorUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.function.Supplier;
+
+/**
+ * Latency of an order listing page at increasing depth, through the offset listing
+ * ({@code /api/orders}: {@code OFFSET} plus {@code count(*)}) and through the keyset listing
+ * ({@code /api/orders/scroll}: seek past the cursor's order number). Rows are generated straight
+ * into an H2 file database.
+ * <p>
+ * Run with {@code mvn test -Pbenchmark}; {@code -Dbenchmark.rows=...} changes the table size
+ * (default 5,000,000 orders).
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:file:${java.io.tmpdir}/obs-keyset-benchmark-${random.uuid}",
+        "spring.jpa.show-sql=false"})
+@ActiveProfiles("test")
+@Slf4j
+class KeysetPaginationBenchmark {
+
+    private static final int ROWS = Integer.getInteger("benchmark.rows", 5_000_000);
+    private static final int ITEMS = 1_000;
+    private static final int PAGE_SIZE = 20;
+    private static final int WARMUP_ROUNDS = 2;
+    private static final int ROUNDS = 5;
+    private static final double[] DEPTHS = {0, 0.01, 0.1, 0.5, 0.99};
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void orderPagesByDepth() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> seed());
+
+        log.info(String.format("%12s %18s %18s", "rows deep", "offset ms/page", "keyset ms/page"));
+        for (double depth : DEPTHS) {
+            int rowsDeep = (int) (ROWS * depth);
+            int pageNumber = rowsDeep / PAGE_SIZE;
+            String after = rowsDeep == 0 ? "" : jdbcTemplate.queryForObject(
+                    "select order_no from orders order by order_no offset ? rows fetch next 1 row only",
+                    String.class, rowsDeep - 1);
+
+            double offsetMillis = time(() -> orderRepository.findAllResponses(PageRequest.of(pageNumber, PAGE_SIZE)));
+            double keysetMillis = time(() -> orderRepository.findResponsesAfter(after, CursorUtils.limit(PAGE_SIZE)));
+            log.info(String.format("%12d %18.3f %18.3f", rowsDeep, offsetMillis, keysetMillis));
+        }
+    }
+
+    private void seed() {
+        jdbcTemplate.execute("insert into item (id, name, price) select x, 'Item ' || x, 100 from system_range(1, %d)"
+                .formatted(ITEMS));
+        jdbcTemplate.execute(("insert into orders (order_no, qty, price, created_at, item_id) "
+                + "select 'B' || lpad(x, 10, '0'), mod(x, 10) + 1, 100, current_timestamp, mod(x, %d) + 1 "
+                + "from system_range(1, %d)")
+                .formatted(ITEMS, ROWS));
+        jdbcTemplate.execute("analyze");
+    }
+
+    private static double time(Supplier<?> page) {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            page.get();
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            page.get();
+        }
+        return (System.nanoTime() - start) / 1e6 / ROUNDS;
+    }
+}
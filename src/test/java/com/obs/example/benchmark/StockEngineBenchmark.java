@@ -0,0 +1,151 @@
+package com.obs.example.benchmark;
+
+import com.obs.example.constant.InventoryType;
+import com.obs.example.dto.InventoryDto;
+import com.obs.example.dto.ItemDto;
+import com.obs.example.dto.OrderDto;
+import com.obs.example.repository.InventoryRepository;
+import com.obs.example.repository.ItemRepository;
+import com.obs.example.repository.OrderRepository;
+import com.obs.example.repository.StockBalanceRepository;
+import com.obs.example.service.InventoryService;
+import com.obs.example.service.ItemService;
+import com.obs.example.service.OrderService;
+import com.obs.example.service.StockEngine;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Order placement throughput of the direct path against the sharded {@link StockEngine} for an
+ * increasing number of client threads. Run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@SpringBootTest
+@ActiveProfiles("test")
+@Slf4j
+class StockEngineBenchmark {
+
+    private static final int ITEMS = 16;
+    private static final int ORDERS_PER_RUN = Integer.getInteger("benchmark.orders", 4_000);
+    private static final int[] THREADS = {1, 2, 4, 8, 16, 32, 64};
+
+    private final AtomicLong orderSequence = new AtomicLong();
+
+    @Autowired
+    private ItemService itemService;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private StockBalanceRepository stockBalanceRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void orderThroughputByThreads() throws Exception {
+        StockEngine engine = new StockEngine(true, 4, transactionManager);
+        try {
+            log.info(String.format("%8s %16s %16s %10s %10s", "threads", "direct ops/s", "engine ops/s", "direct err", "engine err"));
+            for (int threads : THREADS) {
+                Result direct = run(threads, orderDto -> orderService.saveOrder(null, orderDto));
+                Result sharded = run(threads, orderDto -> engine.execute(orderDto.getItemId(), () -> orderService.saveOrder(null, orderDto)));
+                log.info(String.format("%8d %16.0f %16.0f %10d %10d", threads, direct.opsPerSecond, sharded.opsPerSecond, direct.errors, sharded.errors));
+            }
+        } finally {
+            engine.shutdown();
+        }
+    }
+
+    @AfterEach
+    void cleanUp() {
+        orderRepository.deleteAll();
+        inventoryRepository.deleteAll();
+        stockBalanceRepository.deleteAll();
+        itemRepository.deleteAll();
+    }
+
+    private Result run(int threads, Consumer<OrderDto> placeOrder) throws Exception {
+        cleanUp();
+        seedItems();
+
+        AtomicInteger errors = new AtomicInteger();
+        ExecutorService clients = Executors.newFixedThreadPool(threads);
+        List<Future<?>> results = new ArrayList<>();
+        int ordersPerThread = ORDERS_PER_RUN / threads;
+
+        long start = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            results.add(clients.submit(() -> {
+                for (int i = 0; i < ordersPerThread; i++) {
+                    OrderDto orderDto = new OrderDto();
+                    orderDto.setOrderNo("B" + orderSequence.incrementAndGet());
+                    orderDto.setItemId((long) ThreadLocalRandom.current().nextInt(1, ITEMS + 1));
+                    orderDto.setQty(1);
+                    orderDto.setPrice(100);
+                    try {
+                        placeOrder.accept(orderDto);
+                    } catch (RuntimeException e) {
+                        errors.incrementAndGet();
+                    }
+                }
+            }));
+        }
+        for (Future<?> result : results) {
+            result.get();
+        }
+        long elapsed = System.nanoTime() - start;
+        clients.shutdown();
+
+        return new Result(ordersPerThread * threads * 1e9 / elapsed, errors.get());
+    }
+
+    private void seedItems() {
+        for (long id = 1; id <= ITEMS; id++) {
+            ItemDto itemDto = new ItemDto();
+            itemDto.setId(id);
+            itemDto.setName("Item " + id);
+            itemDto.setPrice(100);
+            itemService.saveItem(null, itemDto);
+
+            InventoryDto inventoryDto = new InventoryDto();
+            inventoryDto.setId(id);
+            inventoryDto.setItemId(id);
+            inventoryDto.setQty(1_000_000);
+            inventoryDto.setType(InventoryType.T);
+            inventoryService.saveInventory(null, inventoryDto);
+        }
+    }
+
+    private record Result(double opsPerSecond, int errors) {
+    }
+}
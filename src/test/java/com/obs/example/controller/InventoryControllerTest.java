@@ -4,11 +4,17 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.obs.example.TestResultListener;
 import com.obs.example.constant.InventoryType;
 import com.obs.example.dto.BaseResponseDto;
+import com.obs.example.dto.CompactionReportDto;
+import com.obs.example.dto.InventoryDetailDto;
 import com.obs.example.dto.InventoryDto;
 import com.obs.example.dto.InventoryResponseDto;
-import com.obs.example.entity.Inventory;
+import com.obs.example.dto.StockAsOfDto;
 import com.obs.example.exception.BadRequestException;
 import com.obs.example.exception.ResourceNotFoundException;
+import com.obs.example.service.ChangeVersions;
+import com.obs.example.service.ExportService;
+import com.obs.example.service.InventoryCompactionService;
+import com.obs.example.service.InventoryImportService;
 import com.obs.example.service.InventoryService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -19,10 +25,12 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
+import java.time.Instant;
 import java.util.Collections;
 import java.util.List;
 
@@ -39,14 +47,25 @@ public class InventoryControllerTest {
     @Mock
     private InventoryService inventoryService;
 
+    @Mock
+    private InventoryCompactionService inventoryCompactionService;
+
+    @Mock
+    private ExportService exportService;
+
+    @Mock
+    private InventoryImportService inventoryImportService;
+
     private final ObjectMapper objectMapper = new ObjectMapper();
 
     private InventoryDto inventoryDto;
     private InventoryResponseDto inventoryResponseDto;
 
+    private final ChangeVersions changeVersions = new ChangeVersions();
+
     @BeforeEach
     void setUp() {
-        mockMvc = MockMvcBuilders.standaloneSetup(new InventoryController(inventoryService)).build();
+        mockMvc = MockMvcBuilders.standaloneSetup(new InventoryController(inventoryService, inventoryCompactionService, changeVersions, exportService, inventoryImportService)).build();
 
         inventoryDto = new InventoryDto();
         inventoryDto.setItemId(1L);
@@ -82,7 +101,7 @@ public class InventoryControllerTest {
 
     @Test
     void getInventoryById_Success() throws Exception {
-        Inventory inventory = new Inventory();
+        InventoryDetailDto inventory = new InventoryDetailDto();
         inventory.setId(1L);
         when(inventoryService.getInventoryById(1L)).thenReturn(inventory);
 
@@ -95,6 +114,20 @@ public class InventoryControllerTest {
         verify(inventoryService).getInventoryById(1L);
     }
 
+    @Test
+    void getInventoryById_NotModifiedUntilItemChanges() throws Exception {
+        String etag = changeVersions.etag(ChangeVersions.Table.INVENTORIES, ChangeVersions.Table.ITEMS);
+
+        mockMvc.perform(get("/api/inventories/1").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+        verifyNoInteractions(inventoryService);
+
+        changeVersions.bump(ChangeVersions.Table.ITEMS);
+
+        mockMvc.perform(get("/api/inventories/1").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk());
+    }
+
     @Test
     void getInventoryById_NotFound() throws Exception {
         when(inventoryService.getInventoryById(1L)).thenThrow(new ResourceNotFoundException("Inventory with id 1 not found"));
@@ -108,6 +141,39 @@ public class InventoryControllerTest {
         verify(inventoryService).getInventoryById(1L);
     }
 
+    @Test
+    void getItemStockAsOf_Success() throws Exception {
+        Instant asOf = Instant.parse("2025-01-31T23:59:59Z");
+        StockAsOfDto stockAsOf = new StockAsOfDto();
+        stockAsOf.setItemId(1L);
+        stockAsOf.setAsOf(asOf);
+        stockAsOf.setStock(12);
+        when(inventoryService.getItemStockAsOf(1L, asOf)).thenReturn(stockAsOf);
+
+        mockMvc.perform(get("/api/inventories/stock/1")
+                        .param("asOf", "2025-01-31T23:59:59Z")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.responseCode").value("00"))
+                .andExpect(jsonPath("$.data.itemId").value(1))
+                .andExpect(jsonPath("$.data.stock").value(12));
+
+        verify(inventoryService).getItemStockAsOf(1L, asOf);
+    }
+
+    @Test
+    void getItemStockAsOf_ItemNotFound() throws Exception {
+        Instant asOf = Instant.parse("2025-01-31T23:59:59Z");
+        when(inventoryService.getItemStockAsOf(999L, asOf)).thenThrow(new ResourceNotFoundException("Item not found with ID: 999"));
+
+        mockMvc.perform(get("/api/inventories/stock/999")
+                        .param("asOf", "2025-01-31T23:59:59Z")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.responseCode").value("404"))
+                .andExpect(jsonPath("$.responseMessage").value("Item not found with ID: 999"));
+    }
+
     @Test
     void saveInventory_Success() throws Exception {
         doNothing().when(inventoryService).saveInventory(any(), any());
@@ -179,4 +245,30 @@ public class InventoryControllerTest {
 
         verify(inventoryService).deleteInventory(1L);
     }
-}
\ No newline at end of file
+
+    @Test
+    void compactInventories_Success() throws Exception {
+        CompactionReportDto report = new CompactionReportDto();
+        report.setCompactedItems(2);
+        report.setRowsBefore(120);
+        report.setRowsAfter(2);
+        when(inventoryCompactionService.compact(null)).thenReturn(report);
+
+        mockMvc.perform(post("/api/inventories/compaction"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.responseCode").value("00"))
+                .andExpect(jsonPath("$.data.compactedItems").value(2))
+                .andExpect(jsonPath("$.data.rowsBefore").value(120))
+                .andExpect(jsonPath("$.data.rowsAfter").value(2));
+    }
+
+    @Test
+    void compactInventories_FutureHorizon() throws Exception {
+        when(inventoryCompactionService.compact(any())).thenThrow(new BadRequestException("Compaction horizon must not be in the future"));
+
+        mockMvc.perform(post("/api/inventories/compaction")
+                        .param("horizon", "2999-01-01T00:00:00Z"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.responseCode").value("400"));
+    }
+}
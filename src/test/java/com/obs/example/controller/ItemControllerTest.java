@@ -5,10 +5,12 @@ import com.obs.example.TestResultListener;
 import com.obs.example.dto.BaseResponseDto;
 import com.obs.example.dto.ItemDto;
 import com.obs.example.dto.ItemResponseDto;
-import com.obs.example.entity.Item;
 import com.obs.example.exception.BadRequestException;
 import com.obs.example.exception.ResourceNotFoundException;
+import com.obs.example.service.ChangeVersions;
 import com.obs.example.service.ItemService;
+import com.obs.example.service.ItemUpsertService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -18,10 +20,12 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
+import java.time.Duration;
 import java.util.Collections;
 import java.util.List;
 
@@ -38,14 +42,21 @@ public class ItemControllerTest {
     @Mock
     private ItemService itemService;
 
+    @Mock
+    private ItemUpsertService itemUpsertService;
+
     private final ObjectMapper objectMapper = new ObjectMapper();
 
+    private final ChangeVersions changeVersions = new ChangeVersions();
+
     private ItemDto itemDto;
     private ItemResponseDto itemResponseDto;
 
     @BeforeEach
     void setUp() {
-        mockMvc = MockMvcBuilders.standaloneSetup(new ItemController(itemService)).build();
+        mockMvc = MockMvcBuilders.standaloneSetup(new ItemController(itemService, changeVersions,
+                new ResponseBodyCache(true, 1 << 20, 5, Duration.ZERO, objectMapper, new SimpleMeterRegistry()),
+                itemUpsertService)).build();
 
         itemDto = new ItemDto();
         itemDto.setId(1L);
@@ -81,7 +92,7 @@ public class ItemControllerTest {
 
     @Test
     void getItemById_Success() throws Exception {
-        Item item = new Item();
+        ItemDto item = new ItemDto();
         item.setId(1L);
         when(itemService.getItemById(1L)).thenReturn(item);
 
@@ -94,6 +105,73 @@ public class ItemControllerTest {
         verify(itemService).getItemById(1L);
     }
 
+    @Test
+    void getAllItems_NotModified() throws Exception {
+        Pageable pageable = PageRequest.of(0, 10);
+        when(itemService.getAllItems(pageable)).thenReturn(new PageImpl<>(List.of(itemResponseDto), pageable, 1));
+
+        String etag = mockMvc.perform(get("/api/items?page=0&size=10"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/api/items?page=0&size=10").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag));
+
+        verify(itemService, times(1)).getAllItems(pageable);
+    }
+
+    @Test
+    void getAllItems_ModifiedAfterStockChange() throws Exception {
+        Pageable pageable = PageRequest.of(0, 10);
+        when(itemService.getAllItems(pageable)).thenReturn(new PageImpl<>(List.of(itemResponseDto), pageable, 1));
+
+        String etag = mockMvc.perform(get("/api/items?page=0&size=10"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        changeVersions.bump(ChangeVersions.Table.STOCK);
+
+        mockMvc.perform(get("/api/items?page=0&size=10").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, changeVersions.weakEtag(
+                        ChangeVersions.Table.ITEMS, ChangeVersions.Table.STOCK)));
+
+        verify(itemService, times(2)).getAllItems(pageable);
+    }
+
+    @Test
+    void getItemById_NotModified() throws Exception {
+        String etag = changeVersions.etag(ChangeVersions.Table.ITEMS);
+
+        mockMvc.perform(get("/api/items/1").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        verifyNoInteractions(itemService);
+    }
+
+    @Test
+    void getItemById_ServedFromCachedBody() throws Exception {
+        ItemDto item = new ItemDto();
+        item.setId(1L);
+        item.setName("Test Item");
+        when(itemService.getItemById(1L)).thenReturn(item);
+
+        String first = mockMvc.perform(get("/api/items/1"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        mockMvc.perform(get("/api/items/1"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(content().string(first));
+        verify(itemService, times(1)).getItemById(1L);
+
+        changeVersions.bump(ChangeVersions.Table.ITEMS);
+        mockMvc.perform(get("/api/items/1"))
+                .andExpect(status().isOk());
+        verify(itemService, times(2)).getItemById(1L);
+    }
+
     @Test
     void getItemById_NotFound() throws Exception {
         when(itemService.getItemById(1L)).thenThrow(new ResourceNotFoundException("Item with id: 1 not found"));
@@ -3,12 +3,17 @@ package com.obs.example.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.obs.example.TestResultListener;
+import com.obs.example.dto.ArchiveReportDto;
 import com.obs.example.dto.BaseResponseDto;
+import com.obs.example.dto.OrderDetailDto;
 import com.obs.example.dto.OrderDto;
 import com.obs.example.dto.OrderResponseDto;
 import com.obs.example.entity.Order;
 import com.obs.example.exception.BadRequestException;
 import com.obs.example.exception.ResourceNotFoundException;
+import com.obs.example.service.ChangeVersions;
+import com.obs.example.service.ExportService;
+import com.obs.example.service.OrderArchiveService;
 import com.obs.example.service.OrderService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -19,6 +24,7 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
@@ -39,14 +45,22 @@ public class OrderControllerTest {
     @Mock
     private OrderService orderService;
 
+    @Mock
+    private OrderArchiveService orderArchiveService;
+
+    @Mock
+    private ExportService exportService;
+
     private final ObjectMapper objectMapper = new ObjectMapper();
 
     private OrderDto orderDto;
     private OrderResponseDto orderResponseDto;
 
+    private final ChangeVersions changeVersions = new ChangeVersions();
+
     @BeforeEach
     void setUp() {
-        mockMvc = MockMvcBuilders.standaloneSetup(new OrderController(orderService)).build();
+        mockMvc = MockMvcBuilders.standaloneSetup(new OrderController(orderService, orderArchiveService, changeVersions, exportService)).build();
 
         orderDto = new OrderDto();
         orderDto.setOrderNo("ORD001");
@@ -83,7 +97,7 @@ public class OrderControllerTest {
 
     @Test
     void getOrderById_Success() throws Exception {
-        Order order = new Order();
+        OrderDetailDto order = new OrderDetailDto();
         order.setOrderNo("ORD001");
         when(orderService.getOrderById("ORD001")).thenReturn(order);
 
@@ -96,6 +110,20 @@ public class OrderControllerTest {
         verify(orderService).getOrderById("ORD001");
     }
 
+    @Test
+    void getOrderById_NotModifiedUntilItemChanges() throws Exception {
+        String etag = changeVersions.etag(ChangeVersions.Table.ORDERS, ChangeVersions.Table.ITEMS);
+
+        mockMvc.perform(get("/api/orders/O1").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+        verifyNoInteractions(orderService);
+
+        changeVersions.bump(ChangeVersions.Table.ITEMS);
+
+        mockMvc.perform(get("/api/orders/O1").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk());
+    }
+
     @Test
     void getOrderById_NotFound() throws Exception {
         when(orderService.getOrderById("ORD001")).thenThrow(new ResourceNotFoundException("Order with order id: ORD001 not found"));
@@ -183,4 +211,32 @@ public class OrderControllerTest {
 
         verify(orderService).deleteOrder("ORD001");
     }
-}
\ No newline at end of file
+
+    @Test
+    void archiveOrders_Success() throws Exception {
+        ArchiveReportDto report = new ArchiveReportDto();
+        report.setArchivedOrders(3);
+        report.setHotRowsBefore(5);
+        report.setHotRowsAfter(2);
+        when(orderArchiveService.archive(30)).thenReturn(report);
+
+        mockMvc.perform(post("/api/orders/archive")
+                        .param("olderThanDays", "30"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.responseCode").value("00"))
+                .andExpect(jsonPath("$.data.archivedOrders").value(3))
+                .andExpect(jsonPath("$.data.hotRowsAfter").value(2));
+
+        verify(orderArchiveService).archive(30);
+    }
+
+    @Test
+    void archiveOrders_AlreadyRunning() throws Exception {
+        when(orderArchiveService.archive(null)).thenThrow(new BadRequestException("Order archival is already running"));
+
+        mockMvc.perform(post("/api/orders/archive"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.responseCode").value("400"))
+                .andExpect(jsonPath("$.responseMessage").value("Order archival is already running"));
+    }
+}
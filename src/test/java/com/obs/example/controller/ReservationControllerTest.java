@@ -0,0 +1,151 @@
+package com.obs.example.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.obs.example.TestResultListener;
+import com.obs.example.dto.ReservationDto;
+import com.obs.example.dto.ReservationResponseDto;
+import com.obs.example.entity.Order;
+import com.obs.example.exception.BadRequestException;
+import com.obs.example.exception.ResourceNotFoundException;
+import com.obs.example.service.ReservationService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.time.Instant;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@ExtendWith({MockitoExtension.class, TestResultListener.class})
+public class ReservationControllerTest {
+
+    private MockMvc mockMvc;
+
+    @Mock
+    private ReservationService reservationService;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private ReservationDto reservationDto;
+    private ReservationResponseDto reservationResponseDto;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.standaloneSetup(new ReservationController(reservationService)).build();
+
+        reservationDto = new ReservationDto();
+        reservationDto.setReservationNo("R1");
+        reservationDto.setItemId(1L);
+        reservationDto.setQty(2);
+        reservationDto.setTtlSeconds(300);
+
+        reservationResponseDto = new ReservationResponseDto();
+        reservationResponseDto.setReservationNo("R1");
+        reservationResponseDto.setItemId(1L);
+        reservationResponseDto.setQty(2);
+        reservationResponseDto.setExpiresAt(Instant.now().plusSeconds(300));
+    }
+
+    @Test
+    void getReservation_Success() throws Exception {
+        when(reservationService.getReservation("R1")).thenReturn(reservationResponseDto);
+
+        mockMvc.perform(get("/api/orders/reservations/R1")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.responseCode").value("00"))
+                .andExpect(jsonPath("$.data.reservationNo").value("R1"))
+                .andExpect(jsonPath("$.data.qty").value(2));
+    }
+
+    @Test
+    void getReservation_NotFound() throws Exception {
+        when(reservationService.getReservation("R9")).thenThrow(new ResourceNotFoundException("Reservation not found with ID: R9"));
+
+        mockMvc.perform(get("/api/orders/reservations/R9")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.responseCode").value("404"));
+    }
+
+    @Test
+    void reserve_Success() throws Exception {
+        when(reservationService.reserve(any(ReservationDto.class))).thenReturn(reservationResponseDto);
+
+        mockMvc.perform(post("/api/orders/reservations")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(reservationDto)))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.responseCode").value("00"))
+                .andExpect(jsonPath("$.responseMessage").value("Reservation added successfully"))
+                .andExpect(jsonPath("$.data.itemId").value(1));
+
+        verify(reservationService).reserve(any(ReservationDto.class));
+    }
+
+    @Test
+    void reserve_InsufficientStock() throws Exception {
+        when(reservationService.reserve(any(ReservationDto.class)))
+                .thenThrow(new BadRequestException("Insufficient stock for item ID: 1. Available: 1"));
+
+        mockMvc.perform(post("/api/orders/reservations")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(reservationDto)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.responseCode").value("400"))
+                .andExpect(jsonPath("$.responseMessage").value("Insufficient stock for item ID: 1. Available: 1"));
+    }
+
+    @Test
+    void confirm_Success() throws Exception {
+        when(reservationService.confirm("R1", "O1")).thenReturn(new Order());
+
+        mockMvc.perform(post("/api/orders/reservations/confirm")
+                        .param("reservationNo", "R1")
+                        .param("orderNo", "O1"))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.responseCode").value("00"))
+                .andExpect(jsonPath("$.responseMessage").value("Reservation confirmed successfully"));
+
+        verify(reservationService).confirm("R1", "O1");
+    }
+
+    @Test
+    void confirm_Expired() throws Exception {
+        when(reservationService.confirm("R1", "O1")).thenThrow(new BadRequestException("Reservation has expired: R1"));
+
+        mockMvc.perform(post("/api/orders/reservations/confirm")
+                        .param("reservationNo", "R1")
+                        .param("orderNo", "O1"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.responseCode").value("400"));
+    }
+
+    @Test
+    void release_Success() throws Exception {
+        mockMvc.perform(delete("/api/orders/reservations/delete")
+                        .param("reservationNo", "R1"))
+                .andExpect(status().isNoContent())
+                .andExpect(jsonPath("$.responseCode").value("00"));
+
+        verify(reservationService).release("R1");
+    }
+
+    @Test
+    void release_NotFound() throws Exception {
+        doThrow(new ResourceNotFoundException("Reservation not found with ID: R9")).when(reservationService).release("R9");
+
+        mockMvc.perform(delete("/api/orders/reservations/delete")
+                        .param("reservationNo", "R9"))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.responseCode").value("404"));
+    }
+}
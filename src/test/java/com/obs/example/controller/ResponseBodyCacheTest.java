@@ -0,0 +1,150 @@
+package com.obs.example.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.obs.example.TestResultListener;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(TestResultListener.class)
+class ResponseBodyCacheTest {
+
+    private final AtomicInteger builds = new AtomicInteger();
+    private final AtomicReference<String> etag = new AtomicReference<>("\"1\"");
+    private ResponseBodyCache responseBodyCache;
+
+    @AfterEach
+    void tearDown() {
+        if (responseBodyCache != null) {
+            responseBodyCache.shutdown();
+        }
+    }
+
+    @Test
+    void get_SameEtag_ReusesEncodedBody() {
+        responseBodyCache = cache(true, Duration.ZERO);
+
+        ResponseBodyCache.Body first = responseBodyCache.get("items/1", etag.get(), response());
+        ResponseBodyCache.Body second = responseBodyCache.get("items/1", etag.get(), response());
+
+        assertSame(first, second);
+        assertEquals(1, builds.get());
+        assertEquals("{\"build\":1}", new String(first.json(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void get_NewEtag_BuildsAgain() {
+        responseBodyCache = cache(true, Duration.ZERO);
+
+        responseBodyCache.get("items/1", etag.get(), response());
+        ResponseBodyCache.Body body = responseBodyCache.get("items/1", "\"2\"", response());
+
+        assertEquals(2, builds.get());
+        assertEquals("\"2\"", body.etag());
+    }
+
+    @Test
+    void get_FailedBuild_IsNotCached() {
+        responseBodyCache = cache(true, Duration.ZERO);
+
+        assertThrows(IllegalArgumentException.class, () -> responseBodyCache.get("items/1", etag.get(), () -> {
+            throw new IllegalArgumentException("not found");
+        }));
+        responseBodyCache.get("items/1", etag.get(), response());
+
+        assertEquals(1, builds.get());
+    }
+
+    @Test
+    void getPage_StaleWithinWindow_ServedWhileRebuilt() throws InterruptedException {
+        responseBodyCache = cache(true, Duration.ofMinutes(1));
+        ResponseBodyCache.Body first = responseBodyCache.getPage("items?page=0", 0, etag::get, response());
+
+        etag.set("\"2\"");
+        ResponseBodyCache.Body stale = responseBodyCache.getPage("items?page=0", 0, etag::get, response());
+
+        assertSame(first, stale);
+        ResponseBodyCache.Body refreshed = awaitEtag("\"2\"");
+        assertEquals("{\"build\":2}", new String(refreshed.json(), StandardCharsets.UTF_8));
+        assertEquals(2, builds.get());
+    }
+
+    @Test
+    void getPage_StaleBeyondWindow_BuiltBeforeAnswering() {
+        responseBodyCache = cache(true, Duration.ZERO);
+        responseBodyCache.getPage("items?page=0", 0, etag::get, response());
+
+        etag.set("\"2\"");
+        ResponseBodyCache.Body body = responseBodyCache.getPage("items?page=0", 0, etag::get, response());
+
+        assertEquals("\"2\"", body.etag());
+        assertEquals(2, builds.get());
+    }
+
+    @Test
+    void getPage_BeyondListingPages_NotCached() {
+        responseBodyCache = cache(true, Duration.ZERO);
+
+        responseBodyCache.getPage("items?page=5", 5, etag::get, response());
+        responseBodyCache.getPage("items?page=5", 5, etag::get, response());
+
+        assertEquals(2, builds.get());
+    }
+
+    @Test
+    void get_Disabled_BuildsEveryTime() {
+        responseBodyCache = cache(false, Duration.ZERO);
+
+        responseBodyCache.get("items/1", etag.get(), response());
+        responseBodyCache.get("items/1", etag.get(), response());
+
+        assertEquals(2, builds.get());
+    }
+
+    @Test
+    void toResponse_MatchingEtag_NotModified() {
+        ResponseBodyCache.Body body = new ResponseBodyCache.Body("\"1\"", new byte[]{'{', '}'}, System.nanoTime());
+
+        ResponseEntity<?> notModified = body.toResponse("W/\"1\"");
+        ResponseEntity<?> ok = body.toResponse("\"0\"");
+
+        assertEquals(HttpStatus.NOT_MODIFIED, notModified.getStatusCode());
+        assertNull(notModified.getBody());
+        assertEquals(HttpStatus.OK, ok.getStatusCode());
+        assertEquals("\"1\"", ok.getHeaders().getETag());
+        assertSame(body.json(), ok.getBody());
+    }
+
+    private ResponseBodyCache cache(boolean enabled, Duration staleWhileRevalidate) {
+        return new ResponseBodyCache(enabled, 1 << 20, 5, staleWhileRevalidate, new ObjectMapper(),
+                new SimpleMeterRegistry());
+    }
+
+    private Supplier<Object> response() {
+        return () -> Map.of("build", builds.incrementAndGet());
+    }
+
+    private ResponseBodyCache.Body awaitEtag(String expected) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (System.nanoTime() < deadline) {
+            ResponseBodyCache.Body body = responseBodyCache.getPage("items?page=0", 0, etag::get, response());
+            if (body.etag().equals(expected)) {
+                return body;
+            }
+            Thread.sleep(10);
+        }
+        return fail("Cached page was not refreshed");
+    }
+}
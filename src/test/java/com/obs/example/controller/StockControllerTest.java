@@ -0,0 +1,67 @@
+package com.obs.example.controller;
+
+import com.obs.example.TestResultListener;
+import com.obs.example.dto.StockConsistencyDto;
+import com.obs.example.dto.StockMismatchDto;
+import com.obs.example.exception.BadRequestException;
+import com.obs.example.service.StockService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.List;
+
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@ExtendWith({MockitoExtension.class, TestResultListener.class})
+public class StockControllerTest {
+
+    private MockMvc mockMvc;
+
+    @Mock
+    private StockService stockService;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.standaloneSetup(new StockController(stockService)).build();
+    }
+
+    @Test
+    void checkConsistency_Success() throws Exception {
+        StockConsistencyDto consistency = new StockConsistencyDto();
+        consistency.setConsistent(false);
+        consistency.setCheckedItems(2);
+        consistency.setMismatches(List.of(new StockMismatchDto(1L, 4, 5)));
+        when(stockService.checkIndexConsistency()).thenReturn(consistency);
+
+        mockMvc.perform(get("/api/stock/consistency")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.responseCode").value("00"))
+                .andExpect(jsonPath("$.data.consistent").value(false))
+                .andExpect(jsonPath("$.data.checkedItems").value(2))
+                .andExpect(jsonPath("$.data.mismatches[0].itemId").value(1))
+                .andExpect(jsonPath("$.data.mismatches[0].indexedStock").value(4))
+                .andExpect(jsonPath("$.data.mismatches[0].recomputedStock").value(5));
+
+        verify(stockService).checkIndexConsistency();
+    }
+
+    @Test
+    void checkConsistency_IndexDisabled() throws Exception {
+        when(stockService.checkIndexConsistency()).thenThrow(new BadRequestException("Stock index is not enabled"));
+
+        mockMvc.perform(get("/api/stock/consistency")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.responseCode").value("400"))
+                .andExpect(jsonPath("$.responseMessage").value("Stock index is not enabled"));
+    }
+}
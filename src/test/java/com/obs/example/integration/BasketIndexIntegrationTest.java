@@ -0,0 +1,111 @@
+package com.obs.example.integration;
+
+import com.obs.example.dto.OrderDto;
+import com.obs.example.exception.BadRequestException;
+import com.obs.example.repository.OrderRepository;
+import com.obs.example.service.MovementWriteService;
+import com.obs.example.service.OrderService;
+import com.obs.example.service.StockService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the basket tests with single orders journaled behind the stock index and writes on the
+ * stock engine, where baskets must be admitted against the same counters as journaled orders.
+ */
+@SpringBootTest(properties = {"obs.write.mode=write-behind", "obs.stock.index.enabled=true",
+        "obs.stock.engine.enabled=true"})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class BasketIndexIntegrationTest extends BasketIntegrationTest {
+
+    private static final int CLIENTS = 16;
+
+    @Autowired
+    private MovementWriteService movementWriteService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private StockService stockService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Override
+    @AfterEach
+    void cleanUp() {
+        movementWriteService.awaitApplied();
+        super.cleanUp();
+        stockService.warmUpIndex();
+    }
+
+    @Override
+    @Test
+    void placeBasket_AllLinesPlaced() throws Exception {
+        // the set-up movements are written first, so that their statements are not counted
+        movementWriteService.awaitApplied();
+        super.placeBasket_AllLinesPlaced();
+    }
+
+    @Test
+    void placeBasket_RacingJournaledOrders_DoesNotOversell() throws Exception {
+        ExecutorService clients = Executors.newFixedThreadPool(CLIENTS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> results = new ArrayList<>();
+        for (int i = 0; i < CLIENTS; i++) {
+            int client = i;
+            results.add(clients.submit(() -> {
+                start.await();
+                try {
+                    if (client % 2 == 0) {
+                        orderService.saveOrder(null, order("O" + client));
+                    } else {
+                        orderService.placeBasket(basket("B" + client, line(1L, 1)));
+                    }
+                    return true;
+                } catch (BadRequestException e) {
+                    return false;
+                }
+            }));
+        }
+        start.countDown();
+        clients.shutdown();
+
+        int placed = 0;
+        for (Future<Boolean> result : results) {
+            if (result.get()) {
+                placed++;
+            }
+        }
+        movementWriteService.awaitApplied();
+
+        assertEquals(10, placed);
+        assertEquals(10, orderRepository.count());
+        assertEquals(0, stockService.getStock(1L));
+        assertEquals(0, stockService.recomputeStocks(List.of(1L)).get(1L));
+    }
+
+    private static OrderDto order(String orderNo) {
+        OrderDto orderDto = new OrderDto();
+        orderDto.setOrderNo(orderNo);
+        orderDto.setItemId(1L);
+        orderDto.setQty(1);
+        orderDto.setPrice(100);
+        return orderDto;
+    }
+}
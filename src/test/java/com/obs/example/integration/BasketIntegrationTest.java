@@ -0,0 +1,181 @@
+package com.obs.example.integration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.obs.example.constant.InventoryType;
+import com.obs.example.dto.BasketDto;
+import com.obs.example.dto.BasketLineDto;
+import com.obs.example.dto.InventoryDto;
+import com.obs.example.dto.ItemDto;
+import com.obs.example.repository.InventoryRepository;
+import com.obs.example.repository.ItemRepository;
+import com.obs.example.repository.OrderRepository;
+import com.obs.example.repository.StockBalanceRepository;
+import com.obs.example.service.InventoryService;
+import com.obs.example.service.ItemService;
+import com.obs.example.service.StockService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * A basket is placed with all of its lines or not at all, and its stock is resolved and taken
+ * with a fixed number of statements however many lines it has.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class BasketIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private ItemService itemService;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private StockService stockService;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private StockBalanceRepository stockBalanceRepository;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        cleanUp();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        for (long id = 1; id <= 3; id++) {
+            ItemDto itemDto = new ItemDto();
+            itemDto.setId(id);
+            itemDto.setName("Item " + id);
+            itemDto.setPrice(100);
+            itemService.saveItem(null, itemDto);
+
+            InventoryDto inventoryDto = new InventoryDto();
+            inventoryDto.setId(id);
+            inventoryDto.setItemId(id);
+            inventoryDto.setQty(10);
+            inventoryDto.setType(InventoryType.T);
+            inventoryService.saveInventory(null, inventoryDto);
+        }
+    }
+
+    @AfterEach
+    void cleanUp() {
+        orderRepository.deleteAll();
+        inventoryRepository.deleteAll();
+        stockBalanceRepository.deleteAll();
+        itemRepository.deleteAll();
+    }
+
+    @Test
+    void placeBasket_AllLinesPlaced() throws Exception {
+        statistics.clear();
+
+        place(basket("B1", line(1L, 4), line(2L, 10), line(3L, 1), line(1L, 6)))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.data.basketNo").value("B1"))
+                .andExpect(jsonPath("$.data.lines.length()").value(4))
+                .andExpect(jsonPath("$.data.lines[3].orderNo").value("B1-4"));
+
+        long statements = statistics.getPrepareStatementCount();
+        assertEquals(4, orderRepository.count());
+        assertEquals(List.of(0, 0, 9), List.of(stockService.getStock(1L), stockService.getStock(2L), stockService.getStock(3L)));
+        // archive lookup, one lookup per distinct item with the item cache off, stock lookup and the
+        // balance check before the withdrawal; the JDBC inserts and balance updates do not go through Hibernate
+        assertTrue(statements <= 6, "statements: " + statements);
+    }
+
+    @Test
+    void placeBasket_OneShortLineRejectsAll() throws Exception {
+        place(basket("B2", line(1L, 5), line(2L, 11), line(3L, 6), line(3L, 6)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.responseMessage").value(
+                        "Insufficient stock for item ID: 2. Available: 10; Insufficient stock for item ID: 3. Available: 10"));
+
+        assertEquals(0, orderRepository.count());
+        assertEquals(10, stockService.getStock(1L));
+    }
+
+    @Test
+    void placeBasket_UnknownItemRejectsAll() throws Exception {
+        place(basket("B3", line(1L, 1), line(99L, 1)))
+                .andExpect(status().isNotFound());
+
+        assertEquals(0, orderRepository.count());
+    }
+
+    @Test
+    void placeBasket_ExistingBasketNo() throws Exception {
+        place(basket("B4", line(1L, 1))).andExpect(status().isCreated());
+
+        place(basket("B4", line(1L, 1), line(2L, 1)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.responseMessage").value("Order already exists for basket: B4"));
+
+        assertEquals(1, orderRepository.count());
+        assertEquals(9, stockService.getStock(1L));
+        assertEquals(10, stockService.getStock(2L));
+    }
+
+    @Test
+    void placeBasket_NoLines() throws Exception {
+        place(basket("B5")).andExpect(status().isBadRequest());
+    }
+
+    ResultActions place(BasketDto basketDto) throws Exception {
+        return mockMvc.perform(post("/api/orders/basket")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(basketDto)));
+    }
+
+    static BasketDto basket(String basketNo, BasketLineDto... lines) {
+        BasketDto basketDto = new BasketDto();
+        basketDto.setBasketNo(basketNo);
+        basketDto.setLines(List.of(lines));
+        return basketDto;
+    }
+
+    static BasketLineDto line(Long itemId, int qty) {
+        BasketLineDto line = new BasketLineDto();
+        line.setItemId(itemId);
+        line.setQty(qty);
+        line.setPrice(100);
+        return line;
+    }
+}
@@ -0,0 +1,195 @@
+package com.obs.example.integration;
+
+import com.obs.example.constant.InventoryType;
+import com.obs.example.dto.InventoryDto;
+import com.obs.example.dto.ItemDto;
+import com.obs.example.dto.OrderDto;
+import com.obs.example.exception.BadRequestException;
+import com.obs.example.repository.InventoryRepository;
+import com.obs.example.repository.ItemRepository;
+import com.obs.example.repository.OrderRepository;
+import com.obs.example.repository.StockBalanceRepository;
+import com.obs.example.service.InventoryService;
+import com.obs.example.service.ItemService;
+import com.obs.example.service.OrderService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * A poll that repeats the ETag of its last response is answered with 304 without touching the
+ * database, until a write to one of the tables behind the response commits.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ConditionalGetIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private ItemService itemService;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private StockBalanceRepository stockBalanceRepository;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        cleanUp();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        ItemDto itemDto = new ItemDto();
+        itemDto.setId(1L);
+        itemDto.setName("Test Item");
+        itemDto.setPrice(100);
+        itemService.saveItem(null, itemDto);
+
+        InventoryDto inventoryDto = new InventoryDto();
+        inventoryDto.setId(1L);
+        inventoryDto.setItemId(1L);
+        inventoryDto.setQty(10);
+        inventoryDto.setType(InventoryType.T);
+        inventoryService.saveInventory(null, inventoryDto);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        orderRepository.deleteAll();
+        inventoryRepository.deleteAll();
+        stockBalanceRepository.deleteAll();
+        itemRepository.deleteAll();
+    }
+
+    @Test
+    void getAllItems_NotModifiedWithoutQueries() throws Exception {
+        String etag = etagOf("/api/items");
+        assertTrue(etag.startsWith("W/"));
+        statistics.clear();
+
+        mockMvc.perform(get("/api/items").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag));
+
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getSessionOpenCount());
+    }
+
+    @Test
+    void getAllItems_ModifiedAfterOrderChangesStock() throws Exception {
+        String etag = etagOf("/api/items");
+
+        placeOrder();
+
+        mockMvc.perform(get("/api/items").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.content[0].stock").value(8));
+    }
+
+    @Test
+    void getItemById_UnaffectedByStockChange() throws Exception {
+        String etag = etagOf("/api/items/1");
+
+        placeOrder();
+
+        mockMvc.perform(get("/api/items/1").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+
+        mockMvc.perform(post("/api/items").param("id", "1")
+                        .contentType("application/json")
+                        .content("{\"name\":\"Renamed\",\"price\":100}"))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/items/1").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.name").value("Renamed"));
+    }
+
+    @Test
+    void getInventoryById_ModifiedAfterItemChange() throws Exception {
+        String etag = etagOf("/api/inventories/1");
+
+        mockMvc.perform(get("/api/inventories/1").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+
+        ItemDto itemDto = new ItemDto();
+        itemDto.setName("Renamed");
+        itemDto.setPrice(100);
+        itemService.saveItem(1L, itemDto);
+
+        mockMvc.perform(get("/api/inventories/1").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.item.name").value("Renamed"));
+    }
+
+    @Test
+    void getAllOrders_FailedWriteKeepsEtag() throws Exception {
+        String etag = etagOf("/api/orders");
+
+        OrderDto orderDto = new OrderDto();
+        orderDto.setOrderNo("O1");
+        orderDto.setItemId(1L);
+        orderDto.setQty(100);
+        orderDto.setPrice(100);
+        assertThrows(BadRequestException.class, () -> orderService.saveOrder(null, orderDto));
+
+        mockMvc.perform(get("/api/orders").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+
+        placeOrder();
+
+        mockMvc.perform(get("/api/orders").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.content[0].orderNo").value("O2"));
+    }
+
+    private String etagOf(String url) throws Exception {
+        String etag = mockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotNull(etag);
+        return etag;
+    }
+
+    private void placeOrder() {
+        OrderDto orderDto = new OrderDto();
+        orderDto.setOrderNo("O2");
+        orderDto.setItemId(1L);
+        orderDto.setQty(2);
+        orderDto.setPrice(100);
+        orderService.saveOrder(null, orderDto);
+    }
+}
@@ -0,0 +1,153 @@
+package com.obs.example.integration;
+
+import com.obs.example.entity.Inventory;
+import com.obs.example.entity.Item;
+import com.obs.example.entity.Order;
+import com.obs.example.repository.InventoryRepository;
+import com.obs.example.repository.ItemRepository;
+import com.obs.example.repository.OrderRepository;
+import com.obs.example.repository.StockBalanceRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Counts the statements each create runs. A new entity is inserted without the select that
+ * {@code merge} would run first to find out whether its id already exists.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class CreateStatementCountIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private StockBalanceRepository stockBalanceRepository;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        cleanUp();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @AfterEach
+    void cleanUp() {
+        orderRepository.deleteAll();
+        inventoryRepository.deleteAll();
+        stockBalanceRepository.deleteAll();
+        itemRepository.deleteAll();
+    }
+
+    @Test
+    void createItem_InsertsItemAndBalanceOnly() throws Exception {
+        statistics.clear();
+
+        postItem().andExpect(status().isCreated());
+
+        // insert item, insert stock balance
+        assertEquals(2, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityStatistics(Item.class.getName()).getLoadCount());
+        assertEquals(1, statistics.getEntityStatistics(Item.class.getName()).getInsertCount());
+    }
+
+    @Test
+    void createInventory_InsertsWithoutSelect() throws Exception {
+        postItem().andExpect(status().isCreated());
+        statistics.clear();
+
+        postInventory(1L).andExpect(status().isCreated());
+
+        // select item, insert inventory, update stock balance
+        assertEquals(3, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityStatistics(Inventory.class.getName()).getLoadCount());
+        assertEquals(1, statistics.getEntityStatistics(Inventory.class.getName()).getInsertCount());
+    }
+
+    @Test
+    void createOrder_InsertsWithoutSelect() throws Exception {
+        postItem().andExpect(status().isCreated());
+        postInventory(1L).andExpect(status().isCreated());
+        statistics.clear();
+
+        postOrder("O1").andExpect(status().isCreated());
+
+        // archive lookup, select item, read stock, insert order, update stock balance
+        assertEquals(5, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityStatistics(Order.class.getName()).getLoadCount());
+        assertEquals(1, statistics.getEntityStatistics(Order.class.getName()).getInsertCount());
+    }
+
+    @Test
+    void createOrder_DuplicateOrderNo() throws Exception {
+        postItem().andExpect(status().isCreated());
+        postInventory(1L).andExpect(status().isCreated());
+        postOrder("O1").andExpect(status().isCreated());
+
+        postOrder("O1")
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.responseMessage").value("Order already exists with ID: O1"));
+
+        assertEquals(1, orderRepository.count());
+        assertEquals(9, stockBalanceRepository.findQtyByItemId(1L).orElseThrow());
+    }
+
+    @Test
+    void createInventory_DuplicateId() throws Exception {
+        postItem().andExpect(status().isCreated());
+        postInventory(1L).andExpect(status().isCreated());
+
+        postInventory(1L)
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.responseMessage").value("Inventory already exists with ID: 1"));
+
+        assertEquals(10, stockBalanceRepository.findQtyByItemId(1L).orElseThrow());
+    }
+
+    private ResultActions postItem() throws Exception {
+        return mockMvc.perform(post("/api/items")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"id\":1,\"name\":\"Test Item\",\"price\":100}"));
+    }
+
+    private ResultActions postInventory(Long id) throws Exception {
+        return mockMvc.perform(post("/api/inventories")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"id\":" + id + ",\"itemId\":1,\"qty\":10,\"type\":\"T\"}"));
+    }
+
+    private ResultActions postOrder(String orderNo) throws Exception {
+        return mockMvc.perform(post("/api/orders")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"orderNo\":\"" + orderNo + "\",\"itemId\":1,\"qty\":1,\"price\":100}"));
+    }
+}
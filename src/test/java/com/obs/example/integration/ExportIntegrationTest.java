@@ -0,0 +1,213 @@
+package com.obs.example.integration;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.obs.example.constant.InventoryType;
+import com.obs.example.dto.InventoryDto;
+import com.obs.example.dto.ItemDto;
+import com.obs.example.dto.ArchiveReportDto;
+import com.obs.example.dto.OrderDto;
+import com.obs.example.repository.ArchivedOrderRepository;
+import com.obs.example.repository.ArchivedOrderTotalRepository;
+import com.obs.example.repository.CompactionStateRepository;
+import com.obs.example.repository.InventoryRepository;
+import com.obs.example.repository.ItemRepository;
+import com.obs.example.repository.OrderRepository;
+import com.obs.example.repository.StockBalanceRepository;
+import com.obs.example.repository.StockCheckpointRepository;
+import com.obs.example.service.InventoryService;
+import com.obs.example.service.ItemService;
+import com.obs.example.service.OrderArchiveService;
+import com.obs.example.service.OrderService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * The export endpoints stream every row in key order as NDJSON or CSV, compressed when the
+ * client accepts gzip.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ExportIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ItemService itemService;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderArchiveService orderArchiveService;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private StockBalanceRepository stockBalanceRepository;
+
+    @Autowired
+    private ArchivedOrderRepository archivedOrderRepository;
+
+    @Autowired
+    private ArchivedOrderTotalRepository archivedOrderTotalRepository;
+
+    @Autowired
+    private StockCheckpointRepository stockCheckpointRepository;
+
+    @Autowired
+    private CompactionStateRepository compactionStateRepository;
+
+    @BeforeEach
+    void setUp() {
+        cleanUp();
+
+        ItemDto itemDto = new ItemDto();
+        itemDto.setId(1L);
+        itemDto.setName("Test Item");
+        itemDto.setPrice(100);
+        itemService.saveItem(null, itemDto);
+
+        for (long id = 3; id >= 1; id--) {
+            InventoryDto inventoryDto = new InventoryDto();
+            inventoryDto.setId(id);
+            inventoryDto.setItemId(1L);
+            inventoryDto.setQty(10);
+            inventoryDto.setType(InventoryType.T);
+            inventoryService.saveInventory(null, inventoryDto);
+        }
+
+        for (String orderNo : List.of("O3", "O1", "O,\"2\"")) {
+            OrderDto orderDto = new OrderDto();
+            orderDto.setOrderNo(orderNo);
+            orderDto.setItemId(1L);
+            orderDto.setQty(2);
+            orderDto.setPrice(100);
+            orderService.saveOrder(null, orderDto);
+        }
+    }
+
+    @AfterEach
+    void cleanUp() {
+        archivedOrderRepository.deleteAll();
+        archivedOrderTotalRepository.deleteAll();
+        stockCheckpointRepository.deleteAll();
+        compactionStateRepository.deleteAll();
+        orderRepository.deleteAll();
+        inventoryRepository.deleteAll();
+        stockBalanceRepository.deleteAll();
+        itemRepository.deleteAll();
+    }
+
+    @Test
+    void exportOrders_NdjsonOneRowPerLine() throws Exception {
+        MockHttpServletResponse response = export(get("/api/orders/export"));
+
+        assertEquals("application/x-ndjson", response.getContentType());
+        assertNull(response.getHeader(HttpHeaders.CONTENT_ENCODING));
+        List<JsonNode> rows = response.getContentAsString().lines().map(this::readTree).toList();
+        assertEquals(List.of("O,\"2\"", "O1", "O3"), rows.stream().map(row -> row.get("orderNo").asText()).toList());
+        assertEquals(2, rows.get(0).get("qty").asInt());
+        assertEquals(100, rows.get(0).get("price").asInt());
+        assertEquals(1, rows.get(0).get("itemId").asLong());
+        assertTrue(rows.get(0).get("createdAt").isTextual());
+        assertNull(response.getHeader("X-Archive-Cutoff"));
+    }
+
+    @Test
+    void exportOrders_ArchivedOrdersLeaveWithCutoffHeader() throws Exception {
+        ArchiveReportDto report = orderArchiveService.archive(0);
+
+        MockHttpServletResponse response = export(get("/api/orders/export"));
+
+        assertEquals(3, report.getArchivedOrders());
+        assertEquals(report.getCutoff().toString(), response.getHeader("X-Archive-Cutoff"));
+        assertEquals("", response.getContentAsString());
+    }
+
+    @Test
+    void exportOrders_CsvQuotesSpecialCharacters() throws Exception {
+        MockHttpServletResponse response = export(get("/api/orders/export").param("format", "csv"));
+
+        assertEquals("text/csv", response.getContentType());
+        assertTrue(response.getHeader(HttpHeaders.CONTENT_DISPOSITION).contains("orders.csv"));
+        List<String> lines = response.getContentAsString().lines().toList();
+        assertEquals("orderNo,qty,price,itemId,createdAt", lines.get(0));
+        assertTrue(lines.get(1).startsWith("\"O,\"\"2\"\"\",2,100,1,"));
+        assertEquals(4, lines.size());
+    }
+
+    @Test
+    void exportInventories_GzipWhenAccepted() throws Exception {
+        MockHttpServletResponse response = export(get("/api/inventories/export")
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate"));
+
+        assertEquals("gzip", response.getHeader(HttpHeaders.CONTENT_ENCODING));
+        String body;
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(response.getContentAsByteArray()))) {
+            body = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        List<JsonNode> rows = body.lines().map(this::readTree).toList();
+        assertEquals(List.of(1L, 2L, 3L), rows.stream().map(row -> row.get("id").asLong()).toList());
+        assertEquals("T", rows.get(0).get("type").asText());
+    }
+
+    @Test
+    void exportOrders_UnknownFormat() throws Exception {
+        mockMvc.perform(get("/api/orders/export").param("format", "xml"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.responseCode").value("BAD_REQUEST"));
+    }
+
+    private MockHttpServletResponse export(MockHttpServletRequestBuilder request) throws Exception {
+        MvcResult result = mockMvc.perform(request)
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andReturn().getResponse();
+    }
+
+    private JsonNode readTree(String line) {
+        try {
+            return objectMapper.readTree(line);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.obs.example.integration;
+
+import com.obs.example.constant.InventoryType;
+import com.obs.example.dto.InventoryDto;
+import com.obs.example.dto.ItemDto;
+import com.obs.example.dto.OrderDto;
+import com.obs.example.entity.Order;
+import com.obs.example.repository.InventoryRepository;
+import com.obs.example.repository.ItemRepository;
+import com.obs.example.repository.OrderRepository;
+import com.obs.example.repository.StockBalanceRepository;
+import com.obs.example.service.InventoryService;
+import com.obs.example.service.ItemService;
+import com.obs.example.service.OrderService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.LazyInitializationException;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Detail endpoints load what they serialize through their entity graph in the service's own
+ * session. Any lazy load after that, for example while the response is written, would have to
+ * open another session, which these tests count and forbid.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class FetchPlanIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private ItemService itemService;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private StockBalanceRepository stockBalanceRepository;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        cleanUp();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        ItemDto itemDto = new ItemDto();
+        itemDto.setId(1L);
+        itemDto.setName("Test Item");
+        itemDto.setPrice(100);
+        itemService.saveItem(null, itemDto);
+
+        InventoryDto inventoryDto = new InventoryDto();
+        inventoryDto.setId(1L);
+        inventoryDto.setItemId(1L);
+        inventoryDto.setQty(10);
+        inventoryDto.setType(InventoryType.T);
+        inventoryService.saveInventory(null, inventoryDto);
+
+        OrderDto orderDto = new OrderDto();
+        orderDto.setOrderNo("O1");
+        orderDto.setItemId(1L);
+        orderDto.setQty(2);
+        orderDto.setPrice(100);
+        orderService.saveOrder(null, orderDto);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        orderRepository.deleteAll();
+        inventoryRepository.deleteAll();
+        stockBalanceRepository.deleteAll();
+        itemRepository.deleteAll();
+    }
+
+    @Test
+    void getInventoryById_OneSessionOneStatement() throws Exception {
+        statistics.clear();
+
+        mockMvc.perform(get("/api/inventories/1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.qty").value(10))
+                .andExpect(jsonPath("$.data.item.name").value("Test Item"));
+
+        assertEquals(1, statistics.getSessionOpenCount());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void getOrderById_OneSessionOneStatement() throws Exception {
+        statistics.clear();
+
+        mockMvc.perform(get("/api/orders/O1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.orderNo").value("O1"))
+                .andExpect(jsonPath("$.data.item.price").value(100));
+
+        assertEquals(1, statistics.getSessionOpenCount());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void getItemById_OneSession() throws Exception {
+        statistics.clear();
+
+        mockMvc.perform(get("/api/items/1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.name").value("Test Item"));
+
+        assertEquals(1, statistics.getSessionOpenCount());
+    }
+
+    @Test
+    void lazyItemOutsideTransaction_DoesNotOpenSession() {
+        Order order = orderRepository.findById("O1").orElseThrow();
+        statistics.clear();
+
+        assertThrows(LazyInitializationException.class, () -> order.getItem().getName());
+        assertEquals(0, statistics.getSessionOpenCount());
+    }
+}
@@ -0,0 +1,15 @@
+package com.obs.example.integration;
+
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * Runs the group commit tests with stock admission from the in-memory index, which only sees a
+ * group's writes once the group has committed.
+ */
+@SpringBootTest(properties = {"obs.write.group-commit.enabled=true", "obs.write.group-commit.window=200ms",
+        "obs.stock.index.enabled=true"})
+@ActiveProfiles("test")
+class GroupCommitIndexIntegrationTest extends GroupCommitIntegrationTest {
+
+}
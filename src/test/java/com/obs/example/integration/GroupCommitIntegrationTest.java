@@ -0,0 +1,173 @@
+package com.obs.example.integration;
+
+import com.obs.example.constant.InventoryType;
+import com.obs.example.dto.InventoryDto;
+import com.obs.example.dto.ItemDto;
+import com.obs.example.dto.OrderDto;
+import com.obs.example.exception.BadRequestException;
+import com.obs.example.repository.InventoryRepository;
+import com.obs.example.repository.ItemRepository;
+import com.obs.example.repository.OrderRepository;
+import com.obs.example.repository.StockBalanceRepository;
+import com.obs.example.repository.StockCheckpointRepository;
+import com.obs.example.service.InventoryService;
+import com.obs.example.service.ItemService;
+import com.obs.example.service.OrderService;
+import com.obs.example.service.StockService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {"obs.write.group-commit.enabled=true", "obs.write.group-commit.window=200ms"})
+@ActiveProfiles("test")
+class GroupCommitIntegrationTest {
+
+    private static final int CLIENTS = 16;
+
+    @Autowired
+    private ItemService itemService;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private StockService stockService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private StockBalanceRepository stockBalanceRepository;
+
+    @Autowired
+    private StockCheckpointRepository stockCheckpointRepository;
+
+    @BeforeEach
+    void setUp() {
+        cleanUp();
+
+        ItemDto itemDto = new ItemDto();
+        itemDto.setId(1L);
+        itemDto.setName("Test Item");
+        itemDto.setPrice(100);
+        itemService.saveItem(null, itemDto);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        stockCheckpointRepository.deleteAll();
+        orderRepository.deleteAll();
+        inventoryRepository.deleteAll();
+        stockBalanceRepository.deleteAll();
+        itemRepository.deleteAll();
+        stockService.warmUpIndex();
+    }
+
+    @Test
+    void saveOrder_FailingRequestDoesNotFailBatchMates() throws Exception {
+        saveInventory(100);
+        double groupsBefore = meterRegistry.get("obs.write.group.size").summary().count();
+
+        List<Future<?>> results = placeConcurrently(i -> order("O" + i, 1, i == 7 ? 99 : 100));
+
+        for (int i = 0; i < CLIENTS; i++) {
+            if (i == 7) {
+                ExecutionException failure = assertThrows(ExecutionException.class, results.get(i)::get);
+                assertInstanceOf(BadRequestException.class, failure.getCause());
+                assertEquals("Invalid price for order for item: 1", failure.getCause().getMessage());
+            } else {
+                results.get(i).get();
+            }
+        }
+
+        assertEquals(CLIENTS - 1, orderRepository.count());
+        assertFalse(orderRepository.existsById("O7"));
+        assertEquals(100 - (CLIENTS - 1), stockService.getStock(1L));
+        assertEquals(100 - (CLIENTS - 1), stockService.recomputeStocks(List.of(1L)).get(1L));
+        assertTrue(meterRegistry.get("obs.write.group.size").summary().max() > 1);
+        assertTrue(meterRegistry.get("obs.write.group.size").summary().count() - groupsBefore < CLIENTS - 1);
+    }
+
+    @Test
+    void saveOrder_InsufficientStockFailsOnlyTheLateOrders() throws Exception {
+        saveInventory(5);
+
+        List<Future<?>> results = placeConcurrently(i -> order("O" + i, 1, 100));
+
+        int failures = 0;
+        for (Future<?> result : results) {
+            try {
+                result.get();
+            } catch (ExecutionException e) {
+                assertInstanceOf(BadRequestException.class, e.getCause());
+                failures++;
+            }
+        }
+
+        assertEquals(CLIENTS - 5, failures);
+        assertEquals(5, orderRepository.count());
+        assertEquals(0, stockService.getStock(1L));
+        assertEquals(0, stockBalanceRepository.findQtyByItemId(1L).orElseThrow());
+    }
+
+    private List<Future<?>> placeConcurrently(IntFunction<OrderDto> orders) throws InterruptedException {
+        ExecutorService clients = Executors.newFixedThreadPool(CLIENTS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> results = new ArrayList<>();
+        for (int i = 0; i < CLIENTS; i++) {
+            OrderDto orderDto = orders.apply(i);
+            results.add(clients.submit(() -> {
+                start.await();
+                return orderService.saveOrder(null, orderDto);
+            }));
+        }
+        start.countDown();
+        clients.shutdown();
+        return results;
+    }
+
+    private void saveInventory(int qty) {
+        InventoryDto inventoryDto = new InventoryDto();
+        inventoryDto.setId(1L);
+        inventoryDto.setItemId(1L);
+        inventoryDto.setQty(qty);
+        inventoryDto.setType(InventoryType.T);
+        inventoryService.saveInventory(null, inventoryDto);
+    }
+
+    private static OrderDto order(String orderNo, int qty, int price) {
+        OrderDto orderDto = new OrderDto();
+        orderDto.setOrderNo(orderNo);
+        orderDto.setItemId(1L);
+        orderDto.setQty(qty);
+        orderDto.setPrice(price);
+        return orderDto;
+    }
+}
@@ -0,0 +1,205 @@
+package com.obs.example.integration;
+
+import com.obs.example.constant.InventoryType;
+import com.obs.example.dto.CompactionReportDto;
+import com.obs.example.dto.InventoryDto;
+import com.obs.example.dto.ItemDto;
+import com.obs.example.dto.OrderDto;
+import com.obs.example.entity.Inventory;
+import com.obs.example.exception.BadRequestException;
+import com.obs.example.repository.CompactionStateRepository;
+import com.obs.example.repository.InventoryRepository;
+import com.obs.example.repository.ItemRepository;
+import com.obs.example.repository.OrderRepository;
+import com.obs.example.repository.StockBalanceRepository;
+import com.obs.example.repository.StockCheckpointRepository;
+import com.obs.example.service.InventoryCompactionService;
+import com.obs.example.service.InventoryService;
+import com.obs.example.service.ItemService;
+import com.obs.example.service.OrderService;
+import com.obs.example.service.StockCheckpointService;
+import com.obs.example.service.StockService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class InventoryCompactionIntegrationTest {
+
+    @Autowired
+    private InventoryCompactionService inventoryCompactionService;
+
+    @Autowired
+    private ItemService itemService;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private StockService stockService;
+
+    @Autowired
+    private StockCheckpointService stockCheckpointService;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private StockBalanceRepository stockBalanceRepository;
+
+    @Autowired
+    private StockCheckpointRepository stockCheckpointRepository;
+
+    @Autowired
+    private CompactionStateRepository compactionStateRepository;
+
+    @BeforeEach
+    void setUp() {
+        cleanUp();
+
+        for (long itemId = 1; itemId <= 2; itemId++) {
+            ItemDto itemDto = new ItemDto();
+            itemDto.setId(itemId);
+            itemDto.setName("Item " + itemId);
+            itemDto.setPrice(100);
+            itemService.saveItem(null, itemDto);
+        }
+
+        // item 1: 20 top-ups of 5 and 10 withdrawals of 3, item 2: a single top-up
+        for (long id = 1; id <= 30; id++) {
+            saveInventory(id, 1L, id <= 20 ? 5 : 3, id <= 20 ? InventoryType.T : InventoryType.W);
+        }
+        saveInventory(31L, 2L, 7, InventoryType.T);
+
+        OrderDto orderDto = new OrderDto();
+        orderDto.setOrderNo("O1");
+        orderDto.setItemId(1L);
+        orderDto.setQty(10);
+        orderDto.setPrice(100);
+        orderService.saveOrder(null, orderDto);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        stockCheckpointRepository.deleteAll();
+        compactionStateRepository.deleteAll();
+        orderRepository.deleteAll();
+        inventoryRepository.deleteAll();
+        stockBalanceRepository.deleteAll();
+        itemRepository.deleteAll();
+    }
+
+    @Test
+    void compact_FoldsSettledMovementsIntoOpeningRow() {
+        Instant horizon = Instant.now();
+        saveInventory(40L, 1L, 4, InventoryType.T);
+
+        CompactionReportDto report = inventoryCompactionService.compact(horizon);
+
+        assertEquals(1, report.getCompactedItems());
+        assertEquals(32, report.getRowsBefore());
+        assertEquals(3, report.getRowsAfter());
+
+        List<Inventory> remaining = inventoryRepository.findByItemId(1L);
+        assertEquals(2, remaining.size());
+        Inventory opening = inventoryRepository.findById(1L).orElseThrow();
+        assertEquals(InventoryType.T, opening.getType());
+        assertEquals(70, opening.getQty());
+        assertTrue(inventoryRepository.existsById(40L));
+
+        assertEquals(64, stockService.getStock(1L));
+        assertEquals(Map.of(1L, 64, 2L, 7), stockService.recomputeStocks(List.of(1L, 2L)));
+    }
+
+    @Test
+    void compact_IsIdempotent() {
+        Instant horizon = Instant.now();
+        inventoryCompactionService.compact(horizon);
+
+        CompactionReportDto report = inventoryCompactionService.compact(horizon);
+
+        assertEquals(0, report.getCompactedItems());
+        assertEquals(report.getRowsBefore(), report.getRowsAfter());
+        assertEquals(60, stockService.getStock(1L));
+    }
+
+    @Test
+    void compact_ConcurrentWritesKeepStockConsistent() {
+        Instant horizon = Instant.now();
+
+        CompletableFuture<Void> writer = CompletableFuture.runAsync(() -> {
+            for (long id = 100; id < 120; id++) {
+                saveInventory(id, 1L, 1, InventoryType.T);
+            }
+        });
+        inventoryCompactionService.compact(horizon);
+        writer.join();
+
+        assertEquals(80, stockService.getStock(1L));
+        assertEquals(80, stockService.recomputeStocks(List.of(1L)).get(1L));
+    }
+
+    @Test
+    void compact_RefusesStockAsOfBeforeHorizon() {
+        Instant horizon = Instant.now();
+        inventoryCompactionService.compact(horizon);
+
+        assertThrows(BadRequestException.class, () ->
+                stockCheckpointService.getStockAsOf(1L, horizon.minusSeconds(1))
+        );
+        assertEquals(60, stockCheckpointService.getStockAsOf(1L, horizon).getStock());
+    }
+
+    @Test
+    void compact_EditDuringFoldKeepsStockConsistent() {
+        Instant horizon = Instant.now();
+
+        CompletableFuture<Void> editor = CompletableFuture.runAsync(() -> {
+            for (long id = 2; id <= 20; id++) {
+                try {
+                    saveInventory(id, 1L, 6, InventoryType.T, true);
+                } catch (RuntimeException e) {
+                    // the row was already folded away
+                }
+            }
+        });
+        inventoryCompactionService.compact(horizon);
+        editor.join();
+
+        int recomputed = stockService.recomputeStocks(List.of(1L)).get(1L);
+        assertEquals(recomputed, stockService.getStock(1L));
+    }
+
+    private void saveInventory(Long id, Long itemId, int qty, InventoryType type) {
+        saveInventory(id, itemId, qty, type, false);
+    }
+
+    private void saveInventory(Long id, Long itemId, int qty, InventoryType type, boolean update) {
+        InventoryDto inventoryDto = new InventoryDto();
+        inventoryDto.setId(id);
+        inventoryDto.setItemId(itemId);
+        inventoryDto.setQty(qty);
+        inventoryDto.setType(type);
+        inventoryService.saveInventory(update ? id : null, inventoryDto);
+    }
+}
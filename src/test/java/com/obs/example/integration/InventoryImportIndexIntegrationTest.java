@@ -0,0 +1,139 @@
+package com.obs.example.integration;
+
+import com.obs.example.constant.InventoryType;
+import com.obs.example.dto.ImportReportDto;
+import com.obs.example.dto.InventoryDto;
+import com.obs.example.dto.OrderDto;
+import com.obs.example.exception.BadRequestException;
+import com.obs.example.repository.InventoryRepository;
+import com.obs.example.repository.OrderRepository;
+import com.obs.example.service.InventoryImportService;
+import com.obs.example.service.InventoryService;
+import com.obs.example.service.MovementWriteService;
+import com.obs.example.service.OrderService;
+import com.obs.example.service.StockService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the import tests with single orders journaled behind the stock index and writes on the
+ * stock engine, where imported withdrawals must be taken from the same counters as journaled
+ * orders.
+ */
+@SpringBootTest(properties = {"obs.inventory.import.batch-size=2", "obs.write.mode=write-behind",
+        "obs.stock.index.enabled=true", "obs.stock.engine.enabled=true"})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class InventoryImportIndexIntegrationTest extends InventoryImportIntegrationTest {
+
+    private static final int ORDERS = 10;
+
+    @Autowired
+    private MovementWriteService movementWriteService;
+
+    @Autowired
+    private InventoryImportService inventoryImportService;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private StockService stockService;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Override
+    @AfterEach
+    void cleanUp() {
+        movementWriteService.awaitApplied();
+        super.cleanUp();
+        stockService.warmUpIndex();
+    }
+
+    @Test
+    void importWithdrawals_RacingJournaledOrders_DoesNotOversell() throws Exception {
+        InventoryDto topUp = new InventoryDto();
+        topUp.setId(1L);
+        topUp.setItemId(1L);
+        topUp.setQty(ORDERS);
+        topUp.setType(InventoryType.T);
+        inventoryService.saveInventory(null, topUp);
+        movementWriteService.awaitApplied();
+
+        String body = IntStream.range(0, ORDERS)
+                .mapToObj(i -> "{\"itemId\": 1, \"qty\": 1, \"type\": \"W\"}")
+                .collect(Collectors.joining("\n"));
+
+        ExecutorService clients = Executors.newFixedThreadPool(ORDERS + 1);
+        CountDownLatch start = new CountDownLatch(1);
+        Future<ImportReportDto> imported = clients.submit(() -> {
+            start.await();
+            return inventoryImportService.importInventories(
+                    new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), false);
+        });
+        List<Future<Boolean>> orders = new ArrayList<>();
+        for (int i = 0; i < ORDERS; i++) {
+            String orderNo = "O" + i;
+            orders.add(clients.submit(() -> {
+                start.await();
+                try {
+                    orderService.saveOrder(null, order(orderNo));
+                    return true;
+                } catch (BadRequestException e) {
+                    return false;
+                }
+            }));
+        }
+        start.countDown();
+        clients.shutdown();
+
+        int placed = 0;
+        for (Future<Boolean> order : orders) {
+            if (order.get()) {
+                placed++;
+            }
+        }
+        ImportReportDto report = imported.get();
+        movementWriteService.awaitApplied();
+
+        assertEquals(ORDERS, placed + report.getImported());
+        assertEquals(ORDERS, report.getImported() + report.getRejected());
+        assertEquals(placed, orderRepository.count());
+        assertEquals(1 + report.getImported(), inventoryRepository.count());
+        assertEquals(0, stockService.getStock(1L));
+        assertEquals(0, stockService.recomputeStocks(List.of(1L)).get(1L));
+    }
+
+    private static OrderDto order(String orderNo) {
+        OrderDto orderDto = new OrderDto();
+        orderDto.setOrderNo(orderNo);
+        orderDto.setItemId(1L);
+        orderDto.setQty(1);
+        orderDto.setPrice(100);
+        return orderDto;
+    }
+}
@@ -0,0 +1,199 @@
+package com.obs.example.integration;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.obs.example.dto.ImportReportDto;
+import com.obs.example.dto.ItemDto;
+import com.obs.example.repository.InventoryRepository;
+import com.obs.example.repository.ItemRepository;
+import com.obs.example.repository.OrderRepository;
+import com.obs.example.repository.StockBalanceRepository;
+import com.obs.example.service.InventoryImportService;
+import com.obs.example.service.InventoryService;
+import com.obs.example.service.ItemService;
+import com.obs.example.service.StockService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Bulk imports insert every valid line in JDBC batches, move the stock balances with them and
+ * report every rejected line by number. Batches are kept small here so that a body spans several.
+ */
+@SpringBootTest(properties = "obs.inventory.import.batch-size=2")
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class InventoryImportIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ItemService itemService;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private InventoryImportService inventoryImportService;
+
+    @Autowired
+    private StockService stockService;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private StockBalanceRepository stockBalanceRepository;
+
+    @BeforeEach
+    void setUp() {
+        cleanUp();
+
+        for (long id = 1; id <= 2; id++) {
+            ItemDto itemDto = new ItemDto();
+            itemDto.setId(id);
+            itemDto.setName("Item " + id);
+            itemDto.setPrice(100);
+            itemService.saveItem(null, itemDto);
+        }
+    }
+
+    @AfterEach
+    void cleanUp() {
+        orderRepository.deleteAll();
+        inventoryRepository.deleteAll();
+        stockBalanceRepository.deleteAll();
+        itemRepository.deleteAll();
+    }
+
+    @Test
+    void importNdjson_ValidLinesImportedAndErrorsReported() throws Exception {
+        String body = String.join("\n",
+                "{\"id\": 10, \"itemId\": 1, \"qty\": 10, \"type\": \"T\"}",
+                "{\"itemId\": 1, \"qty\": 4, \"type\": \"W\"}",
+                "",
+                "{\"itemId\": 1, \"qty\": 20, \"type\": \"W\"}",
+                "{\"itemId\": 99, \"qty\": 1, \"type\": \"T\"}",
+                "{\"itemId\": 2, \"qty\": 5",
+                "{\"id\": 10, \"itemId\": 2, \"qty\": 5, \"type\": \"T\"}",
+                "{\"itemId\": 2, \"qty\": 7, \"type\": \"T\"}");
+
+        JsonNode report = importBody(body, "application/x-ndjson");
+
+        assertEquals(7, report.get("received").asInt());
+        assertEquals(3, report.get("imported").asInt());
+        assertEquals(4, report.get("rejected").asInt());
+        assertEquals(Map.of(
+                4, "Insufficient stock for withdrawal item with id 1 stock = 6",
+                5, "Item not found with ID: 99",
+                7, "Inventory already exists with ID: 10"), errors(report, 6));
+        assertTrue(report.get("errors").get(2).get("message").asText().startsWith("Invalid JSON"));
+        assertEquals(6, stockService.getStock(1L));
+        assertEquals(7, stockService.getStock(2L));
+        assertEquals(6, stockService.recomputeStocks(List.of(1L)).get(1L));
+        assertEquals(3, inventoryRepository.count());
+    }
+
+    @Test
+    void importCsv_HeaderInAnyOrder() throws Exception {
+        String body = String.join("\r\n",
+                "type,qty,\"itemId\",id",
+                "T,5,1,",
+                "T,3,2,21",
+                "W,2,1,",
+                "X,1,1,",
+                "W,9,2,");
+
+        JsonNode report = importBody(body, "text/csv");
+
+        assertEquals(5, report.get("received").asInt());
+        assertEquals(3, report.get("imported").asInt());
+        assertEquals(2, report.get("batches").asInt());
+        assertEquals(List.of(5, 6), report.get("errors").findValues("line").stream().map(JsonNode::asInt).toList());
+        assertEquals(3, stockService.getStock(1L));
+        assertEquals(3, inventoryService.getItemStock(2L));
+        assertEquals(2L, inventoryService.getInventoryById(21L).getItem().getId());
+    }
+
+    @Test
+    void importCsv_MissingColumn() throws Exception {
+        mockMvc.perform(post("/api/inventories/import").contentType("text/csv").content("itemId,qty\n1,5"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.responseCode").value("400"));
+    }
+
+    @Test
+    void importNdjson_ConcurrentImportsOfSameIds_RejectedPerLine() {
+        CompletableFuture<ImportReportDto> first = CompletableFuture.supplyAsync(() -> importTopUps(1L));
+        CompletableFuture<ImportReportDto> second = CompletableFuture.supplyAsync(() -> importTopUps(2L));
+        ImportReportDto firstReport = first.join();
+        ImportReportDto secondReport = second.join();
+
+        assertEquals(100, firstReport.getImported() + secondReport.getImported());
+        assertEquals(100, firstReport.getRejected() + secondReport.getRejected());
+        assertTrue(Stream.concat(firstReport.getErrors().stream(), secondReport.getErrors().stream())
+                .allMatch(error -> error.getMessage().startsWith("Inventory already exists with ID: ")));
+        assertEquals(100, inventoryRepository.count());
+        assertEquals(100, stockService.getStock(1L) + stockService.getStock(2L));
+    }
+
+    ImportReportDto importTopUps(Long itemId) {
+        String body = LongStream.range(1000, 1100)
+                .mapToObj(id -> "{\"id\": " + id + ", \"itemId\": " + itemId + ", \"qty\": 1, \"type\": \"T\"}")
+                .collect(Collectors.joining("\n"));
+        try {
+            return inventoryImportService.importInventories(
+                    new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), false);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private JsonNode importBody(String body, String contentType) throws Exception {
+        String response = mockMvc.perform(post("/api/inventories/import").contentType(contentType).content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.responseCode").value("00"))
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(response).get("data");
+    }
+
+    private static Map<Integer, String> errors(JsonNode report, int skippedLine) {
+        Map<Integer, String> errors = new HashMap<>();
+        report.get("errors").forEach(error -> {
+            if (error.get("line").asInt() != skippedLine) {
+                errors.put(error.get("line").asInt(), error.get("message").asText());
+            }
+        });
+        return errors;
+    }
+}
@@ -0,0 +1,149 @@
+package com.obs.example.integration;
+
+import com.obs.example.constant.InventoryType;
+import com.obs.example.dto.InventoryDto;
+import com.obs.example.dto.ItemDto;
+import com.obs.example.dto.OrderDto;
+import com.obs.example.entity.Item;
+import com.obs.example.exception.BadRequestException;
+import com.obs.example.exception.ResourceNotFoundException;
+import com.obs.example.repository.InventoryRepository;
+import com.obs.example.repository.ItemRepository;
+import com.obs.example.repository.OrderRepository;
+import com.obs.example.repository.StockBalanceRepository;
+import com.obs.example.service.InventoryService;
+import com.obs.example.service.ItemService;
+import com.obs.example.service.OrderService;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Orders for an item already in the catalog cache validate price and stock without reading the
+ * item row, and item updates and deletes are visible to the next read. The test profile turns
+ * the cache off, so it is switched back on here.
+ */
+@SpringBootTest(properties = "obs.item.cache.enabled=true")
+@ActiveProfiles("test")
+class ItemCacheIntegrationTest {
+
+    @Autowired
+    private ItemService itemService;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private StockBalanceRepository stockBalanceRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        itemService.saveItem(null, item(100));
+        InventoryDto inventoryDto = new InventoryDto();
+        inventoryDto.setId(1L);
+        inventoryDto.setItemId(1L);
+        inventoryDto.setQty(100);
+        inventoryDto.setType(InventoryType.T);
+        inventoryService.saveInventory(null, inventoryDto);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        orderRepository.deleteAll();
+        inventoryRepository.deleteAll();
+        stockBalanceRepository.deleteAll();
+        if (itemRepository.existsById(1L)) {
+            itemService.deleteItem(1L);
+        }
+    }
+
+    @Test
+    void saveOrder_HotItemIsNotReadAgain() {
+        double hitsBefore = meterRegistry.get("cache.gets").tag("cache", "items").tag("result", "hit")
+                .functionCounter().count();
+        statistics.clear();
+
+        for (int i = 0; i < 5; i++) {
+            orderService.saveOrder(null, order("O" + i, 100));
+        }
+
+        assertEquals(0, statistics.getEntityStatistics(Item.class.getName()).getLoadCount());
+        assertEquals(5, orderRepository.count());
+        assertEquals(5, meterRegistry.get("cache.gets").tag("cache", "items").tag("result", "hit")
+                .functionCounter().count() - hitsBefore);
+        assertNotNull(meterRegistry.get("cache.evictions").tag("cache", "items").functionCounter());
+    }
+
+    @Test
+    void saveItem_PriceChangeIsSeenByNextOrder() {
+        orderService.saveOrder(null, order("O1", 100));
+
+        ItemDto updated = item(150);
+        itemService.saveItem(1L, updated);
+
+        BadRequestException exception = assertThrows(BadRequestException.class, () ->
+                orderService.saveOrder(null, order("O2", 100)));
+        assertEquals("Invalid price for order for item: 1", exception.getMessage());
+        assertEquals(150, itemService.getItemById(1L).getPrice());
+        orderService.saveOrder(null, order("O3", 150));
+    }
+
+    @Test
+    void deleteItem_RemovesCachedItem() {
+        assertEquals(100, itemService.getItemById(1L).getPrice());
+        inventoryRepository.deleteAll();
+        stockBalanceRepository.deleteAll();
+
+        itemService.deleteItem(1L);
+
+        assertThrows(ResourceNotFoundException.class, () -> itemService.getItemById(1L));
+    }
+
+    private static ItemDto item(int price) {
+        ItemDto itemDto = new ItemDto();
+        itemDto.setId(1L);
+        itemDto.setName("Test Item");
+        itemDto.setPrice(price);
+        return itemDto;
+    }
+
+    private static OrderDto order(String orderNo, int price) {
+        OrderDto orderDto = new OrderDto();
+        orderDto.setOrderNo(orderNo);
+        orderDto.setItemId(1L);
+        orderDto.setQty(1);
+        orderDto.setPrice(price);
+        return orderDto;
+    }
+}
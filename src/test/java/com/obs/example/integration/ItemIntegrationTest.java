@@ -1,9 +1,16 @@
 package com.obs.example.integration;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.obs.example.constant.InventoryType;
 import com.obs.example.dto.ItemDto;
+import com.obs.example.entity.Inventory;
 import com.obs.example.entity.Item;
+import com.obs.example.repository.InventoryRepository;
 import com.obs.example.repository.ItemRepository;
+import com.obs.example.service.StockService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -17,6 +24,7 @@ import org.springframework.transaction.annotation.Transactional;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 
 @SpringBootTest
 @AutoConfigureMockMvc
@@ -33,6 +41,15 @@ class ItemIntegrationTest {
     @Autowired
     private ItemRepository itemRepository;
 
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private StockService stockService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
     private Item testItem;
     private ItemDto testItemDto;
 
@@ -110,4 +127,47 @@ class ItemIntegrationTest {
         mockMvc.perform(get("/api/items/{id}", savedItem.getId()))
                 .andExpect(status().isNotFound());
     }
-}
\ No newline at end of file
+
+    @Test
+    void getAllItems_StatementCountIndependentOfPageSize() throws Exception {
+        for (long id = 1; id <= 30; id++) {
+            Item item = new Item();
+            item.setId(id);
+            item.setName("Item " + id);
+            item.setPrice(100);
+            itemRepository.save(item);
+
+            Inventory inventory = new Inventory();
+            inventory.setId(id);
+            inventory.setItem(item);
+            inventory.setQty(10);
+            inventory.setType(InventoryType.T);
+            inventoryRepository.save(inventory);
+
+            // half of the items already have a balance row, the other half fall back to the history
+            if (id % 2 == 0) {
+                stockService.adjustStock(id, 10);
+            }
+        }
+        itemRepository.flush();
+
+        long smallPageStatements = countStatementsForItemPage(5);
+        long largePageStatements = countStatementsForItemPage(25);
+
+        assertEquals(smallPageStatements, largePageStatements);
+    }
+
+    private long countStatementsForItemPage(int size) throws Exception {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        mockMvc.perform(get("/api/items")
+                        .param("page", "0")
+                        .param("size", String.valueOf(size)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.content", hasSize(size)))
+                .andExpect(jsonPath("$.data.content[*].stock", everyItem(is(10))));
+
+        return statistics.getPrepareStatementCount();
+    }
+}
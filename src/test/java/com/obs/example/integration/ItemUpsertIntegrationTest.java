@@ -0,0 +1,186 @@
+package com.obs.example.integration;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.obs.example.dto.ItemDto;
+import com.obs.example.entity.StockBalance;
+import com.obs.example.repository.ItemRepository;
+import com.obs.example.repository.StockBalanceRepository;
+import com.obs.example.service.ChangeVersions;
+import com.obs.example.service.ItemService;
+import com.obs.example.service.StockService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Bulk upserts tell inserted, updated and unchanged items apart, create the balances of new items
+ * and are seen through the item cache, which the test profile turns off and is switched back on
+ * here. Batches are kept small so that a body spans several.
+ */
+@SpringBootTest(properties = {"obs.item.cache.enabled=true", "obs.item.upsert.batch-size=2"})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ItemUpsertIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ItemService itemService;
+
+    @Autowired
+    private StockService stockService;
+
+    @Autowired
+    private ChangeVersions changeVersions;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private StockBalanceRepository stockBalanceRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        cleanUp();
+
+        itemService.saveItem(null, item(1L, "A", 100));
+        itemService.saveItem(null, item(2L, "B", 100));
+    }
+
+    @AfterEach
+    void cleanUp() {
+        // deleted through the service, so that the item cache forgets them too
+        itemRepository.findAll().forEach(item -> itemService.deleteItem(item.getId()));
+    }
+
+    @Test
+    void upsertItems_CountsEveryLineOnce() throws Exception {
+        assertEquals(100, itemService.getItemById(2L).getPrice());
+        long version = changeVersions.get(ChangeVersions.Table.ITEMS);
+
+        JsonNode report = upsert(String.join("\n",
+                "{\"id\": 1, \"name\": \"A\", \"price\": 100}",
+                "{\"id\": 2, \"name\": \"B2\", \"price\": 150}",
+                "{\"id\": 3, \"name\": \"C\", \"price\": 10}",
+                "{\"id\": 4, \"name\": \"\", \"price\": 5}",
+                "{\"id\": 5, \"name\": ",
+                "{\"id\": 3, \"name\": \"C\", \"price\": 20}"));
+
+        assertEquals(6, report.get("received").asInt());
+        assertEquals(1, report.get("inserted").asInt());
+        assertEquals(2, report.get("updated").asInt());
+        assertEquals(1, report.get("unchanged").asInt());
+        assertEquals(2, report.get("rejected").asInt());
+        assertEquals(4, report.get("errors").get(0).get("line").asInt());
+        assertEquals("Name is mandatory", report.get("errors").get(0).get("message").asText());
+        assertEquals(5, report.get("errors").get(1).get("line").asInt());
+
+        assertEquals("B2", itemService.getItemById(2L).getName());
+        assertEquals(150, itemService.getItemById(2L).getPrice());
+        assertEquals(20, itemService.getItemById(3L).getPrice());
+        assertTrue(stockBalanceRepository.existsById(3L));
+        assertEquals(0, stockService.getStock(3L));
+        assertEquals(3, itemRepository.count());
+        assertTrue(changeVersions.get(ChangeVersions.Table.ITEMS) > version);
+    }
+
+    @Test
+    void upsertItems_UnchangedWritesNothing() throws Exception {
+        long version = changeVersions.get(ChangeVersions.Table.ITEMS);
+
+        JsonNode report = upsert("{\"id\": 1, \"name\": \"A\", \"price\": 100}\n{\"id\": 2, \"name\": \"B\", \"price\": 100}\n");
+
+        assertEquals(2, report.get("unchanged").asInt());
+        assertEquals(0, report.get("inserted").asInt() + report.get("updated").asInt());
+        assertEquals(version, changeVersions.get(ChangeVersions.Table.ITEMS));
+    }
+
+    @Test
+    void upsertItems_BalanceCreatedConcurrently_IsKept() throws Exception {
+        // another writer has created the item's balance row between the lookup and the insert
+        StockBalance balance = new StockBalance();
+        balance.setItemId(9L);
+        balance.setQty(4);
+        stockBalanceRepository.save(balance);
+
+        JsonNode report = upsert("{\"id\": 9, \"name\": \"I\", \"price\": 10}\n");
+
+        assertEquals(1, report.get("inserted").asInt());
+        assertEquals(4, stockBalanceRepository.findQtyByItemId(9L).orElseThrow());
+    }
+
+    @Test
+    void upsertItems_NameTooLong_Rejected() throws Exception {
+        JsonNode report = upsert("{\"id\": 8, \"name\": \"" + "H".repeat(256) + "\", \"price\": 10}\n");
+
+        assertEquals(1, report.get("rejected").asInt());
+        assertEquals("Name must be at most 255 characters", report.get("errors").get(0).get("message").asText());
+        assertFalse(itemRepository.existsById(8L));
+    }
+
+    @Test
+    void upsertItems_FailingLineRejected_RestOfBatchApplied() throws Exception {
+        // stands in for any constraint the database enforces beyond the line checks
+        jdbcTemplate.execute("alter table item add constraint item_name_not_refused check (name <> 'Refused')");
+        try {
+            JsonNode report = upsert(String.join("\n",
+                    "{\"id\": 7, \"name\": \"G\", \"price\": 10}",
+                    "{\"id\": 8, \"name\": \"Refused\", \"price\": 10}",
+                    "{\"id\": 9, \"name\": \"I\", \"price\": 10}"));
+
+            assertEquals(2, report.get("inserted").asInt());
+            assertEquals(1, report.get("rejected").asInt());
+            assertEquals(2, report.get("errors").get(0).get("line").asInt());
+            assertTrue(report.get("errors").get(0).get("message").asText().startsWith("Item could not be saved"));
+            assertTrue(itemRepository.existsById(7L));
+            assertFalse(itemRepository.existsById(8L));
+            assertFalse(stockBalanceRepository.existsById(8L));
+            assertTrue(itemRepository.existsById(9L));
+        } finally {
+            jdbcTemplate.execute("alter table item drop constraint item_name_not_refused");
+        }
+    }
+
+    @Test
+    void upsertItems_MalformedBody_BadRequest() throws Exception {
+        byte[] body = {'{', '"', 'i', 'd', '"', ':', ' ', '1', (byte) 0xff, '}', '\n'};
+
+        mockMvc.perform(post("/api/items/upsert").contentType("application/x-ndjson").content(body))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.responseCode").value("BAD_REQUEST"));
+    }
+
+    private JsonNode upsert(String body) throws Exception {
+        String response = mockMvc.perform(post("/api/items/upsert").contentType("application/x-ndjson").content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.responseCode").value("00"))
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(response).get("data");
+    }
+
+    private static ItemDto item(Long id, String name, int price) {
+        ItemDto itemDto = new ItemDto();
+        itemDto.setId(id);
+        itemDto.setName(name);
+        itemDto.setPrice(price);
+        return itemDto;
+    }
+}
@@ -0,0 +1,249 @@
+package com.obs.example.integration;
+
+import com.obs.example.dto.ItemDto;
+import com.obs.example.dto.OrderDto;
+import com.obs.example.dto.ReservationDto;
+import com.obs.example.exception.BadRequestException;
+import com.obs.example.repository.InventoryRepository;
+import com.obs.example.repository.ItemRepository;
+import com.obs.example.repository.OrderRepository;
+import com.obs.example.repository.ReservationRepository;
+import com.obs.example.repository.StockBalanceRepository;
+import com.obs.example.repository.StockCheckpointRepository;
+import com.obs.example.service.InventoryService;
+import com.obs.example.service.ItemService;
+import com.obs.example.service.MovementWriteService;
+import com.obs.example.service.OrderService;
+import com.obs.example.service.ReservationService;
+import com.obs.example.service.StockService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(properties = {"obs.write.mode=journal", "obs.stock.index.enabled=true"})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class JournalWriteModeIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MovementWriteService movementWriteService;
+
+    @Autowired
+    private ItemService itemService;
+
+    @Autowired
+    private StockService stockService;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private ReservationService reservationService;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private ReservationRepository reservationRepository;
+
+    @Autowired
+    private StockBalanceRepository stockBalanceRepository;
+
+    @Autowired
+    private StockCheckpointRepository stockCheckpointRepository;
+
+    @BeforeEach
+    void setUp() {
+        cleanUp();
+
+        ItemDto itemDto = new ItemDto();
+        itemDto.setId(1L);
+        itemDto.setName("Test Item");
+        itemDto.setPrice(100);
+        itemService.saveItem(null, itemDto);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        movementWriteService.awaitApplied();
+        stockCheckpointRepository.deleteAll();
+        reservationRepository.deleteAll();
+        orderRepository.deleteAll();
+        inventoryRepository.deleteAll();
+        stockBalanceRepository.deleteAll();
+        itemRepository.deleteAll();
+        stockService.warmUpIndex();
+    }
+
+    @Test
+    void saveInventoryAndOrder_AcknowledgedThenApplied() throws Exception {
+        postInventory(1L, 10, "T").andExpect(status().isCreated());
+        postOrder("O1", 4).andExpect(status().isCreated());
+
+        mockMvc.perform(get("/api/orders/O1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.qty").value(4));
+        assertEquals(6, stockService.getStock(1L));
+
+        movementWriteService.awaitApplied();
+
+        assertTrue(inventoryRepository.existsById(1L));
+        assertTrue(orderRepository.existsById("O1"));
+        assertEquals(6, stockBalanceRepository.findQtyByItemId(1L).orElseThrow());
+        assertEquals(6, stockService.recomputeStocks(List.of(1L)).get(1L));
+    }
+
+    @Test
+    void saveOrder_InsufficientStock() throws Exception {
+        postInventory(1L, 3, "T").andExpect(status().isCreated());
+
+        postOrder("O1", 4)
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.responseMessage").value("Insufficient stock for item ID: 1. Available: 3"));
+
+        movementWriteService.awaitApplied();
+        assertFalse(orderRepository.existsById("O1"));
+        assertEquals(3, stockService.getStock(1L));
+    }
+
+    @Test
+    void saveInventory_DuplicateId() throws Exception {
+        postInventory(1L, 3, "T").andExpect(status().isCreated());
+
+        postInventory(1L, 5, "T")
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.responseMessage").value("Inventory already exists with ID: 1"));
+
+        movementWriteService.awaitApplied();
+        assertEquals(3, stockService.getStock(1L));
+    }
+
+    @Test
+    void updateInventory_SeesJournaledRow() throws Exception {
+        postInventory(1L, 10, "T").andExpect(status().isCreated());
+        postOrder("O1", 4).andExpect(status().isCreated());
+
+        mockMvc.perform(post("/api/inventories")
+                        .param("id", "1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"id\":1,\"itemId\":1,\"qty\":20,\"type\":\"T\"}"))
+                .andExpect(status().isOk());
+
+        assertEquals(16, stockService.getStock(1L));
+        assertEquals(16, stockBalanceRepository.findQtyByItemId(1L).orElseThrow());
+    }
+
+    @Test
+    void reserve_RacingJournaledOrders_DoesNotOversell() throws Exception {
+        postInventory(1L, 10, "T").andExpect(status().isCreated());
+        movementWriteService.awaitApplied();
+
+        ExecutorService clients = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> results = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            int client = i;
+            results.add(clients.submit(() -> {
+                start.await();
+                try {
+                    if (client % 2 == 0) {
+                        orderService.saveOrder(null, order("O" + client));
+                    } else {
+                        reservationService.reserve(reservation("R" + client));
+                    }
+                    return true;
+                } catch (BadRequestException e) {
+                    return false;
+                }
+            }));
+        }
+        start.countDown();
+        clients.shutdown();
+
+        int accepted = 0;
+        for (Future<Boolean> result : results) {
+            if (result.get()) {
+                accepted++;
+            }
+        }
+        movementWriteService.awaitApplied();
+
+        assertEquals(10, accepted);
+        assertEquals(10, orderRepository.count() + reservationRepository.count());
+        assertEquals(0, stockService.getStock(1L));
+        assertEquals(0, stockBalanceRepository.findQtyByItemId(1L).orElseThrow());
+    }
+
+    @Test
+    void deleteInventory_TopUpAlreadyOrdered() throws Exception {
+        postInventory(1L, 10, "T").andExpect(status().isCreated());
+        postOrder("O1", 8).andExpect(status().isCreated());
+
+        assertThrows(BadRequestException.class, () -> inventoryService.deleteInventory(1L));
+
+        movementWriteService.awaitApplied();
+        assertTrue(inventoryRepository.existsById(1L));
+        assertEquals(2, stockService.getStock(1L));
+        assertEquals(2, stockBalanceRepository.findQtyByItemId(1L).orElseThrow());
+    }
+
+    private static OrderDto order(String orderNo) {
+        OrderDto orderDto = new OrderDto();
+        orderDto.setOrderNo(orderNo);
+        orderDto.setItemId(1L);
+        orderDto.setQty(1);
+        orderDto.setPrice(100);
+        return orderDto;
+    }
+
+    private static ReservationDto reservation(String reservationNo) {
+        ReservationDto reservationDto = new ReservationDto();
+        reservationDto.setReservationNo(reservationNo);
+        reservationDto.setItemId(1L);
+        reservationDto.setQty(1);
+        reservationDto.setTtlSeconds(300);
+        return reservationDto;
+    }
+
+    private ResultActions postInventory(Long id, int qty, String type) throws Exception {
+        return mockMvc.perform(post("/api/inventories")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"id\":" + id + ",\"itemId\":1,\"qty\":" + qty + ",\"type\":\"" + type + "\"}"));
+    }
+
+    private ResultActions postOrder(String orderNo, int qty) throws Exception {
+        return mockMvc.perform(post("/api/orders")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"orderNo\":\"" + orderNo + "\",\"itemId\":1,\"qty\":" + qty + ",\"price\":100}"));
+    }
+}
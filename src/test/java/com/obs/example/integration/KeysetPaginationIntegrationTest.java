@@ -0,0 +1,170 @@
+package com.obs.example.integration;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.obs.example.constant.InventoryType;
+import com.obs.example.dto.InventoryDto;
+import com.obs.example.dto.ItemDto;
+import com.obs.example.dto.OrderDto;
+import com.obs.example.repository.InventoryRepository;
+import com.obs.example.repository.ItemRepository;
+import com.obs.example.repository.OrderRepository;
+import com.obs.example.repository.StockBalanceRepository;
+import com.obs.example.service.InventoryService;
+import com.obs.example.service.ItemService;
+import com.obs.example.service.OrderService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Walking the scroll endpoints page by page returns every row once, in key order, with one
+ * statement per page and no count.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class KeysetPaginationIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private ItemService itemService;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private StockBalanceRepository stockBalanceRepository;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        cleanUp();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        for (long id = 5; id >= 1; id--) {
+            ItemDto itemDto = new ItemDto();
+            itemDto.setId(id);
+            itemDto.setName("Item " + id);
+            itemDto.setPrice(100);
+            itemService.saveItem(null, itemDto);
+
+            InventoryDto inventoryDto = new InventoryDto();
+            inventoryDto.setId(id);
+            inventoryDto.setItemId(id);
+            inventoryDto.setQty(10);
+            inventoryDto.setType(InventoryType.T);
+            inventoryService.saveInventory(null, inventoryDto);
+
+            OrderDto orderDto = new OrderDto();
+            orderDto.setOrderNo("O" + id);
+            orderDto.setItemId(id);
+            orderDto.setQty(1);
+            orderDto.setPrice(100);
+            orderService.saveOrder(null, orderDto);
+        }
+    }
+
+    @AfterEach
+    void cleanUp() {
+        orderRepository.deleteAll();
+        inventoryRepository.deleteAll();
+        stockBalanceRepository.deleteAll();
+        itemRepository.deleteAll();
+    }
+
+    @Test
+    void scrollItems_EveryRowOnceInIdOrder() throws Exception {
+        List<JsonNode> rows = scroll("/api/items/scroll");
+
+        assertEquals(List.of("1", "2", "3", "4", "5"), rows.stream().map(row -> row.get("id").asText()).toList());
+        assertTrue(rows.stream().allMatch(row -> row.get("stock").asInt() == 9));
+    }
+
+    @Test
+    void scrollInventories_OneStatementPerPage() throws Exception {
+        statistics.clear();
+
+        List<JsonNode> rows = scroll("/api/inventories/scroll");
+
+        assertEquals(List.of("1", "2", "3", "4", "5"), rows.stream().map(row -> row.get("id").asText()).toList());
+        assertEquals(3, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void scrollOrders_EveryRowOnceInOrderNoOrder() throws Exception {
+        statistics.clear();
+
+        List<JsonNode> rows = scroll("/api/orders/scroll");
+
+        assertEquals(List.of("O1", "O2", "O3", "O4", "O5"), rows.stream().map(row -> row.get("orderNo").asText()).toList());
+        assertEquals(3, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void scrollOrders_InvalidCursor() throws Exception {
+        mockMvc.perform(get("/api/orders/scroll").param("cursor", "%%%"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.responseCode").value("400"));
+
+        mockMvc.perform(get("/api/items/scroll").param("size", "0"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private List<JsonNode> scroll(String url) throws Exception {
+        List<JsonNode> rows = new ArrayList<>();
+        String cursor = null;
+        do {
+            MockHttpServletRequestBuilder request = get(url).param("size", "2");
+            if (cursor != null) {
+                request.param("cursor", cursor);
+            }
+            String body = mockMvc.perform(request)
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.data.totalElements").doesNotExist())
+                    .andReturn().getResponse().getContentAsString();
+
+            JsonNode data = objectMapper.readTree(body).get("data");
+            data.get("content").forEach(rows::add);
+            cursor = data.get("hasNext").asBoolean() ? data.get("nextCursor").asText() : null;
+        } while (cursor != null);
+        return rows;
+    }
+}
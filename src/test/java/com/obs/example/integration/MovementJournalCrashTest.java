@@ -0,0 +1,171 @@
+package com.obs.example.integration;
+
+import com.obs.example.ObsTestApplication;
+import com.obs.example.TestResultListener;
+import com.obs.example.constant.InventoryType;
+import com.obs.example.dto.InventoryDto;
+import com.obs.example.dto.ItemDto;
+import com.obs.example.dto.OrderDto;
+import com.obs.example.repository.InventoryRepository;
+import com.obs.example.repository.JournalStateRepository;
+import com.obs.example.repository.OrderRepository;
+import com.obs.example.service.InventoryService;
+import com.obs.example.service.ItemService;
+import com.obs.example.service.OrderService;
+import com.obs.example.service.StockService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import javax.sql.DataSource;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the application in journal mode in a child JVM, acknowledges movements while the applier is
+ * blocked, halts the JVM, and checks that a restart applies every acknowledged movement before it
+ * reports ready.
+ */
+@ExtendWith(TestResultListener.class)
+class MovementJournalCrashTest {
+
+    private static final int ORDERS = 300;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void restart_ReplaysEveryAcknowledgedMovement() throws Exception {
+        Path output = directory.resolve("child.log");
+        List<String> command = new ArrayList<>(List.of(
+                Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+                "-cp", System.getProperty("java.class.path"),
+                CrashingApplication.class.getName()));
+        command.addAll(arguments());
+
+        Process child = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(output.toFile())
+                .start();
+        assertTrue(child.waitFor(120, TimeUnit.SECONDS), "child did not finish");
+        assertEquals(137, child.exitValue(), () -> readLog(output));
+
+        List<String> acknowledged = Files.readAllLines(output).stream()
+                .filter(line -> line.startsWith("ACK "))
+                .map(line -> line.substring(4))
+                .toList();
+        assertEquals(ORDERS + 1, acknowledged.size());
+
+        // the applier was blocked, so nothing reached the tables before the crash
+        try (Connection connection = DriverManager.getConnection(databaseUrl(), "obs", "password");
+             Statement statement = connection.createStatement();
+             ResultSet count = statement.executeQuery("select count(*) from orders")) {
+            count.next();
+            assertEquals(0, count.getInt(1));
+        }
+
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(ObsTestApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(arguments().toArray(String[]::new))) {
+            InventoryRepository inventoryRepository = context.getBean(InventoryRepository.class);
+            OrderRepository orderRepository = context.getBean(OrderRepository.class);
+
+            for (String key : acknowledged) {
+                if (key.startsWith("I")) {
+                    assertTrue(inventoryRepository.existsById(Long.parseLong(key.substring(1))), key);
+                } else {
+                    assertTrue(orderRepository.existsById(key), key);
+                }
+            }
+            assertEquals(ORDERS, orderRepository.count());
+            assertEquals(ORDERS + 1, context.getBean(JournalStateRepository.class).findById("movements").orElseThrow().getAppliedSeq());
+            assertEquals(1000 - ORDERS, context.getBean(StockService.class).getStock(1L));
+            assertEquals(1000 - ORDERS, context.getBean(StockService.class).recomputeStocks(List.of(1L)).get(1L));
+        }
+    }
+
+    private List<String> arguments() {
+        return List.of(
+                "--spring.datasource.url=" + databaseUrl(),
+                "--spring.jpa.hibernate.ddl-auto=update",
+                "--spring.main.web-application-type=none",
+                "--obs.write.mode=journal",
+                "--obs.stock.index.enabled=true",
+                "--obs.write.journal.dir=" + directory.resolve("journal"),
+                "--obs.order.archive.dir=" + directory.resolve("archive"),
+                "--logging.level.com.obs.example=INFO",
+                "--logging.level.org.springframework.web=INFO");
+    }
+
+    private String databaseUrl() {
+        return "jdbc:h2:file:" + directory.resolve("db").toAbsolutePath();
+    }
+
+    private static String readLog(Path output) {
+        try {
+            return Files.readString(output);
+        } catch (Exception e) {
+            return e.toString();
+        }
+    }
+
+    /**
+     * Holds a lock on the item's balance row so that the applier cannot commit, acknowledges a
+     * top-up and a series of orders, then halts without any shutdown.
+     */
+    static class CrashingApplication {
+
+        public static void main(String[] args) throws Exception {
+            ConfigurableApplicationContext context = SpringApplication.run(ObsTestApplication.class, args);
+            PrintStream out = new PrintStream(System.out, true, StandardCharsets.UTF_8);
+
+            ItemDto itemDto = new ItemDto();
+            itemDto.setId(1L);
+            itemDto.setName("Test Item");
+            itemDto.setPrice(100);
+            context.getBean(ItemService.class).saveItem(null, itemDto);
+
+            Connection lock = context.getBean(DataSource.class).getConnection();
+            lock.setAutoCommit(false);
+            try (Statement statement = lock.createStatement()) {
+                statement.executeQuery("select qty from stock_balance where item_id = 1 for update").close();
+            }
+
+            InventoryDto inventoryDto = new InventoryDto();
+            inventoryDto.setId(1L);
+            inventoryDto.setItemId(1L);
+            inventoryDto.setQty(1000);
+            inventoryDto.setType(InventoryType.T);
+            context.getBean(InventoryService.class).saveInventory(null, inventoryDto);
+            out.println("ACK I1");
+
+            OrderService orderService = context.getBean(OrderService.class);
+            for (int i = 1; i <= ORDERS; i++) {
+                OrderDto orderDto = new OrderDto();
+                orderDto.setOrderNo("O" + i);
+                orderDto.setItemId(1L);
+                orderDto.setQty(1);
+                orderDto.setPrice(100);
+                orderService.saveOrder(null, orderDto);
+                out.println("ACK O" + i);
+            }
+
+            Runtime.getRuntime().halt(137);
+        }
+    }
+}
@@ -0,0 +1,248 @@
+package com.obs.example.integration;
+
+import com.obs.example.constant.InventoryType;
+import com.obs.example.dto.ArchiveReportDto;
+import com.obs.example.entity.ArchivedOrderTotal;
+import com.obs.example.entity.Inventory;
+import com.obs.example.entity.Item;
+import com.obs.example.entity.Order;
+import com.obs.example.exception.BadRequestException;
+import com.obs.example.repository.ArchivedOrderRepository;
+import com.obs.example.repository.ArchivedOrderTotalRepository;
+import com.obs.example.repository.CompactionStateRepository;
+import com.obs.example.repository.InventoryRepository;
+import com.obs.example.repository.ItemRepository;
+import com.obs.example.repository.OrderRepository;
+import com.obs.example.repository.StockBalanceRepository;
+import com.obs.example.repository.StockCheckpointRepository;
+import com.obs.example.service.OrderArchiveService;
+import com.obs.example.service.OrderService;
+import com.obs.example.service.StockCheckpointService;
+import com.obs.example.service.StockService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class OrderArchiveIntegrationTest {
+
+    private static final Instant NOW = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private OrderArchiveService orderArchiveService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private StockService stockService;
+
+    @Autowired
+    private StockCheckpointService stockCheckpointService;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private ArchivedOrderRepository archivedOrderRepository;
+
+    @Autowired
+    private ArchivedOrderTotalRepository archivedOrderTotalRepository;
+
+    @Autowired
+    private StockBalanceRepository stockBalanceRepository;
+
+    @Autowired
+    private StockCheckpointRepository stockCheckpointRepository;
+
+    @Autowired
+    private CompactionStateRepository compactionStateRepository;
+
+    private Item testItem;
+
+    @BeforeEach
+    void setUp() {
+        cleanUp();
+
+        testItem = new Item();
+        testItem.setId(1L);
+        testItem.setName("Test Item");
+        testItem.setPrice(100);
+        testItem = itemRepository.save(testItem);
+
+        saveInventory(1L, 100, InventoryType.T, NOW.minus(Duration.ofDays(60)));
+        for (int i = 1; i <= 5; i++) {
+            saveOrder("OLD" + i, i, NOW.minus(Duration.ofDays(50 - i)));
+        }
+        saveOrder("NEW1", 7, NOW.minus(Duration.ofDays(1)));
+        stockService.recomputeStocks(List.of(testItem.getId()));
+    }
+
+    @AfterEach
+    void cleanUp() {
+        archivedOrderRepository.deleteAll();
+        archivedOrderTotalRepository.deleteAll();
+        stockCheckpointRepository.deleteAll();
+        compactionStateRepository.deleteAll();
+        orderRepository.deleteAll();
+        inventoryRepository.deleteAll();
+        stockBalanceRepository.deleteAll();
+        itemRepository.deleteAll();
+    }
+
+    @Test
+    void archive_MovesOldOrdersOutOfHotTable() {
+        assertEquals(78, stockService.getStock(testItem.getId()));
+
+        ArchiveReportDto report = orderArchiveService.archive(30);
+
+        assertEquals(5, report.getArchivedOrders());
+        assertEquals(6, report.getHotRowsBefore());
+        assertEquals(1, report.getHotRowsAfter());
+        assertEquals(List.of("NEW1"), orderRepository.findAll().stream().map(Order::getOrderNo).toList());
+        assertEquals(5, archivedOrderRepository.count());
+        assertEquals(15, archivedOrderTotalRepository.findById(testItem.getId()).orElseThrow().getQty());
+
+        assertEquals(78, stockService.getStock(testItem.getId()));
+        assertEquals(78, stockService.recomputeStocks(List.of(testItem.getId())).get(testItem.getId()));
+    }
+
+    @Test
+    void archive_IsIdempotent() {
+        orderArchiveService.archive(30);
+
+        ArchiveReportDto report = orderArchiveService.archive(30);
+
+        assertEquals(0, report.getArchivedOrders());
+        assertEquals(15, archivedOrderTotalRepository.findById(testItem.getId()).orElseThrow().getQty());
+        assertEquals(78, stockService.recomputeStocks(List.of(testItem.getId())).get(testItem.getId()));
+    }
+
+    @Test
+    void archive_KeepsStockAsOfAfterCutoff() {
+        int beforeArchive = stockCheckpointService.getStockAsOf(testItem.getId(), NOW.minus(Duration.ofDays(10))).getStock();
+
+        orderArchiveService.archive(30);
+
+        assertEquals(85, beforeArchive);
+        assertEquals(beforeArchive, stockCheckpointService.getStockAsOf(testItem.getId(), NOW.minus(Duration.ofDays(10))).getStock());
+        assertEquals(78, stockCheckpointService.getStockAsOf(testItem.getId(), NOW).getStock());
+    }
+
+    @Test
+    void archive_RefusesStockAsOfBeforeCutoff() {
+        ArchiveReportDto report = orderArchiveService.archive(30);
+
+        assertEquals(report.getCutoff(), stockCheckpointService.findArchiveCutoff().orElseThrow());
+        assertThrows(BadRequestException.class, () ->
+                stockCheckpointService.getStockAsOf(testItem.getId(), NOW.minus(Duration.ofDays(40))));
+        assertEquals(85, stockCheckpointService.getStockAsOf(testItem.getId(), report.getCutoff()).getStock());
+    }
+
+    @Test
+    void archive_ConcurrentDeletesKeepStockConsistent() {
+        CompletableFuture<Void> deleter = CompletableFuture.runAsync(() -> {
+            for (int i = 1; i <= 5; i++) {
+                try {
+                    orderService.deleteOrder("OLD" + i);
+                } catch (RuntimeException e) {
+                    // the order was already archived
+                }
+            }
+        });
+        orderArchiveService.archive(30);
+        deleter.join();
+
+        long archivedQty = 0;
+        for (int i = 1; i <= 5; i++) {
+            assertFalse(orderRepository.existsById("OLD" + i));
+            if (archivedOrderRepository.existsById("OLD" + i)) {
+                archivedQty += i;
+            }
+        }
+        assertEquals(archivedQty, archivedOrderTotalRepository.findById(testItem.getId())
+                .map(ArchivedOrderTotal::getQty).orElse(0L));
+
+        int recomputed = stockService.recomputeStocks(List.of(testItem.getId())).get(testItem.getId());
+        assertEquals(recomputed, stockService.getStock(testItem.getId()));
+        assertEquals(93 - archivedQty, recomputed);
+    }
+
+    @Test
+    void archive_NegativeAge() {
+        assertThrows(BadRequestException.class, () -> orderArchiveService.archive(-1));
+    }
+
+    @Test
+    void getOrderById_ReadsArchivedOrder() throws Exception {
+        orderArchiveService.archive(30);
+
+        mockMvc.perform(get("/api/orders/OLD3"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.responseCode").value("00"))
+                .andExpect(jsonPath("$.data.orderNo").value("OLD3"))
+                .andExpect(jsonPath("$.data.qty").value(3))
+                .andExpect(jsonPath("$.data.item.name").value("Test Item"));
+    }
+
+    @Test
+    void archiveEndpoint_ThenArchivedOrderNoCannotBeReused() throws Exception {
+        mockMvc.perform(post("/api/orders/archive")
+                        .param("olderThanDays", "30"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.responseCode").value("00"))
+                .andExpect(jsonPath("$.data.archivedOrders").value(5));
+
+        mockMvc.perform(post("/api/orders")
+                        .contentType("application/json")
+                        .content("{\"orderNo\":\"OLD1\",\"itemId\":1,\"qty\":1,\"price\":100}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.responseCode").value("400"));
+    }
+
+    private void saveInventory(Long id, int qty, InventoryType type, Instant createdAt) {
+        Inventory inventory = new Inventory();
+        inventory.setId(id);
+        inventory.setItem(testItem);
+        inventory.setQty(qty);
+        inventory.setType(type);
+        inventory.setCreatedAt(createdAt);
+        inventoryRepository.save(inventory);
+    }
+
+    private void saveOrder(String orderNo, int qty, Instant createdAt) {
+        Order order = new Order();
+        order.setOrderNo(orderNo);
+        order.setItem(testItem);
+        order.setQty(qty);
+        order.setPrice(100);
+        order.setCreatedAt(createdAt);
+        orderRepository.save(order);
+    }
+}
@@ -126,7 +126,7 @@ class OrderIntegrationTest {
         testOrderDto.setQty(3);
 
         mockMvc.perform(post("/api/orders")
-                        .param("orderNo", savedOrder.getOrderNo())
+                        .param("orderId", savedOrder.getOrderNo())
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(testOrderDto)))
                 .andExpect(status().isOk())
@@ -0,0 +1,134 @@
+package com.obs.example.integration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.obs.example.constant.InventoryType;
+import com.obs.example.dto.ReservationDto;
+import com.obs.example.entity.Inventory;
+import com.obs.example.entity.Item;
+import com.obs.example.repository.InventoryRepository;
+import com.obs.example.repository.ItemRepository;
+import com.obs.example.repository.OrderRepository;
+import com.obs.example.repository.ReservationRepository;
+import com.obs.example.service.StockService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Transactional
+class ReservationIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private ReservationRepository reservationRepository;
+
+    @Autowired
+    private StockService stockService;
+
+    private Item testItem;
+    private ReservationDto reservationDto;
+
+    @BeforeEach
+    void setUp() {
+        reservationRepository.deleteAll();
+        orderRepository.deleteAll();
+        inventoryRepository.deleteAll();
+        itemRepository.deleteAll();
+
+        testItem = new Item();
+        testItem.setId(1L);
+        testItem.setName("Test Item");
+        testItem.setPrice(100);
+        testItem = itemRepository.save(testItem);
+
+        Inventory inventory = new Inventory();
+        inventory.setId(1L);
+        inventory.setItem(testItem);
+        inventory.setQty(10);
+        inventory.setType(InventoryType.T);
+        inventoryRepository.save(inventory);
+
+        reservationDto = new ReservationDto();
+        reservationDto.setReservationNo("R1");
+        reservationDto.setItemId(testItem.getId());
+        reservationDto.setQty(4);
+        reservationDto.setTtlSeconds(300);
+    }
+
+    @Test
+    void reserve_CountsAgainstStock() throws Exception {
+        mockMvc.perform(post("/api/orders/reservations")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(reservationDto)))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.data.reservationNo").value("R1"));
+
+        assertEquals(6, stockService.getStock(testItem.getId()));
+
+        reservationDto.setReservationNo("R2");
+        reservationDto.setQty(7);
+        mockMvc.perform(post("/api/orders/reservations")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(reservationDto)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.responseCode").value("400"));
+    }
+
+    @Test
+    void confirm_CreatesOrderWithoutChangingStock() throws Exception {
+        mockMvc.perform(post("/api/orders/reservations")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(reservationDto)))
+                .andExpect(status().isCreated());
+
+        mockMvc.perform(post("/api/orders/reservations/confirm")
+                        .param("reservationNo", "R1")
+                        .param("orderNo", "O1"))
+                .andExpect(status().isCreated());
+
+        assertFalse(reservationRepository.existsById("R1"));
+        assertEquals(4, orderRepository.findByOrderNo("O1").orElseThrow().getQty());
+        assertEquals(6, stockService.getStock(testItem.getId()));
+    }
+
+    @Test
+    void release_RestoresStock() throws Exception {
+        mockMvc.perform(post("/api/orders/reservations")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(reservationDto)))
+                .andExpect(status().isCreated());
+
+        mockMvc.perform(delete("/api/orders/reservations/delete")
+                        .param("reservationNo", "R1"))
+                .andExpect(status().isNoContent());
+
+        assertFalse(reservationRepository.existsById("R1"));
+        assertEquals(10, stockService.getStock(testItem.getId()));
+    }
+}
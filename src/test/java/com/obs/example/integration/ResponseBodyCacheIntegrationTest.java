@@ -0,0 +1,159 @@
+package com.obs.example.integration;
+
+import com.obs.example.constant.InventoryType;
+import com.obs.example.dto.InventoryDto;
+import com.obs.example.dto.ItemDto;
+import com.obs.example.dto.OrderDto;
+import com.obs.example.repository.InventoryRepository;
+import com.obs.example.repository.ItemRepository;
+import com.obs.example.repository.OrderRepository;
+import com.obs.example.repository.StockBalanceRepository;
+import com.obs.example.service.InventoryService;
+import com.obs.example.service.ItemService;
+import com.obs.example.service.OrderService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Repeated reads of an unchanged item are answered from the stored JSON without a database
+ * session, and a listing page changed by a write is served stale until its rebuild lands.
+ */
+@SpringBootTest(properties = {
+        "obs.response.cache.enabled=true",
+        "obs.response.cache.stale-while-revalidate=1m"})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ResponseBodyCacheIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private ItemService itemService;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private StockBalanceRepository stockBalanceRepository;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        cleanUp();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        ItemDto itemDto = new ItemDto();
+        itemDto.setId(1L);
+        itemDto.setName("Test Item");
+        itemDto.setPrice(100);
+        itemService.saveItem(null, itemDto);
+
+        InventoryDto inventoryDto = new InventoryDto();
+        inventoryDto.setId(1L);
+        inventoryDto.setItemId(1L);
+        inventoryDto.setQty(10);
+        inventoryDto.setType(InventoryType.T);
+        inventoryService.saveInventory(null, inventoryDto);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        orderRepository.deleteAll();
+        inventoryRepository.deleteAll();
+        stockBalanceRepository.deleteAll();
+        itemRepository.deleteAll();
+    }
+
+    @Test
+    void getItemById_RepeatedReadSkipsDatabase() throws Exception {
+        String first = mockMvc.perform(get("/api/items/1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.name").value("Test Item"))
+                .andReturn().getResponse().getContentAsString();
+        statistics.clear();
+
+        mockMvc.perform(get("/api/items/1"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(first));
+
+        assertEquals(0, statistics.getSessionOpenCount());
+    }
+
+    @Test
+    void getItemById_UpdateReplacesBody() throws Exception {
+        mockMvc.perform(get("/api/items/1")).andExpect(status().isOk());
+
+        ItemDto itemDto = new ItemDto();
+        itemDto.setName("Renamed");
+        itemDto.setPrice(100);
+        itemService.saveItem(1L, itemDto);
+
+        mockMvc.perform(get("/api/items/1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.name").value("Renamed"));
+    }
+
+    @Test
+    void getAllItems_StaleWhileRevalidate() throws Exception {
+        MockHttpServletResponse first = mockMvc.perform(get("/api/items"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.content[0].stock").value(10))
+                .andReturn().getResponse();
+
+        OrderDto orderDto = new OrderDto();
+        orderDto.setOrderNo("O1");
+        orderDto.setItemId(1L);
+        orderDto.setQty(2);
+        orderDto.setPrice(100);
+        orderService.saveOrder(null, orderDto);
+
+        // the stale page keeps the tag it was built under
+        mockMvc.perform(get("/api/items").header(HttpHeaders.IF_NONE_MATCH, first.getHeader(HttpHeaders.ETAG)))
+                .andExpect(status().isNotModified());
+
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        MockHttpServletResponse refreshed;
+        do {
+            Thread.sleep(10);
+            refreshed = mockMvc.perform(get("/api/items")).andReturn().getResponse();
+        } while (refreshed.getHeader(HttpHeaders.ETAG).equals(first.getHeader(HttpHeaders.ETAG))
+                && System.nanoTime() < deadline);
+
+        assertNotEquals(first.getHeader(HttpHeaders.ETAG), refreshed.getHeader(HttpHeaders.ETAG));
+        assertTrue(refreshed.getContentAsString().contains("\"stock\":8"));
+    }
+}
@@ -0,0 +1,143 @@
+package com.obs.example.integration;
+
+import com.obs.example.constant.InventoryType;
+import com.obs.example.entity.Inventory;
+import com.obs.example.entity.Item;
+import com.obs.example.entity.Order;
+import com.obs.example.repository.InventoryRepository;
+import com.obs.example.repository.ItemRepository;
+import com.obs.example.repository.OrderRepository;
+import com.obs.example.repository.StockCheckpointRepository;
+import com.obs.example.service.StockCheckpointService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Transactional
+class StockCheckpointIntegrationTest {
+
+    private static final Instant NOW = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private StockCheckpointRepository stockCheckpointRepository;
+
+    @Autowired
+    private StockCheckpointService stockCheckpointService;
+
+    private Item testItem;
+
+    @BeforeEach
+    void setUp() {
+        stockCheckpointRepository.deleteAll();
+        orderRepository.deleteAll();
+        inventoryRepository.deleteAll();
+        itemRepository.deleteAll();
+
+        testItem = new Item();
+        testItem.setId(1L);
+        testItem.setName("Test Item");
+        testItem.setPrice(100);
+        testItem = itemRepository.save(testItem);
+
+        saveInventory(1L, 10, InventoryType.T, NOW.minus(Duration.ofHours(3)));
+        saveInventory(2L, 2, InventoryType.W, NOW.minus(Duration.ofHours(2)));
+        saveOrder("O1", 3, NOW.minus(Duration.ofHours(1)));
+    }
+
+    @Test
+    void getItemStockAsOf_WithoutCheckpoint() throws Exception {
+        mockMvc.perform(get("/api/inventories/stock/" + testItem.getId())
+                        .param("asOf", NOW.minus(Duration.ofMinutes(90)).toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.responseCode").value("00"))
+                .andExpect(jsonPath("$.data.stock").value(8))
+                .andExpect(jsonPath("$.data.checkpointAt").doesNotExist());
+    }
+
+    @Test
+    void getItemStockAsOf_FromCheckpointPlusLaterMovements() throws Exception {
+        assertEquals(1, stockCheckpointService.takeCheckpoint());
+
+        saveInventory(3L, 5, InventoryType.T, NOW.plus(Duration.ofMinutes(1)));
+
+        mockMvc.perform(get("/api/inventories/stock/" + testItem.getId())
+                        .param("asOf", NOW.plus(Duration.ofMinutes(2)).toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.stock").value(10))
+                .andExpect(jsonPath("$.data.checkpointAt").exists());
+
+        mockMvc.perform(get("/api/inventories/stock/" + testItem.getId())
+                        .param("asOf", NOW.minus(Duration.ofMinutes(150)).toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.stock").value(10));
+    }
+
+    @Test
+    void deleteOrder_InvalidatesLaterCheckpoints() throws Exception {
+        stockCheckpointService.takeCheckpoint();
+
+        mockMvc.perform(delete("/api/orders/delete").param("orderNo", "O1"))
+                .andExpect(status().isNoContent());
+
+        assertEquals(0, stockCheckpointRepository.count());
+        mockMvc.perform(get("/api/inventories/stock/" + testItem.getId())
+                        .param("asOf", NOW.toString()))
+                .andExpect(jsonPath("$.data.stock").value(8));
+    }
+
+    @Test
+    void getItemStockAsOf_ItemNotFound() throws Exception {
+        mockMvc.perform(get("/api/inventories/stock/999")
+                        .param("asOf", NOW.toString()))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.responseCode").value("404"));
+    }
+
+    private void saveInventory(Long id, int qty, InventoryType type, Instant createdAt) {
+        Inventory inventory = new Inventory();
+        inventory.setId(id);
+        inventory.setItem(testItem);
+        inventory.setQty(qty);
+        inventory.setType(type);
+        inventory.setCreatedAt(createdAt);
+        inventoryRepository.save(inventory);
+    }
+
+    private void saveOrder(String orderNo, int qty, Instant createdAt) {
+        Order order = new Order();
+        order.setOrderNo(orderNo);
+        order.setItem(testItem);
+        order.setQty(qty);
+        order.setPrice(100);
+        order.setCreatedAt(createdAt);
+        orderRepository.save(order);
+    }
+}
@@ -0,0 +1,202 @@
+package com.obs.example.integration;
+
+import com.obs.example.constant.InventoryType;
+import com.obs.example.dto.InventoryDto;
+import com.obs.example.dto.ItemDto;
+import com.obs.example.dto.OrderDto;
+import com.obs.example.exception.BadRequestException;
+import com.obs.example.repository.InventoryRepository;
+import com.obs.example.repository.ItemRepository;
+import com.obs.example.repository.OrderRepository;
+import com.obs.example.repository.StockBalanceRepository;
+import com.obs.example.service.InventoryService;
+import com.obs.example.service.ItemService;
+import com.obs.example.service.OrderService;
+import com.obs.example.service.StockEngine;
+import com.obs.example.service.StockService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {"obs.stock.engine.enabled=true", "obs.stock.engine.shards=4"})
+@ActiveProfiles("test")
+class StockEngineIntegrationTest {
+
+    @Autowired
+    private StockEngine stockEngine;
+
+    @Autowired
+    private ItemService itemService;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private StockService stockService;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private StockBalanceRepository stockBalanceRepository;
+
+    @BeforeEach
+    void setUp() {
+        cleanUp();
+
+        ItemDto itemDto = new ItemDto();
+        itemDto.setId(1L);
+        itemDto.setName("Hot Item");
+        itemDto.setPrice(100);
+        itemService.saveItem(null, itemDto);
+
+        InventoryDto inventoryDto = new InventoryDto();
+        inventoryDto.setId(1L);
+        inventoryDto.setItemId(1L);
+        inventoryDto.setQty(50);
+        inventoryDto.setType(InventoryType.T);
+        inventoryService.saveInventory(null, inventoryDto);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        orderRepository.deleteAll();
+        inventoryRepository.deleteAll();
+        stockBalanceRepository.deleteAll();
+        itemRepository.deleteAll();
+    }
+
+    @Test
+    void concurrentOrders_NeverOversell() throws Exception {
+        assertTrue(stockEngine.isEnabled());
+
+        AtomicInteger accepted = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        ExecutorService clients = Executors.newFixedThreadPool(32);
+        List<Future<?>> results = new ArrayList<>();
+
+        for (int client = 0; client < 32; client++) {
+            int clientNo = client;
+            results.add(clients.submit(() -> {
+                for (int i = 0; i < 5; i++) {
+                    OrderDto orderDto = new OrderDto();
+                    orderDto.setOrderNo("O-" + clientNo + "-" + i);
+                    orderDto.setItemId(1L);
+                    orderDto.setQty(1);
+                    orderDto.setPrice(100);
+                    try {
+                        orderService.saveOrder(null, orderDto);
+                        accepted.incrementAndGet();
+                    } catch (BadRequestException e) {
+                        rejected.incrementAndGet();
+                    }
+                }
+            }));
+        }
+        for (Future<?> result : results) {
+            result.get();
+        }
+        clients.shutdown();
+
+        assertEquals(50, accepted.get());
+        assertEquals(110, rejected.get());
+        assertEquals(50, orderRepository.count());
+        assertEquals(0, orderService.getItemStock(1L));
+    }
+
+    @Test
+    void withdrawal_RejectedOnShardWithOriginalException() {
+        InventoryDto withdrawal = new InventoryDto();
+        withdrawal.setId(2L);
+        withdrawal.setItemId(1L);
+        withdrawal.setQty(51);
+        withdrawal.setType(InventoryType.W);
+
+        BadRequestException exception = assertThrows(BadRequestException.class, () ->
+                inventoryService.saveInventory(null, withdrawal)
+        );
+
+        assertTrue(exception.getMessage().startsWith("Insufficient stock"));
+        assertEquals(50, inventoryService.getItemStock(1L));
+    }
+
+    @Test
+    void movingOrdersBetweenItems_KeepsBothBalances() throws Exception {
+        ItemDto itemDto = new ItemDto();
+        itemDto.setId(2L);
+        itemDto.setName("Other Item");
+        itemDto.setPrice(100);
+        itemService.saveItem(null, itemDto);
+
+        InventoryDto inventoryDto = new InventoryDto();
+        inventoryDto.setId(2L);
+        inventoryDto.setItemId(2L);
+        inventoryDto.setQty(50);
+        inventoryDto.setType(InventoryType.T);
+        inventoryService.saveInventory(null, inventoryDto);
+
+        for (int i = 0; i < 4; i++) {
+            orderService.saveOrder(null, order("M-" + i, 1L));
+        }
+
+        ExecutorService clients = Executors.newFixedThreadPool(12);
+        List<Future<?>> results = new ArrayList<>();
+        for (int client = 0; client < 12; client++) {
+            int clientNo = client;
+            results.add(clients.submit(() -> {
+                for (int i = 0; i < 10; i++) {
+                    try {
+                        if (clientNo < 4) {
+                            // moves M-<client> back and forth, so each move changes both items
+                            orderService.saveOrder("M-" + clientNo, order("M-" + clientNo, i % 2 == 0 ? 2L : 1L));
+                        } else {
+                            orderService.saveOrder(null, order("O-" + clientNo + "-" + i, clientNo % 2 == 0 ? 1L : 2L));
+                        }
+                    } catch (BadRequestException e) {
+                        // out of stock
+                    }
+                }
+            }));
+        }
+        for (Future<?> result : results) {
+            result.get();
+        }
+        clients.shutdown();
+
+        Map<Long, Integer> recomputed = stockService.recomputeStocks(List.of(1L, 2L));
+        assertEquals(recomputed.get(1L), orderService.getItemStock(1L));
+        assertEquals(recomputed.get(2L), orderService.getItemStock(2L));
+        assertTrue(recomputed.get(1L) >= 0 && recomputed.get(2L) >= 0, "stock: " + recomputed);
+    }
+
+    private static OrderDto order(String orderNo, Long itemId) {
+        OrderDto orderDto = new OrderDto();
+        orderDto.setOrderNo(orderNo);
+        orderDto.setItemId(itemId);
+        orderDto.setQty(1);
+        orderDto.setPrice(100);
+        return orderDto;
+    }
+}
@@ -0,0 +1,178 @@
+package com.obs.example.integration;
+
+import com.obs.example.dto.ItemDto;
+import com.obs.example.entity.Order;
+import com.obs.example.repository.InventoryRepository;
+import com.obs.example.repository.ItemRepository;
+import com.obs.example.repository.OrderRepository;
+import com.obs.example.repository.StockBalanceRepository;
+import com.obs.example.repository.StockCheckpointRepository;
+import com.obs.example.service.ItemService;
+import com.obs.example.service.Movement;
+import com.obs.example.service.MovementWriteService;
+import com.obs.example.service.StockService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(properties = {"obs.write.mode=write-behind", "obs.stock.index.enabled=true",
+        "obs.write.batch-size=10", "obs.write.flush-interval=2s"})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class WriteBehindModeIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MovementWriteService movementWriteService;
+
+    @Autowired
+    private ItemService itemService;
+
+    @Autowired
+    private StockService stockService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private StockBalanceRepository stockBalanceRepository;
+
+    @Autowired
+    private StockCheckpointRepository stockCheckpointRepository;
+
+    @BeforeEach
+    void setUp() {
+        cleanUp();
+
+        ItemDto itemDto = new ItemDto();
+        itemDto.setId(1L);
+        itemDto.setName("Test Item");
+        itemDto.setPrice(100);
+        itemService.saveItem(null, itemDto);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        movementWriteService.awaitApplied();
+        stockCheckpointRepository.deleteAll();
+        orderRepository.deleteAll();
+        inventoryRepository.deleteAll();
+        stockBalanceRepository.deleteAll();
+        itemRepository.deleteAll();
+        stockService.warmUpIndex();
+    }
+
+    @Test
+    void saveInventoryAndOrder_ReadableBeforeFlush() throws Exception {
+        postInventory(1L, 10).andExpect(status().isCreated());
+        postOrder("O1", 4).andExpect(status().isCreated());
+
+        // the flush interval holds the batch open, so nothing is in the tables yet
+        assertFalse(orderRepository.existsById("O1"));
+        mockMvc.perform(get("/api/orders/O1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.qty").value(4));
+        mockMvc.perform(get("/api/inventories/1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.qty").value(10));
+        assertEquals(6, stockService.getStock(1L));
+
+        movementWriteService.awaitApplied();
+
+        assertTrue(inventoryRepository.existsById(1L));
+        assertTrue(orderRepository.existsById("O1"));
+        assertEquals(6, stockBalanceRepository.findQtyByItemId(1L).orElseThrow());
+        assertEquals(6, stockService.recomputeStocks(List.of(1L)).get(1L));
+    }
+
+    @Test
+    void saveOrders_FlushedBySize() throws Exception {
+        long flushes = meterRegistry.get("obs.write.flush.size").summary().count();
+        postInventory(1L, 100).andExpect(status().isCreated());
+        for (int i = 1; i <= 9; i++) {
+            postOrder("O" + i, 1).andExpect(status().isCreated());
+        }
+
+        // ten movements fill the batch well before the two second interval
+        long started = System.nanoTime();
+        movementWriteService.awaitApplied();
+        assertTrue(System.nanoTime() - started < TimeUnit.SECONDS.toNanos(1));
+        assertEquals(9, orderRepository.count());
+
+        assertEquals(flushes + 1, meterRegistry.get("obs.write.flush.size").summary().count());
+        assertEquals(10, meterRegistry.get("obs.write.flush.size").summary().max());
+        assertTrue(meterRegistry.get("obs.write.flush.latency").timer().count() >= 1);
+        assertEquals(0, meterRegistry.get("obs.write.queue.depth").gauge().value());
+    }
+
+    @Test
+    void deleteItem_WithPendingMovements() throws Exception {
+        postInventory(1L, 10).andExpect(status().isCreated());
+
+        mockMvc.perform(delete("/api/items/delete").param("id", "1"))
+                .andExpect(status().isInternalServerError())
+                .andExpect(jsonPath("$.responseMessage").value("Item has pending movements that are not written yet"));
+    }
+
+    @Test
+    void saveOrder_TakenBeforeFlush_BecomesDeadLetter() throws Exception {
+        double deadLetters = meterRegistry.get("obs.write.dead.letters").counter().count();
+        postInventory(1L, 10).andExpect(status().isCreated());
+        postOrder("DUP", 4).andExpect(status().isCreated());
+
+        // a direct insert takes the order number while the movement waits in the queue
+        Order order = new Order();
+        order.setOrderNo("DUP");
+        order.setItem(itemRepository.findById(1L).orElseThrow());
+        order.setQty(2);
+        order.setPrice(100);
+        orderRepository.save(order);
+
+        movementWriteService.awaitApplied();
+
+        assertTrue(inventoryRepository.existsById(1L));
+        assertEquals(2, orderRepository.findById("DUP").orElseThrow().getQty());
+        assertTrue(movementWriteService.getDeadLetters().stream()
+                .anyMatch(movement -> movement instanceof Movement.OrderMovement dead && dead.orderNo().equals("DUP")));
+        assertEquals(deadLetters + 1, meterRegistry.get("obs.write.dead.letters").counter().count());
+        assertEquals(10, stockService.getStock(1L));
+    }
+
+    private ResultActions postInventory(Long id, int qty) throws Exception {
+        return mockMvc.perform(post("/api/inventories")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"id\":" + id + ",\"itemId\":1,\"qty\":" + qty + ",\"type\":\"T\"}"));
+    }
+
+    private ResultActions postOrder(String orderNo, int qty) throws Exception {
+        return mockMvc.perform(post("/api/orders")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"orderNo\":\"" + orderNo + "\",\"itemId\":1,\"qty\":" + qty + ",\"price\":100}"));
+    }
+}
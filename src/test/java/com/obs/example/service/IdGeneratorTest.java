@@ -0,0 +1,109 @@
+package com.obs.example.service;
+
+import com.obs.example.TestResultListener;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(TestResultListener.class)
+class IdGeneratorTest {
+
+    private static final long NOW = IdGenerator.EPOCH_MILLIS + 1_000;
+
+    @Test
+    void nextId_EncodesTimeWorkerAndSequence() {
+        IdGenerator idGenerator = new IdGenerator(5, () -> NOW);
+
+        long first = idGenerator.nextId();
+        long second = idGenerator.nextId();
+
+        assertEquals(1_000, first >>> 22);
+        assertEquals(5, (first >>> 12) & IdGenerator.MAX_WORKER_ID);
+        assertEquals(0, first & 0xFFF);
+        assertEquals(first + 1, second);
+    }
+
+    @Test
+    void nextId_NeverGoesBackwardsWhenClockDoes() {
+        AtomicLong clock = new AtomicLong(NOW);
+        IdGenerator idGenerator = new IdGenerator(0, clock::get);
+
+        long before = idGenerator.nextId();
+        clock.set(NOW - 500);
+        long after = idGenerator.nextId();
+
+        assertTrue(after > before);
+    }
+
+    @Test
+    void nextId_FullSequenceCarriesIntoNextMillisecond() {
+        IdGenerator idGenerator = new IdGenerator(0, () -> NOW);
+
+        long last = 0;
+        for (int i = 0; i <= 4096; i++) {
+            last = idGenerator.nextId();
+        }
+
+        assertEquals(1_001, last >>> 22);
+        assertEquals(0, last & 0xFFF);
+    }
+
+    @Test
+    void nextId_UniqueAndIncreasingAcrossThreads() throws Exception {
+        IdGenerator idGenerator = new IdGenerator(3);
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> results = new ArrayList<>();
+
+        for (int t = 0; t < 8; t++) {
+            results.add(executor.submit(() -> {
+                long previous = 0;
+                for (int i = 0; i < 20_000; i++) {
+                    long id = idGenerator.nextId();
+                    assertTrue(id > previous);
+                    assertTrue(ids.add(id));
+                    previous = id;
+                }
+            }));
+        }
+        for (Future<?> result : results) {
+            result.get();
+        }
+        executor.shutdown();
+
+        assertEquals(160_000, ids.size());
+    }
+
+    @Test
+    void nextOrderNo_IsSortableCrockfordString() {
+        AtomicLong clock = new AtomicLong(NOW);
+        IdGenerator idGenerator = new IdGenerator(7, clock::get);
+
+        String first = idGenerator.nextOrderNo();
+        String second = idGenerator.nextOrderNo();
+        clock.addAndGet(1);
+        String third = idGenerator.nextOrderNo();
+
+        assertEquals(26, first.length());
+        assertTrue(first.matches("[0-9A-HJKMNP-TV-Z]{26}"));
+        assertTrue(first.compareTo(second) < 0);
+        assertTrue(second.compareTo(third) < 0);
+        assertEquals(first.substring(0, 10), second.substring(0, 10));
+    }
+
+    @Test
+    void constructor_WorkerIdOutOfRange() {
+        assertThrows(IllegalStateException.class, () -> new IdGenerator(IdGenerator.MAX_WORKER_ID + 1));
+        assertThrows(IllegalStateException.class, () -> new IdGenerator(-1));
+    }
+}
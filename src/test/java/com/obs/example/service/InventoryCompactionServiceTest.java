@@ -0,0 +1,133 @@
+package com.obs.example.service;
+
+import com.obs.example.TestResultListener;
+import com.obs.example.constant.InventoryType;
+import com.obs.example.dto.CompactionReportDto;
+import com.obs.example.exception.BadRequestException;
+import com.obs.example.projection.InventoryTotals;
+import com.obs.example.repository.InventoryRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith({MockitoExtension.class, TestResultListener.class})
+class InventoryCompactionServiceTest {
+
+    private static final Instant HORIZON = Instant.parse("2025-01-01T00:00:00Z");
+    private static final Instant CREATED_AT = Instant.parse("2024-12-31T00:00:00Z");
+
+    @Mock
+    private InventoryRepository inventoryRepository;
+
+    @Mock
+    private StockService stockService;
+
+    @Mock
+    private StockCheckpointService stockCheckpointService;
+
+    @Mock
+    private ChangeVersions changeVersions;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private InventoryCompactionService inventoryCompactionService;
+
+    @BeforeEach
+    void setUp() {
+        inventoryCompactionService = new InventoryCompactionService(inventoryRepository, stockService,
+                new StockEngine(false, 0, null), stockCheckpointService, changeVersions, transactionManager, Duration.ofDays(90), 3);
+    }
+
+    @Test
+    void compact_FoldsBatchesUntilOneRowLeft() {
+        when(inventoryRepository.count()).thenReturn(5L, 1L);
+        when(inventoryRepository.findItemIdsToCompact(HORIZON)).thenReturn(List.of(1L));
+        when(inventoryRepository.findIdsByItemIdCreatedUpTo(1L, HORIZON, PageRequest.of(0, 3)))
+                .thenReturn(List.of(1L, 2L, 3L), List.of(1L, 4L, 5L), List.of(1L));
+        when(inventoryRepository.sumQtyByIdIn(List.of(1L, 2L, 3L))).thenReturn(List.of(inventoryTotals(10, 4)));
+        when(inventoryRepository.sumQtyByIdIn(List.of(1L, 4L, 5L))).thenReturn(List.of(inventoryTotals(9, 0)));
+        when(inventoryRepository.findMaxCreatedAtByIdIn(any())).thenReturn(Optional.of(CREATED_AT));
+
+        CompactionReportDto report = inventoryCompactionService.compact(HORIZON);
+
+        assertEquals(1, report.getCompactedItems());
+        assertEquals(2, report.getBatches());
+        assertEquals(5, report.getRowsBefore());
+        assertEquals(1, report.getRowsAfter());
+        verify(inventoryRepository).updateMovement(1L, 6, InventoryType.T, CREATED_AT);
+        verify(inventoryRepository).deleteByIdIn(List.of(2L, 3L));
+        verify(inventoryRepository).updateMovement(1L, 9, InventoryType.T, CREATED_AT);
+        verify(inventoryRepository).deleteByIdIn(List.of(4L, 5L));
+        verify(stockService, times(2)).recomputeStocks(List.of(1L));
+        verify(stockCheckpointService).recordCompactionHorizon(HORIZON);
+        verify(stockCheckpointService, times(2)).invalidateBefore(1L, CREATED_AT);
+    }
+
+    @Test
+    void compact_NegativeNet_WritesWithdrawal() {
+        when(inventoryRepository.findItemIdsToCompact(HORIZON)).thenReturn(List.of(1L));
+        when(inventoryRepository.findIdsByItemIdCreatedUpTo(1L, HORIZON, PageRequest.of(0, 3)))
+                .thenReturn(List.of(1L, 2L), Collections.emptyList());
+        when(inventoryRepository.sumQtyByIdIn(List.of(1L, 2L))).thenReturn(List.of(inventoryTotals(0, 4)));
+        when(inventoryRepository.findMaxCreatedAtByIdIn(any())).thenReturn(Optional.empty());
+
+        inventoryCompactionService.compact(HORIZON);
+
+        verify(inventoryRepository).updateMovement(1L, 4, InventoryType.W, null);
+        verify(inventoryRepository).deleteByIdIn(List.of(2L));
+        verify(stockCheckpointService, never()).invalidateBefore(any(), any());
+    }
+
+    @Test
+    void compact_NothingToCompact() {
+        when(inventoryRepository.count()).thenReturn(3L);
+        when(inventoryRepository.findItemIdsToCompact(HORIZON)).thenReturn(Collections.emptyList());
+
+        CompactionReportDto report = inventoryCompactionService.compact(HORIZON);
+
+        assertEquals(0, report.getCompactedItems());
+        assertEquals(3, report.getRowsAfter());
+        verify(inventoryRepository, never()).deleteByIdIn(any());
+        verifyNoInteractions(stockService, stockCheckpointService);
+    }
+
+    @Test
+    void compact_FutureHorizon() {
+        assertThrows(BadRequestException.class, () ->
+                inventoryCompactionService.compact(Instant.now().plusSeconds(60))
+        );
+
+        verifyNoInteractions(inventoryRepository);
+    }
+
+    @Test
+    void constructor_BatchSizeTooSmall() {
+        assertThrows(IllegalArgumentException.class, () ->
+                new InventoryCompactionService(inventoryRepository, stockService,
+                        new StockEngine(false, 0, null), stockCheckpointService, changeVersions, transactionManager, Duration.ofDays(90), 1)
+        );
+    }
+
+    private static InventoryTotals inventoryTotals(long topUpTotal, long withdrawalTotal) {
+        return new InventoryTotals() {
+            public Long getItemId() { return 1L; }
+            public long getTopUpTotal() { return topUpTotal; }
+            public long getWithdrawalTotal() { return withdrawalTotal; }
+        };
+    }
+}
@@ -2,7 +2,9 @@ package com.obs.example.service;
 
 import com.obs.example.TestResultListener;
 import com.obs.example.constant.InventoryType;
+import com.obs.example.dto.InventoryDetailDto;
 import com.obs.example.dto.InventoryDto;
+import com.obs.example.dto.StockAsOfDto;
 import com.obs.example.dto.InventoryResponseDto;
 import com.obs.example.entity.Inventory;
 import com.obs.example.entity.Item;
@@ -11,20 +13,24 @@ import com.obs.example.exception.BadRequestException;
 import com.obs.example.exception.ResourceNotFoundException;
 import com.obs.example.repository.InventoryRepository;
 import com.obs.example.repository.ItemRepository;
-import com.obs.example.repository.OrderRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 
-import java.util.Arrays;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -41,7 +47,28 @@ class InventoryServiceTest {
     private ItemRepository itemRepository;
 
     @Mock
-    private OrderRepository orderRepository;
+    private StockService stockService;
+
+    @Mock
+    private StockCheckpointService stockCheckpointService;
+
+    @Mock
+    private MovementWriteService movementWriteService;
+
+    @Spy
+    private StockEngine stockEngine = new StockEngine(false, 0, null);
+
+    @Spy
+    private GroupCommitter groupCommitter = new GroupCommitter(false, Duration.ZERO, 0, null, null, null, null);
+
+    @Spy
+    private IdGenerator idGenerator = new IdGenerator(1);
+
+    @Mock
+    private ItemCache itemCache;
+
+    @Mock
+    private ChangeVersions changeVersions;
 
     @InjectMocks
     private InventoryService inventoryService;
@@ -51,6 +78,8 @@ class InventoryServiceTest {
     private InventoryDto testInventoryDto;
     private Order testOrder;
 
+    private static final Instant CREATED_AT = Instant.parse("2025-01-01T00:00:00Z");
+
     @BeforeEach
     void setUp() {
         testItem = new Item();
@@ -63,6 +92,7 @@ class InventoryServiceTest {
         testInventory.setItem(testItem);
         testInventory.setQty(10);
         testInventory.setType(InventoryType.T);
+        testInventory.setCreatedAt(CREATED_AT);
 
         testInventoryDto = new InventoryDto();
         testInventoryDto.setItemId(1L);
@@ -78,8 +108,9 @@ class InventoryServiceTest {
     @Test
     void getAllInventories_Success() {
         Pageable pageable = PageRequest.of(0, 10);
-        Page<Inventory> page = new PageImpl<>(Collections.singletonList(testInventory));
-        when(inventoryRepository.findAll(pageable)).thenReturn(page);
+        Page<InventoryResponseDto> page = new PageImpl<>(Collections.singletonList(
+                new InventoryResponseDto(1L, 10, InventoryType.T, 1L, null)));
+        when(inventoryRepository.findAllResponses(pageable)).thenReturn(page);
 
         Page<InventoryResponseDto> result = inventoryService.getAllInventories(pageable);
 
@@ -87,41 +118,114 @@ class InventoryServiceTest {
         assertEquals(1, result.getContent().size());
         assertEquals(testInventory.getId(), result.getContent().get(0).getId());
         assertEquals(testInventory.getQty(), result.getContent().get(0).getQty());
-        verify(inventoryRepository).findAll(pageable);
+        assertEquals(1L, result.getContent().get(0).getItemId());
+        verify(inventoryRepository).findAllResponses(pageable);
+        verify(inventoryRepository, never()).findAll(any(Pageable.class));
     }
 
     @Test
     void getInventoryById_Success() {
-        when(inventoryRepository.findById(1L)).thenReturn(Optional.of(testInventory));
+        when(inventoryRepository.findDetailById(1L)).thenReturn(Optional.of(testInventory));
 
-        Inventory result = inventoryService.getInventoryById(1L);
+        InventoryDetailDto result = inventoryService.getInventoryById(1L);
 
         assertNotNull(result);
         assertEquals(testInventory.getId(), result.getId());
-        verify(inventoryRepository).findById(1L);
+        assertEquals(testItem.getName(), result.getItem().getName());
+        verify(inventoryRepository).findDetailById(1L);
     }
 
     @Test
     void getInventoryById_NotFound() {
-        when(inventoryRepository.findById(999L)).thenReturn(Optional.empty());
+        when(inventoryRepository.findDetailById(999L)).thenReturn(Optional.empty());
 
         assertThrows(ResourceNotFoundException.class, () ->
                 inventoryService.getInventoryById(999L)
         );
-        verify(inventoryRepository).findById(999L);
+        verify(inventoryRepository).findDetailById(999L);
     }
 
     @Test
     void saveInventory_NewInventory_Success() {
+        when(itemCache.find(1L)).thenReturn(Optional.of(ItemCache.CachedItem.of(testItem)));
+        when(inventoryRepository.saveAndFlush(any(Inventory.class))).thenReturn(testInventory);
+
+        assertDoesNotThrow(() ->
+                inventoryService.saveInventory(null, testInventoryDto)
+        );
+
+        verify(itemCache).find(1L);
+        verify(inventoryRepository).saveAndFlush(any(Inventory.class));
+        verify(stockService).adjustStock(1L, 10);
+    }
+
+    @Test
+    void saveInventory_NewInventoryWithoutId_GeneratesId() {
+        testInventoryDto.setId(null);
+        when(itemCache.find(1L)).thenReturn(Optional.of(ItemCache.CachedItem.of(testItem)));
+        when(inventoryRepository.saveAndFlush(any(Inventory.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        inventoryService.saveInventory(null, testInventoryDto);
+
+        ArgumentCaptor<Inventory> inventory = ArgumentCaptor.forClass(Inventory.class);
+        verify(inventoryRepository).saveAndFlush(inventory.capture());
+        assertNotNull(inventory.getValue().getId());
+        assertEquals(inventory.getValue().getId(), testInventoryDto.getId());
+        verify(idGenerator).nextId();
+    }
+
+    @Test
+    void saveInventory_JournalMode_AppendsMovement() {
+        when(movementWriteService.isEnabled()).thenReturn(true);
+        when(itemCache.exists(1L)).thenReturn(true);
+
+        inventoryService.saveInventory(null, testInventoryDto);
+
+        ArgumentCaptor<Movement> movement = ArgumentCaptor.forClass(Movement.class);
+        verify(movementWriteService).append(movement.capture());
+        Movement.InventoryMovement appended = (Movement.InventoryMovement) movement.getValue();
+        assertEquals(testInventoryDto.getId(), appended.id());
+        assertEquals(10, appended.stockDelta());
+        verify(inventoryRepository, never()).save(any(Inventory.class));
+        verify(stockService, never()).adjustStock(any(), anyInt());
+    }
+
+    @Test
+    void saveInventory_JournalMode_ItemNotFound() {
+        when(movementWriteService.isEnabled()).thenReturn(true);
+        when(itemCache.exists(1L)).thenReturn(false);
+
+        assertThrows(ResourceNotFoundException.class, () ->
+                inventoryService.saveInventory(null, testInventoryDto)
+        );
+        verify(movementWriteService, never()).append(any());
+    }
+
+    @Test
+    void getInventoryById_PendingInJournal() {
+        when(movementWriteService.findPendingInventory(1L)).thenReturn(Optional.of(
+                new Movement.InventoryMovement(1L, 1L, InventoryType.T, 10, Instant.EPOCH)));
         when(itemRepository.findById(1L)).thenReturn(Optional.of(testItem));
-        when(inventoryRepository.save(any(Inventory.class))).thenReturn(testInventory);
+
+        InventoryDetailDto result = inventoryService.getInventoryById(1L);
+
+        assertEquals(10, result.getQty());
+        assertEquals(testItem.getId(), result.getItem().getId());
+        verify(inventoryRepository, never()).findDetailById(1L);
+    }
+
+    @Test
+    void saveInventory_NewWithdrawal_DecreasesStock() {
+        testInventoryDto.setType(InventoryType.W);
+        testInventoryDto.setQty(4);
+        when(stockService.getStock(1L)).thenReturn(5);
+        when(itemCache.find(1L)).thenReturn(Optional.of(ItemCache.CachedItem.of(testItem)));
 
         assertDoesNotThrow(() ->
                 inventoryService.saveInventory(null, testInventoryDto)
         );
 
-        verify(itemRepository).findById(1L);
-        verify(inventoryRepository).save(any(Inventory.class));
+        verify(stockService).adjustStock(1L, -4);
     }
 
     @Test
@@ -129,8 +233,7 @@ class InventoryServiceTest {
         testInventoryDto.setType(InventoryType.W);
         testInventoryDto.setQty(15);
 
-        when(inventoryRepository.findByItemId(1L)).thenReturn(Collections.singletonList(testInventory));
-        when(orderRepository.findByItemId(1L)).thenReturn(Collections.singletonList(testOrder));
+        when(stockService.getStock(1L)).thenReturn(5);
 
         assertThrows(BadRequestException.class, () ->
                 inventoryService.saveInventory(null, testInventoryDto)
@@ -141,68 +244,108 @@ class InventoryServiceTest {
 
     @Test
     void saveInventory_UpdateExisting_Success() {
-        when(inventoryRepository.findById(1L)).thenReturn(Optional.of(testInventory));
-        when(itemRepository.findById(1L)).thenReturn(Optional.of(testItem));
+        when(inventoryRepository.findItemIdById(1L)).thenReturn(Optional.of(1L));
+        when(inventoryRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(testInventory));
+        when(itemCache.find(1L)).thenReturn(Optional.of(ItemCache.CachedItem.of(testItem)));
         when(inventoryRepository.save(any(Inventory.class))).thenReturn(testInventory);
 
         assertDoesNotThrow(() ->
                 inventoryService.saveInventory(1L, testInventoryDto)
         );
 
-        verify(inventoryRepository).findById(1L);
-        verify(itemRepository).findById(1L);
+        verify(inventoryRepository).findByIdForUpdate(1L);
+        verify(itemCache).find(1L);
         verify(inventoryRepository).save(any(Inventory.class));
     }
 
+    @Test
+    void saveInventory_UpdateChangesType_AdjustsByDifference() {
+        testInventoryDto.setType(InventoryType.W);
+        testInventoryDto.setQty(3);
+        when(inventoryRepository.findItemIdById(1L)).thenReturn(Optional.of(1L));
+        when(inventoryRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(testInventory));
+        when(itemCache.find(1L)).thenReturn(Optional.of(ItemCache.CachedItem.of(testItem)));
+
+        inventoryService.saveInventory(1L, testInventoryDto);
+
+        verify(stockService).adjustStock(1L, -13); // from +10 to -3
+        verify(stockCheckpointService).invalidate(1L, CREATED_AT);
+    }
+
     @Test
     void deleteInventory_Success() {
-        when(inventoryRepository.findById(1L)).thenReturn(Optional.of(testInventory));
-        when(inventoryRepository.findByItemId(1L)).thenReturn(Arrays.asList(testInventory));
-        when(orderRepository.findByItemId(1L)).thenReturn(Collections.emptyList());
+        when(inventoryRepository.findItemIdById(1L)).thenReturn(Optional.of(1L));
+        when(inventoryRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(testInventory));
+        when(stockService.withdrawStocks(Map.of(1L, 10))).thenReturn(List.of());
 
         assertDoesNotThrow(() ->
                 inventoryService.deleteInventory(1L)
         );
 
-        verify(inventoryRepository).findById(1L);
+        verify(inventoryRepository).findByIdForUpdate(1L);
         verify(inventoryRepository).delete(testInventory);
+        verify(stockService).withdrawStocks(Map.of(1L, 10));
+        verify(stockService, never()).adjustStock(any(), anyInt());
+        verify(stockCheckpointService).invalidate(1L, CREATED_AT);
     }
 
     @Test
     void deleteInventory_NotFound() {
-        when(inventoryRepository.findById(999L)).thenReturn(Optional.empty());
+        when(inventoryRepository.findItemIdById(999L)).thenReturn(Optional.empty());
 
         assertThrows(ResourceNotFoundException.class, () ->
                 inventoryService.deleteInventory(999L)
         );
 
-        verify(inventoryRepository).findById(999L);
+        verify(inventoryRepository).findItemIdById(999L);
         verify(inventoryRepository, never()).delete(any());
     }
 
     @Test
     void deleteInventory_InsufficientStock() {
-        when(inventoryRepository.findById(1L)).thenReturn(Optional.of(testInventory));
-        when(inventoryRepository.findByItemId(1L)).thenReturn(Collections.singletonList(testInventory));
-        when(orderRepository.findByItemId(1L)).thenReturn(Collections.singletonList(testOrder));
+        when(inventoryRepository.findItemIdById(1L)).thenReturn(Optional.of(1L));
+        when(inventoryRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(testInventory));
+        when(stockService.withdrawStocks(Map.of(1L, 10))).thenReturn(List.of(1L));
 
         assertThrows(BadRequestException.class, () ->
                 inventoryService.deleteInventory(1L)
         );
 
-        verify(inventoryRepository).findById(1L);
+        verify(inventoryRepository).findByIdForUpdate(1L);
         verify(inventoryRepository, never()).delete(any());
     }
 
     @Test
     void getItemStock_Success() {
-        when(inventoryRepository.findByItemId(1L)).thenReturn(Collections.singletonList(testInventory));
-        when(orderRepository.findByItemId(1L)).thenReturn(Collections.singletonList(testOrder));
+        when(stockService.getStock(1L)).thenReturn(5);
 
         int result = inventoryService.getItemStock(1L);
 
-        assertEquals(5, result); // 10 (inventory) - 5 (order) = 5
-        verify(inventoryRepository).findByItemId(1L);
-        verify(orderRepository).findByItemId(1L);
+        assertEquals(5, result);
+        verify(stockService).getStock(1L);
+    }
+
+    @Test
+    void getItemStockAsOf_Success() {
+        StockAsOfDto stockAsOf = new StockAsOfDto();
+        stockAsOf.setItemId(1L);
+        stockAsOf.setStock(7);
+        when(itemCache.exists(1L)).thenReturn(true);
+        when(stockCheckpointService.getStockAsOf(1L, CREATED_AT)).thenReturn(stockAsOf);
+
+        StockAsOfDto result = inventoryService.getItemStockAsOf(1L, CREATED_AT);
+
+        assertEquals(7, result.getStock());
+    }
+
+    @Test
+    void getItemStockAsOf_ItemNotFound() {
+        when(itemCache.exists(999L)).thenReturn(false);
+
+        assertThrows(ResourceNotFoundException.class, () ->
+                inventoryService.getItemStockAsOf(999L, CREATED_AT)
+        );
+
+        verifyNoInteractions(stockCheckpointService);
     }
-}
\ No newline at end of file
+}
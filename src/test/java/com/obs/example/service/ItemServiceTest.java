@@ -9,14 +9,17 @@ import com.obs.example.entity.Item;
 import com.obs.example.entity.Order;
 import com.obs.example.exception.ReferentialIntegrityViolationException;
 import com.obs.example.exception.ResourceNotFoundException;
+import com.obs.example.repository.ArchivedOrderTotalRepository;
 import com.obs.example.repository.InventoryRepository;
 import com.obs.example.repository.ItemRepository;
 import com.obs.example.repository.OrderRepository;
+import com.obs.example.repository.ReservationRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
@@ -24,6 +27,8 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 
 import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -42,6 +47,27 @@ class ItemServiceTest {
     @Mock
     private OrderRepository orderRepository;
 
+    @Mock
+    private ReservationRepository reservationRepository;
+
+    @Mock
+    private ArchivedOrderTotalRepository archivedOrderTotalRepository;
+
+    @Mock
+    private StockService stockService;
+
+    @Mock
+    private MovementWriteService movementWriteService;
+
+    @Spy
+    private IdGenerator idGenerator = new IdGenerator(1);
+
+    @Mock
+    private ItemCache itemCache;
+
+    @Mock
+    private ChangeVersions changeVersions;
+
     @InjectMocks
     private ItemService itemService;
 
@@ -77,10 +103,9 @@ class ItemServiceTest {
     @Test
     void getAllItems_Success() {
         Pageable pageable = PageRequest.of(0, 10);
-        Page<Item> page = new PageImpl<>(Collections.singletonList(testItem));
-        when(itemRepository.findAll(pageable)).thenReturn(page);
-        when(inventoryRepository.findByItemId(1L)).thenReturn(Collections.singletonList(testInventory));
-        when(orderRepository.findByItemId(1L)).thenReturn(Collections.singletonList(testOrder));
+        Page<ItemResponseDto> page = new PageImpl<>(Collections.singletonList(new ItemResponseDto(1L, "Test Item", 100)));
+        when(itemRepository.findAllResponses(pageable)).thenReturn(page);
+        when(stockService.getStocks(List.of(1L))).thenReturn(Map.of(1L, 5));
 
         Page<ItemResponseDto> result = itemService.getAllItems(pageable);
 
@@ -89,53 +114,67 @@ class ItemServiceTest {
         assertEquals(testItem.getId(), result.getContent().getFirst().getId());
         assertEquals(testItem.getName(), result.getContent().getFirst().getName());
         assertEquals(5, result.getContent().getFirst().getStock());
-        verify(itemRepository).findAll(pageable);
+        verify(itemRepository).findAllResponses(pageable);
+        verify(stockService, never()).getStock(any());
     }
 
     @Test
     void getItemStock_Success() {
-        when(inventoryRepository.findByItemId(1L)).thenReturn(Collections.singletonList(testInventory));
-        when(orderRepository.findByItemId(1L)).thenReturn(Collections.singletonList(testOrder));
+        when(stockService.getStock(1L)).thenReturn(5);
 
         int result = itemService.getItemStock(1L);
 
         assertEquals(5, result);
 
-        verify(inventoryRepository).findByItemId(1L);
-        verify(orderRepository).findByItemId(1L);
+        verify(stockService).getStock(1L);
     }
 
     @Test
     void getItemById_Success() {
-        when(itemRepository.findById(1L)).thenReturn(Optional.of(testItem));
+        when(itemCache.find(1L)).thenReturn(Optional.of(ItemCache.CachedItem.of(testItem)));
 
-        Item result = itemService.getItemById(1L);
+        ItemDto result = itemService.getItemById(1L);
 
         assertNotNull(result);
         assertEquals(testItem.getId(), result.getId());
         assertEquals(testItem.getName(), result.getName());
-        verify(itemRepository).findById(1L);
+        verify(itemCache).find(1L);
     }
 
     @Test
     void getItemById_NotFound() {
-        when(itemRepository.findById(999L)).thenReturn(Optional.empty());
+        when(itemCache.find(999L)).thenReturn(Optional.empty());
 
         assertThrows(ResourceNotFoundException.class, () ->
                 itemService.getItemById(999L)
         );
-        verify(itemRepository).findById(999L);
+        verify(itemCache).find(999L);
     }
 
     @Test
     void saveItem_NewItem_Success() {
-        when(itemRepository.save(any(Item.class))).thenReturn(testItem);
+        when(itemRepository.saveAndFlush(any(Item.class))).thenReturn(testItem);
 
         assertDoesNotThrow(() ->
                 itemService.saveItem(null, testItemDto)
         );
 
-        verify(itemRepository).save(any(Item.class));
+        verify(itemRepository).saveAndFlush(any(Item.class));
+        verify(itemRepository, never()).save(any(Item.class));
+        verify(stockService).createBalance(1L);
+    }
+
+    @Test
+    void saveItem_NewItemWithoutId_GeneratesId() {
+        testItemDto.setId(null);
+        when(itemRepository.saveAndFlush(any(Item.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        itemService.saveItem(null, testItemDto);
+
+        assertNotNull(testItemDto.getId());
+        assertEquals(1, (testItemDto.getId() >> 12) & IdGenerator.MAX_WORKER_ID);
+        verify(idGenerator).nextId();
+        verify(stockService).createBalance(testItemDto.getId());
     }
 
     @Test
@@ -149,6 +188,8 @@ class ItemServiceTest {
 
         verify(itemRepository).findById(1L);
         verify(itemRepository).save(any(Item.class));
+        verify(itemCache).invalidate(1L);
+        verify(changeVersions).bump(ChangeVersions.Table.ITEMS);
     }
 
     @Test
@@ -168,6 +209,7 @@ class ItemServiceTest {
         when(itemRepository.findById(1L)).thenReturn(Optional.of(testItem));
         when(inventoryRepository.existsByItemId(1L)).thenReturn(false);
         when(orderRepository.existsByItemId(1L)).thenReturn(false);
+        when(reservationRepository.existsByItemId(1L)).thenReturn(false);
 
         assertDoesNotThrow(() ->
                 itemService.deleteItem(1L)
@@ -175,6 +217,8 @@ class ItemServiceTest {
 
         verify(itemRepository).findById(1L);
         verify(itemRepository).delete(testItem);
+        verify(itemCache).invalidate(1L);
+        verify(stockService).deleteBalance(1L);
     }
 
     @Test
@@ -215,4 +259,33 @@ class ItemServiceTest {
         verify(itemRepository).findById(1L);
         verify(itemRepository, never()).delete(any());
     }
-}
\ No newline at end of file
+
+    @Test
+    void deleteItem_WithActiveReservations() {
+        when(itemRepository.findById(1L)).thenReturn(Optional.of(testItem));
+        when(inventoryRepository.existsByItemId(1L)).thenReturn(false);
+        when(orderRepository.existsByItemId(1L)).thenReturn(false);
+        when(archivedOrderTotalRepository.existsById(1L)).thenReturn(false);
+        when(reservationRepository.existsByItemId(1L)).thenReturn(true);
+
+        assertThrows(ReferentialIntegrityViolationException.class, () ->
+                itemService.deleteItem(1L)
+        );
+
+        verify(itemRepository, never()).delete(any());
+    }
+
+    @Test
+    void deleteItem_WithArchivedOrders() {
+        when(itemRepository.findById(1L)).thenReturn(Optional.of(testItem));
+        when(inventoryRepository.existsByItemId(1L)).thenReturn(false);
+        when(orderRepository.existsByItemId(1L)).thenReturn(false);
+        when(archivedOrderTotalRepository.existsById(1L)).thenReturn(true);
+
+        assertThrows(ReferentialIntegrityViolationException.class, () ->
+                itemService.deleteItem(1L)
+        );
+
+        verify(itemRepository, never()).delete(any());
+    }
+}
@@ -0,0 +1,93 @@
+package com.obs.example.service;
+
+import com.obs.example.TestResultListener;
+import com.obs.example.entity.Item;
+import com.obs.example.entity.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(TestResultListener.class)
+class OrderArchiveStoreTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void append_ThenReadEveryOrderBack() throws Exception {
+        OrderArchiveStore store = new OrderArchiveStore(directory.toString(), 1 << 20);
+        Instant createdAt = Instant.parse("2024-01-01T10:15:30.123456Z");
+
+        OrderArchiveStore.SegmentPosition first = store.append(List.of(order("O1", 1L, 5, createdAt), order("O2", 2L, 3, null)));
+        OrderArchiveStore.SegmentPosition second = store.append(List.of(order("O3", 1L, 7, createdAt)));
+
+        assertEquals(first.segment(), second.segment());
+        assertEquals(0, first.offset());
+        assertTrue(second.offset() > first.offset());
+
+        Order o1 = store.read(first.segment(), first.offset(), "O1").orElseThrow();
+        assertEquals(1L, o1.getItem().getId());
+        assertEquals(5, o1.getQty());
+        assertEquals(100, o1.getPrice());
+        assertEquals(createdAt, o1.getCreatedAt());
+
+        Order o2 = store.read(first.segment(), first.offset(), "O2").orElseThrow();
+        assertNull(o2.getCreatedAt());
+
+        assertEquals(7, store.read(second.segment(), second.offset(), "O3").orElseThrow().getQty());
+        assertEquals(Optional.empty(), store.read(second.segment(), second.offset(), "O1"));
+    }
+
+    @Test
+    void append_RollsSegmentWhenFull() throws Exception {
+        OrderArchiveStore store = new OrderArchiveStore(directory.toString(), 1);
+
+        OrderArchiveStore.SegmentPosition first = store.append(List.of(order("O1", 1L, 1, null)));
+        OrderArchiveStore.SegmentPosition second = store.append(List.of(order("O2", 1L, 2, null)));
+
+        assertNotEquals(first.segment(), second.segment());
+        assertEquals(0, second.offset());
+        assertEquals(2, store.read(second.segment(), second.offset(), "O2").orElseThrow().getQty());
+    }
+
+    @Test
+    void append_ContinuesLastSegmentAfterRestart() throws Exception {
+        List<Order> orders = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            orders.add(order("O" + i, 1L, i, null));
+        }
+        OrderArchiveStore.SegmentPosition first = new OrderArchiveStore(directory.toString(), 1 << 20).append(orders);
+
+        OrderArchiveStore reopened = new OrderArchiveStore(directory.toString(), 1 << 20);
+        OrderArchiveStore.SegmentPosition second = reopened.append(List.of(order("O50", 1L, 50, null)));
+
+        assertEquals(first.segment(), second.segment());
+        assertEquals(42, reopened.read(first.segment(), first.offset(), "O42").orElseThrow().getQty());
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    private static Order order(String orderNo, Long itemId, int qty, Instant createdAt) {
+        Item item = new Item();
+        item.setId(itemId);
+
+        Order order = new Order();
+        order.setOrderNo(orderNo);
+        order.setItem(item);
+        order.setQty(qty);
+        order.setPrice(100);
+        order.setCreatedAt(createdAt);
+        return order;
+    }
+}
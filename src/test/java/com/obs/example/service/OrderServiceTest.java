@@ -2,6 +2,10 @@ package com.obs.example.service;
 
 import com.obs.example.TestResultListener;
 import com.obs.example.constant.InventoryType;
+import com.obs.example.dto.BasketDto;
+import com.obs.example.dto.BasketLineDto;
+import com.obs.example.dto.BasketResponseDto;
+import com.obs.example.dto.OrderDetailDto;
 import com.obs.example.dto.OrderDto;
 import com.obs.example.dto.OrderResponseDto;
 import com.obs.example.entity.Inventory;
@@ -9,7 +13,6 @@ import com.obs.example.entity.Item;
 import com.obs.example.entity.Order;
 import com.obs.example.exception.BadRequestException;
 import com.obs.example.exception.ResourceNotFoundException;
-import com.obs.example.repository.InventoryRepository;
 import com.obs.example.repository.ItemRepository;
 import com.obs.example.repository.OrderRepository;
 import org.junit.jupiter.api.BeforeEach;
@@ -17,17 +20,26 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
 @ExtendWith({MockitoExtension.class, TestResultListener.class})
@@ -40,7 +52,34 @@ class OrderServiceTest {
     private ItemRepository itemRepository;
 
     @Mock
-    private InventoryRepository inventoryRepository;
+    private StockService stockService;
+
+    @Mock
+    private StockCheckpointService stockCheckpointService;
+
+    @Mock
+    private OrderArchiveService orderArchiveService;
+
+    @Mock
+    private MovementWriteService movementWriteService;
+
+    @Spy
+    private StockEngine stockEngine = new StockEngine(false, 0, null);
+
+    @Spy
+    private GroupCommitter groupCommitter = new GroupCommitter(false, Duration.ZERO, 0, null, null, null, null);
+
+    @Spy
+    private IdGenerator idGenerator = new IdGenerator(1);
+
+    @Mock
+    private ItemCache itemCache;
+
+    @Mock
+    private ChangeVersions changeVersions;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
 
     @InjectMocks
     private OrderService orderService;
@@ -50,6 +89,8 @@ class OrderServiceTest {
     private OrderDto testOrderDto;
     private Inventory testInventory;
 
+    private static final Instant CREATED_AT = Instant.parse("2025-01-01T00:00:00Z");
+
     @BeforeEach
     void setUp() {
         testItem = new Item();
@@ -62,6 +103,7 @@ class OrderServiceTest {
         testOrder.setItem(testItem);
         testOrder.setQty(5);
         testOrder.setPrice(100);
+        testOrder.setCreatedAt(CREATED_AT);
 
         testOrderDto = new OrderDto();
         testOrderDto.setOrderNo("O1");
@@ -79,58 +121,141 @@ class OrderServiceTest {
     @Test
     void getAllOrders_Success() {
         Pageable pageable = PageRequest.of(0, 10);
-        Page<Order> page = new PageImpl<>(Collections.singletonList(testOrder));
-        when(orderRepository.findAll(pageable)).thenReturn(page);
+        Page<OrderResponseDto> page = new PageImpl<>(Collections.singletonList(
+                new OrderResponseDto("O1", 5, 100, 1L, null)));
+        when(orderRepository.findAllResponses(pageable)).thenReturn(page);
 
         Page<OrderResponseDto> result = orderService.getAllOrders(pageable);
 
         assertNotNull(result);
         assertEquals(1, result.getContent().size());
         assertEquals(testOrder.getOrderNo(), result.getContent().getFirst().getOrderNo());
-        verify(orderRepository).findAll(pageable);
+        assertEquals(100, result.getContent().getFirst().getPrice());
+        verify(orderRepository).findAllResponses(pageable);
+        verify(orderRepository, never()).findAll(any(Pageable.class));
     }
 
     @Test
     void getOrderById_Success() {
-        when(orderRepository.findByOrderNo("O1")).thenReturn(Optional.of(testOrder));
+        when(orderRepository.findDetailByOrderNo("O1")).thenReturn(Optional.of(testOrder));
 
-        Order result = orderService.getOrderById("O1");
+        OrderDetailDto result = orderService.getOrderById("O1");
 
         assertNotNull(result);
         assertEquals(testOrder.getOrderNo(), result.getOrderNo());
-        verify(orderRepository).findByOrderNo("O1");
+        verify(orderRepository).findDetailByOrderNo("O1");
     }
 
     @Test
     void getOrderById_NotFound() {
-        when(orderRepository.findByOrderNo("INVALID")).thenReturn(Optional.empty());
+        when(orderRepository.findDetailByOrderNo("INVALID")).thenReturn(Optional.empty());
 
         assertThrows(ResourceNotFoundException.class, () ->
                 orderService.getOrderById("INVALID")
         );
-        verify(orderRepository).findByOrderNo("INVALID");
+        verify(orderRepository).findDetailByOrderNo("INVALID");
+    }
+
+    @Test
+    void getOrderById_FromArchive() {
+        when(orderRepository.findDetailByOrderNo("O1")).thenReturn(Optional.empty());
+        when(orderArchiveService.findArchivedOrder("O1")).thenReturn(Optional.of(testOrder));
+
+        OrderDetailDto result = orderService.getOrderById("O1");
+
+        assertEquals(testOrder.getOrderNo(), result.getOrderNo());
+        assertEquals(testItem.getName(), result.getItem().getName());
+        verify(orderArchiveService).findArchivedOrder("O1");
+    }
+
+    @Test
+    void saveOrder_OrderNoInArchive() {
+        when(orderArchiveService.isArchived("O1")).thenReturn(true);
+
+        assertThrows(BadRequestException.class, () ->
+                orderService.saveOrder(null, testOrderDto)
+        );
+        verify(orderRepository, never()).save(any(Order.class));
     }
 
     @Test
     void saveOrder_NewOrder_Success() {
-        when(itemRepository.findById(1L)).thenReturn(Optional.of(testItem));
-        when(inventoryRepository.findByItemId(1L)).thenReturn(Collections.singletonList(testInventory));
-        when(orderRepository.findByItemId(1L)).thenReturn(Collections.emptyList());
-        when(orderRepository.save(any(Order.class))).thenReturn(testOrder);
+        when(itemCache.find(1L)).thenReturn(Optional.of(ItemCache.CachedItem.of(testItem)));
+        when(stockService.getStock(1L)).thenReturn(10);
+        when(orderRepository.saveAndFlush(any(Order.class))).thenReturn(testOrder);
 
         Order result = orderService.saveOrder(null, testOrderDto);
 
         assertNotNull(result);
         assertEquals(testOrderDto.getOrderNo(), result.getOrderNo());
-        verify(orderRepository).save(any(Order.class));
+        verify(orderRepository).saveAndFlush(any(Order.class));
+        verify(stockService).adjustStock(1L, -5);
+    }
+
+    @Test
+    void saveOrder_NewOrderWithoutOrderNo_GeneratesOrderNo() {
+        testOrderDto.setOrderNo(null);
+        when(itemCache.find(1L)).thenReturn(Optional.of(ItemCache.CachedItem.of(testItem)));
+        when(stockService.getStock(1L)).thenReturn(10);
+        when(orderRepository.saveAndFlush(any(Order.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        Order result = orderService.saveOrder(null, testOrderDto);
+
+        assertEquals(26, result.getOrderNo().length());
+        assertEquals(result.getOrderNo(), testOrderDto.getOrderNo());
+        verify(idGenerator).nextOrderNo();
+    }
+
+    @Test
+    void saveOrder_DuplicateOrderNo() {
+        when(itemCache.find(1L)).thenReturn(Optional.of(ItemCache.CachedItem.of(testItem)));
+        when(stockService.getStock(1L)).thenReturn(10);
+        when(orderRepository.saveAndFlush(any(Order.class))).thenThrow(new DuplicateKeyException("duplicate"));
+
+        BadRequestException exception = assertThrows(BadRequestException.class, () ->
+                orderService.saveOrder(null, testOrderDto)
+        );
+
+        assertEquals("Order already exists with ID: O1", exception.getMessage());
+        verify(stockService, never()).adjustStock(anyLong(), anyInt());
+    }
+
+    @Test
+    void saveOrder_JournalMode_AppendsMovement() {
+        when(movementWriteService.isEnabled()).thenReturn(true);
+        when(itemCache.find(1L)).thenReturn(Optional.of(ItemCache.CachedItem.of(testItem)));
+
+        Order result = orderService.saveOrder(null, testOrderDto);
+
+        assertEquals(testOrderDto.getOrderNo(), result.getOrderNo());
+        assertNotNull(result.getCreatedAt());
+        verify(movementWriteService).append(any(Movement.OrderMovement.class));
+        verify(orderRepository, never()).save(any(Order.class));
+        verify(stockService, never()).getStock(1L);
+    }
+
+    @Test
+    void saveOrder_UpdateWaitsForJournal() {
+        testOrderDto.setQty(3);
+        when(orderRepository.findItemIdByOrderNo("O1")).thenReturn(Optional.of(1L));
+        when(orderRepository.findByOrderNoForUpdate("O1")).thenReturn(Optional.of(testOrder));
+        when(itemCache.find(1L)).thenReturn(Optional.of(ItemCache.CachedItem.of(testItem)));
+        when(stockService.getStock(1L)).thenReturn(5);
+        when(orderRepository.save(any(Order.class))).thenReturn(testOrder);
+
+        orderService.saveOrder("O1", testOrderDto);
+
+        verify(movementWriteService).awaitApplied();
+        verify(movementWriteService, never()).append(any());
     }
 
     @Test
     void saveOrder_UpdateExisting_Success() {
-        when(orderRepository.findByOrderNo("O1")).thenReturn(Optional.of(testOrder));
-        when(itemRepository.findById(1L)).thenReturn(Optional.of(testItem));
-        when(inventoryRepository.findByItemId(1L)).thenReturn(Collections.singletonList(testInventory));
-        when(orderRepository.findByItemId(1L)).thenReturn(Collections.singletonList(testOrder));
+        testOrderDto.setQty(3);
+        when(orderRepository.findItemIdByOrderNo("O1")).thenReturn(Optional.of(1L));
+        when(orderRepository.findByOrderNoForUpdate("O1")).thenReturn(Optional.of(testOrder));
+        when(itemCache.find(1L)).thenReturn(Optional.of(ItemCache.CachedItem.of(testItem)));
+        when(stockService.getStock(1L)).thenReturn(5);
         when(orderRepository.save(any(Order.class))).thenReturn(testOrder);
 
         Order result = orderService.saveOrder("O1", testOrderDto);
@@ -138,12 +263,14 @@ class OrderServiceTest {
         assertNotNull(result);
         assertEquals(testOrderDto.getOrderNo(), result.getOrderNo());
         verify(orderRepository).save(any(Order.class));
+        verify(stockService).adjustStock(1L, 2); // from 5 ordered to 3
+        verify(stockCheckpointService).invalidate(1L, CREATED_AT);
     }
 
     @Test
     void saveOrder_InvalidPrice() {
         testOrderDto.setPrice(200); // Different price than item
-        when(itemRepository.findById(1L)).thenReturn(Optional.of(testItem));
+        when(itemCache.find(1L)).thenReturn(Optional.of(ItemCache.CachedItem.of(testItem)));
 
         assertThrows(BadRequestException.class, () ->
                 orderService.saveOrder(null, testOrderDto)
@@ -154,9 +281,8 @@ class OrderServiceTest {
     @Test
     void saveOrder_InsufficientStock() {
         testOrderDto.setQty(15); // More than available stock
-        when(itemRepository.findById(1L)).thenReturn(Optional.of(testItem));
-        when(inventoryRepository.findByItemId(1L)).thenReturn(Collections.singletonList(testInventory));
-        when(orderRepository.findByItemId(1L)).thenReturn(Collections.emptyList());
+        when(itemCache.find(1L)).thenReturn(Optional.of(ItemCache.CachedItem.of(testItem)));
+        when(stockService.getStock(1L)).thenReturn(10);
 
         assertThrows(BadRequestException.class, () ->
                 orderService.saveOrder(null, testOrderDto)
@@ -166,18 +292,21 @@ class OrderServiceTest {
 
     @Test
     void deleteOrder_Success() {
-        when(orderRepository.findById("O1")).thenReturn(Optional.of(testOrder));
+        when(orderRepository.findItemIdByOrderNo("O1")).thenReturn(Optional.of(1L));
+        when(orderRepository.findByOrderNoForUpdate("O1")).thenReturn(Optional.of(testOrder));
 
         assertDoesNotThrow(() ->
                 orderService.deleteOrder("O1")
         );
 
         verify(orderRepository).delete(testOrder);
+        verify(stockService).adjustStock(1L, 5);
+        verify(stockCheckpointService).invalidate(1L, CREATED_AT);
     }
 
     @Test
     void deleteOrder_NotFound() {
-        when(orderRepository.findById("INVALID")).thenReturn(Optional.empty());
+        when(orderRepository.findItemIdByOrderNo("INVALID")).thenReturn(Optional.empty());
 
         assertThrows(ResourceNotFoundException.class, () ->
                 orderService.deleteOrder("INVALID")
@@ -187,13 +316,79 @@ class OrderServiceTest {
 
     @Test
     void getItemStock_Success() {
-        when(inventoryRepository.findByItemId(1L)).thenReturn(Collections.singletonList(testInventory));
-        when(orderRepository.findByItemId(1L)).thenReturn(Collections.singletonList(testOrder));
+        when(stockService.getStock(1L)).thenReturn(5);
 
         int result = orderService.getItemStock(1L);
 
-        assertEquals(5, result); // 10 (inventory) - 5 (order)
-        verify(inventoryRepository).findByItemId(1L);
-        verify(orderRepository).findByItemId(1L);
+        assertEquals(5, result);
+        verify(stockService).getStock(1L);
+    }
+
+    @Test
+    void placeBasket_ValidatesAllLinesBeforeWriting() {
+        Item other = new Item();
+        other.setId(2L);
+        other.setPrice(50);
+        when(itemCache.find(1L)).thenReturn(Optional.of(ItemCache.CachedItem.of(testItem)));
+        when(itemCache.find(2L)).thenReturn(Optional.of(ItemCache.CachedItem.of(other)));
+        when(stockService.getStocks(any())).thenReturn(Map.of(1L, 3, 2L, 1));
+
+        BadRequestException exception = assertThrows(BadRequestException.class, () ->
+                orderService.placeBasket(basket(line(1L, 2, 100), line(2L, 2, 50), line(1L, 2, 100))));
+
+        assertEquals("Insufficient stock for item ID: 1. Available: 3; Insufficient stock for item ID: 2. Available: 1",
+                exception.getMessage());
+        verifyNoInteractions(jdbcTemplate);
+        verify(stockService, never()).withdrawStocks(any());
+    }
+
+    @Test
+    void placeBasket_InsertsLinesInOneBatch() {
+        when(itemCache.find(1L)).thenReturn(Optional.of(ItemCache.CachedItem.of(testItem)));
+        when(stockService.getStocks(any())).thenReturn(Map.of(1L, 10));
+        when(stockService.withdrawStocks(Map.of(1L, 7))).thenReturn(List.of());
+
+        BasketResponseDto result = orderService.placeBasket(basket(line(1L, 2, 100), line(1L, 5, 100)));
+
+        assertEquals(List.of("B1-1", "B1-2"), result.getLines().stream().map(OrderResponseDto::getOrderNo).toList());
+        verify(jdbcTemplate).batchUpdate(anyString(), anyList());
+        verify(changeVersions).bump(ChangeVersions.Table.ORDERS);
+    }
+
+    @Test
+    void placeBasket_StockTakenConcurrently() {
+        when(itemCache.find(1L)).thenReturn(Optional.of(ItemCache.CachedItem.of(testItem)));
+        when(stockService.getStocks(any())).thenReturn(Map.of(1L, 10));
+        when(stockService.withdrawStocks(Map.of(1L, 2))).thenReturn(List.of(1L));
+
+        assertThrows(BadRequestException.class, () -> orderService.placeBasket(basket(line(1L, 2, 100))));
+
+        verify(changeVersions, never()).bump(any());
+    }
+
+    @Test
+    void placeBasket_WrongPrice() {
+        when(itemCache.find(1L)).thenReturn(Optional.of(ItemCache.CachedItem.of(testItem)));
+
+        BadRequestException exception = assertThrows(BadRequestException.class, () ->
+                orderService.placeBasket(basket(line(1L, 1, 90))));
+
+        assertEquals("Invalid price for order for item: 1", exception.getMessage());
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    private static BasketDto basket(BasketLineDto... lines) {
+        BasketDto basketDto = new BasketDto();
+        basketDto.setBasketNo("B1");
+        basketDto.setLines(List.of(lines));
+        return basketDto;
+    }
+
+    private static BasketLineDto line(Long itemId, int qty, int price) {
+        BasketLineDto line = new BasketLineDto();
+        line.setItemId(itemId);
+        line.setQty(qty);
+        line.setPrice(price);
+        return line;
     }
-}
\ No newline at end of file
+}
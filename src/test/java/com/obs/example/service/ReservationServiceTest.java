@@ -0,0 +1,250 @@
+package com.obs.example.service;
+
+import com.obs.example.TestResultListener;
+import com.obs.example.dto.ReservationDto;
+import com.obs.example.dto.ReservationResponseDto;
+import com.obs.example.entity.Item;
+import com.obs.example.entity.Order;
+import com.obs.example.entity.Reservation;
+import com.obs.example.exception.BadRequestException;
+import com.obs.example.exception.ResourceNotFoundException;
+import com.obs.example.repository.ItemRepository;
+import com.obs.example.repository.OrderRepository;
+import com.obs.example.repository.ReservationRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith({MockitoExtension.class, TestResultListener.class})
+class ReservationServiceTest {
+
+    @Mock
+    private ReservationRepository reservationRepository;
+
+    @Mock
+    private ItemRepository itemRepository;
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    @Mock
+    private OrderArchiveService orderArchiveService;
+
+    @Mock
+    private MovementWriteService movementWriteService;
+
+    @Mock
+    private StockService stockService;
+
+    @Mock
+    private ChangeVersions changeVersions;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private ReservationService reservationService;
+
+    private Item testItem;
+    private Reservation testReservation;
+    private ReservationDto testReservationDto;
+
+    @BeforeEach
+    void setUp() {
+        reservationService = new ReservationService(reservationRepository, itemRepository, orderRepository,
+                orderArchiveService, movementWriteService, stockService, new StockEngine(false, 0, null), changeVersions,
+                transactionManager, Duration.ofMillis(10), 8, Duration.ofHours(1));
+
+        testItem = new Item();
+        testItem.setId(1L);
+        testItem.setName("Test Item");
+        testItem.setPrice(100);
+
+        testReservation = new Reservation();
+        testReservation.setReservationNo("R1");
+        testReservation.setItem(testItem);
+        testReservation.setQty(3);
+        testReservation.setExpiresAt(Instant.now().plusSeconds(300));
+
+        testReservationDto = new ReservationDto();
+        testReservationDto.setReservationNo("R1");
+        testReservationDto.setItemId(1L);
+        testReservationDto.setQty(3);
+        testReservationDto.setTtlSeconds(300);
+    }
+
+    @AfterEach
+    void tearDown() {
+        reservationService.shutdown();
+    }
+
+    @Test
+    void reserve_Success() {
+        when(itemRepository.findById(1L)).thenReturn(Optional.of(testItem));
+        when(stockService.withdrawStocks(Map.of(1L, 3))).thenReturn(List.of());
+        when(reservationRepository.save(any(Reservation.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        ReservationResponseDto result = reservationService.reserve(testReservationDto);
+
+        assertEquals("R1", result.getReservationNo());
+        assertEquals(1L, result.getItemId());
+        assertEquals(3, result.getQty());
+        assertTrue(result.getExpiresAt().isAfter(Instant.now().plusSeconds(290)));
+        verify(stockService).withdrawStocks(Map.of(1L, 3));
+        verify(stockService, never()).adjustStock(any(), anyInt());
+    }
+
+    @Test
+    void reserve_InsufficientStock() {
+        when(itemRepository.findById(1L)).thenReturn(Optional.of(testItem));
+        when(stockService.withdrawStocks(Map.of(1L, 3))).thenReturn(List.of(1L));
+        when(stockService.getStock(1L)).thenReturn(2);
+
+        assertThrows(BadRequestException.class, () ->
+                reservationService.reserve(testReservationDto)
+        );
+
+        verify(reservationRepository, never()).save(any());
+        verify(stockService, never()).adjustStock(any(), anyInt());
+    }
+
+    @Test
+    void reserve_TtlTooLong() {
+        testReservationDto.setTtlSeconds(Duration.ofHours(2).toSeconds());
+
+        assertThrows(BadRequestException.class, () ->
+                reservationService.reserve(testReservationDto)
+        );
+
+        verifyNoInteractions(reservationRepository, stockService);
+    }
+
+    @Test
+    void reserve_AlreadyExists() {
+        when(reservationRepository.existsById("R1")).thenReturn(true);
+
+        assertThrows(BadRequestException.class, () ->
+                reservationService.reserve(testReservationDto)
+        );
+
+        verify(reservationRepository, never()).save(any());
+    }
+
+    @Test
+    void reserve_ItemNotFound() {
+        when(itemRepository.findById(1L)).thenReturn(Optional.empty());
+
+        assertThrows(ResourceNotFoundException.class, () ->
+                reservationService.reserve(testReservationDto)
+        );
+    }
+
+    @Test
+    void confirm_Success() {
+        when(reservationRepository.findItemIdByReservationNo("R1")).thenReturn(Optional.of(1L));
+        when(reservationRepository.findById("R1")).thenReturn(Optional.of(testReservation));
+        when(orderRepository.existsById("O1")).thenReturn(false);
+        when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        Order result = reservationService.confirm("R1", "O1");
+
+        assertEquals("O1", result.getOrderNo());
+        assertEquals(3, result.getQty());
+        assertEquals(100, result.getPrice());
+        verify(reservationRepository).delete(testReservation);
+        verify(stockService, never()).adjustStock(any(), anyInt());
+    }
+
+    @Test
+    void confirm_Expired() {
+        testReservation.setExpiresAt(Instant.now().minusSeconds(1));
+        when(reservationRepository.findItemIdByReservationNo("R1")).thenReturn(Optional.of(1L));
+        when(reservationRepository.findById("R1")).thenReturn(Optional.of(testReservation));
+
+        assertThrows(BadRequestException.class, () ->
+                reservationService.confirm("R1", "O1")
+        );
+
+        verify(orderRepository, never()).save(any());
+    }
+
+    @Test
+    void confirm_OrderAlreadyExists() {
+        when(reservationRepository.findItemIdByReservationNo("R1")).thenReturn(Optional.of(1L));
+        when(reservationRepository.findById("R1")).thenReturn(Optional.of(testReservation));
+        when(orderRepository.existsById("O1")).thenReturn(true);
+
+        assertThrows(BadRequestException.class, () ->
+                reservationService.confirm("R1", "O1")
+        );
+
+        verify(reservationRepository, never()).delete(any());
+    }
+
+    @Test
+    void confirm_NotFound() {
+        when(reservationRepository.findItemIdByReservationNo("R9")).thenReturn(Optional.empty());
+
+        assertThrows(ResourceNotFoundException.class, () ->
+                reservationService.confirm("R9", "O1")
+        );
+    }
+
+    @Test
+    void release_Success() {
+        when(reservationRepository.findItemIdByReservationNo("R1")).thenReturn(Optional.of(1L));
+        when(reservationRepository.findById("R1")).thenReturn(Optional.of(testReservation));
+
+        reservationService.release("R1");
+
+        verify(reservationRepository).delete(testReservation);
+        verify(stockService).adjustStock(1L, 3);
+    }
+
+    @Test
+    void release_NotFound() {
+        when(reservationRepository.findItemIdByReservationNo("R9")).thenReturn(Optional.empty());
+
+        assertThrows(ResourceNotFoundException.class, () ->
+                reservationService.release("R9")
+        );
+
+        verify(stockService, never()).adjustStock(any(), anyInt());
+    }
+
+    @Test
+    void scheduleActiveReservations_ReleasesExpiredReservation() {
+        testReservation.setExpiresAt(Instant.now().minusSeconds(1));
+        when(reservationRepository.findAll()).thenReturn(List.of(testReservation));
+        when(reservationRepository.findById("R1")).thenReturn(Optional.of(testReservation));
+
+        reservationService.scheduleActiveReservations();
+
+        verify(stockService, timeout(2000)).adjustStock(1L, 3);
+        verify(reservationRepository).delete(testReservation);
+    }
+
+    @Test
+    void scheduleActiveReservations_KeepsReservationUntilExpiry() throws InterruptedException {
+        when(reservationRepository.findAll()).thenReturn(List.of(testReservation));
+
+        reservationService.scheduleActiveReservations();
+        Thread.sleep(100);
+
+        verify(reservationRepository, never()).delete(any());
+        verify(stockService, never()).adjustStock(any(), anyInt());
+    }
+}
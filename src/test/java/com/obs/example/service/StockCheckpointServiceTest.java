@@ -0,0 +1,212 @@
+package com.obs.example.service;
+
+import com.obs.example.TestResultListener;
+import com.obs.example.dto.StockAsOfDto;
+import com.obs.example.entity.CompactionState;
+import com.obs.example.entity.StockCheckpoint;
+import com.obs.example.exception.BadRequestException;
+import com.obs.example.projection.InventoryTotals;
+import com.obs.example.projection.OrderTotals;
+import com.obs.example.repository.ArchivedOrderTotalRepository;
+import com.obs.example.repository.CompactionStateRepository;
+import com.obs.example.repository.InventoryRepository;
+import com.obs.example.repository.OrderRepository;
+import com.obs.example.repository.StockCheckpointRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith({MockitoExtension.class, TestResultListener.class})
+class StockCheckpointServiceTest {
+
+    private static final Instant CHECKPOINT_AT = Instant.parse("2025-01-01T00:00:00Z");
+    private static final Instant AS_OF = Instant.parse("2025-01-02T00:00:00Z");
+
+    @Mock
+    private StockCheckpointRepository stockCheckpointRepository;
+
+    @Mock
+    private InventoryRepository inventoryRepository;
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    @Mock
+    private ArchivedOrderTotalRepository archivedOrderTotalRepository;
+
+    @Mock
+    private CompactionStateRepository compactionStateRepository;
+
+    private StockCheckpointService stockCheckpointService;
+
+    @BeforeEach
+    void setUp() {
+        stockCheckpointService = new StockCheckpointService(stockCheckpointRepository, inventoryRepository,
+                orderRepository, archivedOrderTotalRepository, compactionStateRepository, Duration.ofMinutes(1));
+    }
+
+    @Test
+    void getStockAsOf_AddsMovementsAfterCheckpoint() {
+        when(stockCheckpointRepository.findFirstByItemIdAndTakenAtLessThanEqualOrderByTakenAtDesc(1L, AS_OF))
+                .thenReturn(Optional.of(checkpoint(1L, CHECKPOINT_AT, 20)));
+        when(inventoryRepository.sumQtyByItemIdBetween(1L, CHECKPOINT_AT, AS_OF)).thenReturn(List.of(inventoryTotals(1L, 5, 2)));
+        when(orderRepository.sumQtyByItemIdBetween(1L, CHECKPOINT_AT, AS_OF)).thenReturn(List.of(orderTotals(1L, 4)));
+
+        StockAsOfDto result = stockCheckpointService.getStockAsOf(1L, AS_OF);
+
+        assertEquals(19, result.getStock());
+        assertEquals(CHECKPOINT_AT, result.getCheckpointAt());
+        verify(inventoryRepository, never()).sumQtyByItemIdInUpTo(anyCollection(), any());
+    }
+
+    @Test
+    void getStockAsOf_WithoutCheckpoint_SumsHistoryUpToTime() {
+        when(stockCheckpointRepository.findFirstByItemIdAndTakenAtLessThanEqualOrderByTakenAtDesc(1L, AS_OF))
+                .thenReturn(Optional.empty());
+        when(inventoryRepository.sumQtyByItemIdInUpTo(List.of(1L), AS_OF)).thenReturn(List.of(inventoryTotals(1L, 10, 0)));
+        when(orderRepository.sumQtyByItemIdInUpTo(List.of(1L), AS_OF)).thenReturn(Collections.emptyList());
+
+        StockAsOfDto result = stockCheckpointService.getStockAsOf(1L, AS_OF);
+
+        assertEquals(10, result.getStock());
+        assertNull(result.getCheckpointAt());
+    }
+
+    @Test
+    void getStockAsOf_BeforeCompactionHorizon_Refused() {
+        when(compactionStateRepository.findById("inventory")).thenReturn(Optional.of(compactionState(AS_OF)));
+
+        assertThrows(BadRequestException.class, () ->
+                stockCheckpointService.getStockAsOf(1L, CHECKPOINT_AT)
+        );
+
+        verifyNoInteractions(inventoryRepository, orderRepository);
+    }
+
+    @Test
+    void getStockAsOf_BeforeArchiveCutoff_Refused() {
+        when(compactionStateRepository.findById("inventory")).thenReturn(Optional.empty());
+        when(compactionStateRepository.findById("orders")).thenReturn(Optional.of(compactionState(AS_OF)));
+
+        assertThrows(BadRequestException.class, () ->
+                stockCheckpointService.getStockAsOf(1L, CHECKPOINT_AT)
+        );
+
+        verifyNoInteractions(inventoryRepository, orderRepository, archivedOrderTotalRepository);
+    }
+
+    @Test
+    void recordCompactionHorizon_OnlyMovesForward() {
+        when(compactionStateRepository.findById("inventory")).thenReturn(Optional.of(compactionState(AS_OF)));
+
+        stockCheckpointService.recordCompactionHorizon(CHECKPOINT_AT);
+
+        verify(compactionStateRepository, never()).save(any());
+    }
+
+    @Test
+    void takeCheckpoint_FirstRun_CoversAllItems() {
+        when(stockCheckpointRepository.findLatestTakenAt()).thenReturn(Optional.empty());
+        when(inventoryRepository.sumQtyGroupByItemIdUpTo(any())).thenReturn(List.of(inventoryTotals(1L, 10, 2), inventoryTotals(2L, 3, 0)));
+        when(orderRepository.sumQtyGroupByItemIdUpTo(any())).thenReturn(List.of(orderTotals(1L, 5)));
+
+        assertEquals(2, stockCheckpointService.takeCheckpoint());
+
+        Map<Long, Integer> saved = captureSavedCheckpoints();
+        assertEquals(Map.of(1L, 3, 2L, 3), saved);
+    }
+
+    @Test
+    void takeCheckpoint_OnlyChangedItems() {
+        when(stockCheckpointRepository.findLatestTakenAt()).thenReturn(Optional.of(CHECKPOINT_AT));
+        when(inventoryRepository.findItemIdsCreatedBetween(eq(CHECKPOINT_AT), any())).thenReturn(List.of(2L));
+        when(orderRepository.findItemIdsCreatedBetween(eq(CHECKPOINT_AT), any())).thenReturn(Collections.emptyList());
+        when(inventoryRepository.sumQtyByItemIdInUpTo(eq(Set.of(2L)), any())).thenReturn(List.of(inventoryTotals(2L, 8, 1)));
+        when(orderRepository.sumQtyByItemIdInUpTo(eq(Set.of(2L)), any())).thenReturn(Collections.emptyList());
+
+        assertEquals(1, stockCheckpointService.takeCheckpoint());
+
+        assertEquals(Map.of(2L, 7), captureSavedCheckpoints());
+    }
+
+    @Test
+    void takeCheckpoint_NoChanges_WritesNothing() {
+        when(stockCheckpointRepository.findLatestTakenAt()).thenReturn(Optional.of(CHECKPOINT_AT));
+        when(inventoryRepository.findItemIdsCreatedBetween(eq(CHECKPOINT_AT), any())).thenReturn(Collections.emptyList());
+        when(orderRepository.findItemIdsCreatedBetween(eq(CHECKPOINT_AT), any())).thenReturn(Collections.emptyList());
+
+        assertEquals(0, stockCheckpointService.takeCheckpoint());
+
+        verify(stockCheckpointRepository, never()).saveAll(any());
+    }
+
+    @Test
+    void invalidate_DropsCheckpointsFromMovementTime() {
+        stockCheckpointService.invalidate(1L, CHECKPOINT_AT);
+
+        verify(stockCheckpointRepository).deleteByItemIdTakenSince(1L, CHECKPOINT_AT);
+    }
+
+    @Test
+    void invalidate_LegacyMovement_DropsAllCheckpoints() {
+        stockCheckpointService.invalidate(1L, null);
+
+        verify(stockCheckpointRepository).deleteByItemId(1L);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<Long, Integer> captureSavedCheckpoints() {
+        ArgumentCaptor<List<StockCheckpoint>> captor = ArgumentCaptor.forClass(List.class);
+        verify(stockCheckpointRepository).saveAll(captor.capture());
+        return captor.getValue().stream()
+                .collect(Collectors.toMap(StockCheckpoint::getItemId, StockCheckpoint::getQty));
+    }
+
+    private static StockCheckpoint checkpoint(Long itemId, Instant takenAt, int qty) {
+        StockCheckpoint checkpoint = new StockCheckpoint();
+        checkpoint.setItemId(itemId);
+        checkpoint.setTakenAt(takenAt);
+        checkpoint.setQty(qty);
+        return checkpoint;
+    }
+
+    private static CompactionState compactionState(Instant horizon) {
+        CompactionState state = new CompactionState();
+        state.setName("inventory");
+        state.setHorizon(horizon);
+        return state;
+    }
+
+    private static InventoryTotals inventoryTotals(Long itemId, long topUpTotal, long withdrawalTotal) {
+        return new InventoryTotals() {
+            public Long getItemId() { return itemId; }
+            public long getTopUpTotal() { return topUpTotal; }
+            public long getWithdrawalTotal() { return withdrawalTotal; }
+        };
+    }
+
+    private static OrderTotals orderTotals(Long itemId, long orderTotal) {
+        return new OrderTotals() {
+            public Long getItemId() { return itemId; }
+            public long getOrderTotal() { return orderTotal; }
+        };
+    }
+}
@@ -0,0 +1,88 @@
+package com.obs.example.service;
+
+import com.obs.example.TestResultListener;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(TestResultListener.class)
+class StockIndexTest {
+
+    @Test
+    void isReady_OnlyAfterLoad() {
+        StockIndex stockIndex = new StockIndex(true);
+
+        assertTrue(stockIndex.isEnabled());
+        assertFalse(stockIndex.isReady());
+
+        stockIndex.load(Map.of(1L, 10));
+
+        assertTrue(stockIndex.isReady());
+        assertEquals(10, stockIndex.get(1L));
+    }
+
+    @Test
+    void get_UnknownItemIsZero() {
+        StockIndex stockIndex = new StockIndex(true);
+        stockIndex.load(Map.of());
+
+        assertEquals(0, stockIndex.get(99L));
+    }
+
+    @Test
+    void add_ConcurrentDeltasAreNotLost() throws Exception {
+        StockIndex stockIndex = new StockIndex(true);
+        stockIndex.load(Map.of(1L, 0));
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 8; i++) {
+            executor.submit(() -> {
+                for (int j = 0; j < 10_000; j++) {
+                    stockIndex.add(1L, 1);
+                    stockIndex.add(2L, -1);
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+        assertEquals(80_000, stockIndex.get(1L));
+        assertEquals(-80_000, stockIndex.get(2L));
+    }
+
+    @Test
+    void remove_DropsCell() {
+        StockIndex stockIndex = new StockIndex(true);
+        stockIndex.load(Map.of(1L, 5));
+
+        stockIndex.remove(1L);
+
+        assertEquals(Map.of(), stockIndex.snapshot());
+    }
+
+    @Test
+    void load_WaitsForWritesInsideTheGate() throws Exception {
+        StockIndex stockIndex = new StockIndex(true);
+        stockIndex.beginWrite();
+
+        CompletableFuture<Void> loading = CompletableFuture.runAsync(() -> stockIndex.load(() -> Map.of(1L, 5)));
+
+        assertThrows(TimeoutException.class, () -> loading.get(200, TimeUnit.MILLISECONDS));
+        assertFalse(stockIndex.isReady());
+
+        stockIndex.add(1L, 3);
+        stockIndex.endWrite();
+        loading.get(5, TimeUnit.SECONDS);
+
+        // the recompute already counts the write, which added to the cells that were replaced
+        assertEquals(5, stockIndex.get(1L));
+    }
+}
@@ -0,0 +1,292 @@
+package com.obs.example.service;
+
+import com.obs.example.TestResultListener;
+import com.obs.example.dto.StockConsistencyDto;
+import com.obs.example.dto.StockMismatchDto;
+import com.obs.example.entity.ArchivedOrderTotal;
+import com.obs.example.entity.StockBalance;
+import com.obs.example.exception.BadRequestException;
+import com.obs.example.projection.InventoryTotals;
+import com.obs.example.projection.OrderTotals;
+import com.obs.example.projection.ReservationTotals;
+import com.obs.example.repository.ArchivedOrderTotalRepository;
+import com.obs.example.repository.InventoryRepository;
+import com.obs.example.repository.OrderRepository;
+import com.obs.example.repository.ReservationRepository;
+import com.obs.example.repository.StockBalanceRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith({MockitoExtension.class, TestResultListener.class})
+class StockServiceTest {
+
+    @Mock
+    private StockBalanceRepository stockBalanceRepository;
+
+    @Mock
+    private InventoryRepository inventoryRepository;
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    @Mock
+    private ReservationRepository reservationRepository;
+
+    @Mock
+    private ArchivedOrderTotalRepository archivedOrderTotalRepository;
+
+    @Mock
+    private StockIndex stockIndex;
+
+    @Mock
+    private ChangeVersions changeVersions;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @InjectMocks
+    private StockService stockService;
+
+    @Test
+    void getStock_ReadsBalance() {
+        when(stockBalanceRepository.findQtyByItemId(1L)).thenReturn(Optional.of(7));
+
+        assertEquals(7, stockService.getStock(1L));
+
+        verifyNoInteractions(inventoryRepository, orderRepository);
+    }
+
+    @Test
+    void getStock_WithoutBalance_FallsBackToHistory() {
+        when(stockBalanceRepository.findQtyByItemId(1L)).thenReturn(Optional.empty());
+        when(inventoryRepository.sumQtyByItemIdIn(List.of(1L))).thenReturn(List.of(inventoryTotals(1L, 10, 0)));
+        when(orderRepository.sumQtyByItemIdIn(List.of(1L))).thenReturn(List.of(orderTotals(1L, 5)));
+
+        assertEquals(5, stockService.getStock(1L));
+
+        verify(stockBalanceRepository, never()).save(any());
+    }
+
+    @Test
+    void getStock_WithoutBalance_SubtractsReservations() {
+        when(stockBalanceRepository.findQtyByItemId(1L)).thenReturn(Optional.empty());
+        when(inventoryRepository.sumQtyByItemIdIn(List.of(1L))).thenReturn(List.of(inventoryTotals(1L, 10, 0)));
+        when(orderRepository.sumQtyByItemIdIn(List.of(1L))).thenReturn(List.of(orderTotals(1L, 5)));
+        when(reservationRepository.sumQtyByItemIdIn(List.of(1L))).thenReturn(List.of(reservationTotals(1L, 3)));
+
+        assertEquals(2, stockService.getStock(1L));
+    }
+
+    @Test
+    void getStock_WithoutBalance_SubtractsArchivedOrders() {
+        ArchivedOrderTotal archived = new ArchivedOrderTotal();
+        archived.setItemId(1L);
+        archived.setQty(4);
+        when(stockBalanceRepository.findQtyByItemId(1L)).thenReturn(Optional.empty());
+        when(inventoryRepository.sumQtyByItemIdIn(List.of(1L))).thenReturn(List.of(inventoryTotals(1L, 10, 0)));
+        when(orderRepository.sumQtyByItemIdIn(List.of(1L))).thenReturn(List.of(orderTotals(1L, 5)));
+        when(archivedOrderTotalRepository.findAllById(List.of(1L))).thenReturn(List.of(archived));
+
+        assertEquals(1, stockService.getStock(1L));
+    }
+
+    @Test
+    void getStock_WithoutBalanceOrHistory_IsZero() {
+        when(stockBalanceRepository.findQtyByItemId(1L)).thenReturn(Optional.empty());
+        when(inventoryRepository.sumQtyByItemIdIn(List.of(1L))).thenReturn(Collections.emptyList());
+        when(orderRepository.sumQtyByItemIdIn(List.of(1L))).thenReturn(Collections.emptyList());
+
+        assertEquals(0, stockService.getStock(1L));
+    }
+
+    @Test
+    void getStocks_MixesBalancesAndHistory() {
+        StockBalance balance = new StockBalance();
+        balance.setItemId(1L);
+        balance.setQty(7);
+        when(stockBalanceRepository.findAllById(List.of(1L, 2L))).thenReturn(List.of(balance));
+        when(inventoryRepository.sumQtyByItemIdIn(List.of(2L))).thenReturn(List.of(inventoryTotals(2L, 10, 4)));
+        when(orderRepository.sumQtyByItemIdIn(List.of(2L))).thenReturn(Collections.emptyList());
+
+        Map<Long, Integer> result = stockService.getStocks(List.of(1L, 2L));
+
+        assertEquals(Map.of(1L, 7, 2L, 6), result);
+    }
+
+    @Test
+    void adjustStock_UpdatesExistingBalance() {
+        when(stockBalanceRepository.adjustQty(1L, -3)).thenReturn(1);
+
+        stockService.adjustStock(1L, -3);
+
+        verify(stockBalanceRepository).adjustQty(1L, -3);
+        verify(stockBalanceRepository, never()).save(any());
+    }
+
+    @Test
+    void adjustStock_WithoutBalance_CreatesItFromHistory() {
+        when(stockBalanceRepository.adjustQty(1L, -5)).thenReturn(0);
+        when(inventoryRepository.sumQtyByItemIdIn(List.of(1L))).thenReturn(List.of(inventoryTotals(1L, 10, 0)));
+        when(orderRepository.sumQtyByItemIdIn(List.of(1L))).thenReturn(List.of(orderTotals(1L, 5)));
+
+        stockService.adjustStock(1L, -5);
+
+        ArgumentCaptor<StockBalance> captor = ArgumentCaptor.forClass(StockBalance.class);
+        verify(stockBalanceRepository).save(captor.capture());
+        assertEquals(1L, captor.getValue().getItemId());
+        assertEquals(5, captor.getValue().getQty());
+    }
+
+    @Test
+    void adjustStock_ZeroDelta_DoesNothing() {
+        stockService.adjustStock(1L, 0);
+
+        verifyNoInteractions(stockBalanceRepository);
+    }
+
+    @Test
+    void adjustStocks_OneBatchAndHistoryOnlyForMissingBalances() {
+        Map<Long, Integer> deltas = new LinkedHashMap<>();
+        deltas.put(1L, 4);
+        deltas.put(2L, 0);
+        deltas.put(3L, -2);
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenReturn(new int[]{1, 0});
+        when(inventoryRepository.sumQtyByItemIdIn(List.of(3L))).thenReturn(List.of(inventoryTotals(3L, 10, 2)));
+
+        stockService.adjustStocks(deltas);
+
+        ArgumentCaptor<List<Object[]>> updates = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(anyString(), updates.capture());
+        assertEquals(List.of(List.of(4, 1L), List.of(-2, 3L)), updates.getValue().stream().map(List::of).toList());
+        ArgumentCaptor<StockBalance> captor = ArgumentCaptor.forClass(StockBalance.class);
+        verify(stockBalanceRepository).save(captor.capture());
+        assertEquals(3L, captor.getValue().getItemId());
+        assertEquals(8, captor.getValue().getQty());
+        verify(changeVersions).bump(ChangeVersions.Table.STOCK);
+    }
+
+    @Test
+    void initializeMissingBalances_CreatesRowPerItem() {
+        when(stockBalanceRepository.findItemIdsWithoutBalance()).thenReturn(List.of(1L));
+        when(inventoryRepository.sumQtyByItemIdIn(List.of(1L))).thenReturn(List.of(inventoryTotals(1L, 10, 0)));
+        when(orderRepository.sumQtyByItemIdIn(List.of(1L))).thenReturn(Collections.emptyList());
+
+        stockService.initializeMissingBalances();
+
+        ArgumentCaptor<StockBalance> captor = ArgumentCaptor.forClass(StockBalance.class);
+        verify(stockBalanceRepository).save(captor.capture());
+        assertEquals(10, captor.getValue().getQty());
+    }
+
+    @Test
+    void getStock_ReadyIndex_SkipsDatabase() {
+        when(stockIndex.isReady()).thenReturn(true);
+        when(stockIndex.get(1L)).thenReturn(3);
+
+        assertEquals(3, stockService.getStock(1L));
+
+        verifyNoInteractions(stockBalanceRepository, inventoryRepository, orderRepository);
+    }
+
+    @Test
+    void adjustStock_EnabledIndex_ReceivesDelta() {
+        when(stockBalanceRepository.adjustQty(1L, -3)).thenReturn(1);
+        when(stockIndex.isEnabled()).thenReturn(true);
+
+        stockService.adjustStock(1L, -3);
+
+        verify(stockIndex).add(1L, -3);
+    }
+
+    @Test
+    void createBalances_EnabledIndex_AddsEntries() {
+        when(stockIndex.isEnabled()).thenReturn(true);
+
+        stockService.createBalances(List.of(3L, 4L));
+
+        verify(jdbcTemplate).batchUpdate(anyString(), anyList());
+        verify(stockIndex).add(3L, 0);
+        verify(stockIndex).add(4L, 0);
+    }
+
+    @Test
+    void warmUpIndex_LoadsFullRecompute() {
+        when(stockIndex.isEnabled()).thenReturn(true);
+        when(inventoryRepository.sumQtyGroupByItemId()).thenReturn(List.of(inventoryTotals(1L, 10, 2), inventoryTotals(2L, 4, 0)));
+        when(orderRepository.sumQtyGroupByItemId()).thenReturn(List.of(orderTotals(1L, 3)));
+
+        stockService.warmUpIndex();
+
+        ArgumentCaptor<Supplier<Map<Long, Integer>>> recompute = ArgumentCaptor.captor();
+        verify(stockIndex).load(recompute.capture());
+        assertEquals(Map.of(1L, 5, 2L, 4), recompute.getValue().get());
+    }
+
+    @Test
+    void checkIndexConsistency_ReportsMismatches() {
+        when(stockIndex.isReady()).thenReturn(true);
+        when(stockIndex.snapshot()).thenReturn(Map.of(1L, 5, 2L, 1));
+        when(inventoryRepository.sumQtyGroupByItemId()).thenReturn(List.of(inventoryTotals(1L, 5, 0), inventoryTotals(3L, 2, 0)));
+        when(orderRepository.sumQtyGroupByItemId()).thenReturn(Collections.emptyList());
+
+        StockConsistencyDto result = stockService.checkIndexConsistency();
+
+        assertFalse(result.isConsistent());
+        assertEquals(3, result.getCheckedItems());
+        assertEquals(List.of(new StockMismatchDto(2L, 1, 0), new StockMismatchDto(3L, 0, 2)), result.getMismatches());
+    }
+
+    @Test
+    void checkIndexConsistency_IndexDisabled() {
+        assertThrows(BadRequestException.class, () -> stockService.checkIndexConsistency());
+    }
+
+    @Test
+    void deleteBalance_Success() {
+        when(stockBalanceRepository.existsById(1L)).thenReturn(true);
+
+        stockService.deleteBalance(1L);
+
+        verify(stockBalanceRepository).deleteById(1L);
+    }
+
+    private static InventoryTotals inventoryTotals(Long itemId, long topUpTotal, long withdrawalTotal) {
+        return new InventoryTotals() {
+            public Long getItemId() { return itemId; }
+            public long getTopUpTotal() { return topUpTotal; }
+            public long getWithdrawalTotal() { return withdrawalTotal; }
+        };
+    }
+
+    private static OrderTotals orderTotals(Long itemId, long orderTotal) {
+        return new OrderTotals() {
+            public Long getItemId() { return itemId; }
+            public long getOrderTotal() { return orderTotal; }
+        };
+    }
+
+    private static ReservationTotals reservationTotals(Long itemId, long reservedTotal) {
+        return new ReservationTotals() {
+            public Long getItemId() { return itemId; }
+            public long getReservedTotal() { return reservedTotal; }
+        };
+    }
+}
@@ -0,0 +1,68 @@
+package com.obs.example.utils;
+
+import com.obs.example.TestResultListener;
+import com.obs.example.dto.CursorPageDto;
+import com.obs.example.exception.BadRequestException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.util.List;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(TestResultListener.class)
+class CursorUtilsTest {
+
+    @Test
+    void encode_RoundTripsKeys() {
+        assertEquals(42L, CursorUtils.decodeLong(CursorUtils.encode(42L)));
+        assertEquals(-7L, CursorUtils.decodeLong(CursorUtils.encode(-7L)));
+        assertEquals("01HZX/ä+", CursorUtils.decodeString(CursorUtils.encode("01HZX/ä+")));
+    }
+
+    @Test
+    void encode_IsUrlSafe() {
+        assertTrue(CursorUtils.encode("??>>~~").matches("[A-Za-z0-9_-]+"));
+    }
+
+    @Test
+    void decode_NoCursorStartsBeforeFirstKey() {
+        assertEquals(Long.MIN_VALUE, CursorUtils.decodeLong(null));
+        assertEquals(Long.MIN_VALUE, CursorUtils.decodeLong(""));
+        assertEquals("", CursorUtils.decodeString(null));
+    }
+
+    @Test
+    void decode_InvalidCursor() {
+        assertThrows(BadRequestException.class, () -> CursorUtils.decodeLong("not base64!"));
+        assertThrows(BadRequestException.class, () -> CursorUtils.decodeLong(CursorUtils.encode("abc")));
+        assertThrows(BadRequestException.class, () -> CursorUtils.decodeString("%%%"));
+    }
+
+    @Test
+    void limit_FetchesOneExtraRow() {
+        assertEquals(11, CursorUtils.limit(10).max());
+        assertThrows(BadRequestException.class, () -> CursorUtils.limit(0));
+        assertThrows(BadRequestException.class, () -> CursorUtils.limit(CursorUtils.MAX_SIZE + 1));
+    }
+
+    @Test
+    void toPage_ExtraRowMeansNextPage() {
+        CursorPageDto<Long> page = CursorUtils.toPage(List.of(1L, 2L, 3L), 2, Function.identity());
+
+        assertEquals(List.of(1L, 2L), page.getContent());
+        assertEquals(2, page.getSize());
+        assertTrue(page.isHasNext());
+        assertEquals(2L, CursorUtils.decodeLong(page.getNextCursor()));
+    }
+
+    @Test
+    void toPage_LastPageHasNoCursor() {
+        CursorPageDto<Long> page = CursorUtils.toPage(List.of(1L, 2L), 2, Function.identity());
+
+        assertEquals(List.of(1L, 2L), page.getContent());
+        assertFalse(page.isHasNext());
+        assertNull(page.getNextCursor());
+    }
+}
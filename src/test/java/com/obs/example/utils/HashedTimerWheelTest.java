@@ -0,0 +1,100 @@
+package com.obs.example.utils;
+
+import com.obs.example.TestResultListener;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(TestResultListener.class)
+class HashedTimerWheelTest {
+
+    private HashedTimerWheel timerWheel;
+
+    @BeforeEach
+    void setUp() {
+        timerWheel = new HashedTimerWheel(Duration.ofMillis(10), 8, Runnable::run, "test-timer");
+    }
+
+    @AfterEach
+    void tearDown() {
+        timerWheel.close();
+    }
+
+    @Test
+    void schedule_RunsTaskAfterDelay() throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(1);
+        long start = System.nanoTime();
+
+        timerWheel.schedule(latch::countDown, Duration.ofMillis(50));
+
+        assertTrue(latch.await(2, TimeUnit.SECONDS));
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50));
+    }
+
+    @Test
+    void schedule_DelayLongerThanOneRotation() throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(1);
+        long start = System.nanoTime();
+
+        // 8 buckets of 10ms: the timeout has to survive two full rotations
+        timerWheel.schedule(latch::countDown, Duration.ofMillis(200));
+
+        assertTrue(latch.await(2, TimeUnit.SECONDS));
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(200));
+    }
+
+    @Test
+    void schedule_RunsTasksInDeadlineOrder() throws InterruptedException {
+        List<Integer> fired = new CopyOnWriteArrayList<>();
+        CountDownLatch latch = new CountDownLatch(3);
+
+        timerWheel.schedule(() -> { fired.add(3); latch.countDown(); }, Duration.ofMillis(150));
+        timerWheel.schedule(() -> { fired.add(1); latch.countDown(); }, Duration.ofMillis(20));
+        timerWheel.schedule(() -> { fired.add(2); latch.countDown(); }, Duration.ofMillis(80));
+
+        assertTrue(latch.await(2, TimeUnit.SECONDS));
+        assertEquals(List.of(1, 2, 3), fired);
+    }
+
+    @Test
+    void cancel_TaskDoesNotRun() throws InterruptedException {
+        CountDownLatch cancelled = new CountDownLatch(1);
+        CountDownLatch marker = new CountDownLatch(1);
+
+        HashedTimerWheel.Timeout timeout = timerWheel.schedule(cancelled::countDown, Duration.ofMillis(30));
+        timeout.cancel();
+        timerWheel.schedule(marker::countDown, Duration.ofMillis(60));
+
+        assertTrue(marker.await(2, TimeUnit.SECONDS));
+        assertTrue(timeout.isCancelled());
+        assertEquals(1, cancelled.getCount());
+    }
+
+    @Test
+    void schedule_AfterClose_Throws() {
+        timerWheel.close();
+
+        assertThrows(IllegalStateException.class, () ->
+                timerWheel.schedule(() -> { }, Duration.ofMillis(10))
+        );
+    }
+
+    @Test
+    void constructor_InvalidArguments_Throws() {
+        assertThrows(IllegalArgumentException.class, () ->
+                new HashedTimerWheel(Duration.ZERO, 8, Runnable::run, "invalid-timer")
+        );
+        assertThrows(IllegalArgumentException.class, () ->
+                new HashedTimerWheel(Duration.ofMillis(10), 0, Runnable::run, "invalid-timer")
+        );
+    }
+}
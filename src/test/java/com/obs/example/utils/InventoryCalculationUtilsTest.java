@@ -137,4 +137,18 @@ class InventoryCalculationUtilsTest {
 
         assertEquals(15, result); // 10 + 5
     }
-}
\ No newline at end of file
+
+    @Test
+    void calculateStockQuantity_FromTotals() {
+        int result = InventoryCalculationUtils.calculateStockQuantity(10L, 5L, 3L);
+
+        assertEquals(2, result); // 10 (incoming) - 5 (outgoing) - 3 (order)
+    }
+
+    @Test
+    void calculateStockQuantity_FromTotalsOverflow() {
+        assertThrows(ArithmeticException.class, () ->
+                InventoryCalculationUtils.calculateStockQuantity(Integer.MAX_VALUE + 1L, 0L, 0L)
+        );
+    }
+}
@@ -0,0 +1,207 @@
+package com.obs.example.utils;
+
+import com.obs.example.TestResultListener;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(TestResultListener.class)
+class MappedJournalTest {
+
+    private static final int SEGMENT_BYTES = 4096;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void append_ThenReadAfter() throws IOException {
+        try (MappedJournal journal = MappedJournal.open(directory, SEGMENT_BYTES, false, 0)) {
+            assertEquals(1, journal.append(payload(1)));
+            assertEquals(2, journal.append(payload(2)));
+            assertEquals(3, journal.append(payload(3)));
+
+            List<MappedJournal.Entry> entries = journal.readAfter(1);
+
+            assertEquals(List.of(2L, 3L), entries.stream().map(MappedJournal.Entry::seq).toList());
+            assertArrayEquals(payload(3), entries.get(1).payload());
+        }
+    }
+
+    @Test
+    void open_ContinuesAfterLastRecord() throws IOException {
+        try (MappedJournal journal = MappedJournal.open(directory, SEGMENT_BYTES, false, 0)) {
+            journal.append(payload(1));
+            journal.append(payload(2));
+        }
+
+        try (MappedJournal journal = MappedJournal.open(directory, SEGMENT_BYTES, false, 0)) {
+            assertEquals(2, journal.lastSeq());
+            assertEquals(3, journal.append(payload(3)));
+            assertEquals(3, journal.readAfter(0).size());
+        }
+    }
+
+    @Test
+    void open_UsesFloorSeqWhenSegmentsAreGone() throws IOException {
+        try (MappedJournal journal = MappedJournal.open(directory, SEGMENT_BYTES, false, 41)) {
+            assertEquals(42, journal.append(payload(42)));
+        }
+    }
+
+    @Test
+    void append_RollsSegmentsAndReleaseDeletesAppliedOnes() throws IOException {
+        try (MappedJournal journal = MappedJournal.open(directory, SEGMENT_BYTES, false, 0)) {
+            for (int i = 1; i <= 500; i++) {
+                journal.append(payload(i));
+            }
+            long segments = segmentCount();
+            assertTrue(segments > 2);
+            assertEquals(500, journal.readAfter(0).size());
+
+            journal.release(250);
+
+            List<MappedJournal.Entry> remaining = journal.readAfter(0);
+            assertTrue(segmentCount() < segments);
+            assertTrue(remaining.getFirst().seq() > 1 && remaining.getFirst().seq() <= 251);
+            assertEquals(500, remaining.getLast().seq());
+
+            journal.release(500);
+            assertEquals(1, segmentCount());
+        }
+    }
+
+    @Test
+    void open_DiscardsTornRecord() throws IOException {
+        long end;
+        try (MappedJournal journal = MappedJournal.open(directory, SEGMENT_BYTES, false, 0)) {
+            journal.append(payload(1));
+            journal.append(payload(2));
+            end = 2L * (16 + payload(1).length);
+        }
+
+        // a crash after the checksum and part of the payload were written, before the length
+        Path segment = directory.resolve("journal-0000000000000000001.log");
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{0x12, 0x34, 0x56, 0x78, 0, 0, 0, 0, 0, 0, 0, 3, 'x', 'y'}), end + 4);
+        }
+
+        try (MappedJournal journal = MappedJournal.open(directory, SEGMENT_BYTES, false, 0)) {
+            assertEquals(2, journal.readAfter(0).size());
+            assertEquals(3, journal.append(payload(3)));
+            assertEquals(4, journal.append(payload(4)));
+            assertEquals(List.of(1L, 2L, 3L, 4L), journal.readAfter(0).stream().map(MappedJournal.Entry::seq).toList());
+        }
+    }
+
+    @Test
+    void crash_KeepsEveryAcknowledgedRecord() throws Exception {
+        Path output = directory.resolve("acks.txt");
+        Path journalDirectory = directory.resolve("journal");
+
+        Process writer = new ProcessBuilder(
+                Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+                "-cp", System.getProperty("java.class.path"),
+                CrashingWriter.class.getName(), journalDirectory.toString(), "5000")
+                .redirectErrorStream(true)
+                .redirectOutput(output.toFile())
+                .start();
+        assertTrue(writer.waitFor(60, TimeUnit.SECONDS));
+        assertEquals(137, writer.exitValue());
+
+        List<Long> acknowledged = acknowledged(output);
+        assertEquals(5000, acknowledged.size());
+
+        try (MappedJournal journal = MappedJournal.open(journalDirectory, SEGMENT_BYTES, false, 0)) {
+            List<MappedJournal.Entry> entries = journal.readAfter(0);
+            assertEquals(acknowledged, entries.stream().map(MappedJournal.Entry::seq).toList());
+            for (MappedJournal.Entry entry : entries) {
+                assertArrayEquals(payload(entry.seq()), entry.payload());
+            }
+        }
+    }
+
+    @Test
+    void kill_WhileAppending_KeepsEveryAcknowledgedRecord() throws Exception {
+        Path output = directory.resolve("acks.txt");
+        Path journalDirectory = directory.resolve("journal");
+
+        Process writer = new ProcessBuilder(
+                Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+                "-cp", System.getProperty("java.class.path"),
+                CrashingWriter.class.getName(), journalDirectory.toString(), "-1")
+                .redirectErrorStream(true)
+                .redirectOutput(output.toFile())
+                .start();
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(60);
+        while (acknowledged(output).size() < 2000 && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+        writer.destroyForcibly();
+        assertTrue(writer.waitFor(60, TimeUnit.SECONDS));
+
+        List<Long> acknowledged = acknowledged(output);
+        assertTrue(acknowledged.size() >= 2000);
+
+        try (MappedJournal journal = MappedJournal.open(journalDirectory, SEGMENT_BYTES, false, 0)) {
+            List<Long> journaled = journal.readAfter(0).stream().map(MappedJournal.Entry::seq).toList();
+            assertTrue(journaled.size() >= acknowledged.size());
+            assertEquals(acknowledged, journaled.subList(0, acknowledged.size()));
+        }
+    }
+
+    /**
+     * Appends records without ever closing the journal and halts the JVM right after the last
+     * acknowledgement, in the middle of a segment. A negative count appends until killed.
+     */
+    static class CrashingWriter {
+
+        public static void main(String[] args) throws IOException {
+            MappedJournal journal = MappedJournal.open(Path.of(args[0]), SEGMENT_BYTES, false, 0);
+            PrintStream out = new PrintStream(System.out, true, StandardCharsets.UTF_8);
+            int count = Integer.parseInt(args[1]);
+            for (int i = 1; count < 0 || i <= count; i++) {
+                long seq = journal.append(payload(i));
+                out.println("ACK " + seq);
+            }
+            Runtime.getRuntime().halt(137);
+        }
+    }
+
+    private static byte[] payload(long seq) {
+        return ("movement-" + seq).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static List<Long> acknowledged(Path output) throws IOException {
+        if (!Files.exists(output)) {
+            return List.of();
+        }
+
+        // only complete lines count: the last one can be cut off by the kill
+        String content = Files.readString(output);
+        return content.substring(0, content.lastIndexOf('\n') + 1).lines()
+                .filter(line -> line.startsWith("ACK "))
+                .map(line -> Long.parseLong(line.substring(4)))
+                .toList();
+    }
+
+    private long segmentCount() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.count();
+        }
+    }
+}